@@ -0,0 +1,476 @@
+package Encryption;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+/**
+ * The {@code ArticleEnvelope} packs the six encrypted text fields of an article into one plaintext
+ * so the whole article is encrypted and decrypted with a single cipher operation.
+ *
+ * The plaintext starts with a format byte, followed by the title, authors, abstract, keywords, body, and
+ * references, each written as a 4 byte length and its UTF-8 bytes. After one decrypt, each field can be
+ * sliced out of the plaintext without decoding the others.
+ *
+ * The body and references can be compressed with Deflate before the envelope is encrypted, when they are at
+ * least a threshold long and get smaller. An envelope with compressed fields has format byte
+ * {@value #COMPRESSED_FORMAT_VERSION} followed by a byte with one bit set per compressed field, and each
+ * compressed field holds its UTF-8 length followed by the deflated bytes. Compressed fields are inflated when
+ * they are read, so reading only the title of an article never inflates its body.
+ *
+ * Articles are stored as two envelopes, see {@link #sealParts(Sealer, int, char[]...)}: a summary part with
+ * the title, authors, abstract, and keywords, and a content part with the body and references, so a list of
+ * articles reads and decrypts only the summary parts. A part has format byte {@value #PART_FORMAT_VERSION}
+ * followed by the index of its first field, the index after its last field, and the byte of compressed fields.
+ * Articles sealed before parts existed hold all six fields in one envelope.
+ */
+public class ArticleEnvelope {
+
+	public static final int TITLE = 0;
+	public static final int AUTHORS = 1;
+	public static final int ABSTRACT = 2;
+	public static final int KEYWORDS = 3;
+	public static final int BODY = 4;
+	public static final int REFERENCES = 5;
+
+	/**
+	 * Number of text fields in an envelope
+	 */
+	public static final int FIELD_COUNT = 6;
+
+	/**
+	 * Number of fields in the summary part, the title, authors, abstract, and keywords. The content part holds the rest
+	 */
+	public static final int SUMMARY_FIELD_COUNT = KEYWORDS + 1;
+
+	/**
+	 * Default length in UTF-8 bytes from which the body and references are compressed
+	 */
+	public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+	/**
+	 * Compression threshold that turns compression off
+	 */
+	public static final int NO_COMPRESSION = Integer.MAX_VALUE;
+
+	private static final byte FORMAT_VERSION = 1;
+	private static final byte COMPRESSED_FORMAT_VERSION = 2;
+	private static final byte PART_FORMAT_VERSION = 3;
+
+	/**
+	 * Fields long enough to be worth compressing. Titles, authors, abstracts, and keywords stay uncompressed
+	 */
+	private static final int[] COMPRESSIBLE_FIELDS = { BODY, REFERENCES };
+
+	/**
+	 * Largest field an envelope may inflate to, so a damaged length can't exhaust memory
+	 */
+	private static final int MAX_FIELD_LENGTH = 64 * 1024 * 1024;
+
+	/**
+	 * Deflaters and Inflaters hold native memory, so each thread keeps and resets its own
+	 */
+	private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+	private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+	private final byte[] plainText;
+	private final int[] offsets = new int[FIELD_COUNT];
+	private final int[] lengths = new int[FIELD_COUNT];
+	private final int compressedFields;
+	private final int firstField;
+	private final int endField;
+
+	private ArticleEnvelope(byte[] plainText) {
+		this.plainText = plainText;
+		ByteBuffer buffer = ByteBuffer.wrap(plainText);
+		byte format = buffer.hasRemaining() ? buffer.get() : 0;
+		if (format == PART_FORMAT_VERSION && buffer.remaining() >= 3) {
+			firstField = buffer.get();
+			endField = buffer.get();
+			compressedFields = buffer.get() & 0xFF;
+			if (firstField < 0 || endField > FIELD_COUNT || firstField >= endField) {
+				throw new IllegalArgumentException("Article envelope part holds no valid fields");
+			}
+		} else if (format == COMPRESSED_FORMAT_VERSION && buffer.hasRemaining()) {
+			firstField = 0;
+			endField = FIELD_COUNT;
+			compressedFields = buffer.get() & 0xFF;
+		} else if (format == FORMAT_VERSION) {
+			firstField = 0;
+			endField = FIELD_COUNT;
+			compressedFields = 0;
+		} else {
+			throw new IllegalArgumentException("Unknown article envelope format");
+		}
+		for (int field = firstField; field < endField; field++) {
+			if (buffer.remaining() < Integer.BYTES) {
+				throw new IllegalArgumentException("Article envelope is truncated");
+			}
+			int length = buffer.getInt();
+			if (length < 0 || length > buffer.remaining()) {
+				throw new IllegalArgumentException("Article envelope is truncated");
+			}
+			offsets[field] = buffer.position();
+			lengths[field] = length;
+			buffer.position(buffer.position() + length);
+		}
+	}
+
+	/**
+	 * Packs the text fields of an article and encrypts them with one cipher operation of a sealer,
+	 * which picks the IV or nonce and stores it with its version in the ciphertext
+	 *
+	 * @param sealer the sealer to encrypt with, such as a cipher suite
+	 * @param fields title, authors, abstract, keywords, body, and references, in that order
+	 * @return the encrypted envelope
+	 * @throws Exception if encryption fails
+	 */
+	public static byte[] seal(Sealer sealer, char[]... fields) throws Exception {
+		return seal(sealer, NO_COMPRESSION, fields);
+	}
+
+	/**
+	 * Packs the text fields of an article, compressing the body and references if they are long enough, and
+	 * encrypts them with one cipher operation of a sealer
+	 *
+	 * @param sealer the sealer to encrypt with, such as a cipher suite
+	 * @param compressionThreshold UTF-8 length from which the body and references are compressed, or
+	 *                             {@link #NO_COMPRESSION}
+	 * @param fields title, authors, abstract, keywords, body, and references, in that order
+	 * @return the encrypted envelope
+	 * @throws Exception if encryption fails
+	 */
+	public static byte[] seal(Sealer sealer, int compressionThreshold, char[]... fields) throws Exception {
+		return seal(sealer, compressionThreshold, 0, FIELD_COUNT, fields);
+	}
+
+	/**
+	 * Packs a range of the text fields of an article, compressing the body and references if they are in the range
+	 * and long enough, and encrypts them with one cipher operation of a sealer
+	 *
+	 * @param sealer the sealer to encrypt with, such as a cipher suite
+	 * @param compressionThreshold UTF-8 length from which the body and references are compressed, or
+	 *                             {@link #NO_COMPRESSION}
+	 * @param firstField index of the first field to pack
+	 * @param endField index after the last field to pack
+	 * @param fields title, authors, abstract, keywords, body, and references, in that order
+	 * @return the encrypted envelope
+	 * @throws Exception if encryption fails
+	 */
+	public static byte[] seal(Sealer sealer, int compressionThreshold, int firstField, int endField, char[]... fields) throws Exception {
+		byte[] packed = pack(compressionThreshold, firstField, endField, fields);
+		try {
+			return sealer.encrypt(packed);
+		} finally {
+			Arrays.fill(packed, (byte) 0);
+		}
+	}
+
+	/**
+	 * Seals the text fields of an article as a summary part and a content part, each with one cipher operation
+	 * of a sealer
+	 *
+	 * @param sealer the sealer to encrypt with, such as a cipher suite
+	 * @param compressionThreshold UTF-8 length from which the body and references are compressed, or
+	 *                             {@link #NO_COMPRESSION}
+	 * @param fields title, authors, abstract, keywords, body, and references, in that order
+	 * @return the encrypted parts
+	 * @throws Exception if encryption fails
+	 */
+	public static Parts sealParts(Sealer sealer, int compressionThreshold, char[]... fields) throws Exception {
+		return new Parts(seal(sealer, compressionThreshold, 0, SUMMARY_FIELD_COUNT, fields),
+				seal(sealer, compressionThreshold, SUMMARY_FIELD_COUNT, FIELD_COUNT, fields));
+	}
+
+	/**
+	 * Decrypts an envelope sealed by a cipher suite, with the suite named in the ciphertext
+	 *
+	 * @param cipherText the encrypted envelope
+	 * @return the opened envelope, to read fields from
+	 * @throws Exception if decryption fails or the plaintext is not an envelope
+	 */
+	public static ArticleEnvelope open(byte[] cipherText) throws Exception {
+		return unpack(CipherSuites.decrypt(cipherText));
+	}
+
+	/**
+	 * Packs the text fields of an article and encrypts them with one cipher operation, using an IV kept
+	 * outside the envelope as articles were before cipher suites
+	 *
+	 * @param helper the helper to encrypt with
+	 * @param initializationVector the initialization vector of the article
+	 * @param fields title, authors, abstract, keywords, body, and references, in that order
+	 * @return the encrypted envelope
+	 * @throws Exception if encryption fails
+	 */
+	public static byte[] seal(EncryptionHelper helper, byte[] initializationVector, char[]... fields) throws Exception {
+		byte[] packed = pack(fields);
+		try {
+			return helper.encrypt(packed, initializationVector);
+		} finally {
+			Arrays.fill(packed, (byte) 0);
+		}
+	}
+
+	/**
+	 * Decrypts an envelope sealed with an IV kept outside the envelope, with one cipher operation
+	 *
+	 * @param helper the helper to decrypt with
+	 * @param cipherText the encrypted envelope
+	 * @param initializationVector the initialization vector of the article
+	 * @return the opened envelope, to read fields from
+	 * @throws Exception if decryption fails or the plaintext is not an envelope
+	 */
+	public static ArticleEnvelope open(EncryptionHelper helper, byte[] cipherText, byte[] initializationVector) throws Exception {
+		return unpack(helper.decrypt(cipherText, initializationVector));
+	}
+
+	/**
+	 * Packs the text fields of an article into the envelope plaintext
+	 *
+	 * @param fields title, authors, abstract, keywords, body, and references, in that order
+	 * @return the plaintext
+	 */
+	public static byte[] pack(char[]... fields) {
+		return pack(NO_COMPRESSION, fields);
+	}
+
+	/**
+	 * Packs the text fields of an article into the envelope plaintext, compressing the body and references
+	 * if they are at least a threshold long and compression makes them smaller
+	 *
+	 * @param compressionThreshold UTF-8 length from which the body and references are compressed, or
+	 *                             {@link #NO_COMPRESSION}
+	 * @param fields title, authors, abstract, keywords, body, and references, in that order
+	 * @return the plaintext
+	 */
+	public static byte[] pack(int compressionThreshold, char[]... fields) {
+		return pack(compressionThreshold, 0, FIELD_COUNT, fields);
+	}
+
+	/**
+	 * Packs a range of the text fields of an article into the envelope plaintext. All six fields packs an
+	 * envelope of the whole article, fewer packs a part.
+	 *
+	 * @param compressionThreshold UTF-8 length from which the body and references are compressed, or
+	 *                             {@link #NO_COMPRESSION}
+	 * @param firstField index of the first field to pack
+	 * @param endField index after the last field to pack
+	 * @param fields title, authors, abstract, keywords, body, and references, in that order
+	 * @return the plaintext
+	 */
+	public static byte[] pack(int compressionThreshold, int firstField, int endField, char[]... fields) {
+		if (fields.length != FIELD_COUNT) {
+			throw new IllegalArgumentException("Expected " + FIELD_COUNT + " fields but got " + fields.length);
+		}
+		if (firstField < 0 || endField > FIELD_COUNT || firstField >= endField) {
+			throw new IllegalArgumentException("No fields from " + firstField + " to " + endField);
+		}
+		boolean part = firstField != 0 || endField != FIELD_COUNT;
+		int[] encodedLengths = new int[FIELD_COUNT];
+		for (int field = firstField; field < endField; field++) {
+			encodedLengths[field] = EncryptionUtils.utf8Length(fields[field], 0, fields[field].length);
+		}
+		byte[][] compressed = new byte[FIELD_COUNT][];
+		int compressedFields = 0;
+		for (int field : COMPRESSIBLE_FIELDS) {
+			if (field >= firstField && field < endField && encodedLengths[field] >= compressionThreshold) {
+				compressed[field] = deflate(fields[field], encodedLengths[field]);
+				if (compressed[field] != null) {
+					compressedFields |= 1 << field;
+				}
+			}
+		}
+
+		// Sized exactly up front, so each uncompressed field is encoded straight into the plaintext
+		int size = part ? 4 : compressedFields != 0 ? 2 : 1;
+		for (int field = firstField; field < endField; field++) {
+			size += Integer.BYTES + (compressed[field] != null ? compressed[field].length : encodedLengths[field]);
+		}
+		byte[] plainText = new byte[size];
+		ByteBuffer buffer = ByteBuffer.wrap(plainText);
+		if (part) {
+			buffer.put(PART_FORMAT_VERSION).put((byte) firstField).put((byte) endField).put((byte) compressedFields);
+		} else if (compressedFields != 0) {
+			buffer.put(COMPRESSED_FORMAT_VERSION).put((byte) compressedFields);
+		} else {
+			buffer.put(FORMAT_VERSION);
+		}
+		for (int field = firstField; field < endField; field++) {
+			if (compressed[field] != null) {
+				buffer.putInt(compressed[field].length).put(compressed[field]);
+				continue;
+			}
+			buffer.putInt(encodedLengths[field]);
+			EncryptionUtils.encodeUtf8(fields[field], 0, fields[field].length, plainText, buffer.position());
+			buffer.position(buffer.position() + encodedLengths[field]);
+		}
+		return plainText;
+	}
+
+	/**
+	 * Compresses one field
+	 *
+	 * @return the UTF-8 length followed by the deflated bytes, or null if that isn't smaller than the field
+	 */
+	private static byte[] deflate(char[] text, int encodedLength) {
+		if (encodedLength <= Integer.BYTES) {
+			return null;
+		}
+		byte[] utf8 = new byte[encodedLength];
+		EncryptionUtils.encodeUtf8(text, 0, text.length, utf8, 0);
+		Deflater deflater = DEFLATER.get();
+		deflater.reset();
+		deflater.setInput(utf8);
+		deflater.finish();
+		// Anything that doesn't fit in the field's own length isn't worth keeping
+		byte[] compressed = new byte[encodedLength];
+		ByteBuffer.wrap(compressed).putInt(encodedLength);
+		int length = Integer.BYTES;
+		while (!deflater.finished() && length < compressed.length) {
+			length += deflater.deflate(compressed, length, compressed.length - length);
+		}
+		Arrays.fill(utf8, (byte) 0);
+		return deflater.finished() ? Arrays.copyOf(compressed, length) : null;
+	}
+
+	/**
+	 * Reads the field offsets of an envelope plaintext
+	 *
+	 * @param plainText the decrypted envelope
+	 * @return the envelope, to read fields from
+	 * @throws IllegalArgumentException if the plaintext is not an envelope
+	 */
+	public static ArticleEnvelope unpack(byte[] plainText) {
+		return new ArticleEnvelope(plainText);
+	}
+
+	/**
+	 * Decodes one field
+	 *
+	 * @param field index of the field, such as {@link #BODY}
+	 * @return the text of the field
+	 * @throws IllegalArgumentException if the envelope is a part that doesn't hold the field
+	 */
+	public char[] field(int field) {
+		if (!holds(field)) {
+			throw new IllegalArgumentException("Article envelope part does not hold field " + field);
+		}
+		if ((compressedFields & (1 << field)) == 0) {
+			char[] text = new char[EncryptionUtils.utf8CharLength(plainText, offsets[field], lengths[field])];
+			EncryptionUtils.decodeUtf8(plainText, offsets[field], lengths[field], text, 0);
+			return text;
+		}
+		byte[] utf8 = inflate(field);
+		try {
+			return EncryptionUtils.toCharArray(utf8);
+		} finally {
+			Arrays.fill(utf8, (byte) 0);
+		}
+	}
+
+	/**
+	 * Checks whether the envelope holds a field, which a part only does for the fields sealed in it
+	 *
+	 * @param field index of the field, such as {@link #BODY}
+	 * @return true if the field can be read
+	 */
+	public boolean holds(int field) {
+		return field >= firstField && field < endField;
+	}
+
+	/**
+	 * @return length of the plaintext, kept in memory as long as the envelope is
+	 */
+	public int sizeInBytes() {
+		return plainText.length;
+	}
+
+	/**
+	 * Checks whether a field was compressed when the envelope was packed
+	 *
+	 * @param field index of the field, such as {@link #BODY}
+	 * @return true if the field is stored deflated
+	 */
+	public boolean isCompressed(int field) {
+		return (compressedFields & (1 << field)) != 0;
+	}
+
+	/**
+	 * Inflates a compressed field to its UTF-8 bytes
+	 */
+	private byte[] inflate(int field) {
+		if (lengths[field] < Integer.BYTES) {
+			throw new IllegalArgumentException("Article envelope is truncated");
+		}
+		int length = ByteBuffer.wrap(plainText, offsets[field], Integer.BYTES).getInt();
+		if (length < 0 || length > MAX_FIELD_LENGTH) {
+			throw new IllegalArgumentException("Compressed article field has an invalid length");
+		}
+		byte[] utf8 = new byte[length];
+		Inflater inflater = INFLATER.get();
+		inflater.reset();
+		inflater.setInput(plainText, offsets[field] + Integer.BYTES, lengths[field] - Integer.BYTES);
+		try {
+			int inflated = 0;
+			while (inflated < length && !inflater.finished()) {
+				int count = inflater.inflate(utf8, inflated, length - inflated);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				inflated += count;
+			}
+			if (inflated != length || !inflater.finished()) {
+				throw new IllegalArgumentException("Compressed article field is damaged");
+			}
+		} catch (DataFormatException e) {
+			throw new IllegalArgumentException("Compressed article field is damaged", e);
+		}
+		return utf8;
+	}
+
+	/**
+	 * Decodes every field the envelope holds
+	 *
+	 * @return title, authors, abstract, keywords, body, and references, in that order, null for fields a part doesn't hold
+	 */
+	public char[][] fields() {
+		char[][] fields = new char[FIELD_COUNT][];
+		for (int field = firstField; field < endField; field++) {
+			fields[field] = field(field);
+		}
+		return fields;
+	}
+
+	/**
+	 * The summary part and content part of an article, each sealed as its own envelope
+	 */
+	public static final class Parts {
+		private final byte[] summary;
+		private final byte[] content;
+
+		/**
+		 * @param summary the sealed title, authors, abstract, and keywords
+		 * @param content the sealed body and references
+		 */
+		public Parts(byte[] summary, byte[] content) {
+			this.summary = summary;
+			this.content = content;
+		}
+
+		/**
+		 * @return the sealed title, authors, abstract, and keywords
+		 */
+		public byte[] getSummary() {
+			return summary;
+		}
+
+		/**
+		 * @return the sealed body and references
+		 */
+		public byte[] getContent() {
+			return content;
+		}
+	}
+}
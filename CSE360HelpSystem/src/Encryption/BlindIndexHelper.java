@@ -0,0 +1,73 @@
+package Encryption;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+/**
+ * The {@code BlindIndexHelper} turns search terms into keyed hash tokens (HMAC-SHA256) that can be
+ * stored and compared in the database without revealing the terms themselves.
+ *
+ * The HMAC key is derived from the article encryption key, so the tokens can only be computed
+ * by someone who could also decrypt the articles, but the two keys are never the same.
+ */
+public class BlindIndexHelper {
+
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	/**
+	 * Number of HMAC bytes kept in each token
+	 */
+	private static final int TOKEN_BYTES = 16;
+
+	private final SecretKeySpec key;
+
+	/**
+	 * A Mac is not thread safe, so each thread gets its own
+	 */
+	private final ThreadLocal<Mac> mac;
+
+	/**
+	 * Constructor for BlindIndexHelper that derives the HMAC key from the article encryption key
+	 *
+	 * @throws Exception if the HMAC algorithm is unavailable
+	 */
+	public BlindIndexHelper() throws Exception {
+		this(EncryptionHelper.keyBytes());
+	}
+
+	/**
+	 * Constructor for BlindIndexHelper that derives the HMAC key from the given key material
+	 *
+	 * @param keyMaterial secret the HMAC key is derived from
+	 * @throws GeneralSecurityException if the HMAC algorithm is unavailable
+	 */
+	public BlindIndexHelper(byte[] keyMaterial) throws GeneralSecurityException {
+		Mac derive = Mac.getInstance(HMAC_ALGORITHM);
+		derive.init(new SecretKeySpec(keyMaterial, HMAC_ALGORITHM));
+		key = new SecretKeySpec(derive.doFinal("article-blind-index".getBytes(StandardCharsets.UTF_8)), HMAC_ALGORITHM);
+		mac = ThreadLocal.withInitial(() -> {
+			try {
+				Mac threadMac = Mac.getInstance(HMAC_ALGORITHM);
+				threadMac.init(key);
+				return threadMac;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("Unable to initialize " + HMAC_ALGORITHM, e);
+			}
+		});
+	}
+
+	/**
+	 * Computes the token for a term. The same term always gives the same token.
+	 *
+	 * @param term the term to hash
+	 * @return Base64 encoded token
+	 */
+	public String token(String term) {
+		byte[] hash = mac.get().doFinal(term.getBytes(StandardCharsets.UTF_8));
+		return Base64.getEncoder().encodeToString(Arrays.copyOf(hash, TOKEN_BYTES));
+	}
+}
@@ -0,0 +1,65 @@
+package Encryption;
+
+import javax.crypto.SecretKey;
+
+/**
+ * The {@code CipherSuite} is a way of encrypting stored article data.
+ *
+ * Ciphertext produced by a suite starts with the suite's version byte followed by the IV or nonce the suite
+ * picked for it, so data written with different suites can be stored side by side and each record is
+ * decrypted with the suite that wrote it, see {@link CipherSuites#decrypt(byte[])}.
+ *
+ * A suite encrypts with the article key when used as a {@link Sealer}, and with a key it is given otherwise, such as
+ * a data key from {@link KeyHierarchy}.
+ * Suites that authenticate their ciphertext also authenticate their version byte, and any header the caller
+ * writes in front of the ciphertext, so a header can't be swapped without decryption failing.
+ */
+public interface CipherSuite extends Sealer {
+
+	/**
+	 * @return a readable name of the suite, such as AES-GCM
+	 */
+	String getName();
+
+	/**
+	 * Encrypts a plaintext with a given key and a fresh IV or nonce
+	 *
+	 * @param key the AES key to encrypt with
+	 * @param plainText the data to encrypt
+	 * @return the version byte, the IV or nonce, and the ciphertext
+	 * @throws Exception if encryption fails
+	 */
+	byte[] encrypt(SecretKey key, byte[] plainText) throws Exception;
+
+	/**
+	 * Decrypts ciphertext produced by {@link #encrypt(SecretKey, byte[])}
+	 *
+	 * @param key the AES key the data was encrypted with
+	 * @param cipherText the version byte, the IV or nonce, and the ciphertext
+	 * @return the plaintext
+	 * @throws Exception if the ciphertext was not written by this suite or decryption fails
+	 */
+	byte[] decrypt(SecretKey key, byte[] cipherText) throws Exception;
+
+	/**
+	 * Encrypts a plaintext with a given key, and authenticates bytes the caller stores in front of the ciphertext
+	 *
+	 * @param key the AES key to encrypt with
+	 * @param plainText the data to encrypt
+	 * @param associatedData bytes that must be passed again to decrypt, ignored by suites that don't authenticate
+	 * @return the version byte, the IV or nonce, and the ciphertext
+	 * @throws Exception if encryption fails
+	 */
+	byte[] encrypt(SecretKey key, byte[] plainText, byte[] associatedData) throws Exception;
+
+	/**
+	 * Decrypts ciphertext produced by {@link #encrypt(SecretKey, byte[], byte[])}
+	 *
+	 * @param key the AES key the data was encrypted with
+	 * @param cipherText the version byte, the IV or nonce, and the ciphertext
+	 * @param associatedData the bytes given when the data was encrypted
+	 * @return the plaintext
+	 * @throws Exception if the ciphertext was not written by this suite, or decryption or authentication fails
+	 */
+	byte[] decrypt(SecretKey key, byte[] cipherText, byte[] associatedData) throws Exception;
+}
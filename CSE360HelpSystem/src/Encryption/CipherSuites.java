@@ -0,0 +1,226 @@
+package Encryption;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+/**
+ * The {@code CipherSuites} class holds the cipher suites articles can be stored with.
+ *
+ * AES-CBC is the mode articles have always used, on the Bouncy Castle provider, now with a random IV per record.
+ * AES-GCM runs on the JDK's own provider, where HotSpot uses the AES and carry-less multiply instructions of
+ * the processor, and authenticates the ciphertext along with its version byte and the header of any data key it
+ * was sealed with. Both suites use the article key unless given another key,
+ * and keep a Cipher per thread. Ciphertext sealed with a data key is passed on to {@link KeyHierarchy}.
+ */
+public final class CipherSuites {
+
+	/**
+	 * AES in CBC mode with PKCS5 padding and a random 16 byte IV, through {@link EncryptionHelper}
+	 */
+	public static final CipherSuite AES_CBC = new AesCbc();
+
+	/**
+	 * AES in GCM mode with a random 12 byte nonce and a 128 bit tag, on the SunJCE provider
+	 */
+	public static final CipherSuite AES_GCM = new AesGcm();
+
+	/**
+	 * Suite new articles are encrypted with
+	 */
+	public static final CipherSuite DEFAULT = AES_GCM;
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	private static final byte[] NO_ASSOCIATED_DATA = new byte[0];
+
+	private CipherSuites() {
+	}
+
+	/**
+	 * Finds the suite that wrote a ciphertext
+	 *
+	 * @param version the first byte of the ciphertext
+	 * @return the suite
+	 * @throws IllegalArgumentException if no suite has that version
+	 */
+	public static CipherSuite forVersion(byte version) {
+		if (version == AES_CBC.getVersion()) {
+			return AES_CBC;
+		}
+		if (version == AES_GCM.getVersion()) {
+			return AES_GCM;
+		}
+		throw new IllegalArgumentException("Unknown cipher suite version " + version);
+	}
+
+	/**
+	 * Decrypts a ciphertext with the suite named by its version byte
+	 *
+	 * @param cipherText ciphertext written by one of the suites, with the article key or a data key
+	 * @return the plaintext
+	 * @throws Exception if decryption fails
+	 */
+	public static byte[] decrypt(byte[] cipherText) throws Exception {
+		if (cipherText.length == 0) {
+			throw new IllegalArgumentException("Ciphertext is empty");
+		}
+		if (cipherText[0] == KeyHierarchy.KEYED_VERSION) {
+			// Encrypted with a data key, which names the suite in its own header
+			return KeyHierarchy.getInstance().decrypt(cipherText);
+		}
+		return forVersion(cipherText[0]).decrypt(cipherText);
+	}
+
+	private static byte[] randomBytes(int length) {
+		byte[] bytes = new byte[length];
+		RANDOM.nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Checks the version byte and the length of a ciphertext
+	 */
+	private static void checkHeader(CipherSuite suite, byte[] cipherText, int headerLength) {
+		if (cipherText.length <= headerLength || cipherText[0] != suite.getVersion()) {
+			throw new IllegalArgumentException("Ciphertext was not written with " + suite.getName());
+		}
+	}
+
+	private static final class AesCbc implements CipherSuite {
+		private static final int IV_LENGTH = 16;
+		private static final SecretKey KEY = new SecretKeySpec(EncryptionHelper.keyBytes(), "AES");
+
+		@Override
+		public byte getVersion() {
+			return 1;
+		}
+
+		@Override
+		public String getName() {
+			return "AES-CBC";
+		}
+
+		@Override
+		public byte[] encrypt(byte[] plainText) throws Exception {
+			return encrypt(KEY, plainText);
+		}
+
+		@Override
+		public byte[] decrypt(byte[] cipherText) throws Exception {
+			return decrypt(KEY, cipherText);
+		}
+
+		@Override
+		public byte[] encrypt(SecretKey key, byte[] plainText) throws Exception {
+			return encrypt(key, plainText, NO_ASSOCIATED_DATA);
+		}
+
+		@Override
+		public byte[] decrypt(SecretKey key, byte[] cipherText) throws Exception {
+			return decrypt(key, cipherText, NO_ASSOCIATED_DATA);
+		}
+
+		/**
+		 * CBC doesn't authenticate, so the associated data is not used
+		 */
+		@Override
+		public byte[] encrypt(SecretKey key, byte[] plainText, byte[] associatedData) throws Exception {
+			byte[] iv = randomBytes(IV_LENGTH);
+			byte[] encrypted = EncryptionHelper.getInstance().encrypt(plainText, iv, key);
+			byte[] cipherText = new byte[1 + IV_LENGTH + encrypted.length];
+			cipherText[0] = getVersion();
+			System.arraycopy(iv, 0, cipherText, 1, IV_LENGTH);
+			System.arraycopy(encrypted, 0, cipherText, 1 + IV_LENGTH, encrypted.length);
+			return cipherText;
+		}
+
+		@Override
+		public byte[] decrypt(SecretKey key, byte[] cipherText, byte[] associatedData) throws Exception {
+			checkHeader(this, cipherText, IV_LENGTH + 1);
+			byte[] iv = Arrays.copyOfRange(cipherText, 1, 1 + IV_LENGTH);
+			return EncryptionHelper.getInstance().decrypt(Arrays.copyOfRange(cipherText, 1 + IV_LENGTH, cipherText.length), iv, key);
+		}
+	}
+
+	private static final class AesGcm implements CipherSuite {
+		private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+		private static final String PROVIDER = "SunJCE";
+		private static final int NONCE_LENGTH = 12;
+		private static final int TAG_BITS = 128;
+		private static final SecretKey KEY = new SecretKeySpec(EncryptionHelper.keyBytes(), "AES");
+
+		/**
+		 * A Cipher is not thread safe, so each thread gets its own
+		 */
+		private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+			try {
+				return Cipher.getInstance(TRANSFORMATION, PROVIDER);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("Unable to create " + TRANSFORMATION + " cipher", e);
+			}
+		});
+
+		@Override
+		public byte getVersion() {
+			return 2;
+		}
+
+		@Override
+		public String getName() {
+			return "AES-GCM";
+		}
+
+		@Override
+		public byte[] encrypt(byte[] plainText) throws Exception {
+			return encrypt(KEY, plainText);
+		}
+
+		@Override
+		public byte[] decrypt(byte[] cipherText) throws Exception {
+			return decrypt(KEY, cipherText);
+		}
+
+		@Override
+		public byte[] encrypt(SecretKey key, byte[] plainText) throws Exception {
+			return encrypt(key, plainText, NO_ASSOCIATED_DATA);
+		}
+
+		@Override
+		public byte[] decrypt(SecretKey key, byte[] cipherText) throws Exception {
+			return decrypt(key, cipherText, NO_ASSOCIATED_DATA);
+		}
+
+		@Override
+		public byte[] encrypt(SecretKey key, byte[] plainText, byte[] associatedData) throws Exception {
+			byte[] nonce = randomBytes(NONCE_LENGTH);
+			Cipher cipher = CIPHER.get();
+			cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+			// Write straight after the header instead of copying the ciphertext
+			byte[] cipherText = new byte[1 + NONCE_LENGTH + cipher.getOutputSize(plainText.length)];
+			cipherText[0] = getVersion();
+			System.arraycopy(nonce, 0, cipherText, 1, NONCE_LENGTH);
+			// The nonce is already bound by GCM, the version byte and the caller's header are not
+			cipher.updateAAD(associatedData);
+			cipher.updateAAD(cipherText, 0, 1);
+			int length = cipher.doFinal(plainText, 0, plainText.length, cipherText, 1 + NONCE_LENGTH);
+			return length == cipherText.length - 1 - NONCE_LENGTH ? cipherText : Arrays.copyOf(cipherText, 1 + NONCE_LENGTH + length);
+		}
+
+		@Override
+		public byte[] decrypt(SecretKey key, byte[] cipherText, byte[] associatedData) throws Exception {
+			checkHeader(this, cipherText, NONCE_LENGTH + 1);
+			Cipher cipher = CIPHER.get();
+			cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, cipherText, 1, NONCE_LENGTH));
+			cipher.updateAAD(associatedData);
+			cipher.updateAAD(cipherText, 0, 1);
+			int offset = 1 + NONCE_LENGTH;
+			return cipher.doFinal(cipherText, offset, cipherText.length - offset);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package Encryption;
+
+/**
+ * The {@code DataKeyRecord} is a data key as it is stored: the key id written into ciphertext sealed with it,
+ * the version of the master key it is wrapped with, and the wrapped key bytes.
+ */
+public final class DataKeyRecord {
+
+	private final long keyId;
+	private final int masterKeyVersion;
+	private final byte[] wrappedKey;
+
+	/**
+	 * Creates a record
+	 *
+	 * @param keyId the id of the data key
+	 * @param masterKeyVersion the version of the master key that wrapped it
+	 * @param wrappedKey the wrapped key bytes
+	 */
+	public DataKeyRecord(long keyId, int masterKeyVersion, byte[] wrappedKey) {
+		this.keyId = keyId;
+		this.masterKeyVersion = masterKeyVersion;
+		this.wrappedKey = wrappedKey.clone();
+	}
+
+	/**
+	 * @return the id of the data key
+	 */
+	public long getKeyId() {
+		return keyId;
+	}
+
+	/**
+	 * @return the version of the master key that wrapped the data key
+	 */
+	public int getMasterKeyVersion() {
+		return masterKeyVersion;
+	}
+
+	/**
+	 * @return a copy of the wrapped key bytes
+	 */
+	public byte[] getWrappedKey() {
+		return wrappedKey.clone();
+	}
+}
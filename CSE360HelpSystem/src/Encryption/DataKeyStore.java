@@ -0,0 +1,24 @@
+package Encryption;
+
+/**
+ * The {@code DataKeyStore} keeps the wrapped data keys of a {@link KeyHierarchy}, such as a database table.
+ */
+public interface DataKeyStore {
+
+	/**
+	 * Saves a new data key, or replaces the record of a key that was wrapped again
+	 *
+	 * @param record the wrapped key
+	 * @throws Exception if the key can't be saved
+	 */
+	void save(DataKeyRecord record) throws Exception;
+
+	/**
+	 * Loads a data key
+	 *
+	 * @param keyId the id of the key
+	 * @return the wrapped key, or null if there is no key with that id
+	 * @throws Exception if the key can't be loaded
+	 */
+	DataKeyRecord load(long keyId) throws Exception;
+}
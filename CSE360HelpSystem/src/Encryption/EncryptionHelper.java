@@ -1,65 +1,154 @@
-package Encryption;
-
-import java.security.Security;
-
-import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
-import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
-
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
-/**
- * The {@code EncryptionHelper} handles the encrypt and decrypt functions
- * 
- * 
- * @author Lynn Robert carter
- */
-public class EncryptionHelper {
-
-	private static String BOUNCY_CASTLE_PROVIDER_IDENTIFIER = "BC";	
-	private Cipher cipher;
-	
-	byte[] keyBytes = new byte[] {
-            0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07,
-            0x08, 0x09, 0x0a, 0x0b, 0x0c, 0x0d, 0x0e, 0x0f,
-            0x10, 0x11, 0x12, 0x13, 0x14, 0x15, 0x16, 0x17 };
-	private SecretKey key = new SecretKeySpec(keyBytes, "AES");
-
-	/**
-	 * Constructor for EncryptionHelper that initializes the Bouncy Castle security provider
-	 * and sets up the AES cipher in CBC mode with PKCS5 padding.
-	 *
-	 * @throws Exception if there's an error initializing the cipher or security provider
-	 */
-	public EncryptionHelper() throws Exception {
-		Security.addProvider(new BouncyCastleProvider());
-		cipher = Cipher.getInstance("AES/CBC/PKCS5Padding", BOUNCY_CASTLE_PROVIDER_IDENTIFIER);		
-	}
-	
-	/**
-	 * Encrypts the given plaintext using AES encryption with the specified initialization vector.
-	 *
-	 * @param plainText the data to be encrypted
-	 * @param initializationVector the initialization vector to use for encryption
-	 * @return the encrypted data as a byte array
-	 * @throws Exception if encryption fails
-	 */
-	public byte[] encrypt(byte[] plainText, byte[] initializationVector) throws Exception {
-		cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(initializationVector));
-		return cipher.doFinal(plainText);
-	}
-	
-	/**
-	 * Decrypts the given ciphertext using AES decryption with the specified initialization vector.
-	 *
-	 * @param cipherText the data to be decrypted
-	 * @param initializationVector the initialization vector used for encryption
-	 * @return the decrypted data as a byte array
-	 * @throws Exception if decryption fails
-	 */
-	public byte[] decrypt(byte[] cipherText, byte[] initializationVector) throws Exception {
-		cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(initializationVector));
-		return cipher.doFinal(cipherText);
-	}
-	
-}
+package Encryption;
+
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.security.Security;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+/**
+ * The {@code EncryptionHelper} handles the encrypt and decrypt functions
+ *
+ * The helper is thread safe. The Bouncy Castle provider is registered and the key is built once,
+ * and every thread gets its own Cipher, so loaders, backups, and request handlers can share
+ * {@link #getInstance()} and encrypt or decrypt in parallel without locking.
+ *
+ * @author Lynn Robert carter
+ */
+public class EncryptionHelper {
+
+	private static String BOUNCY_CASTLE_PROVIDER_IDENTIFIER = "BC";
+	private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+
+	private static final byte[] KEY_BYTES = new byte[] {
+            0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07,
+            0x08, 0x09, 0x0a, 0x0b, 0x0c, 0x0d, 0x0e, 0x0f,
+            0x10, 0x11, 0x12, 0x13, 0x14, 0x15, 0x16, 0x17 };
+	private static final SecretKey KEY = new SecretKeySpec(KEY_BYTES, "AES");
+
+	/**
+	 * The Bouncy Castle provider, registered with the JCA the first time this class is used
+	 */
+	private static final Provider PROVIDER = registerProvider();
+
+	/**
+	 * A Cipher is not thread safe, so each thread gets its own
+	 */
+	private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+		try {
+			return Cipher.getInstance(TRANSFORMATION, PROVIDER);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to create " + TRANSFORMATION + " cipher", e);
+		}
+	});
+
+	private static final EncryptionHelper INSTANCE;
+	static {
+		try {
+			INSTANCE = new EncryptionHelper();
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Constructor for EncryptionHelper that checks the AES cipher in CBC mode with PKCS5 padding is available.
+	 * The cipher state is shared by all instances, so {@link #getInstance()} can be used instead.
+	 *
+	 * @throws Exception if there's an error initializing the cipher or security provider
+	 */
+	public EncryptionHelper() throws Exception {
+		Cipher.getInstance(TRANSFORMATION, PROVIDER);
+	}
+
+	/**
+	 * Gets the helper shared by the whole application
+	 *
+	 * @return the shared helper
+	 */
+	public static EncryptionHelper getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Registers the Bouncy Castle provider unless it is already registered
+	 *
+	 * @return the registered provider
+	 */
+	private static synchronized Provider registerProvider() {
+		Provider provider = Security.getProvider(BOUNCY_CASTLE_PROVIDER_IDENTIFIER);
+		if (provider == null) {
+			provider = new BouncyCastleProvider();
+			Security.addProvider(provider);
+		}
+		return provider;
+	}
+
+	/**
+	 * Gets a copy of the article encryption key, used to derive other keys from it and as the first master key
+	 *
+	 * @return the key bytes
+	 */
+	static byte[] keyBytes() {
+		return KEY_BYTES.clone();
+	}
+
+	/**
+	 * Encrypts the given plaintext using AES encryption with the specified initialization vector.
+	 *
+	 * @param plainText the data to be encrypted
+	 * @param initializationVector the initialization vector to use for encryption
+	 * @return the encrypted data as a byte array
+	 * @throws Exception if encryption fails
+	 */
+	public byte[] encrypt(byte[] plainText, byte[] initializationVector) throws Exception {
+		return encrypt(plainText, initializationVector, KEY);
+	}
+
+	/**
+	 * Encrypts the given plaintext using AES encryption with the specified initialization vector and key.
+	 *
+	 * @param plainText the data to be encrypted
+	 * @param initializationVector the initialization vector to use for encryption
+	 * @param key the AES key, such as a data key from {@link KeyHierarchy}
+	 * @return the encrypted data as a byte array
+	 * @throws Exception if encryption fails
+	 */
+	public byte[] encrypt(byte[] plainText, byte[] initializationVector, SecretKey key) throws Exception {
+		Cipher cipher = CIPHER.get();
+		cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(initializationVector));
+		return cipher.doFinal(plainText);
+	}
+
+	/**
+	 * Decrypts the given ciphertext using AES decryption with the specified initialization vector.
+	 *
+	 * @param cipherText the data to be decrypted
+	 * @param initializationVector the initialization vector used for encryption
+	 * @return the decrypted data as a byte array
+	 * @throws Exception if decryption fails
+	 */
+	public byte[] decrypt(byte[] cipherText, byte[] initializationVector) throws Exception {
+		return decrypt(cipherText, initializationVector, KEY);
+	}
+
+	/**
+	 * Decrypts the given ciphertext using AES decryption with the specified initialization vector and key.
+	 *
+	 * @param cipherText the data to be decrypted
+	 * @param initializationVector the initialization vector used for encryption
+	 * @param key the AES key the data was encrypted with
+	 * @return the decrypted data as a byte array
+	 * @throws Exception if decryption fails
+	 */
+	public byte[] decrypt(byte[] cipherText, byte[] initializationVector, SecretKey key) throws Exception {
+		Cipher cipher = CIPHER.get();
+		cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(initializationVector));
+		return cipher.doFinal(cipherText);
+	}
+
+}
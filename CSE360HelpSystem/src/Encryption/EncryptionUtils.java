@@ -1,67 +1,241 @@
-package Encryption;
-
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.charset.Charset;
-import java.util.Arrays;
-/**
- * The {@code EncryptionUtils} handles the IV generation, byte array conversions, and char array conversions. 
- * 
- * @author Lynn Robert carter
- * 
- */
-public class EncryptionUtils {
-	private static int IV_SIZE = 16;
-	
-	/**
-	 * Converts a byte array to a character array using the default charset.
-	 *
-	 * @param bytes the byte array to convert
-	 * @return the converted character array
-	 */
-	public static char[] toCharArray(byte[] bytes) {		
-        CharBuffer charBuffer = Charset.defaultCharset().decode(ByteBuffer.wrap(bytes));
-        return Arrays.copyOf(charBuffer.array(), charBuffer.limit());
-	}
-	
-	/**
-	 * Converts a character array to a byte array using the default charset.
-	 *
-	 * @param chars the character array to convert
-	 * @return the converted byte array
-	 */
-	public static byte[] toByteArray(char[] chars) {		
-        ByteBuffer byteBuffer = Charset.defaultCharset().encode(CharBuffer.wrap(chars));
-        return Arrays.copyOf(byteBuffer.array(), byteBuffer.limit());
-	}
-		
-	/**
-	 * Generates an initialization vector from the input text by cycling through its characters.
-	 * The resulting IV has a fixed size of 16 bytes.
-	 *
-	 * @param text the input text to generate the IV from
-	 * @return a byte array containing the initialization vector
-	 */
-	public static byte[] getInitializationVector(char[] text) {
-		char iv[] = new char[IV_SIZE];
-		
-		int textPointer = 0;
-		int ivPointer = 0;
-		while(ivPointer < IV_SIZE) {
-			iv[ivPointer++] = text[textPointer++ % text.length];
-		}
-		
-		return toByteArray(iv);
-	}
-	
-	/**
-	 * Prints the contents of a character array to standard output.
-	 *
-	 * @param chars the character array to print
-	 */
-	public static void printCharArray(char[] chars) {
-		for(char c : chars) {
-			System.out.print(c);
-		}
-	}
-}
+package Encryption;
+
+/**
+ * The {@code EncryptionUtils} handles the IV generation, byte array conversions, and char array conversions. 
+ * 
+ * Characters are always converted with UTF-8, whatever the platform default charset is. The conversions
+ * measure the exact size first and write straight into the destination array, so no intermediate buffers
+ * are allocated, and the {@code encodeUtf8} and {@code decodeUtf8} methods can write into a buffer the
+ * caller reuses. Unpaired surrogates are encoded as '?' and malformed bytes are decoded as U+FFFD, as the
+ * JDK's UTF-8 charset does.
+ * 
+ * @author Lynn Robert carter
+ * 
+ */
+public class EncryptionUtils {
+	private static int IV_SIZE = 16;
+	
+	private static final char REPLACEMENT_CHAR = '\uFFFD';
+	private static final byte REPLACEMENT_BYTE = '?';
+	
+	/**
+	 * Converts a UTF-8 byte array to a character array.
+	 *
+	 * @param bytes the byte array to convert
+	 * @return the converted character array
+	 */
+	public static char[] toCharArray(byte[] bytes) {		
+		char[] chars = new char[utf8CharLength(bytes, 0, bytes.length)];
+		decodeUtf8(bytes, 0, bytes.length, chars, 0);
+		return chars;
+	}
+	
+	/**
+	 * Converts a character array to a UTF-8 byte array.
+	 *
+	 * @param chars the character array to convert
+	 * @return the converted byte array
+	 */
+	public static byte[] toByteArray(char[] chars) {		
+		byte[] bytes = new byte[utf8Length(chars, 0, chars.length)];
+		encodeUtf8(chars, 0, chars.length, bytes, 0);
+		return bytes;
+	}
+	
+	/**
+	 * Counts the bytes needed to encode characters as UTF-8.
+	 *
+	 * @param chars the characters
+	 * @param offset index of the first character
+	 * @param length number of characters
+	 * @return the exact number of bytes {@link #encodeUtf8} writes
+	 */
+	public static int utf8Length(char[] chars, int offset, int length) {
+		int bytes = 0;
+		int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			char c = chars[i];
+			if (c < 0x80) {
+				bytes++;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+				bytes += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				bytes++; // Written as '?'
+			} else {
+				bytes += 3;
+			}
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Encodes characters as UTF-8 into a byte array supplied by the caller.
+	 *
+	 * @param chars the characters
+	 * @param offset index of the first character
+	 * @param length number of characters
+	 * @param dest the array to write to, with at least {@link #utf8Length} bytes free from destOffset
+	 * @param destOffset index in dest of the first byte written
+	 * @return the number of bytes written
+	 */
+	public static int encodeUtf8(char[] chars, int offset, int length, byte[] dest, int destOffset) {
+		int d = destOffset;
+		int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			char c = chars[i];
+			if (c < 0x80) {
+				dest[d++] = (byte) c;
+			} else if (c < 0x800) {
+				dest[d++] = (byte) (0xC0 | (c >> 6));
+				dest[d++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+				int codePoint = Character.toCodePoint(c, chars[++i]);
+				dest[d++] = (byte) (0xF0 | (codePoint >> 18));
+				dest[d++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				dest[d++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				dest[d++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				dest[d++] = REPLACEMENT_BYTE;
+			} else {
+				dest[d++] = (byte) (0xE0 | (c >> 12));
+				dest[d++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				dest[d++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return d - destOffset;
+	}
+	
+	/**
+	 * Counts the characters UTF-8 bytes decode to.
+	 *
+	 * @param bytes the UTF-8 bytes
+	 * @param offset index of the first byte
+	 * @param length number of bytes
+	 * @return the exact number of characters {@link #decodeUtf8} writes
+	 */
+	public static int utf8CharLength(byte[] bytes, int offset, int length) {
+		return decode(bytes, offset, length, null, 0);
+	}
+	
+	/**
+	 * Decodes UTF-8 bytes into a character array supplied by the caller.
+	 *
+	 * @param bytes the UTF-8 bytes
+	 * @param offset index of the first byte
+	 * @param length number of bytes
+	 * @param dest the array to write to, with at least {@link #utf8CharLength} characters free from destOffset
+	 * @param destOffset index in dest of the first character written
+	 * @return the number of characters written
+	 */
+	public static int decodeUtf8(byte[] bytes, int offset, int length, char[] dest, int destOffset) {
+		return decode(bytes, offset, length, dest, destOffset);
+	}
+	
+	/**
+	 * Decodes UTF-8, or only counts the characters when dest is null
+	 */
+	private static int decode(byte[] bytes, int offset, int length, char[] dest, int destOffset) {
+		int d = destOffset;
+		int i = offset;
+		int end = offset + length;
+		while (i < end) {
+			int b = bytes[i];
+			if (b >= 0) {
+				// Runs of ASCII are the common case
+				if (dest != null) {
+					dest[d] = (char) b;
+				}
+				d++;
+				i++;
+				continue;
+			}
+			// The lead byte gives the length and the range the second byte must be in, which rules out
+			// overlong forms and code points past U+10FFFF
+			int lead = b & 0xFF;
+			int sequenceLength;
+			int secondMin = 0x80;
+			int secondMax = 0xBF;
+			if (lead >= 0xC2 && lead <= 0xDF) {
+				sequenceLength = 2;
+			} else if (lead >= 0xE0 && lead <= 0xEF) {
+				sequenceLength = 3;
+				if (lead == 0xE0) {
+					secondMin = 0xA0;
+				}
+			} else if (lead >= 0xF0 && lead <= 0xF4) {
+				sequenceLength = 4;
+				if (lead == 0xF0) {
+					secondMin = 0x90;
+				} else if (lead == 0xF4) {
+					secondMax = 0x8F;
+				}
+			} else {
+				sequenceLength = 1;
+			}
+			int codePoint = lead & (0x7F >> sequenceLength);
+			int j = 1;
+			while (j < sequenceLength && i + j < end) {
+				int next = bytes[i + j] & 0xFF;
+				if (next < (j == 1 ? secondMin : 0x80) || next > (j == 1 ? secondMax : 0xBF)) {
+					break;
+				}
+				codePoint = (codePoint << 6) | (next & 0x3F);
+				j++;
+			}
+			if (sequenceLength == 1 || j < sequenceLength || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+				// The longest valid start of a sequence becomes one replacement character
+				d = put(dest, d, REPLACEMENT_CHAR);
+				i += j;
+				continue;
+			}
+			if (codePoint >= 0x10000) {
+				d = put(dest, d, Character.highSurrogate(codePoint));
+				d = put(dest, d, Character.lowSurrogate(codePoint));
+			} else {
+				d = put(dest, d, (char) codePoint);
+			}
+			i += sequenceLength;
+		}
+		return d - destOffset;
+	}
+	
+	private static int put(char[] dest, int index, char c) {
+		if (dest != null) {
+			dest[index] = c;
+		}
+		return index + 1;
+	}
+		
+	/**
+	 * Generates an initialization vector from the input text by cycling through its characters.
+	 * The resulting IV has a fixed size of 16 bytes.
+	 *
+	 * @param text the input text to generate the IV from
+	 * @return a byte array containing the initialization vector
+	 */
+	public static byte[] getInitializationVector(char[] text) {
+		char iv[] = new char[IV_SIZE];
+		
+		int textPointer = 0;
+		int ivPointer = 0;
+		while(ivPointer < IV_SIZE) {
+			iv[ivPointer++] = text[textPointer++ % text.length];
+		}
+		
+		return toByteArray(iv);
+	}
+	
+	/**
+	 * Prints the contents of a character array to standard output.
+	 *
+	 * @param chars the character array to print
+	 */
+	public static void printCharArray(char[] chars) {
+		for(char c : chars) {
+			System.out.print(c);
+		}
+	}
+}
@@ -0,0 +1,393 @@
+package Encryption;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+/**
+ * The {@code KeyHierarchy} encrypts articles with data keys, and keeps the data keys wrapped by a master key.
+ *
+ * Each article gets its own AES data key. The data key is wrapped with the current master key using AES key
+ * wrap and saved in a {@link DataKeyStore}, and ciphertext sealed with it starts with {@value #KEYED_VERSION}
+ * and the key id, followed by the ciphertext of the cipher suite that encrypted it. The key header is passed to
+ * the suite as associated data, so a suite that authenticates, such as AES-GCM, rejects ciphertext moved under
+ * another key header. Rotating the master key
+ * only wraps the small data key records again, see {@link #rewrap(DataKeyRecord)}, and leaves the articles alone.
+ *
+ * Unwrapped data keys are kept in a least recently used cache, so reading an article again doesn't load and
+ * unwrap its key again. The article key of {@link EncryptionHelper} is master key version
+ * {@value #BUILT_IN_MASTER_KEY_VERSION}. Other master keys come from a {@link MasterKeyProvider}, which registers
+ * them at startup and saves the key of a rotation, see {@link #rotateMasterKey(int, byte[])}.
+ */
+public class KeyHierarchy {
+	/**
+	 * The byte written at the start of ciphertext sealed with a data key
+	 */
+	public static final byte KEYED_VERSION = 3;
+
+	/**
+	 * Version of the master key built into the application
+	 */
+	public static final int BUILT_IN_MASTER_KEY_VERSION = 1;
+
+	/**
+	 * Default number of unwrapped data keys kept in memory
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 256;
+
+	private static final String WRAP_TRANSFORMATION = "AESWrap";
+	private static final String WRAP_PROVIDER = "SunJCE";
+	private static final int DATA_KEY_BITS = 256;
+	private static final int HEADER_LENGTH = 1 + Long.BYTES;
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	private static final KeyHierarchy INSTANCE = new KeyHierarchy(DEFAULT_CACHE_SIZE);
+
+	private final Map<Integer, SecretKey> masterKeys = new ConcurrentHashMap<>();
+	private volatile int currentMasterKeyVersion = BUILT_IN_MASTER_KEY_VERSION;
+	private volatile DataKeyStore store;
+	private volatile MasterKeyProvider masterKeyProvider;
+
+	private final LinkedHashMap<Long, SecretKey> dataKeys;
+	private long hits;
+	private long misses;
+
+	/**
+	 * Creates a hierarchy with the built-in master key
+	 *
+	 * @param cacheSize number of unwrapped data keys kept in memory
+	 */
+	public KeyHierarchy(int cacheSize) {
+		masterKeys.put(BUILT_IN_MASTER_KEY_VERSION, new SecretKeySpec(EncryptionHelper.keyBytes(), "AES"));
+		dataKeys = new LinkedHashMap<>(64, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, SecretKey> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Gets the hierarchy shared by the whole application
+	 *
+	 * @return the shared hierarchy
+	 */
+	public static KeyHierarchy getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Sets where data keys are saved and loaded from
+	 *
+	 * @param store the store
+	 */
+	public void setStore(DataKeyStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * Sets where master keys are kept, adds every key it holds, and uses its current key for new data keys.
+	 * Keys that were added before are kept, so the same provider can be set again.
+	 *
+	 * @param provider the provider, or null to stop rotations from being saved
+	 * @throws Exception if the keys can't be loaded, or a version is already used by a different key
+	 */
+	public synchronized void setMasterKeyProvider(MasterKeyProvider provider) throws Exception {
+		if (provider != null) {
+			for (Map.Entry<Integer, byte[]> key : provider.loadMasterKeys().entrySet()) {
+				SecretKey existing = masterKeys.get(key.getKey());
+				if (existing == null) {
+					addMasterKey(key.getKey(), key.getValue());
+				} else if (!MessageDigest.isEqual(existing.getEncoded(), key.getValue())) {
+					throw new IllegalStateException("Master key version " + key.getKey() + " is already used by another key");
+				}
+			}
+			useMasterKey(provider.getCurrentMasterKeyVersion());
+		}
+		masterKeyProvider = provider;
+	}
+
+	/**
+	 * Saves a new master key with the master key provider, and wraps new data keys with it from then on.
+	 * The key is saved before it is used, so no data key is wrapped with a key that is gone after a restart.
+	 *
+	 * @param version the version saved with the data keys it wraps, newer than every saved master key
+	 * @param keyBytes a 16, 24, or 32 byte AES key
+	 * @throws IllegalStateException if no master key provider has been set
+	 * @throws Exception if the key can't be saved
+	 */
+	public synchronized void rotateMasterKey(int version, byte[] keyBytes) throws Exception {
+		MasterKeyProvider provider = masterKeyProvider;
+		if (provider == null) {
+			throw new IllegalStateException("No master key provider has been set, a new master key would be lost on restart");
+		}
+		checkKeyLength(keyBytes);
+		if (masterKeys.containsKey(version)) {
+			throw new IllegalArgumentException("Master key version " + version + " already exists");
+		}
+		provider.saveMasterKey(version, keyBytes);
+		addMasterKey(version, keyBytes);
+		useMasterKey(version);
+	}
+
+	/**
+	 * Adds a master key that data keys can be wrapped and unwrapped with. The key is only held in memory,
+	 * keys that must outlive the application are saved with {@link #rotateMasterKey(int, byte[])}.
+	 *
+	 * @param version the version saved with the data keys it wraps, not yet used by another master key
+	 * @param keyBytes a 16, 24, or 32 byte AES key
+	 */
+	public void addMasterKey(int version, byte[] keyBytes) {
+		checkKeyLength(keyBytes);
+		if (masterKeys.putIfAbsent(version, new SecretKeySpec(keyBytes, "AES")) != null) {
+			throw new IllegalArgumentException("Master key version " + version + " already exists");
+		}
+	}
+
+	private static void checkKeyLength(byte[] keyBytes) {
+		if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+			throw new IllegalArgumentException("Master key must be 16, 24, or 32 bytes");
+		}
+	}
+
+	/**
+	 * Sets the master key new data keys are wrapped with, in memory only
+	 *
+	 * @param version the version of a master key that has been added
+	 */
+	public void useMasterKey(int version) {
+		if (!masterKeys.containsKey(version)) {
+			throw new IllegalArgumentException("Master key version " + version + " has not been added");
+		}
+		currentMasterKeyVersion = version;
+	}
+
+	/**
+	 * @return the version of the master key new data keys are wrapped with
+	 */
+	public int getCurrentMasterKeyVersion() {
+		return currentMasterKeyVersion;
+	}
+
+	/**
+	 * Creates a data key, wraps it with the current master key, and saves it in the data key store
+	 *
+	 * @return the id of the new key
+	 * @throws Exception if the key can't be wrapped or saved
+	 */
+	public long createDataKey() throws Exception {
+		DataKeyRecord record = generateDataKey();
+		requireStore().save(record);
+		return record.getKeyId();
+	}
+
+	/**
+	 * Creates a data key and wraps it with the current master key without saving it, so the caller can save it
+	 * in the same transaction as the data sealed with it
+	 *
+	 * @return the wrapped key, which must be saved before data sealed with it can be read after a restart
+	 * @throws Exception if the key can't be wrapped
+	 */
+	public DataKeyRecord generateDataKey() throws Exception {
+		KeyGenerator generator = KeyGenerator.getInstance("AES");
+		generator.init(DATA_KEY_BITS, RANDOM);
+		SecretKey dataKey = generator.generateKey();
+		long keyId;
+		do {
+			keyId = RANDOM.nextLong() & Long.MAX_VALUE;
+		} while (keyId == 0);
+		int version = currentMasterKeyVersion;
+		DataKeyRecord record = new DataKeyRecord(keyId, version, wrap(masterKey(version), dataKey));
+		synchronized (this) {
+			dataKeys.put(keyId, dataKey);
+		}
+		return record;
+	}
+
+	/**
+	 * Gets a sealer that encrypts with a data key and a cipher suite. Its ciphertext is decrypted by
+	 * {@link CipherSuites#decrypt(byte[])} like that of any suite.
+	 *
+	 * @param keyId the id of the data key
+	 * @param suite the suite that does the encryption
+	 * @return the sealer
+	 */
+	public Sealer sealer(long keyId, CipherSuite suite) {
+		return new DataKeySealer(keyId, suite);
+	}
+
+	/**
+	 * Decrypts ciphertext sealed with a data key
+	 *
+	 * @param cipherText the key header followed by the ciphertext of a cipher suite
+	 * @return the plaintext
+	 * @throws Exception if the data key can't be found or unwrapped, or decryption fails
+	 */
+	public byte[] decrypt(byte[] cipherText) throws Exception {
+		long keyId = keyId(cipherText);
+		if (keyId == 0 || cipherText.length <= HEADER_LENGTH) {
+			throw new IllegalArgumentException("Ciphertext was not sealed with a data key");
+		}
+		byte[] header = Arrays.copyOf(cipherText, HEADER_LENGTH);
+		byte[] inner = Arrays.copyOfRange(cipherText, HEADER_LENGTH, cipherText.length);
+		return CipherSuites.forVersion(inner[0]).decrypt(dataKey(keyId), inner, header);
+	}
+
+	/**
+	 * Reads the data key id of a ciphertext
+	 *
+	 * @param cipherText any stored ciphertext
+	 * @return the key id, or 0 if the ciphertext wasn't sealed with a data key
+	 */
+	public static long keyId(byte[] cipherText) {
+		if (cipherText == null || cipherText.length < HEADER_LENGTH || cipherText[0] != KEYED_VERSION) {
+			return 0;
+		}
+		return ByteBuffer.wrap(cipherText, 1, Long.BYTES).getLong();
+	}
+
+	/**
+	 * Checks whether a ciphertext was sealed with a data key and a given suite
+	 *
+	 * @param cipherText any stored ciphertext
+	 * @param suite the suite
+	 * @return true if it was
+	 */
+	public static boolean isSealedWith(byte[] cipherText, CipherSuite suite) {
+		return keyId(cipherText) != 0 && cipherText.length > HEADER_LENGTH && cipherText[HEADER_LENGTH] == suite.getVersion();
+	}
+
+	/**
+	 * Wraps a data key again with the current master key. The key itself doesn't change, so articles sealed
+	 * with it and cached copies of it stay valid.
+	 *
+	 * @param record the key as it is stored
+	 * @return the key wrapped with the current master key, or the same record if it already is
+	 * @throws Exception if the key can't be unwrapped or wrapped
+	 */
+	public DataKeyRecord rewrap(DataKeyRecord record) throws Exception {
+		int version = currentMasterKeyVersion;
+		if (record.getMasterKeyVersion() == version) {
+			return record;
+		}
+		SecretKey dataKey = unwrap(record);
+		return new DataKeyRecord(record.getKeyId(), version, wrap(masterKey(version), dataKey));
+	}
+
+	/**
+	 * Drops every unwrapped data key from memory
+	 */
+	public synchronized void clearCache() {
+		dataKeys.clear();
+	}
+
+	/**
+	 * @return number of data key lookups answered from memory
+	 */
+	public synchronized long getCacheHits() {
+		return hits;
+	}
+
+	/**
+	 * @return number of data key lookups that loaded and unwrapped the key
+	 */
+	public synchronized long getCacheMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets a data key from the cache, or loads and unwraps it
+	 */
+	private SecretKey dataKey(long keyId) throws Exception {
+		synchronized (this) {
+			SecretKey dataKey = dataKeys.get(keyId);
+			if (dataKey != null) {
+				hits++;
+				return dataKey;
+			}
+			misses++;
+		}
+		// Loaded without holding the lock, so a slow store doesn't hold up readers of cached keys
+		DataKeyRecord record = requireStore().load(keyId);
+		if (record == null) {
+			throw new IllegalStateException("Data key " + keyId + " not found");
+		}
+		SecretKey dataKey = unwrap(record);
+		synchronized (this) {
+			dataKeys.put(keyId, dataKey);
+		}
+		return dataKey;
+	}
+
+	private SecretKey unwrap(DataKeyRecord record) throws Exception {
+		Cipher cipher = Cipher.getInstance(WRAP_TRANSFORMATION, WRAP_PROVIDER);
+		cipher.init(Cipher.UNWRAP_MODE, masterKey(record.getMasterKeyVersion()));
+		return (SecretKey) cipher.unwrap(record.getWrappedKey(), "AES", Cipher.SECRET_KEY);
+	}
+
+	private static byte[] wrap(SecretKey masterKey, SecretKey dataKey) throws Exception {
+		Cipher cipher = Cipher.getInstance(WRAP_TRANSFORMATION, WRAP_PROVIDER);
+		cipher.init(Cipher.WRAP_MODE, masterKey);
+		return cipher.wrap(dataKey);
+	}
+
+	private SecretKey masterKey(int version) {
+		SecretKey masterKey = masterKeys.get(version);
+		if (masterKey == null) {
+			throw new IllegalStateException("Master key version " + version + " has not been added");
+		}
+		return masterKey;
+	}
+
+	private DataKeyStore requireStore() {
+		DataKeyStore current = store;
+		if (current == null) {
+			throw new IllegalStateException("No data key store has been set");
+		}
+		return current;
+	}
+
+	/**
+	 * Encrypts with a suite and a data key, and puts the key header in front of the suite's ciphertext
+	 */
+	private final class DataKeySealer implements Sealer {
+		private final long keyId;
+		private final CipherSuite suite;
+
+		private DataKeySealer(long keyId, CipherSuite suite) {
+			this.keyId = keyId;
+			this.suite = suite;
+		}
+
+		@Override
+		public byte getVersion() {
+			return KEYED_VERSION;
+		}
+
+		@Override
+		public byte[] encrypt(byte[] plainText) throws Exception {
+			byte[] header = ByteBuffer.allocate(HEADER_LENGTH).put(KEYED_VERSION).putLong(keyId).array();
+			byte[] inner = suite.encrypt(dataKey(keyId), plainText, header);
+			byte[] cipherText = new byte[HEADER_LENGTH + inner.length];
+			ByteBuffer.wrap(cipherText).put(header).put(inner);
+			return cipherText;
+		}
+
+		@Override
+		public byte[] decrypt(byte[] cipherText) throws Exception {
+			if (keyId(cipherText) != keyId) {
+				throw new IllegalArgumentException("Ciphertext was not sealed with data key " + keyId);
+			}
+			return KeyHierarchy.this.decrypt(cipherText);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package Encryption;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.crypto.spec.SecretKeySpec;
+/**
+ * The {@code MasterKeyFile} keeps master keys in a password protected PKCS12 keystore file.
+ *
+ * Each key is stored under the alias {@value #ALIAS_PREFIX} followed by its version, and the highest version
+ * is the current one, so a rotation only ever adds a key. The file is written to a temporary file and moved
+ * over the old one, so a failed write leaves the keys that were there before. The application finds the file
+ * through the {@value #FILE_VARIABLE} and {@value #PASSWORD_VARIABLE} environment variables.
+ */
+public class MasterKeyFile implements MasterKeyProvider {
+
+	/**
+	 * Environment variable holding the path of the keystore file
+	 */
+	public static final String FILE_VARIABLE = "HELP_MASTER_KEY_FILE";
+
+	/**
+	 * Environment variable holding the password of the keystore file
+	 */
+	public static final String PASSWORD_VARIABLE = "HELP_MASTER_KEY_PASSWORD";
+
+	private static final String ALIAS_PREFIX = "master-key-";
+	private static final String KEYSTORE_TYPE = "PKCS12";
+
+	private final Path path;
+	private final char[] password;
+
+	/**
+	 * Creates a provider for a keystore file, which is created when the first key is saved
+	 *
+	 * @param path the keystore file
+	 * @param password the password of the file and of each key in it
+	 */
+	public MasterKeyFile(Path path, char[] password) {
+		this.path = path;
+		this.password = password.clone();
+	}
+
+	/**
+	 * Creates a provider from the {@value #FILE_VARIABLE} and {@value #PASSWORD_VARIABLE} environment variables
+	 *
+	 * @return the provider, or null if no keystore file is configured
+	 * @throws IllegalStateException if a file is configured without a password
+	 */
+	public static MasterKeyFile fromEnvironment() {
+		String file = System.getenv(FILE_VARIABLE);
+		if (file == null || file.trim().isEmpty()) {
+			return null;
+		}
+		String password = System.getenv(PASSWORD_VARIABLE);
+		if (password == null) {
+			throw new IllegalStateException(FILE_VARIABLE + " is set but " + PASSWORD_VARIABLE + " is not");
+		}
+		return new MasterKeyFile(Paths.get(file), password.toCharArray());
+	}
+
+	@Override
+	public synchronized Map<Integer, byte[]> loadMasterKeys() throws Exception {
+		return keys(open());
+	}
+
+	@Override
+	public synchronized int getCurrentMasterKeyVersion() throws Exception {
+		return currentVersion(keys(open()));
+	}
+
+	@Override
+	public synchronized void saveMasterKey(int version, byte[] keyBytes) throws Exception {
+		KeyStore keyStore = open();
+		int current = currentVersion(keys(keyStore));
+		if (version <= current) {
+			throw new IllegalArgumentException("Master key version " + version + " is not newer than version " + current);
+		}
+		keyStore.setEntry(ALIAS_PREFIX + version, new KeyStore.SecretKeyEntry(new SecretKeySpec(keyBytes, "AES")),
+				new KeyStore.PasswordProtection(password));
+		Path absolute = path.toAbsolutePath();
+		Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				keyStore.store(out, password);
+			}
+			Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		System.out.println("[MasterKeyFile] Saved master key version " + version);
+	}
+
+	/**
+	 * Reads the master keys out of a loaded keystore
+	 */
+	private Map<Integer, byte[]> keys(KeyStore keyStore) throws Exception {
+		Map<Integer, byte[]> keys = new TreeMap<>();
+		for (String alias : Collections.list(keyStore.aliases())) {
+			if (alias.startsWith(ALIAS_PREFIX)) {
+				Key key = keyStore.getKey(alias, password);
+				keys.put(Integer.parseInt(alias.substring(ALIAS_PREFIX.length())), key.getEncoded());
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * The highest saved version, or the built-in key when none has been saved
+	 */
+	private static int currentVersion(Map<Integer, byte[]> keys) {
+		int current = KeyHierarchy.BUILT_IN_MASTER_KEY_VERSION;
+		for (int version : keys.keySet()) {
+			current = Math.max(current, version);
+		}
+		return current;
+	}
+
+	private KeyStore open() throws Exception {
+		KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+		if (Files.exists(path)) {
+			try (InputStream in = Files.newInputStream(path)) {
+				keyStore.load(in, password);
+			}
+		} else {
+			keyStore.load(null, password);
+		}
+		return keyStore;
+	}
+}
@@ -0,0 +1,33 @@
+package Encryption;
+
+import java.util.Map;
+
+/**
+ * The {@code MasterKeyProvider} keeps the master keys of a {@link KeyHierarchy} outside the database, so the
+ * keys and the version in use are known again when the application starts, such as a keystore file.
+ */
+public interface MasterKeyProvider {
+
+	/**
+	 * Loads every master key that has been saved
+	 *
+	 * @return the key bytes by master key version
+	 * @throws Exception if the keys can't be loaded
+	 */
+	Map<Integer, byte[]> loadMasterKeys() throws Exception;
+
+	/**
+	 * @return the version of the master key new data keys are wrapped with
+	 * @throws Exception if the keys can't be loaded
+	 */
+	int getCurrentMasterKeyVersion() throws Exception;
+
+	/**
+	 * Saves a new master key, which becomes the current one
+	 *
+	 * @param version the version of the key, not yet used by another master key
+	 * @param keyBytes a 16, 24, or 32 byte AES key
+	 * @throws Exception if the key can't be saved
+	 */
+	void saveMasterKey(int version, byte[] keyBytes) throws Exception;
+}
@@ -0,0 +1,34 @@
+package Encryption;
+
+/**
+ * The {@code Sealer} encrypts and decrypts data with a key it already holds, and names itself in the first byte
+ * of its ciphertext.
+ *
+ * Every {@link CipherSuite} is a sealer that uses the article key. {@link KeyHierarchy#sealer(long, CipherSuite)}
+ * gives one that uses a data key, which can't be handed another key, so it is only a sealer and not a suite.
+ */
+public interface Sealer {
+
+	/**
+	 * @return the byte written at the start of ciphertext produced by this sealer
+	 */
+	byte getVersion();
+
+	/**
+	 * Encrypts a plaintext with a fresh IV or nonce
+	 *
+	 * @param plainText the data to encrypt
+	 * @return the version byte, the IV or nonce, and the ciphertext
+	 * @throws Exception if encryption fails
+	 */
+	byte[] encrypt(byte[] plainText) throws Exception;
+
+	/**
+	 * Decrypts ciphertext produced by {@link #encrypt(byte[])}
+	 *
+	 * @param cipherText the version byte, the IV or nonce, and the ciphertext
+	 * @return the plaintext
+	 * @throws Exception if the ciphertext was not written by this sealer or decryption fails
+	 */
+	byte[] decrypt(byte[] cipherText) throws Exception;
+}
@@ -3,6 +3,8 @@ package controllers;
 import java.io.File;
 import java.sql.SQLException;
 import java.util.List;
+import database.ArticleBackupFormat;
+import database.ArticleRestoreEngine;
 import database.Database;
 import database.HelpArticleDatabase;
 import javafx.collections.FXCollections;
@@ -36,6 +38,8 @@ public class BackupRestoreController extends PageController {
     @FXML private CheckBox selectGroupsForBackupCheck;
     @FXML private ListView<String> groupsForBackupList;
     @FXML private TextField groupBackupLocationField;
+    @FXML private ChoiceBox<ArticleBackupFormat> backupFormatChoice;
+    @FXML private ChoiceBox<ArticleRestoreEngine.ConflictPolicy> conflictPolicyChoice;
     
     /**
      * Help article database instance
@@ -88,6 +92,12 @@ public class BackupRestoreController extends PageController {
                 groupsForBackupList.visibleProperty().bind(selectGroupsForBackupCheck.selectedProperty());
             }
             
+            // Binary backups are smaller and checked when restored, text backups open in older versions
+            if (backupFormatChoice != null) {
+                backupFormatChoice.setItems(FXCollections.observableArrayList(ArticleBackupFormat.values()));
+                backupFormatChoice.setValue(ArticleBackupFormat.BINARY_COMPRESSED);
+            }
+            
             // Enable multiple selection for groups
             if (groupsForBackupList != null) {
                 groupsForBackupList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
@@ -101,6 +111,15 @@ public class BackupRestoreController extends PageController {
                 mergeRadio.setSelected(true);
             }
             
+            // Articles already in the system are kept unless a merge is told otherwise
+            if (conflictPolicyChoice != null) {
+                conflictPolicyChoice.setItems(FXCollections.observableArrayList(ArticleRestoreEngine.ConflictPolicy.values()));
+                conflictPolicyChoice.setValue(ArticleRestoreEngine.ConflictPolicy.SKIP);
+                if (mergeRadio != null) {
+                    conflictPolicyChoice.disableProperty().bind(mergeRadio.selectedProperty().not());
+                }
+            }
+            
         } catch (Exception e) {
             e.printStackTrace();
             showErrorAlert("Initialization Error", "Failed to initialize backup/restore controller: " + e.getMessage());
@@ -137,6 +156,15 @@ public class BackupRestoreController extends PageController {
         }
     }
     
+    /**
+     * Sets the format backups are written in to the one selected, restores detect the format themselves.
+     */
+    private void useSelectedFormat() {
+        if (backupFormatChoice != null && backupFormatChoice.getValue() != null) {
+            had.setBackupFormat(backupFormatChoice.getValue());
+        }
+    }
+    
     /**
      * Opens a file chooser dialog to select a backup file for restoration.
      * Updates the restore location text field with the selected path.
@@ -167,6 +195,7 @@ public class BackupRestoreController extends PageController {
         }
 
         try {
+            useSelectedFormat();
             had.backupArticles(backupFile.getAbsolutePath());
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Success");
@@ -189,10 +218,15 @@ public class BackupRestoreController extends PageController {
         }
 
         try {
-            had.restoreArticlesWithMerge(restoreFile.getAbsolutePath(), mergeRadio.isSelected());
+            ArticleRestoreEngine.RestoreResult result;
+            if (mergeRadio.isSelected() && conflictPolicyChoice != null && conflictPolicyChoice.getValue() != null) {
+                result = had.restoreArticlesWithMerge(restoreFile.getAbsolutePath(), conflictPolicyChoice.getValue());
+            } else {
+                result = had.restoreArticlesWithMerge(restoreFile.getAbsolutePath(), mergeRadio.isSelected());
+            }
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Success");
-            alert.setContentText("Articles restored successfully!");
+            alert.setContentText(result.getRestored() + " articles restored successfully!");
             alert.showAndWait();
         } catch (Exception e) {
             showErrorAlert("Restore Error", "Failed to restore articles: " + e.getMessage());
@@ -236,6 +270,7 @@ public class BackupRestoreController extends PageController {
         }
 
         try {
+            useSelectedFormat();
             had.backupGroupArticles(groupBackupFile.getAbsolutePath(), selectedGroups);
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Success");
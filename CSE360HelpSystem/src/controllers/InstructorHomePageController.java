@@ -14,7 +14,9 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
-import models.Article;
+import models.ArticleFilter;
+import models.ArticlePage;
+import models.ArticleSummary;
 import models.UserSession;
 
 import javafx.scene.control.TextField;
@@ -22,7 +24,6 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * <p>
@@ -42,6 +43,11 @@ public class InstructorHomePageController extends PageController {
 	 */
 	HelpArticleDatabase db;
 	
+	/**
+	 * Reads the article table a page at a time
+	 */
+	private PagedArticleTable pagedTable;
+	
 	/**
      * FXML injected UI elements for the Instructor Homepage
      */
@@ -58,16 +64,16 @@ public class InstructorHomePageController extends PageController {
     private Button restoreButton;
     
     @FXML
-    private TableView<Article> articleTable;
+    private TableView<ArticleSummary> articleTable;
 
     @FXML
-    private TableColumn<Article, String> titleColumn;
+    private TableColumn<ArticleSummary, String> titleColumn;
 
     @FXML
-    private TableColumn<Article, String> levelColumn;
+    private TableColumn<ArticleSummary, String> levelColumn;
 
     @FXML
-    private TableColumn<Article, String> groupsColumn;
+    private TableColumn<ArticleSummary, String> groupsColumn;
     
     @FXML
     private TextField searchField;
@@ -79,7 +85,7 @@ public class InstructorHomePageController extends PageController {
     private ListView<String> groupFilterListView;
     
     @FXML
-    private TableColumn<Article, Integer> idColumn;
+    private TableColumn<ArticleSummary, Integer> idColumn;
     
     @FXML
     private Button backupRestoreButton;
@@ -94,10 +100,10 @@ public class InstructorHomePageController extends PageController {
     private TextField idSearchField;
     
     @FXML
-    private TableColumn<Article, String> abstractColumn;
+    private TableColumn<ArticleSummary, String> abstractColumn;
 
     @FXML
-    private TableColumn<Article, String> authorsColumn;
+    private TableColumn<ArticleSummary, String> authorsColumn;
     
     /**
      * Default constructor required for FXML loader
@@ -124,6 +130,8 @@ public class InstructorHomePageController extends PageController {
     public void initialize() {
         try {
             db = new HelpArticleDatabase();
+            pagedTable = new PagedArticleTable(articleTable, PagedArticleTable.DEFAULT_PAGE_SIZE,
+                    e -> showErrorAlert("Error", "Failed to load articles: " + e.getMessage()));
             initializeTable();
             loadArticles();
             
@@ -143,12 +151,8 @@ public class InstructorHomePageController extends PageController {
      * Initialize table columns and their cell factories
      */
     private void initializeTable() {
-    	// Set up the sequential ID column
-        idColumn.setCellValueFactory(column -> 
-            new javafx.beans.property.ReadOnlyObjectWrapper<>(
-                articleTable.getItems().indexOf(column.getValue()) + 1
-            )
-        );
+    	// Set up the sequential ID column from the row index
+        PagedArticleTable.showRowNumbers(idColumn);
     	
         // Set up the other columns
         titleColumn.setCellValueFactory(new PropertyValueFactory<>("title"));
@@ -157,14 +161,14 @@ public class InstructorHomePageController extends PageController {
         levelColumn.setCellValueFactory(new PropertyValueFactory<>("level"));
         
         // Set up groups column to display the list of groups
-        groupsColumn.setCellFactory(column -> new TableCell<Article, String>() {
+        groupsColumn.setCellFactory(column -> new TableCell<ArticleSummary, String>() {
             @Override
             protected void updateItem(String item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty || getTableRow() == null || getTableRow().getItem() == null) {
                     setText(null);
                 } else {
-                    Article article = (Article) getTableRow().getItem();
+                    ArticleSummary article = (ArticleSummary) getTableRow().getItem();
                     List<String> groups = article.getGroupingIdentifiers();
                     setText(String.join(", ", groups));
                 }
@@ -172,7 +176,7 @@ public class InstructorHomePageController extends PageController {
         });
 
         // Add action buttons column
-        TableColumn<Article, Void> actionsColumn = new TableColumn<>("Actions");
+        TableColumn<ArticleSummary, Void> actionsColumn = new TableColumn<>("Actions");
         actionsColumn.setCellFactory(param -> new TableCell<>() {
             private final Button viewBtn = new Button("View");
             private final Button editBtn = new Button("Edit");
@@ -181,17 +185,17 @@ public class InstructorHomePageController extends PageController {
             {
                 // Set up button actions
                 viewBtn.setOnAction(event -> {
-                    Article article = getTableView().getItems().get(getIndex());
+                    ArticleSummary article = getTableView().getItems().get(getIndex());
                     viewArticle(article);
                 });
 
                 editBtn.setOnAction(event -> {
-                    Article article = getTableView().getItems().get(getIndex());
+                    ArticleSummary article = getTableView().getItems().get(getIndex());
                     editArticle(article);
                 });
 
                 deleteBtn.setOnAction(event -> {
-                    Article article = getTableView().getItems().get(getIndex());
+                    ArticleSummary article = getTableView().getItems().get(getIndex());
                     deleteArticle(article);
                 });
             }
@@ -224,34 +228,37 @@ public class InstructorHomePageController extends PageController {
      * Load all articles into the table
      */
     private void loadArticles() {
-        try {
-            List<Article> articles = db.getAllGeneralArticles();
-            articleTable.getItems().setAll(articles);
-        } catch (Exception e) {
-            showErrorAlert("Error", "Failed to load articles: " + e.getMessage());
-        }
+        // Articles are read a page at a time as the user scrolls
+        ArticleFilter filter = ArticleFilter.allGeneralArticles();
+        pagedTable.load((afterId, limit) -> db.getArticleSummaryPage(filter, afterId, limit));
     }
     
     /**
      * View an article's details
      */
-    private void viewArticle(Article article) {
-        UserSession.getInstance().setSelectedArticle(article);
+    private void viewArticle(ArticleSummary article) {
+        // The view page reads the full article
+        UserSession.getInstance().setSelectedArticleId(article.getId());
         navigateTo("/views/ViewArticle.fxml");
     }
 
     /**
      * Edit an existing article
      */
-    private void editArticle(Article article) {
-        UserSession.getInstance().setSelectedArticle(article);
+    private void editArticle(ArticleSummary article) {
+        try {
+            UserSession.getInstance().setSelectedArticle(db.getArticleById(article.getId()));
+        } catch (Exception e) {
+            showErrorAlert("Error", "Failed to load article: " + e.getMessage());
+            return;
+        }
         navigateTo("/views/CreateEditArticleView.fxml");
     }
 
     /**
      * Delete an article with confirmation
      */
-    private void deleteArticle(Article article) {
+    private void deleteArticle(ArticleSummary article) {
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
         confirm.setTitle("Confirm Delete");
         confirm.setHeaderText("Delete Article");
@@ -297,39 +304,9 @@ public class InstructorHomePageController extends PageController {
             System.out.println("[InstructorHomePage] Selected groups for filtering: " + selectedGroups);
             System.out.println("[InstructorHomePage] Selected levels for filtering: " + selectedLevels);
             
-            // Get all general articles to apply search and filters too
-            List<Article> articles = db.getAllGeneralArticles();  
-            
-            // Additional group filtering if groups are selected
-            if (!selectedGroups.isEmpty()) {
-                articles = articles.stream()
-                    .filter(article -> {
-                        // Using the updated grouping identifiers mechanism
-                        List<String> articleGroups = article.getGroupingIdentifiers();
-                        return articleGroups.stream()
-                            .anyMatch(selectedGroups::contains);
-                    })
-                    .collect(Collectors.toList());
-            }
-
-            // Filter by levels if any are selected
-            if (!selectedLevels.isEmpty()) {
-                articles = articles.stream()
-                    .filter(article -> selectedLevels.contains(article.getLevel()))
-                    .collect(Collectors.toList());
-            }
-
-            // Apply search query filter
-            if (!searchQuery.isEmpty()) {
-                articles = articles.stream()
-                    .filter(article -> 
-                        article.getTitle().toLowerCase().contains(searchQuery) ||
-                        article.getAbstractText().toLowerCase().contains(searchQuery) ||
-                        article.getAuthors().toLowerCase().contains(searchQuery))
-                    .collect(Collectors.toList());
-            }
-
-            articleTable.getItems().setAll(articles);
+            // The database applies the search and the group and level filters, empty lists include everything
+            ArticleFilter filter = new ArticleFilter(searchQuery, true, selectedLevels, selectedGroups);
+            pagedTable.load((afterId, limit) -> db.getArticleSummaryPage(filter, afterId, limit));
         } catch (Exception e) {
             showErrorAlert("Error", "Failed to filter articles: " + e.getMessage());
         }
@@ -415,11 +392,16 @@ public class InstructorHomePageController extends PageController {
             }
             
             long searchId = Long.parseLong(idText);
-            List<Article> articles = db.getAllGeneralArticles().stream()
-                .filter(article -> article.getId() == searchId)
-                .collect(Collectors.toList());
+            List<ArticleSummary> articles = new ArrayList<>();
+            if (searchId > 0 && searchId <= Integer.MAX_VALUE) {
+                // Read the page that starts just before the id, which holds the article if it's a general article
+                ArticlePage page = db.getArticleSummaryPage(ArticleFilter.allGeneralArticles(), (int) searchId - 1, 1);
+                page.getSummaries().stream()
+                    .filter(article -> article.getId() == searchId)
+                    .forEach(articles::add);
+            }
                 
-            articleTable.getItems().setAll(articles);
+            pagedTable.showOnly(articles);
         } catch (NumberFormatException e) {
             showErrorAlert("Invalid Input", "Please enter a valid numeric ID");
         } catch (Exception e) {
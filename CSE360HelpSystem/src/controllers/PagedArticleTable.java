@@ -0,0 +1,168 @@
+package controllers;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import models.ArticlePage;
+import models.ArticleSummary;
+
+/**
+ * The {@code PagedArticleTable} fills an article TableView one page at a time. The first page is read
+ * when a list is loaded, and the next page is read when the user scrolls near the bottom of the table,
+ * so a list page never reads the whole articles table up front.
+ *
+ * Pages are read with keyset pagination: each page starts after the last article id of the page before it.
+ */
+public class PagedArticleTable {
+
+	/**
+	 * Number of articles read per page
+	 */
+	public static final int DEFAULT_PAGE_SIZE = 50;
+
+	/**
+	 * How far down the table, as a fraction of the scroll range, the next page is read
+	 */
+	private static final double LOAD_AHEAD_FRACTION = 0.9;
+
+	/**
+	 * Reads one page of articles
+	 */
+	public interface PageLoader {
+		ArticlePage load(int afterId, int limit) throws Exception;
+	}
+
+	private final TableView<ArticleSummary> table;
+	private final int pageSize;
+	private final Consumer<Exception> errorHandler;
+	private ScrollBar verticalScrollBar;
+
+	private PageLoader loader;
+	private int lastId;
+	private boolean hasMore;
+
+	/**
+	 * Creates a paged table
+	 *
+	 * @param table the table to fill
+	 * @param pageSize number of articles read per page
+	 * @param errorHandler shows errors from reading a page
+	 */
+	public PagedArticleTable(TableView<ArticleSummary> table, int pageSize, Consumer<Exception> errorHandler) {
+		this.table = table;
+		this.pageSize = pageSize;
+		this.errorHandler = errorHandler;
+		table.skinProperty().addListener((obs, oldSkin, newSkin) -> attachScrollBar());
+		attachScrollBar();
+	}
+
+	/**
+	 * Shows the row number in a column. The number comes from the row index, which is the page offset
+	 * plus the position on the page, so it doesn't need to search the table items.
+	 *
+	 * @param column the column to show row numbers in
+	 */
+	public static void showRowNumbers(TableColumn<ArticleSummary, Integer> column) {
+		column.setCellFactory(col -> new TableCell<ArticleSummary, Integer>() {
+			@Override
+			protected void updateItem(Integer item, boolean empty) {
+				super.updateItem(item, empty);
+				if (empty || getTableRow() == null || getTableRow().getItem() == null) {
+					setText(null);
+				} else {
+					setText(String.valueOf(getIndex() + 1));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Clears the table and reads the first page
+	 *
+	 * @param loader reads a page of the articles to show
+	 */
+	public void load(PageLoader loader) {
+		this.loader = loader;
+		this.lastId = 0;
+		this.hasMore = true;
+		table.getItems().clear();
+		loadNextPage();
+	}
+
+	/**
+	 * Shows a fixed list of articles without paging, such as the result of a search by id
+	 *
+	 * @param summaries the articles to show
+	 */
+	public void showOnly(List<ArticleSummary> summaries) {
+		this.loader = null;
+		this.hasMore = false;
+		table.getItems().setAll(summaries);
+	}
+
+	/**
+	 * Reads the next page and adds it to the end of the table, if there is one
+	 */
+	public void loadNextPage() {
+		if (loader == null || !hasMore) {
+			return;
+		}
+		try {
+			ArticlePage page = loader.load(lastId, pageSize);
+			lastId = page.getLastId();
+			hasMore = page.hasMore();
+			table.getItems().addAll(page.getSummaries());
+			System.out.println("[PagedArticleTable] Loaded " + page.getSummaries().size() + " articles, "
+					+ table.getItems().size() + " in table");
+		} catch (Exception e) {
+			hasMore = false;
+			errorHandler.accept(e);
+			return;
+		}
+		// Keep reading until the table can scroll, or the user could never reach the next page
+		Platform.runLater(() -> {
+			if (hasMore && (verticalScrollBar == null || !verticalScrollBar.isVisible())) {
+				loadNextPage();
+			}
+		});
+	}
+
+	/**
+	 * @return true if there may be more articles to read
+	 */
+	public boolean hasMore() {
+		return hasMore;
+	}
+
+	/**
+	 * Finds the vertical scroll bar of the table once it has a skin and reads the next page when it nears the bottom
+	 */
+	private void attachScrollBar() {
+		if (table.getSkin() == null || verticalScrollBar != null) {
+			return;
+		}
+		for (Node node : table.lookupAll(".scroll-bar")) {
+			if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+				verticalScrollBar = (ScrollBar) node;
+				verticalScrollBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+					if (newValue.doubleValue() >= verticalScrollBar.getMax() * LOAD_AHEAD_FRACTION) {
+						loadNextPage();
+					}
+				});
+				verticalScrollBar.visibleProperty().addListener((obs, wasVisible, visible) -> {
+					if (!visible) {
+						loadNextPage();
+					}
+				});
+				return;
+			}
+		}
+	}
+}
@@ -17,6 +17,7 @@ import java.util.stream.Collectors;
 import database.Database;
 import database.HelpArticleDatabase;
 import models.Article;
+import models.ArticleSummary;
 import models.UserSession;
 /**
  * <p>
@@ -63,19 +64,19 @@ public class SearchArticleController extends PageController {
 
     // TableView and columns for displaying articles
     @FXML
-    private TableView<Article> articleTable;
+    private TableView<ArticleSummary> articleTable;
 
     @FXML
-    private TableColumn<Article, Integer> idColumn;
+    private TableColumn<ArticleSummary, Integer> idColumn;
 
     @FXML
-    private TableColumn<Article, String> titleColumn;
+    private TableColumn<ArticleSummary, String> titleColumn;
 
     @FXML
-    private TableColumn<Article, String> abstractColumn;
+    private TableColumn<ArticleSummary, String> abstractColumn;
 
     @FXML
-    private TableColumn<Article, String> authorsColumn;
+    private TableColumn<ArticleSummary, String> authorsColumn;
     
     @FXML
     private Button returnHome;
@@ -137,8 +138,8 @@ public class SearchArticleController extends PageController {
      */
     public void loadAllArticles() {
         try {
-            List<Article> articles = had.getAllGeneralArticles();  // Fetch all general articles from the database
-            ObservableList<Article> articleList = FXCollections.observableArrayList(articles);
+            List<ArticleSummary> articles = had.getAllGeneralArticleSummaries();  // Fetch all general articles from the database
+            ObservableList<ArticleSummary> articleList = FXCollections.observableArrayList(articles);
             articleTable.setItems(articleList);  // Set data in TableView
         } catch (SQLException e) {
             showErrorAlert("Error", "Failed to load articles: " + e.getMessage());
@@ -158,13 +159,8 @@ public class SearchArticleController extends PageController {
             List<String> selectedGroups = new ArrayList<>(groupFilterListView.getItems());
             List<String> selectedLevels = new ArrayList<>(levelFilterListView.getItems());
             
-            // Get general articles and filter them
-            List<Article> articles = had.getAllGeneralArticles().stream()
-                .filter(article -> 
-                    searchQuery.isEmpty() || // If no search query, include all
-                    article.getTitle().toLowerCase().contains(searchQuery) ||
-                    article.getAbstractText().toLowerCase().contains(searchQuery) ||
-                    article.getAuthors().toLowerCase().contains(searchQuery))
+            // Get general articles matching the search from the search index and filter them
+            List<ArticleSummary> articles = had.searchGeneralArticleSummaries(searchQuery).stream()
                 .filter(article -> 
                     selectedGroups.isEmpty() || // If no groups selected, include all
                     article.getGroupingIdentifiers().stream().anyMatch(selectedGroups::contains))
@@ -199,7 +195,7 @@ public class SearchArticleController extends PageController {
      */
     @FXML
     public void deleteSelectedArticle() {
-        Article selectedArticle = articleTable.getSelectionModel().getSelectedItem();
+        ArticleSummary selectedArticle = articleTable.getSelectionModel().getSelectedItem();
         
         if (selectedArticle != null) {
             // Confirm deletion with the user
@@ -242,10 +238,10 @@ public class SearchArticleController extends PageController {
      * Navigate to view the selected article.
      */
     public void goToViewArticle() {
-        Article selectedArticle = articleTable.getSelectionModel().getSelectedItem();
+        ArticleSummary selectedArticle = articleTable.getSelectionModel().getSelectedItem();
         if (selectedArticle != null) {
-            // Pass the selected article to the view article page use UserSession to hold the article
-            UserSession.getInstance().setSelectedArticle(selectedArticle);  
+            // Pass the selected article id to the view article page, which reads the full article
+            UserSession.getInstance().setSelectedArticleId(selectedArticle.getId());
             navigateTo("/views/ViewArticle.fxml");
         } else {
             showErrorAlert("No selection", "Please select an article to view.");
@@ -256,10 +252,15 @@ public class SearchArticleController extends PageController {
      * Navigate to edit the selected article.
      */
     public void goToEditArticle() {
-        Article selectedArticle = articleTable.getSelectionModel().getSelectedItem();
+        ArticleSummary selectedArticle = articleTable.getSelectionModel().getSelectedItem();
         if (selectedArticle != null) {
-            // Pass the selected article to the edit article page  use UserSession to hold the article
-            UserSession.getInstance().setSelectedArticle(selectedArticle);  
+            // Pass the full selected article to the edit article page  use UserSession to hold the article
+            try {
+                UserSession.getInstance().setSelectedArticle(had.getArticleById(selectedArticle.getId()));
+            } catch (Exception e) {
+                showErrorAlert("Error", "Failed to load the article: " + e.getMessage());
+                return;
+            }
             navigateTo("/views/CreateEditArticleView.fxml");
         } else {
             showErrorAlert("No selection", "Please select an article to edit.");
@@ -314,7 +315,7 @@ public class SearchArticleController extends PageController {
             }
             
             long searchId = Long.parseLong(idText);
-            List<Article> articles = had.getAllGeneralArticles().stream()
+            List<ArticleSummary> articles = had.getAllGeneralArticleSummaries().stream()
                 .filter(article -> article.getId() == searchId)
                 .collect(Collectors.toList());
                 
@@ -116,17 +116,13 @@ public class SpecialGroupAddEditArticleController extends PageController {
                 // Set article in user session
                 UserSession.getInstance().setSelectedArticle(newArticle);
                 
-                // Save to help article database
-                had.createArticle(newArticle);
+                // Save to help article database, which gives back the new article's ID
+                int savedArticleId = had.createArticle(newArticle);
                 
-                // Get the most recently created article's ID
-                List<Article> allArticles = had.getAllDecryptedArticles();
-                Article savedArticle = allArticles.get(allArticles.size() - 1);
-                
-                // Save to special groups database using the retrieved ID
+                // Save to special groups database using the new ID
                 specialGroupsDB.addArticleToGroup(
                     currentGroup.getGroupId(), 
-                    String.valueOf(savedArticle.getId())
+                    String.valueOf(savedArticleId)
                 );
                 
                 showInfoAlert("Success", "Article created successfully!");
@@ -18,7 +18,7 @@ import java.util.stream.Collectors;
 import database.Database;
 import database.SpecialGroupsDatabase;
 import database.HelpArticleDatabase;
-import models.Article;
+import models.ArticleSummary;
 import models.SpecialGroup;
 import models.UserSession;
 /**
@@ -28,11 +28,11 @@ import models.UserSession;
 public class SpecialGroupViewController extends PageController {
     
 	// FXML COMPONENTS
-	@FXML private TableView<Article> articleTable;
-    @FXML private TableColumn<Article, Integer> idColumn;
-    @FXML private TableColumn<Article, String> titleColumn;
-    @FXML private TableColumn<Article, String> abstractColumn;
-    @FXML private TableColumn<Article, String> authorsColumn;
+	@FXML private TableView<ArticleSummary> articleTable;
+    @FXML private TableColumn<ArticleSummary, Integer> idColumn;
+    @FXML private TableColumn<ArticleSummary, String> titleColumn;
+    @FXML private TableColumn<ArticleSummary, String> abstractColumn;
+    @FXML private TableColumn<ArticleSummary, String> authorsColumn;
     @FXML private TextField searchField;
     @FXML private Button createButton;
     @FXML private Button editButton;
@@ -114,7 +114,7 @@ public class SpecialGroupViewController extends PageController {
         authorsColumn.setCellValueFactory(new PropertyValueFactory<>("authors"));
         
         // Add action buttons column
-        TableColumn<Article, Void> actionsColumn = new TableColumn<>("Actions");
+        TableColumn<ArticleSummary, Void> actionsColumn = new TableColumn<>("Actions");
         actionsColumn.setCellFactory(column -> new TableCell<>() {
             private final Button viewBtn = new Button("View");
             private final Button editBtn = new Button("Edit");
@@ -123,17 +123,17 @@ public class SpecialGroupViewController extends PageController {
             {
                 // Set up button actions
                 viewBtn.setOnAction(event -> {
-                    Article article = getTableView().getItems().get(getIndex());
+                    ArticleSummary article = getTableView().getItems().get(getIndex());
                     viewArticle(article);
                 });
 
                 editBtn.setOnAction(event -> {
-                    Article article = getTableView().getItems().get(getIndex());
+                    ArticleSummary article = getTableView().getItems().get(getIndex());
                     editArticle(article);
                 });
 
                 deleteBtn.setOnAction(event -> {
-                    Article article = getTableView().getItems().get(getIndex());
+                    ArticleSummary article = getTableView().getItems().get(getIndex());
                     deleteArticle(article);
                 });
             }
@@ -196,9 +196,9 @@ public class SpecialGroupViewController extends PageController {
             
             SpecialGroup currentGroup = UserSession.getInstance().getSelectedSpecialGroup();
             
-            List<Article> articles = helpArticleDB.getAllDecryptedArticles().stream()
+            // Articles matching the search come from the search index, then are limited to the group
+            List<ArticleSummary> articles = helpArticleDB.searchArticleSummaries(searchQuery).stream()
                 .filter(article -> currentGroup.getGroupArticles().contains(String.valueOf(article.getId())))
-                .filter(article -> matchesSearch(article, searchQuery))
                 .filter(article -> selectedLevels.isEmpty() || 
                                  (article.getLevel() != null && selectedLevels.contains(article.getLevel())))
                 .collect(Collectors.toList());
@@ -223,25 +223,13 @@ public class SpecialGroupViewController extends PageController {
             showErrorAlert("Loading Error", "Failed to load articles: " + e.getMessage());
         }
     }
-    /**
-     * Checks if an article matches a search query based on its title, authors, or abstract.
-     * @param article
-     * @param query
-     * @return
-     */
-    private boolean matchesSearch(Article article, String query) {
-        if (query.isEmpty()) return true;
-        return article.getTitle().toLowerCase().contains(query) ||
-               article.getAuthors().toLowerCase().contains(query) ||
-               article.getAbstractText().toLowerCase().contains(query);
-    }
     /**
      * Clears all level filters and reloads articles.
      * @param article
      * @param filters
      * @return
      */
-    private boolean matchesGroupFilters(Article article, List<String> filters) {
+    private boolean matchesGroupFilters(ArticleSummary article, List<String> filters) {
         return filters.isEmpty() || article.getGroupingIdentifiers().stream()
             .anyMatch(filters::contains);
     }
@@ -264,13 +252,19 @@ public class SpecialGroupViewController extends PageController {
     }
     
     
-    private void viewArticle(Article article) {
-        UserSession.getInstance().setSelectedArticle(article);
+    private void viewArticle(ArticleSummary article) {
+        // The view page reads the full article
+        UserSession.getInstance().setSelectedArticleId(article.getId());
         navigateTo("/views/ViewArticle.fxml");  // Use your view article page
     }
 
-    private void editArticle(Article article) {
-        UserSession.getInstance().setSelectedArticle(article);
+    private void editArticle(ArticleSummary article) {
+        try {
+            UserSession.getInstance().setSelectedArticle(helpArticleDB.getArticleById(article.getId()));
+        } catch (Exception e) {
+            showErrorAlert("Loading Error", "Failed to load article: " + e.getMessage());
+            return;
+        }
         navigateTo("/views/SpecialGroupAddEditArticleView.fxml");
     }
 
@@ -278,7 +272,7 @@ public class SpecialGroupViewController extends PageController {
      * Deletes the current special group article
      * @param article
      */
-    private void deleteArticle(Article article) {
+    private void deleteArticle(ArticleSummary article) {
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
         confirm.setTitle("Confirm Delete");
         confirm.setHeaderText("Delete Article");
@@ -361,7 +355,7 @@ public class SpecialGroupViewController extends PageController {
             long searchId = Long.parseLong(idText);
             SpecialGroup currentGroup = UserSession.getInstance().getSelectedSpecialGroup();
             
-            List<Article> articles = helpArticleDB.getAllDecryptedArticles().stream()
+            List<ArticleSummary> articles = helpArticleDB.getAllArticleSummaries().stream()
                 .filter(article -> article.getId() == searchId)
                 .filter(article -> currentGroup.getGroupArticles().contains(String.valueOf(article.getId())))
                 .collect(Collectors.toList());
@@ -1,7 +1,6 @@
 package controllers;
 
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -12,11 +11,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import database.Database;
 import database.HelpArticleDatabase;
 import models.Article;
+import models.ArticleFilter;
+import models.ArticlePage;
+import models.ArticleSummary;
 import models.UserSession;
 /**
  * <p>
@@ -32,6 +33,11 @@ public class StudentGeneralViewController extends PageController {
      * Help article database instance
      */
     private HelpArticleDatabase had;
+    
+    /**
+     * Reads the article table a page at a time
+     */
+    private PagedArticleTable pagedTable;
 
     /**
      * Default constructor required for FXML loader initialization.
@@ -60,19 +66,19 @@ public class StudentGeneralViewController extends PageController {
 
     // TableView and columns for displaying articles
     @FXML
-    private TableView<Article> articleTable;
+    private TableView<ArticleSummary> articleTable;
 
     @FXML
-    private TableColumn<Article, Integer> idColumn;
+    private TableColumn<ArticleSummary, Integer> idColumn;
 
     @FXML
-    private TableColumn<Article, String> titleColumn;
+    private TableColumn<ArticleSummary, String> titleColumn;
 
     @FXML
-    private TableColumn<Article, String> abstractColumn;
+    private TableColumn<ArticleSummary, String> abstractColumn;
 
     @FXML
-    private TableColumn<Article, String> authorsColumn;
+    private TableColumn<ArticleSummary, String> authorsColumn;
     
     @FXML
     private Button returnHome;
@@ -113,13 +119,12 @@ public class StudentGeneralViewController extends PageController {
     public void initialize() {
         try {
             had = new HelpArticleDatabase();
+            pagedTable = new PagedArticleTable(articleTable, PagedArticleTable.DEFAULT_PAGE_SIZE,
+                    e -> showErrorAlert("Error", "Failed to load articles: " + e.getMessage()));
 
             // Set up the table columns with corresponding properties from the Article model
-            idColumn.setCellValueFactory(column -> 
-	            new javafx.beans.property.ReadOnlyObjectWrapper<>(
-	                articleTable.getItems().indexOf(column.getValue()) + 1
-	            )
-	        );
+            // Row numbers come from the row index, so they don't search the table for every cell
+            PagedArticleTable.showRowNumbers(idColumn);
             titleColumn.setCellValueFactory(new PropertyValueFactory<>("title"));
             abstractColumn.setCellValueFactory(new PropertyValueFactory<>("abstractText"));  // Use correct property
             authorsColumn.setCellValueFactory(new PropertyValueFactory<>("authors"));
@@ -143,15 +148,9 @@ public class StudentGeneralViewController extends PageController {
      * Method to load all articles when the page is initialized.
      */
     public void loadAllArticles() {
-        try {
-            List<Article> articles = had.getAllGeneralArticles();  // Changed from getAllDecryptedArticles() to getAllGeneralArticles()
-            ObservableList<Article> articleList = FXCollections.observableArrayList(articles);
-            articleTable.setItems(articleList);
-        } catch (SQLException e) {
-            showErrorAlert("Error", "Failed to load articles: " + e.getMessage());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        // Articles are read a page at a time as the user scrolls
+        ArticleFilter filter = ArticleFilter.allGeneralArticles();
+        pagedTable.load((afterId, limit) -> had.getArticleSummaryPage(filter, afterId, limit));
     }
 
     /**
@@ -172,27 +171,11 @@ public class StudentGeneralViewController extends PageController {
             List<String> selectedGroups = new ArrayList<>(groupFilterListView.getItems());
             List<String> selectedLevels = new ArrayList<>(levelFilterListView.getItems());
             
-            // Get general articles and filter them
-            List<Article> articles = had.getAllGeneralArticles().stream()
-                .filter(article -> 
-                    searchQuery.isEmpty() || // If no search query, include all
-                    article.getTitle().toLowerCase().contains(searchQuery) ||
-                    article.getAbstractText().toLowerCase().contains(searchQuery) ||
-                    article.getAuthors().toLowerCase().contains(searchQuery))
-                .filter(article -> 
-                    selectedGroups.isEmpty() || // If no groups selected, include all
-                    article.getGroupingIdentifiers().stream().anyMatch(selectedGroups::contains))
-                .filter(article -> 
-                    selectedLevels.isEmpty() || // If no levels selected, include all
-                    (article.getLevel() != null && selectedLevels.contains(article.getLevel())))
-                .collect(Collectors.toList());
+            // The database applies the search and filters, empty lists include everything
+            ArticleFilter filter = new ArticleFilter(searchQuery, true, selectedLevels, selectedGroups);
             
-            // Count articles per level, handling null levels
-            Map<String, Long> levelCounts = articles.stream()
-                .collect(Collectors.groupingBy(
-                    article -> article.getLevel() != null ? article.getLevel() : "unspecified",
-                    Collectors.counting()
-                ));
+            // Count articles per level in the database, null levels are counted as unspecified
+            Map<String, Long> levelCounts = had.countArticlesByLevel(filter);
             
             // Update the label with safe default values of 0
             levelStatsLabel.setText(
@@ -203,7 +186,7 @@ public class StudentGeneralViewController extends PageController {
                 ") Unspecified(" + levelCounts.getOrDefault("unspecified", 0L) + ")"
             );
 
-            articleTable.setItems(FXCollections.observableArrayList(articles));
+            pagedTable.load((afterId, limit) -> had.getArticleSummaryPage(filter, afterId, limit));
         } catch (Exception e) {
             showErrorAlert("Error", "Failed to filter articles: " + e.getMessage());
         }
@@ -214,7 +197,7 @@ public class StudentGeneralViewController extends PageController {
      */
     @FXML
     public void deleteSelectedArticle() {
-        Article selectedArticle = articleTable.getSelectionModel().getSelectedItem();
+        ArticleSummary selectedArticle = articleTable.getSelectionModel().getSelectedItem();
         
         if (selectedArticle != null) {
             // Confirm deletion with the user
@@ -257,10 +240,10 @@ public class StudentGeneralViewController extends PageController {
      * Navigate to view the selected article.
      */
     public void goToViewArticle() {
-        Article selectedArticle = articleTable.getSelectionModel().getSelectedItem();
+        ArticleSummary selectedArticle = articleTable.getSelectionModel().getSelectedItem();
         if (selectedArticle != null) {
-            // Pass the selected article to the view article page use UserSession to hold the article
-            UserSession.getInstance().setSelectedArticle(selectedArticle);  
+            // Pass the selected article id to the view article page, which reads the full article
+            UserSession.getInstance().setSelectedArticleId(selectedArticle.getId());
             navigateTo("/views/ViewArticle.fxml");
         } else {
             showErrorAlert("No selection", "Please select an article to view.");
@@ -271,10 +254,15 @@ public class StudentGeneralViewController extends PageController {
      * Navigate to edit the selected article.
      */
     public void goToEditArticle() {
-        Article selectedArticle = articleTable.getSelectionModel().getSelectedItem();
+        ArticleSummary selectedArticle = articleTable.getSelectionModel().getSelectedItem();
         if (selectedArticle != null) {
-            // Pass the selected article to the edit article page  use UserSession to hold the article
-            UserSession.getInstance().setSelectedArticle(selectedArticle);  
+            // Pass the full selected article to the edit article page  use UserSession to hold the article
+            try {
+                UserSession.getInstance().setSelectedArticle(had.getArticleById(selectedArticle.getId()));
+            } catch (Exception e) {
+                showErrorAlert("Error", "Failed to load the article: " + e.getMessage());
+                return;
+            }
             navigateTo("/views/CreateEditArticleView.fxml");
         } else {
             showErrorAlert("No selection", "Please select an article to edit.");
@@ -354,11 +342,16 @@ public class StudentGeneralViewController extends PageController {
             }
             
             long searchId = Long.parseLong(idText);
-            List<Article> articles = had.getAllGeneralArticles().stream()
-                .filter(article -> article.getId() == searchId)
-                .collect(Collectors.toList());
+            List<ArticleSummary> articles = new ArrayList<>();
+            if (searchId > 0 && searchId <= Integer.MAX_VALUE) {
+                // Read the page that starts just before the id, which holds the article if it's a general article
+                ArticlePage page = had.getArticleSummaryPage(ArticleFilter.allGeneralArticles(), (int) searchId - 1, 1);
+                page.getSummaries().stream()
+                    .filter(article -> article.getId() == searchId)
+                    .forEach(articles::add);
+            }
                 
-            articleTable.setItems(FXCollections.observableArrayList(articles));
+            pagedTable.showOnly(articles);
         } catch (NumberFormatException e) {
             showErrorAlert("Invalid Input", "Please enter a valid numeric ID");
         } catch (Exception e) {
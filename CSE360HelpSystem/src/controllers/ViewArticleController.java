@@ -8,6 +8,7 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 import database.Database;
+import database.HelpArticleDatabase;
 import models.Article;
 import models.UserSession;
 /**
@@ -82,7 +83,7 @@ public class ViewArticleController extends PageController {
      */
     @FXML
     public void initialize() {
-        Article selectedArticle = UserSession.getInstance().getSelectedArticle();
+        Article selectedArticle = loadSelectedArticle();
         if (selectedArticle != null) {
             // Load the article details into the UI components
             titleField.setText(selectedArticle.getTitle());
@@ -100,6 +101,26 @@ public class ViewArticleController extends PageController {
         }
     }
 
+    /**
+     * Gets the selected article. List pages only hold article summaries and select the article by id,
+     * so in that case the full article is read here and kept in the session for the edit page.
+     *
+     * @return the selected article, or null if there is none
+     */
+    private Article loadSelectedArticle() {
+        UserSession session = UserSession.getInstance();
+        Integer selectedArticleId = session.getSelectedArticleId();
+        if (selectedArticleId != null) {
+            try {
+                session.setSelectedArticle(new HelpArticleDatabase().getArticleById(selectedArticleId));
+            } catch (Exception e) {
+                System.out.println("[ViewArticle] Failed to load article " + selectedArticleId + ": " + e.getMessage());
+                return null;
+            }
+        }
+        return session.getSelectedArticle();
+    }
+
     /**
      * Handles navigation back to the previous view based on user role.
      * Admins are directed to the article management view, while instructors and students
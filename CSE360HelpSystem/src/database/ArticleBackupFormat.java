@@ -0,0 +1,147 @@
+package database;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * The {@code ArticleBackupFormat} is the file format backups are written in.
+ *
+ * Text backups, version 1, are the lines written by {@link ArticleBackupRecord#write(BufferedWriter)} and are
+ * read by every version of the help system. Binary backups, version 2, are blocks of length-prefixed records
+ * with a checksum each, see {@link BinaryBackupFile}. Restores tell the two apart by the start of the file,
+ * so a backup in either format restores the same way.
+ */
+public enum ArticleBackupFormat {
+	/**
+	 * Lines of Base64 text, version 1
+	 */
+	TEXT("Text (v1)"),
+	/**
+	 * Binary blocks, version 2
+	 */
+	BINARY("Binary (v2)"),
+	/**
+	 * Binary blocks compressed with Deflate, version 2
+	 */
+	BINARY_COMPRESSED("Binary, compressed (v2)");
+
+	private final String label;
+
+	ArticleBackupFormat(String label) {
+		this.label = label;
+	}
+
+	/**
+	 * Creates or replaces a backup file in this format
+	 *
+	 * @param filename path to the backup file
+	 * @return the writer, which must be finished and then closed
+	 * @throws IOException if the file can't be created
+	 */
+	ArticleBackupWriter openWriter(String filename) throws IOException {
+		switch (this) {
+		case BINARY:
+			return new BinaryBackupFile.Writer(filename, false);
+		case BINARY_COMPRESSED:
+			return new BinaryBackupFile.Writer(filename, true);
+		default:
+			return new TextWriter(filename);
+		}
+	}
+
+	/**
+	 * Opens a backup file in whichever format it was written in
+	 *
+	 * @param filename path to the backup file
+	 * @return the reader
+	 * @throws IOException if the file can't be opened, or has a binary header this version can't read
+	 */
+	static ArticleBackupReader openReader(String filename) throws IOException {
+		if (BinaryBackupFile.isBinary(filename)) {
+			return new BinaryBackupFile.Reader(filename);
+		}
+		return new TextReader(filename);
+	}
+
+	/**
+	 * Opens a backup file in whichever format it was written in, parsing it on worker threads if it is large
+	 * enough to be worth splitting. Those files are mapped into memory until the mapping is garbage collected,
+	 * so pass one thread for a file that will be written over while the application runs.
+	 *
+	 * @param filename path to the backup file
+	 * @param threads number of worker threads, 1 to read on the calling thread
+	 * @param chunkSize length of file parsed by one worker task
+	 * @return the reader
+	 * @throws IOException if the file can't be opened, or has a binary header this version can't read
+	 */
+	static ArticleBackupReader openReader(String filename, int threads, int chunkSize) throws IOException {
+		long length = new File(filename).length();
+		// A mapped buffer holds at most 2 GB, and a file of less than two chunks gains nothing from workers
+		if (threads > 1 && length >= 2L * chunkSize && length <= Integer.MAX_VALUE) {
+			return new ParallelBackupReader(filename, threads, chunkSize);
+		}
+		return openReader(filename);
+	}
+
+	@Override
+	public String toString() {
+		return label;
+	}
+
+	private static final class TextWriter implements ArticleBackupWriter {
+		private final File file;
+		private final BufferedWriter writer;
+		private boolean finished;
+
+		private TextWriter(String filename) throws IOException {
+			file = new File(filename);
+			writer = new BufferedWriter(new FileWriter(file));
+		}
+
+		@Override
+		public void write(ArticleBackupRecord record) throws IOException {
+			record.write(writer);
+		}
+
+		@Override
+		public void finish() throws IOException {
+			writer.flush();
+			finished = true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				writer.close();
+			} finally {
+				// A text backup has no end marker, so a cut one is removed instead
+				if (!finished) {
+					Files.deleteIfExists(file.toPath());
+				}
+			}
+		}
+	}
+
+	private static final class TextReader implements ArticleBackupReader {
+		private final BufferedReader reader;
+
+		private TextReader(String filename) throws IOException {
+			reader = new BufferedReader(new FileReader(filename));
+		}
+
+		@Override
+		public ArticleBackupRecord read() throws IOException {
+			return ArticleBackupRecord.read(reader);
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+}
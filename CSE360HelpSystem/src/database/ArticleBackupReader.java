@@ -0,0 +1,19 @@
+package database;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The {@code ArticleBackupReader} reads the records of one backup file, opened with
+ * {@link ArticleBackupFormat#openReader(String)}.
+ */
+interface ArticleBackupReader extends Closeable {
+
+	/**
+	 * Reads the next record
+	 *
+	 * @return the record, or null at the end of the file
+	 * @throws IOException if the file can't be read or is corrupt
+	 */
+	ArticleBackupRecord read() throws IOException;
+}
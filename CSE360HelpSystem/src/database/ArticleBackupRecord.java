@@ -0,0 +1,437 @@
+package database;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Base64;
+
+import Encryption.DataKeyRecord;
+import Encryption.KeyHierarchy;
+
+/**
+ * The {@code ArticleBackupRecord} is one article in a backup file, with its text still encrypted.
+ *
+ * Each record is written as lines: the id, the IV, the six encrypted text fields, the level, groups,
+ * permissions, date added, version, and an END_OF_ARTICLE line. An article stored as one encrypted envelope
+ * is written with the envelope on the first text line, marked with {@value #ENVELOPE_PREFIX}, and the other
+ * five text lines left empty, so backups made before envelopes existed restore unchanged. An article sealed as a
+ * summary part and a content part has the summary part on the first text line and the content part, marked the
+ * same way, on the second.
+ *
+ * Backup files hold Base64 text. Envelopes are restored to the binary columns, and articles with six
+ * encrypted fields to the old columns for the next storage migration to move. The IV line is empty for
+ * envelopes sealed by a cipher suite, which carry their own IV. For envelopes sealed with a data key it holds
+ * the wrapped data key instead, marked with {@value #DATA_KEY_PREFIX}, so the backup restores into a database
+ * that doesn't have the key yet, as long as that database has the master key it is wrapped with.
+ *
+ * Binary backups, see {@link BinaryBackupFile}, hold the same values with raw bytes in place of Base64, written by
+ * {@link #writeBinary(DataOutput)}. A byte before the text says whether it is six fields, an envelope, or an
+ * envelope followed by a content part.
+ *
+ * Incremental backups also hold tombstones for deleted articles, see {@link #tombstone(int)}. A tombstone is the id
+ * followed by a {@value #TOMBSTONE} line and the END_OF_ARTICLE line in text backups, and the id followed by the
+ * IV length {@value #TOMBSTONE_LENGTH} in binary ones.
+ */
+class ArticleBackupRecord {
+
+	static final String END_OF_ARTICLE = "END_OF_ARTICLE";
+	static final String ENVELOPE_PREFIX = "ENVELOPE:";
+	static final String DATA_KEY_PREFIX = "DATA_KEY:";
+	static final String TOMBSTONE = "TOMBSTONE";
+	static final int TOMBSTONE_LENGTH = -2;
+
+	/**
+	 * Columns of the articles table written by {@link #bind(PreparedStatement)}, in order
+	 */
+	static final String COLUMNS = "id, iv, title, authors, abstract, keywords, body, references, envelope, "
+			+ "iv_bytes, envelope_bytes, content_bytes, level, grouping_identifiers, permissions, date_added, version";
+	static final String PLACEHOLDERS = "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?";
+
+	/**
+	 * Values of the byte before the text of a binary record
+	 */
+	private static final byte FIELDS = 0;
+	private static final byte ENVELOPE = 1;
+	private static final byte ENVELOPE_AND_CONTENT = 2;
+
+	private static final String[] TEXT_COLUMNS = { "title", "authors", "abstract", "keywords", "body", "references" };
+
+	private final int id;
+	private final byte[] iv;
+	private final String[] encryptedFields;
+	private final byte[] envelope;
+	private final byte[] content;
+	private final DataKeyRecord dataKey;
+	private final String level;
+	private final String groupingIdentifiers;
+	private final String permissions;
+	private final String dateAdded;
+	private final String version;
+	private final boolean tombstone;
+
+	/**
+	 * Creates a record
+	 *
+	 * @param id the article id
+	 * @param iv the IV, or null if the envelope carries its own
+	 * @param encryptedFields the six Base64 encoded text fields, or null if the article has an envelope
+	 * @param envelope the envelope, or null if the fields are encrypted one by one
+	 * @param content the content part, or null if the envelope holds every field
+	 * @param dataKey the data key the envelope is sealed with, or null if it isn't sealed with one
+	 * @param level the article level
+	 * @param groupingIdentifiers the comma-separated groups
+	 * @param permissions the article permissions
+	 * @param dateAdded the date added, formatted as yyyy-mm-dd
+	 * @param version the article version
+	 */
+	ArticleBackupRecord(int id, byte[] iv, String[] encryptedFields, byte[] envelope, byte[] content, DataKeyRecord dataKey,
+			String level, String groupingIdentifiers, String permissions, String dateAdded, String version) {
+		this.id = id;
+		this.iv = iv;
+		this.encryptedFields = encryptedFields != null ? encryptedFields : new String[TEXT_COLUMNS.length];
+		this.envelope = envelope;
+		this.content = content;
+		this.dataKey = dataKey;
+		this.level = level;
+		this.groupingIdentifiers = groupingIdentifiers;
+		this.permissions = permissions;
+		this.dateAdded = dateAdded;
+		this.version = version;
+		this.tombstone = false;
+	}
+
+	private ArticleBackupRecord(int id) {
+		this.id = id;
+		this.iv = null;
+		this.encryptedFields = new String[TEXT_COLUMNS.length];
+		this.envelope = null;
+		this.content = null;
+		this.dataKey = null;
+		this.level = null;
+		this.groupingIdentifiers = null;
+		this.permissions = null;
+		this.dateAdded = null;
+		this.version = null;
+		this.tombstone = true;
+	}
+
+	/**
+	 * Creates a record saying an article was deleted
+	 *
+	 * @param id the id of the deleted article
+	 * @return the tombstone
+	 */
+	static ArticleBackupRecord tombstone(int id) {
+		return new ArticleBackupRecord(id);
+	}
+
+	/**
+	 * Reads a record from an articles row, without decrypting it
+	 *
+	 * @param rs ResultSet positioned on an articles row with every column
+	 * @return the record
+	 * @throws SQLException if a column can't be read
+	 */
+	static ArticleBackupRecord fromRow(ResultSet rs) throws SQLException {
+		byte[] iv = HelpArticleDatabase.readIv(rs);
+		byte[] envelope = HelpArticleDatabase.readEnvelope(rs);
+		String[] fields = null;
+		if (envelope == null) {
+			fields = new String[TEXT_COLUMNS.length];
+			for (int i = 0; i < fields.length; i++) {
+				fields[i] = rs.getString(TEXT_COLUMNS[i]);
+			}
+		}
+		DataKeyRecord dataKey = null;
+		long keyId = iv == null ? KeyHierarchy.keyId(envelope) : 0;
+		if (keyId != 0) {
+			dataKey = ArticleKeyStore.load(rs.getStatement().getConnection(), keyId);
+		}
+		return new ArticleBackupRecord(rs.getInt("id"), iv, fields, envelope, HelpArticleDatabase.readContent(rs), dataKey,
+				rs.getString("level"), rs.getString("grouping_identifiers"), rs.getString("permissions"),
+				rs.getString("date_added"), rs.getString("version"));
+	}
+
+	/**
+	 * Reads the next record of a backup file
+	 *
+	 * @param reader the backup file
+	 * @return the record, or null at the end of the file
+	 * @throws IOException if the file can't be read
+	 */
+	static ArticleBackupRecord read(BufferedReader reader) throws IOException {
+		String idLine = reader.readLine();
+		if (idLine == null) {
+			return null;
+		}
+		int id = Integer.parseInt(idLine);
+		String iv = emptyToNull(reader.readLine());
+		if (TOMBSTONE.equals(iv)) {
+			reader.readLine(); // Skip "END_OF_ARTICLE"
+			return tombstone(id);
+		}
+		DataKeyRecord dataKey = null;
+		if (iv != null && iv.startsWith(DATA_KEY_PREFIX)) {
+			// The key id, master key version, and wrapped key
+			String[] parts = iv.substring(DATA_KEY_PREFIX.length()).split(":");
+			dataKey = new DataKeyRecord(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Base64.getDecoder().decode(parts[2]));
+			iv = null;
+		}
+		String[] fields = new String[TEXT_COLUMNS.length];
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = reader.readLine();
+		}
+		byte[] envelope = null;
+		byte[] content = null;
+		if (fields[0] != null && fields[0].startsWith(ENVELOPE_PREFIX)) {
+			envelope = Base64.getDecoder().decode(fields[0].substring(ENVELOPE_PREFIX.length()));
+			if (fields[1] != null && fields[1].startsWith(ENVELOPE_PREFIX)) {
+				content = Base64.getDecoder().decode(fields[1].substring(ENVELOPE_PREFIX.length()));
+			}
+			fields = null;
+		}
+		String level = reader.readLine();
+		String groupingIdentifiers = reader.readLine();
+		String permissions = reader.readLine();
+		String dateAdded = reader.readLine();
+		String version = reader.readLine();
+		reader.readLine(); // Skip "END_OF_ARTICLE"
+		return new ArticleBackupRecord(id, iv != null ? Base64.getDecoder().decode(iv) : null, fields, envelope, content, dataKey,
+				level, groupingIdentifiers, permissions, dateAdded, version);
+	}
+
+	/**
+	 * Writes the record to a backup file
+	 *
+	 * @param writer the backup file
+	 * @throws IOException if the file can't be written
+	 */
+	void write(BufferedWriter writer) throws IOException {
+		writer.write(id + "\n");
+		if (tombstone) {
+			writer.write(TOMBSTONE + "\n" + END_OF_ARTICLE + "\n");
+			return;
+		}
+		if (dataKey != null) {
+			writer.write(DATA_KEY_PREFIX + dataKey.getKeyId() + ":" + dataKey.getMasterKeyVersion() + ":"
+					+ encode(dataKey.getWrappedKey()) + "\n");
+		} else {
+			writer.write((iv != null ? encode(iv) : "") + "\n");
+		}
+		for (int i = 0; i < encryptedFields.length; i++) {
+			if (envelope != null) {
+				if (i == 0) {
+					writer.write(ENVELOPE_PREFIX + encode(envelope) + "\n");
+				} else if (i == 1 && content != null) {
+					writer.write(ENVELOPE_PREFIX + encode(content) + "\n");
+				} else {
+					writer.write("\n");
+				}
+			} else {
+				writer.write(encryptedFields[i] + "\n");
+			}
+		}
+		writer.write(level + "\n");
+		writer.write(groupingIdentifiers + "\n");
+		writer.write(permissions + "\n");
+		writer.write(dateAdded + "\n");
+		writer.write(version + "\n");
+		writer.write(END_OF_ARTICLE + "\n");
+	}
+
+	/**
+	 * Writes the record in the binary backup format. Byte arrays and strings are written as their length,
+	 * or -1 for null, followed by their bytes, strings in UTF-8.
+	 *
+	 * @param out the record buffer of a binary backup block
+	 * @throws IOException if the record can't be written
+	 */
+	void writeBinary(DataOutput out) throws IOException {
+		out.writeInt(id);
+		if (tombstone) {
+			out.writeInt(TOMBSTONE_LENGTH);
+			return;
+		}
+		writeBytes(out, iv);
+		out.writeBoolean(dataKey != null);
+		if (dataKey != null) {
+			out.writeLong(dataKey.getKeyId());
+			out.writeInt(dataKey.getMasterKeyVersion());
+			writeBytes(out, dataKey.getWrappedKey());
+		}
+		out.writeByte(envelope == null ? FIELDS : content == null ? ENVELOPE : ENVELOPE_AND_CONTENT);
+		if (envelope != null) {
+			writeBytes(out, envelope);
+			if (content != null) {
+				writeBytes(out, content);
+			}
+		} else {
+			for (String field : encryptedFields) {
+				writeString(out, field);
+			}
+		}
+		writeString(out, level);
+		writeString(out, groupingIdentifiers);
+		writeString(out, permissions);
+		writeString(out, dateAdded);
+		writeString(out, version);
+	}
+
+	/**
+	 * Reads a record written by {@link #writeBinary(DataOutput)}
+	 *
+	 * @param in buffer holding exactly one record
+	 * @return the record
+	 * @throws IOException if the record is cut short or a length is out of range
+	 */
+	static ArticleBackupRecord readBinary(ByteBuffer in) throws IOException {
+		try {
+			int id = in.getInt();
+			if (in.getInt(in.position()) == TOMBSTONE_LENGTH) {
+				in.getInt();
+				if (in.hasRemaining()) {
+					throw new IOException("Tombstone " + id + " has " + in.remaining() + " unread bytes");
+				}
+				return tombstone(id);
+			}
+			byte[] iv = readBytes(in);
+			DataKeyRecord dataKey = null;
+			if (in.get() != 0) {
+				dataKey = new DataKeyRecord(in.getLong(), in.getInt(), readBytes(in));
+			}
+			byte[] envelope = null;
+			byte[] content = null;
+			String[] fields = null;
+			byte text = in.get();
+			if (text == ENVELOPE || text == ENVELOPE_AND_CONTENT) {
+				envelope = readBytes(in);
+				if (text == ENVELOPE_AND_CONTENT) {
+					content = readBytes(in);
+				}
+			} else if (text == FIELDS) {
+				fields = new String[TEXT_COLUMNS.length];
+				for (int i = 0; i < fields.length; i++) {
+					fields[i] = readString(in);
+				}
+			} else {
+				throw new IOException("Backup record " + id + " has unknown text type " + text);
+			}
+			ArticleBackupRecord record = new ArticleBackupRecord(id, iv, fields, envelope, content, dataKey,
+					readString(in), readString(in), readString(in), readString(in), readString(in));
+			if (in.hasRemaining()) {
+				throw new IOException("Backup record " + id + " has " + in.remaining() + " unread bytes");
+			}
+			return record;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("Backup record is cut short", e);
+		}
+	}
+
+	/**
+	 * Sets the parameters of an insert or merge into the {@link #COLUMNS} of the articles table.
+	 * The data key of the envelope, see {@link #getDataKey()}, has to be saved by the caller.
+	 *
+	 * @param pstmt the statement
+	 * @throws SQLException if a parameter can't be set
+	 */
+	void bind(PreparedStatement pstmt) throws SQLException {
+		pstmt.setInt(1, id);
+		boolean binary = envelope != null;
+		pstmt.setString(2, binary ? null : encode(iv));
+		for (int i = 0; i < encryptedFields.length; i++) {
+			pstmt.setString(3 + i, encryptedFields[i]);
+		}
+		pstmt.setString(9, null);
+		pstmt.setBytes(10, binary ? iv : null);
+		pstmt.setBytes(11, envelope);
+		pstmt.setBytes(12, content);
+		pstmt.setString(13, level);
+		pstmt.setString(14, groupingIdentifiers);
+		pstmt.setString(15, permissions);
+		pstmt.setDate(16, Date.valueOf(dateAdded));
+		pstmt.setString(17, version);
+	}
+
+	private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+		if (bytes == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static void writeString(DataOutput out, String value) throws IOException {
+		writeBytes(out, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+	}
+
+	private static byte[] readBytes(ByteBuffer in) throws IOException {
+		int length = in.getInt();
+		if (length == -1) {
+			return null;
+		}
+		if (length < 0 || length > in.remaining()) {
+			throw new IOException("Backup record field length " + length + " is out of range");
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return bytes;
+	}
+
+	private static String readString(ByteBuffer in) throws IOException {
+		byte[] bytes = readBytes(in);
+		return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+	}
+
+	private static String emptyToNull(String line) {
+		return line == null || line.isEmpty() ? null : line;
+	}
+
+	private static String encode(byte[] bytes) {
+		return bytes != null ? Base64.getEncoder().encodeToString(bytes) : null;
+	}
+
+	int getId() {
+		return id;
+	}
+
+	/**
+	 * Checks the values that are only decoded when the record is written to the database, the Base64 of
+	 * articles encrypted field by field and the date added
+	 *
+	 * @throws IllegalArgumentException if one of them can't be decoded
+	 */
+	void validate() {
+		if (tombstone) {
+			return;
+		}
+		for (String field : encryptedFields) {
+			if (field != null) {
+				Base64.getDecoder().decode(field);
+			}
+		}
+		Date.valueOf(dateAdded);
+	}
+
+	/**
+	 * @return true if the record only says the article was deleted
+	 */
+	boolean isTombstone() {
+		return tombstone;
+	}
+
+	/**
+	 * @return the data key the envelope is sealed with, or null if it isn't sealed with one
+	 */
+	DataKeyRecord getDataKey() {
+		return dataKey;
+	}
+}
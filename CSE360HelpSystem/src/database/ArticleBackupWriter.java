@@ -0,0 +1,28 @@
+package database;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The {@code ArticleBackupWriter} writes the records of one backup file in one {@link ArticleBackupFormat}.
+ * The file is only complete once {@link #finish()} has been called. Closing a writer that wasn't finished, such
+ * as one whose backup failed part way, deletes the file so a cut backup can't be restored as if it were whole.
+ */
+interface ArticleBackupWriter extends Closeable {
+
+	/**
+	 * Writes the next record
+	 *
+	 * @param record the record
+	 * @throws IOException if the file can't be written
+	 */
+	void write(ArticleBackupRecord record) throws IOException;
+
+	/**
+	 * Writes what is left of the file, such as the end block of a binary backup. Called once the last
+	 * record has been written, before the writer is closed.
+	 *
+	 * @throws IOException if the file can't be written
+	 */
+	void finish() throws IOException;
+}
@@ -0,0 +1,233 @@
+package database;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import models.Article;
+import models.LazyArticle;
+
+/**
+ * The {@code ArticleCache} keeps decrypted articles in memory, keyed by article id, so that
+ * list views that reload the article table don't decrypt every field of every article again.
+ *
+ * The cache is bounded by an estimate of the bytes held by the cached articles and evicts the least
+ * recently used articles when that bound is exceeded. {@link HelpArticleDatabase} invalidates entries
+ * whenever it writes to the articles table. Callers always get a copy of the cached article,
+ * so changes made by a controller before saving never leak into the cache.
+ *
+ * Readers take the current generation before they query the table and pass it to {@link #put(Article, long)},
+ * so an article read before a concurrent update is not cached after that update invalidated it.
+ *
+ * A {@link LazyArticle} is weighed again whenever its fields are decrypted, through any copy, since the
+ * decrypted text takes more room than the ciphertext it was weighed with.
+ */
+public class ArticleCache {
+	/**
+	 * Default upper bound for the estimated size of the cached articles
+	 */
+	public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+	/**
+	 * Rough fixed cost of an Article object, its strings, and its grouping list
+	 */
+	private static final long ARTICLE_OVERHEAD_BYTES = 256;
+
+	private static ArticleCache instance;
+
+	private final long maxBytes;
+	private final LinkedHashMap<Integer, Entry> articles = new LinkedHashMap<>(64, 0.75f, true);
+	private long residentBytes;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long generation;
+
+	/**
+	 * Creates a cache bounded by the given number of bytes
+	 *
+	 * @param maxBytes upper bound for the estimated size of the cached articles
+	 */
+	public ArticleCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Gets the cache shared by all HelpArticleDatabase instances or creates a new one
+	 *
+	 * @return the shared cache instance
+	 */
+	public static synchronized ArticleCache getInstance() {
+		if (instance == null) {
+			instance = new ArticleCache(DEFAULT_MAX_BYTES);
+		}
+		return instance;
+	}
+
+	/**
+	 * Looks up a decrypted article
+	 *
+	 * @param id the article id
+	 * @return a copy of the cached article, or null if it isn't cached
+	 */
+	public synchronized Article get(int id) {
+		Entry entry = articles.get(id);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.article.copy();
+	}
+
+	/**
+	 * @return the current generation, which changes on every invalidation
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Adds a decrypted article to the cache, evicting least recently used articles if needed
+	 *
+	 * @param article the decrypted article, which must have its id set
+	 * @param readGeneration the generation taken before the article was read from the database
+	 */
+	public synchronized void put(Article article, long readGeneration) {
+		if (readGeneration != generation) {
+			return; // The table changed after the article was read
+		}
+		Entry entry = new Entry(article.copy());
+		if (entry.bytes > maxBytes) {
+			return; // Larger than the whole cache
+		}
+		Entry previous = articles.put(article.getId(), entry);
+		if (previous != null) {
+			residentBytes -= previous.bytes;
+		}
+		residentBytes += entry.bytes;
+		if (entry.article instanceof LazyArticle) {
+			((LazyArticle) entry.article).setDecryptionListener(() -> reweigh(article.getId(), entry));
+		}
+		evictToBound();
+	}
+
+	/**
+	 * Weighs a cached article again after more of its fields were decrypted
+	 */
+	private synchronized void reweigh(int id, Entry entry) {
+		if (articles.get(id) != entry) {
+			return; // Evicted or replaced since
+		}
+		long bytes = entry.weigh();
+		residentBytes += bytes - entry.bytes;
+		entry.bytes = bytes;
+		if (bytes > maxBytes) {
+			articles.remove(id);
+			residentBytes -= bytes;
+			evictions++;
+			return;
+		}
+		evictToBound();
+	}
+
+	private void evictToBound() {
+		Iterator<Entry> it = articles.values().iterator();
+		while (residentBytes > maxBytes && it.hasNext()) {
+			Entry eldest = it.next();
+			it.remove();
+			residentBytes -= eldest.bytes;
+			evictions++;
+		}
+	}
+
+	/**
+	 * Removes one article from the cache. Called after the article is updated or deleted.
+	 *
+	 * @param id the article id
+	 */
+	public synchronized void invalidate(int id) {
+		generation++;
+		Entry removed = articles.remove(id);
+		if (removed != null) {
+			residentBytes -= removed.bytes;
+		}
+	}
+
+	/**
+	 * Removes every article from the cache. Called after bulk changes such as a restore.
+	 */
+	public synchronized void invalidateAll() {
+		generation++;
+		articles.clear();
+		residentBytes = 0;
+	}
+
+	/**
+	 * @return number of articles in the cache
+	 */
+	public synchronized int size() {
+		return articles.size();
+	}
+
+	/**
+	 * @return estimated bytes held by the cached articles
+	 */
+	public synchronized long getResidentBytes() {
+		return residentBytes;
+	}
+
+	/**
+	 * @return fraction of lookups that found the article in the cache, between 0 and 1
+	 */
+	public synchronized double getHitRate() {
+		long total = hits + misses;
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * @return number of lookups that found the article in the cache
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return number of lookups that did not find the article in the cache
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return number of articles removed to stay within the size bound
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Prints the cache metrics to the console
+	 */
+	public synchronized void printMetrics() {
+		System.out.println("[ArticleCache] articles=" + articles.size() + ", residentBytes=" + residentBytes
+				+ ", maxBytes=" + maxBytes + String.format(", hitRate=%.2f", getHitRate())
+				+ ", evictions=" + evictions);
+	}
+
+	/**
+	 * A cached article and its estimated size
+	 */
+	private static class Entry {
+		private final Article article;
+		private long bytes;
+
+		Entry(Article article) {
+			this.article = article;
+			this.bytes = weigh();
+		}
+
+		long weigh() {
+			return article.estimateSizeInBytes() + ARTICLE_OVERHEAD_BYTES;
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The {@code ArticleChangeTracker} keeps track of which articles changed, so a backup can hold only the articles
+ * that changed since an earlier one.
+ *
+ * Every insert and update of an article takes the next value of the {@code article_changes} sequence into the
+ * {@code change_seq} column. Inserts get it from the column default, and updates set it with
+ * {@link #NEXT_CHANGE}. Deleted articles leave a tombstone with their own change number in
+ * {@code article_tombstones}. The {@code article_backups} table remembers the change number each backup file
+ * covers, so an incremental backup can start from the backup it is based on.
+ *
+ * Change numbers are handed out when a statement runs, not when its transaction commits, so the highest committed
+ * number can be higher than one still to be committed. A transaction that takes change numbers therefore holds
+ * {@link #lockChanges()} until it has committed or rolled back, and {@link #lastChange(Connection)} only reads the
+ * highest number when no such transaction is in flight. Every number up to it is then committed, and every number
+ * handed out later is higher.
+ */
+public class ArticleChangeTracker {
+
+	/**
+	 * SQL expression for the change number of an update
+	 */
+	static final String NEXT_CHANGE = "NEXT VALUE FOR article_changes";
+
+	/**
+	 * Shared by transactions taking change numbers, held alone while the last change is read
+	 */
+	private static final ReentrantReadWriteLock CHANGES = new ReentrantReadWriteLock();
+
+	/**
+	 * Creates the sequence, the change column of the articles table, and the tables of tombstones and backups
+	 * if they don't exist. The articles table must exist already.
+	 *
+	 * @param conn connection to create them with
+	 * @throws SQLException if a database access error occurs
+	 */
+	public static void createTables(Connection conn) throws SQLException {
+		try (Statement statement = conn.createStatement()) {
+			statement.execute("CREATE SEQUENCE IF NOT EXISTS article_changes");
+			// Articles that existed before change tracking get a change number when the column is added
+			statement.execute("ALTER TABLE articles ADD COLUMN IF NOT EXISTS change_seq BIGINT DEFAULT " + NEXT_CHANGE);
+			statement.execute("CREATE TABLE IF NOT EXISTS article_tombstones ("
+					+ "article_id INT PRIMARY KEY, "
+					+ "change_seq BIGINT NOT NULL, "
+					+ "deleted_at TIMESTAMP)");
+			statement.execute("CREATE TABLE IF NOT EXISTS article_backups ("
+					+ "file VARCHAR(1024) PRIMARY KEY, "  // Absolute path of the backup file
+					+ "base_file VARCHAR(1024), "         // Backup an incremental backup is based on, null for a full backup
+					+ "change_seq BIGINT NOT NULL, "      // Every change up to this number is in the backup or its base
+					+ "created_at TIMESTAMP)");
+		}
+	}
+
+	/**
+	 * Leaves tombstones for articles about to be deleted
+	 *
+	 * @param conn the connection the articles are deleted with
+	 * @param condition condition on the articles table selecting the articles, may use ? parameters
+	 * @param params the parameters of the condition
+	 * @throws SQLException if a database access error occurs
+	 */
+	static void recordDeletions(Connection conn, String condition, Object... params) throws SQLException {
+		try (PreparedStatement merge = conn.prepareStatement(tombstoneSql(condition))) {
+			for (int i = 0; i < params.length; i++) {
+				merge.setObject(i + 1, params[i]);
+			}
+			merge.executeUpdate();
+		}
+	}
+
+	/**
+	 * Builds a statement that leaves tombstones for the articles matching a condition
+	 *
+	 * @param condition condition on the articles table
+	 * @return the statement
+	 */
+	static String tombstoneSql(String condition) {
+		return "MERGE INTO article_tombstones (article_id, change_seq, deleted_at) KEY (article_id) "
+				+ "SELECT id, " + NEXT_CHANGE + ", CURRENT_TIMESTAMP FROM articles WHERE " + condition;
+	}
+
+	/**
+	 * Marks a transaction that takes change numbers as in flight. The caller unlocks the returned lock once the
+	 * transaction has committed or rolled back, and must not call {@link #lastChange(Connection)} while holding it.
+	 *
+	 * @return the lock, already held
+	 */
+	static Lock lockChanges() {
+		Lock lock = CHANGES.readLock();
+		lock.lock();
+		return lock;
+	}
+
+	/**
+	 * Gets the highest change number of any article or tombstone, waiting until no transaction taking change
+	 * numbers is in flight, so no lower number can be committed after it
+	 *
+	 * @param conn the connection
+	 * @return the change number, 0 if nothing has changed
+	 * @throws SQLException if a database access error occurs
+	 */
+	static long lastChange(Connection conn) throws SQLException {
+		CHANGES.writeLock().lock();
+		try (Statement statement = conn.createStatement();
+			 ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(change_seq), 0) FROM ("
+					 + "SELECT change_seq FROM articles UNION ALL SELECT change_seq FROM article_tombstones)")) {
+			rs.next();
+			return rs.getLong(1);
+		} finally {
+			CHANGES.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remembers the change number a backup file covers
+	 *
+	 * @param conn the connection
+	 * @param file absolute path of the backup
+	 * @param baseFile absolute path of the backup it is based on, or null for a full backup
+	 * @param changeSeq the last change the backup and its bases hold
+	 * @throws SQLException if a database access error occurs
+	 */
+	static void saveBackup(Connection conn, String file, String baseFile, long changeSeq) throws SQLException {
+		try (PreparedStatement merge = conn.prepareStatement(
+				"MERGE INTO article_backups (file, base_file, change_seq, created_at) KEY (file) VALUES (?, ?, ?, CURRENT_TIMESTAMP)")) {
+			merge.setString(1, file);
+			merge.setString(2, baseFile);
+			merge.setLong(3, changeSeq);
+			merge.executeUpdate();
+		}
+	}
+
+	/**
+	 * Gets the change number a backup file covers
+	 *
+	 * @param conn the connection
+	 * @param file absolute path of the backup
+	 * @return the change number, or -1 if the backup wasn't made from this database
+	 * @throws SQLException if a database access error occurs
+	 */
+	static long backupChange(Connection conn, String file) throws SQLException {
+		try (PreparedStatement select = conn.prepareStatement("SELECT change_seq FROM article_backups WHERE file = ?")) {
+			select.setString(1, file);
+			try (ResultSet rs = select.executeQuery()) {
+				return rs.next() ? rs.getLong(1) : -1;
+			}
+		}
+	}
+}
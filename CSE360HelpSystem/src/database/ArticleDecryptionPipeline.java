@@ -0,0 +1,280 @@
+package database;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import Encryption.ArticleEnvelope;
+import Encryption.EncryptionHelper;
+import Encryption.EncryptionUtils;
+import models.Article;
+
+/**
+ * The {@code ArticleDecryptionPipeline} decrypts a large number of articles in parallel.
+ *
+ * A reader thread drains the ResultSet into records that still hold the ciphertext, and a pool of
+ * workers decrypts the records, each worker with its own thread's cipher. The calling thread passes the decrypted
+ * articles to a visitor, either in the order of the ResultSet or in the order they finish.
+ *
+ * At most {@code queueCapacity} records are read ahead of the visitor, so memory stays bounded however
+ * many rows the query returns. The workers are daemon threads shared by every pipeline, and a pipeline runs at
+ * most {@code workerCount} decryptions on them at a time.
+ *
+ * When the pipeline is given an {@link ArticleCache}, articles already in the cache are passed on without
+ * being decrypted, and articles it decrypts are put in the cache.
+ */
+public class ArticleDecryptionPipeline {
+
+	/**
+	 * Default number of records that can be read ahead of the visitor
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+	/**
+	 * Put on the result queue by the reader once it has submitted every row
+	 */
+	private static final Future<Article> END_OF_ROWS = CompletableFuture.completedFuture(null);
+
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	private static ExecutorService sharedWorkers;
+
+	private final int workerCount;
+	private final int queueCapacity;
+
+	/**
+	 * Creates a pipeline with one worker per available processor
+	 */
+	public ArticleDecryptionPipeline() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * Creates a pipeline
+	 *
+	 * @param workerCount number of threads decrypting articles
+	 * @param queueCapacity number of records that can be read ahead of the visitor
+	 */
+	public ArticleDecryptionPipeline(int workerCount, int queueCapacity) {
+		if (workerCount <= 0 || queueCapacity <= 0) {
+			throw new IllegalArgumentException("Worker count and queue capacity must be positive");
+		}
+		this.workerCount = workerCount;
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Creates the worker threads shared by every pipeline the first time they are needed
+	 *
+	 * @return the shared workers, one per available processor
+	 */
+	private static synchronized ExecutorService sharedWorkers() {
+		if (sharedWorkers == null) {
+			sharedWorkers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+				Thread thread = new Thread(task, "article-decrypt-" + THREAD_COUNT.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return sharedWorkers;
+	}
+
+	/**
+	 * Reads every row of a ResultSet holding all columns of the articles table, decrypts the rows in parallel,
+	 * and passes the articles to a visitor on the calling thread. The ResultSet is only used by the reader
+	 * thread while this method runs, and this method doesn't return until that thread has stopped.
+	 *
+	 * @param rs the rows to decrypt
+	 * @param ordered true to visit the articles in the order of the ResultSet
+	 * @param visitor called once for each article
+	 * @throws Exception if reading or decrypting a row fails or the visitor throws
+	 */
+	public void run(ResultSet rs, boolean ordered, ArticleVisitor visitor) throws Exception {
+		run(rs, ordered, null, 0, visitor);
+	}
+
+	/**
+	 * Decrypts the rows of a ResultSet like {@link #run(ResultSet, boolean, ArticleVisitor)}, but takes articles
+	 * from a cache when they are in it and puts the articles it decrypts in the cache
+	 *
+	 * @param rs the rows to decrypt
+	 * @param ordered true to visit the articles in the order of the ResultSet
+	 * @param cache the article cache, or null to decrypt every row
+	 * @param cacheGeneration article cache generation taken before the query was executed
+	 * @param visitor called once for each article
+	 * @throws Exception if reading or decrypting a row fails or the visitor throws
+	 */
+	public void run(ResultSet rs, boolean ordered, ArticleCache cache, long cacheGeneration, ArticleVisitor visitor) throws Exception {
+		ExecutorService workers = sharedWorkers();
+		// The shared helper gives every worker thread its own cipher
+		EncryptionHelper cipher = EncryptionHelper.getInstance();
+
+		BlockingQueue<Future<Article>> results = new LinkedBlockingQueue<>();
+		CompletionService<Article> completion = new ExecutorCompletionService<>(workers, results);
+		Semaphore readAhead = new Semaphore(queueCapacity);
+		// Limits this pipeline's decryptions on the shared workers, released by each task when it ends
+		Semaphore workerSlots = new Semaphore(workerCount);
+		AtomicInteger submitted = new AtomicInteger();
+		AtomicInteger fromCache = new AtomicInteger();
+		AtomicReference<Exception> readError = new AtomicReference<>();
+		// Set when the visitor stops early, the reader is not interrupted because H2 closes its files on interrupt
+		AtomicBoolean stopped = new AtomicBoolean();
+
+		Thread reader = new Thread(() -> {
+			try {
+				while (!stopped.get() && rs.next()) {
+					Article cached = cache != null ? cache.get(rs.getInt("id")) : null;
+					EncryptedRow row = cached != null ? null : new EncryptedRow(rs);
+					readAhead.acquire();
+					if (stopped.get()) {
+						break;
+					}
+					if (cached != null) {
+						// Both orders take results from the same queue, so a cached article skips the workers
+						results.put(CompletableFuture.completedFuture(cached));
+						submitted.incrementAndGet();
+						fromCache.incrementAndGet();
+						continue;
+					}
+					workerSlots.acquire();
+					Callable<Article> task = () -> {
+						try {
+							if (stopped.get()) {
+								return null; // The visitor stopped early, the result is never taken
+							}
+							Article article = row.decrypt(cipher);
+							if (cache != null) {
+								cache.put(article, cacheGeneration);
+							}
+							return article;
+						} finally {
+							workerSlots.release();
+						}
+					};
+					if (ordered) {
+						results.put(workers.submit(task));
+					} else {
+						completion.submit(task);
+					}
+					submitted.incrementAndGet();
+				}
+			} catch (Exception e) {
+				readError.set(e);
+			} finally {
+				results.add(END_OF_ROWS);
+			}
+		}, "article-reader");
+
+		int visited = 0;
+		reader.start();
+		try {
+			int expected = -1;
+			// Unordered results can still arrive after the end marker, so count them
+			while (expected < 0 || visited < expected) {
+				Future<Article> result = results.take();
+				if (result == END_OF_ROWS) {
+					expected = submitted.get();
+					continue;
+				}
+				Article article = get(result);
+				visited++;
+				readAhead.release();
+				visitor.visit(article);
+			}
+			if (readError.get() != null) {
+				throw readError.get();
+			}
+		} finally {
+			stopped.set(true);
+			readAhead.release(queueCapacity);
+			workerSlots.release(workerCount);
+			reader.join();
+		}
+		System.out.println("[ArticleDecryptionPipeline] Decrypted " + (visited - fromCache.get()) + " articles with "
+				+ workerCount + " workers, " + fromCache.get() + " taken from the cache");
+	}
+
+	/**
+	 * Waits for a decrypted article and rethrows the exception of a failed worker
+	 */
+	private static Article get(Future<Article> result) throws Exception {
+		try {
+			return result.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw new IllegalStateException("Article decryption failed: " + cause, cause);
+		}
+	}
+
+	/**
+	 * One articles row with its text fields still encrypted
+	 */
+	private static class EncryptedRow {
+		private final int id;
+		private final byte[] iv;
+		private final String[] encryptedFields;
+		private final byte[] envelope;
+		private final byte[] content;
+		private final String level;
+		private final String groupingIdentifiers;
+		private final String permissions;
+		private final Date dateAdded;
+		private final String version;
+
+		EncryptedRow(ResultSet rs) throws SQLException {
+			this.id = rs.getInt("id");
+			this.iv = HelpArticleDatabase.readIv(rs);
+			this.envelope = HelpArticleDatabase.readEnvelope(rs);
+			this.content = HelpArticleDatabase.readContent(rs);
+			// Articles without an envelope keep each field in its own column
+			this.encryptedFields = envelope != null ? null : new String[] {
+				rs.getString("title"), rs.getString("authors"), rs.getString("abstract"),
+				rs.getString("keywords"), rs.getString("body"), rs.getString("references")
+			};
+			this.level = rs.getString("level");
+			this.groupingIdentifiers = rs.getString("grouping_identifiers");
+			this.permissions = rs.getString("permissions");
+			this.dateAdded = rs.getDate("date_added");
+			this.version = rs.getString("version");
+		}
+
+		Article decrypt(EncryptionHelper cipher) throws Exception {
+			char[][] fields;
+			if (envelope != null) {
+				fields = HelpArticleDatabase.openStoredEnvelope(envelope, iv).fields();
+				if (content != null) {
+					char[][] contentFields = HelpArticleDatabase.openStoredEnvelope(content, iv).fields();
+					for (int i = ArticleEnvelope.SUMMARY_FIELD_COUNT; i < fields.length; i++) {
+						fields[i] = contentFields[i];
+					}
+				}
+			} else {
+				fields = new char[encryptedFields.length][];
+				for (int i = 0; i < fields.length; i++) {
+					byte[] cipherText = Base64.getDecoder().decode(encryptedFields[i]);
+					fields[i] = EncryptionUtils.toCharArray(cipher.decrypt(cipherText, iv));
+				}
+			}
+			return new Article(id, fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], level,
+					HelpArticleDatabase.parseGroupingIdentifiers(groupingIdentifiers), permissions, dateAdded, version);
+		}
+	}
+}
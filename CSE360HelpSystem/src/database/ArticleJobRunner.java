@@ -0,0 +1,294 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import Encryption.ArticleEnvelope;
+
+/**
+ * The {@code ArticleJobRunner} applies {@link ArticleRewriteJob}s to the articles table on a background thread,
+ * so that changing how articles are stored doesn't hold up whoever opens the database first.
+ *
+ * A job works through the articles in id order, a small batch at a time. Each batch locks its rows, rewrites
+ * them, and saves the last id it reached in the {@code article_jobs} table, all in one transaction. A job that
+ * is stopped or crashes picks up after the last saved batch, and a job that has finished is not run again.
+ * Rows written by the application while a job runs are locked against the job, and a pause between batches
+ * leaves the database free for users. Rewritten rows take a new change number, so the next incremental backup
+ * holds them as they are stored now, and restoring a backup chain doesn't bring back their old ciphertext.
+ *
+ * Restoring a backup can bring back articles in older formats, so restores reset every checkpoint with
+ * {@link #resetCheckpoints(Connection)} and jobs then scan the table again on their next run.
+ */
+public class ArticleJobRunner {
+	/**
+	 * Default number of articles rewritten in one transaction
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 50;
+
+	/**
+	 * Default pause between batches
+	 */
+	public static final long DEFAULT_PAUSE_MILLIS = 200;
+
+	private static ArticleJobRunner instance;
+
+	private final ConnectionPool pool;
+	private final int batchSize;
+	private final long pauseMillis;
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * Set when the runner shuts down. Running batches finish, because interrupting H2 closes its files
+	 */
+	private volatile boolean stopped;
+
+	/**
+	 * Creates a runner
+	 *
+	 * @param pool the pool connections are borrowed from
+	 * @param batchSize number of articles rewritten in one transaction
+	 * @param pauseMillis pause between batches
+	 */
+	public ArticleJobRunner(ConnectionPool pool, int batchSize, long pauseMillis) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		this.pool = pool;
+		this.batchSize = batchSize;
+		this.pauseMillis = pauseMillis;
+		executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "article-job");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Gets the runner for the application database or creates a new one
+	 *
+	 * @return the shared runner
+	 */
+	public static synchronized ArticleJobRunner getInstance() {
+		if (instance == null || instance.stopped) {
+			instance = new ArticleJobRunner(ConnectionPool.getInstance(), DEFAULT_BATCH_SIZE, DEFAULT_PAUSE_MILLIS);
+		}
+		return instance;
+	}
+
+	/**
+	 * Creates the table holding job checkpoints if it doesn't exist
+	 *
+	 * @param conn connection to create the table with
+	 * @throws SQLException if a database access error occurs
+	 */
+	public static void createTable(Connection conn) throws SQLException {
+		try (Statement statement = conn.createStatement()) {
+			statement.execute("CREATE TABLE IF NOT EXISTS article_jobs ("
+					+ "name VARCHAR(100) PRIMARY KEY, "
+					+ "last_id INT NOT NULL, "       // Highest article id the job has looked at
+					+ "rewritten INT NOT NULL, "     // Articles the job has rewritten so far
+					+ "completed BOOLEAN NOT NULL, "
+					+ "updated_at TIMESTAMP)");
+		}
+	}
+
+	/**
+	 * Makes every job scan the articles table again from the start
+	 *
+	 * @param conn connection to reset the checkpoints with
+	 * @throws SQLException if a database access error occurs
+	 */
+	public static void resetCheckpoints(Connection conn) throws SQLException {
+		createTable(conn);
+		try (Statement statement = conn.createStatement()) {
+			int reset = statement.executeUpdate("UPDATE article_jobs SET last_id = 0, completed = FALSE, updated_at = CURRENT_TIMESTAMP");
+			System.out.println("[ArticleJobRunner] Reset " + reset + " job checkpoints");
+		}
+	}
+
+	/**
+	 * Starts running a job in the background, one batch after another until every article has been seen
+	 *
+	 * @param job the job to run
+	 * @return the number of articles the job has rewritten in all its runs, once it finishes
+	 */
+	public Future<Integer> start(ArticleRewriteJob job) {
+		CompletableFuture<Integer> result = new CompletableFuture<>();
+		System.out.println("[ArticleJobRunner] Starting job " + job.getName());
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					boolean more = runBatch(job);
+					if (more && !stopped) {
+						// Batches are rescheduled rather than run in a loop, so the pause never sleeps in a transaction
+						executor.schedule(this, pauseMillis, TimeUnit.MILLISECONDS);
+						return;
+					}
+					int rewritten = rewrittenCount(job);
+					System.out.println("[ArticleJobRunner] Job " + job.getName() + (more ? " paused" : " finished")
+							+ " with " + rewritten + " articles rewritten");
+					result.complete(rewritten);
+				} catch (Exception e) {
+					System.out.println("[ArticleJobRunner] Job " + job.getName() + " failed: " + e.getMessage());
+					result.completeExceptionally(e);
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Runs one batch of a job in a single transaction
+	 *
+	 * @param job the job to run
+	 * @return true if the job has more articles to look at
+	 * @throws Exception if an article can't be rewritten or a database access error occurs
+	 */
+	public boolean runBatch(ArticleRewriteJob job) throws Exception {
+		Lock changes = ArticleChangeTracker.lockChanges(); // Rewritten articles take change numbers
+		try (Connection conn = pool.borrowConnection()) {
+			createTable(conn);
+			conn.setAutoCommit(false);
+			try {
+				boolean more = runBatch(conn, job);
+				conn.commit();
+				return more;
+			} catch (Exception e) {
+				conn.rollback();
+				throw e;
+			}
+		} finally {
+			changes.unlock();
+		}
+	}
+
+	private boolean runBatch(Connection conn, ArticleRewriteJob job) throws Exception {
+		int lastId = 0;
+		int rewritten = 0;
+		// Locking the checkpoint keeps two runners from working on the same job at once
+		try (PreparedStatement select = conn.prepareStatement(
+				"SELECT last_id, rewritten, completed FROM article_jobs WHERE name = ? FOR UPDATE")) {
+			select.setString(1, job.getName());
+			try (ResultSet rs = select.executeQuery()) {
+				if (rs.next()) {
+					if (rs.getBoolean("completed")) {
+						return false;
+					}
+					lastId = rs.getInt("last_id");
+					rewritten = rs.getInt("rewritten");
+				}
+			}
+		}
+
+		int seen = 0;
+		int batchRewritten = 0;
+		try (PreparedStatement select = conn.prepareStatement(
+				"SELECT * FROM articles WHERE id > ? ORDER BY id LIMIT ? FOR UPDATE");
+			 PreparedStatement update = conn.prepareStatement(
+				"UPDATE articles SET envelope_bytes = ?, content_bytes = ?, iv_bytes = NULL, iv = NULL, envelope = NULL, "
+				+ "title = NULL, authors = NULL, abstract = NULL, keywords = NULL, body = NULL, references = NULL, "
+				+ "change_seq = " + ArticleChangeTracker.NEXT_CHANGE + " WHERE id = ?")) {
+			select.setInt(1, lastId);
+			select.setInt(2, batchSize);
+			try (ResultSet rs = select.executeQuery()) {
+				while (rs.next()) {
+					seen++;
+					lastId = rs.getInt("id");
+					ArticleEnvelope.Parts sealed = job.rewrite(rs);
+					if (sealed == null) {
+						continue;
+					}
+					update.setBytes(1, sealed.getSummary());
+					update.setBytes(2, sealed.getContent());
+					update.setInt(3, lastId);
+					update.addBatch();
+					batchRewritten++;
+				}
+			}
+			if (batchRewritten > 0) {
+				update.executeBatch();
+			}
+		}
+
+		// A short batch means the job reached the end of the table
+		boolean more = seen == batchSize;
+		try (PreparedStatement save = conn.prepareStatement(
+				"MERGE INTO article_jobs (name, last_id, rewritten, completed, updated_at) KEY (name) "
+				+ "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)")) {
+			save.setString(1, job.getName());
+			save.setInt(2, lastId);
+			save.setInt(3, rewritten + batchRewritten);
+			save.setBoolean(4, !more);
+			save.executeUpdate();
+		}
+		if (batchRewritten > 0) {
+			System.out.println("[ArticleJobRunner] Job " + job.getName() + " rewrote " + batchRewritten
+					+ " articles up to id " + lastId);
+		}
+		return more;
+	}
+
+	/**
+	 * Gets the number of articles a job has rewritten across all its runs
+	 *
+	 * @param job the job
+	 * @return the saved count, or 0 if the job has never run
+	 * @throws SQLException if a database access error occurs
+	 */
+	public int rewrittenCount(ArticleRewriteJob job) throws SQLException {
+		try (Connection conn = pool.borrowConnection()) {
+			createTable(conn);
+			try (PreparedStatement select = conn.prepareStatement("SELECT rewritten FROM article_jobs WHERE name = ?")) {
+				select.setString(1, job.getName());
+				try (ResultSet rs = select.executeQuery()) {
+					return rs.next() ? rs.getInt(1) : 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a job has seen every article since it was last reset
+	 *
+	 * @param job the job
+	 * @return true if the job has finished
+	 * @throws SQLException if a database access error occurs
+	 */
+	public boolean isCompleted(ArticleRewriteJob job) throws SQLException {
+		try (Connection conn = pool.borrowConnection()) {
+			createTable(conn);
+			try (PreparedStatement select = conn.prepareStatement("SELECT completed FROM article_jobs WHERE name = ?")) {
+				select.setString(1, job.getName());
+				try (ResultSet rs = select.executeQuery()) {
+					return rs.next() && rs.getBoolean(1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops starting new batches. A batch that is running finishes and saves its checkpoint,
+	 * and its job continues from there the next time it is started.
+	 */
+	public void shutdown() {
+		stopped = true;
+		executor.shutdown();
+		try {
+			// Let a running batch commit before the connection pool closes
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		System.out.println("[ArticleJobRunner] Runner shut down");
+	}
+}
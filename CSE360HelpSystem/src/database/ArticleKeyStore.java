@@ -0,0 +1,153 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import Encryption.DataKeyRecord;
+import Encryption.DataKeyStore;
+import Encryption.KeyHierarchy;
+
+/**
+ * The {@code ArticleKeyStore} keeps the wrapped data keys of articles in the {@code article_keys} table.
+ *
+ * Only wrapped keys are stored, so the table is of no use without the master key that wrapped them.
+ * Keys of deleted articles are left in the table, since backups of those articles may still need them.
+ */
+public class ArticleKeyStore implements DataKeyStore {
+
+	/**
+	 * Number of keys wrapped again in one transaction when the master key is rotated
+	 */
+	static final int REWRAP_BATCH_SIZE = 100;
+
+	/**
+	 * Saves a key, its parameters are set by {@link #bind(PreparedStatement, DataKeyRecord)}
+	 */
+	static final String MERGE_SQL =
+			"MERGE INTO article_keys (id, master_version, wrapped_key, created_at) KEY (id) VALUES (?, ?, ?, CURRENT_TIMESTAMP)";
+
+	/**
+	 * Creates the table of data keys if it doesn't exist
+	 *
+	 * @param conn connection to create the table with
+	 * @throws SQLException if a database access error occurs
+	 */
+	public static void createTable(Connection conn) throws SQLException {
+		try (Statement statement = conn.createStatement()) {
+			statement.execute("CREATE TABLE IF NOT EXISTS article_keys ("
+					+ "id BIGINT PRIMARY KEY, "            // Key id written into the article ciphertext
+					+ "master_version INT NOT NULL, "      // Version of the master key that wrapped the key
+					+ "wrapped_key VARBINARY(64) NOT NULL, "
+					+ "created_at TIMESTAMP)");
+		}
+	}
+
+	@Override
+	public void save(DataKeyRecord record) throws SQLException {
+		try (Connection conn = ConnectionPool.getInstance().borrowConnection()) {
+			save(conn, record);
+		}
+	}
+
+	@Override
+	public DataKeyRecord load(long keyId) throws SQLException {
+		try (Connection conn = ConnectionPool.getInstance().borrowConnection()) {
+			return load(conn, keyId);
+		}
+	}
+
+	/**
+	 * Saves a data key with a connection the caller holds, such as one restoring a backup
+	 *
+	 * @param conn the connection
+	 * @param record the wrapped key
+	 * @throws SQLException if a database access error occurs
+	 */
+	static void save(Connection conn, DataKeyRecord record) throws SQLException {
+		try (PreparedStatement merge = conn.prepareStatement(MERGE_SQL)) {
+			bind(merge, record);
+			merge.executeUpdate();
+		}
+	}
+
+	/**
+	 * Sets the parameters of a {@link #MERGE_SQL} statement, so keys can be saved in a batch
+	 *
+	 * @param merge the statement
+	 * @param record the wrapped key
+	 * @throws SQLException if a parameter can't be set
+	 */
+	static void bind(PreparedStatement merge, DataKeyRecord record) throws SQLException {
+		merge.setLong(1, record.getKeyId());
+		merge.setInt(2, record.getMasterKeyVersion());
+		merge.setBytes(3, record.getWrappedKey());
+	}
+
+	/**
+	 * Loads a data key with a connection the caller holds, such as one writing a backup
+	 *
+	 * @param conn the connection
+	 * @param keyId the id of the key
+	 * @return the wrapped key, or null if there is no key with that id
+	 * @throws SQLException if a database access error occurs
+	 */
+	static DataKeyRecord load(Connection conn, long keyId) throws SQLException {
+		try (PreparedStatement select = conn.prepareStatement(
+				"SELECT master_version, wrapped_key FROM article_keys WHERE id = ?")) {
+			select.setLong(1, keyId);
+			try (ResultSet rs = select.executeQuery()) {
+				return rs.next() ? new DataKeyRecord(keyId, rs.getInt("master_version"), rs.getBytes("wrapped_key")) : null;
+			}
+		}
+	}
+
+	/**
+	 * Wraps every data key that isn't wrapped with the current master key again with it.
+	 * The articles themselves are not touched.
+	 *
+	 * @param keys the hierarchy holding the old and the current master keys
+	 * @return number of keys wrapped again
+	 * @throws Exception if a key can't be unwrapped or a database access error occurs
+	 */
+	public int rewrapAll(KeyHierarchy keys) throws Exception {
+		int version = keys.getCurrentMasterKeyVersion();
+		int rewrapped = 0;
+		try (Connection conn = ConnectionPool.getInstance().borrowConnection();
+			 PreparedStatement select = conn.prepareStatement(
+					 "SELECT id, master_version, wrapped_key FROM article_keys WHERE master_version <> ? ORDER BY id LIMIT ?");
+			 PreparedStatement update = conn.prepareStatement(
+					 "UPDATE article_keys SET master_version = ?, wrapped_key = ? WHERE id = ?")) {
+			conn.setAutoCommit(false);
+			List<DataKeyRecord> batch;
+			do {
+				batch = new ArrayList<>();
+				select.setInt(1, version);
+				select.setInt(2, REWRAP_BATCH_SIZE);
+				try (ResultSet rs = select.executeQuery()) {
+					while (rs.next()) {
+						batch.add(new DataKeyRecord(rs.getLong("id"), rs.getInt("master_version"), rs.getBytes("wrapped_key")));
+					}
+				}
+				for (DataKeyRecord record : batch) {
+					DataKeyRecord rewrappedRecord = keys.rewrap(record);
+					update.setInt(1, rewrappedRecord.getMasterKeyVersion());
+					update.setBytes(2, rewrappedRecord.getWrappedKey());
+					update.setLong(3, rewrappedRecord.getKeyId());
+					update.addBatch();
+				}
+				if (!batch.isEmpty()) {
+					update.executeBatch();
+					conn.commit();
+					rewrapped += batch.size();
+				}
+			} while (batch.size() == REWRAP_BATCH_SIZE);
+		}
+		System.out.println("[ArticleKeyStore] Wrapped " + rewrapped + " data keys with master key version " + version);
+		return rewrapped;
+	}
+}
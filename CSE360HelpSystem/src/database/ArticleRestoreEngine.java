@@ -0,0 +1,684 @@
+package database;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The {@code ArticleRestoreEngine} writes the articles of a backup file to the articles table in JDBC batches.
+ * Backups in any {@link ArticleBackupFormat} are restored.
+ *
+ * In {@link CommitMode#SINGLE_TRANSACTION} mode the whole restore, including removing the articles it replaces,
+ * is one transaction, so a restore that fails leaves the table as it was. In {@link CommitMode#CHUNKED} mode each
+ * batch is committed together with the number of backup records restored so far, kept in the
+ * {@code article_restores} table. Running the same restore again after a failure skips those records and carries
+ * on from there, and the markers are removed when the restore finishes.
+ *
+ * A full backup followed by its incremental backups is restored with {@link #restoreChain(List)}, which runs
+ * the whole chain on one connection and in one transaction unless it is chunked. A chunked chain marks each file
+ * as finished when it is done, so resuming a chain skips the finished files instead of clearing the articles again
+ * and losing what the later files committed.
+ *
+ * A merge with the articles already in the table, {@link #restoreMerge(String, ConflictPolicy)}, loads the backup
+ * into a temporary staging table in batches and then resolves it against the articles table in one statement,
+ * so conflicts are found by the database instead of by looking up every id.
+ *
+ * The engine only writes rows. Callers clear their caches and reset article jobs once it returns. Articles it
+ * replaces lose their search tokens in the same transaction, and are indexed again by the next search.
+ */
+public class ArticleRestoreEngine {
+
+	/**
+	 * How often a restore commits
+	 */
+	public enum CommitMode {
+		/**
+		 * Commit once, after the last article
+		 */
+		SINGLE_TRANSACTION,
+		/**
+		 * Commit after every batch and save a marker to resume from
+		 */
+		CHUNKED
+	}
+
+	/**
+	 * What a merge does with a backup article whose id is already in the articles table
+	 */
+	public enum ConflictPolicy {
+		/**
+		 * Keep the article in the table
+		 */
+		SKIP("Keep existing articles"),
+		/**
+		 * Replace the article in the table with the backup
+		 */
+		OVERWRITE("Replace existing articles"),
+		/**
+		 * Replace the article in the table only if the backup has a higher version, see
+		 * {@link ArticleRestoreEngine#compareVersions(String, String)}
+		 */
+		KEEP_NEWER("Keep the newer version");
+
+		private final String label;
+
+		ConflictPolicy(String label) {
+			this.label = label;
+		}
+
+		@Override
+		public String toString() {
+			return label;
+		}
+	}
+
+	/**
+	 * Default number of articles sent to the database in one batch
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
+	private static final String INSERT_SQL =
+			"INSERT INTO articles (" + ArticleBackupRecord.COLUMNS + ") VALUES (" + ArticleBackupRecord.PLACEHOLDERS + ")";
+
+	// Every column is written, so an envelope or per-field text replaces whichever the article had before
+	private static final String MERGE_SQL =
+			"MERGE INTO articles (" + ArticleBackupRecord.COLUMNS + ") VALUES (" + ArticleBackupRecord.PLACEHOLDERS + ")";
+
+	private static final String STAGING_INSERT_SQL =
+			"INSERT INTO article_staging (" + ArticleBackupRecord.COLUMNS + ") VALUES (" + ArticleBackupRecord.PLACEHOLDERS + ")";
+
+	// Tokens of a replaced article would still find it by its old words
+	private static final String DELETE_TOKENS_SQL = "DELETE FROM article_search_tokens WHERE article_id = ?";
+
+	private static final String LINK_SQL =
+			"MERGE INTO special_group_articles (group_id, article_id) KEY (group_id, article_id) VALUES (?, ?)";
+
+	private static final Plan GENERAL = new Plan(new String[] {
+			// Deleted articles leave tombstones, so incremental backups made after the restore replay it
+			ArticleChangeTracker.tombstoneSql("id NOT IN (SELECT article_id FROM special_group_articles)"),
+			"DELETE FROM articles WHERE id NOT IN (SELECT article_id FROM special_group_articles)" },
+			new Object[0], null, INSERT_SQL, false);
+
+	private static final Plan INCREMENTAL = new Plan(new String[0], new Object[0], null, MERGE_SQL, true);
+
+	private static final String CLEAR_GROUP_SQL = "DELETE FROM special_group_articles WHERE group_id = ?";
+
+	private final ConnectionPool pool;
+	private final int batchSize;
+	private final CommitMode mode;
+	private final int readerThreads;
+	private final int chunkSize;
+
+	/**
+	 * Creates an engine that reads backup files on the calling thread
+	 *
+	 * @param pool the pool connections are borrowed from
+	 * @param batchSize number of articles sent to the database in one batch, and committed together in chunked mode
+	 * @param mode how often to commit
+	 */
+	public ArticleRestoreEngine(ConnectionPool pool, int batchSize, CommitMode mode) {
+		this(pool, batchSize, mode, 1, ParallelBackupReader.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates an engine that parses large backup files on worker threads while it writes to the database.
+	 * Records are still written in file order by one thread.
+	 *
+	 * @param pool the pool connections are borrowed from
+	 * @param batchSize number of articles sent to the database in one batch, and committed together in chunked mode
+	 * @param mode how often to commit
+	 * @param readerThreads number of threads parsing a backup file, 1 to parse on the writing thread
+	 * @param chunkSize length of file parsed by one task
+	 */
+	public ArticleRestoreEngine(ConnectionPool pool, int batchSize, CommitMode mode, int readerThreads, int chunkSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		if (readerThreads < 1 || chunkSize < 1) {
+			throw new IllegalArgumentException("Reader threads and chunk size must be at least 1");
+		}
+		this.pool = pool;
+		this.batchSize = batchSize;
+		this.mode = mode;
+		this.readerThreads = readerThreads;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Creates the table of resume markers, and the {@code COMPARE_VERSIONS} function merges use, if they don't exist
+	 *
+	 * @param conn connection to create them with
+	 * @throws SQLException if a database access error occurs
+	 */
+	public static void createTable(Connection conn) throws SQLException {
+		try (Statement statement = conn.createStatement()) {
+			statement.execute("CREATE TABLE IF NOT EXISTS article_restores ("
+					+ "file VARCHAR(1024) PRIMARY KEY, "  // Absolute path of the backup file
+					+ "file_length BIGINT NOT NULL, "     // A marker only applies to the file it was saved for
+					+ "records_done INT NOT NULL, "       // Backup records committed so far
+					+ "finished BOOLEAN DEFAULT FALSE NOT NULL, " // Every record of the file is committed
+					+ "updated_at TIMESTAMP)");
+			// Tables created before chains could be resumed still need the column
+			statement.execute("ALTER TABLE article_restores ADD COLUMN IF NOT EXISTS finished BOOLEAN DEFAULT FALSE NOT NULL");
+			statement.execute("CREATE ALIAS IF NOT EXISTS COMPARE_VERSIONS FOR '"
+					+ ArticleRestoreEngine.class.getName() + ".compareVersions'");
+		}
+	}
+
+	/**
+	 * Replaces every article that is not part of a special group with the articles of a backup
+	 *
+	 * @param filename path to the backup file
+	 * @return what was restored
+	 * @throws SQLException if database access fails, after rolling back the current transaction
+	 * @throws IOException if the file can't be read
+	 */
+	public RestoreResult restoreGeneral(String filename) throws SQLException, IOException {
+		return restore(List.of(filename), GENERAL, null);
+	}
+
+	/**
+	 * Merges the articles of a backup with the articles table. Backup articles with new ids are added, and those
+	 * whose id is already in the table are resolved by the policy. Tombstones are skipped.
+	 *
+	 * The backup is first loaded into the connection's {@code article_staging} table and then resolved with one
+	 * INSERT or MERGE statement. The restore is always one transaction, since the staging table doesn't outlive
+	 * the connection and so can't be resumed.
+	 *
+	 * @param filename path to the backup file
+	 * @param policy what to do with articles already in the table
+	 * @return what was restored, articles resolved in favour of the table count as skipped
+	 * @throws SQLException if database access fails, after rolling back the current transaction
+	 * @throws IOException if the file can't be read
+	 */
+	public RestoreResult restoreMerge(String filename, ConflictPolicy policy) throws SQLException, IOException {
+		long start = System.nanoTime();
+		Progress progress = new Progress();
+		Lock changes = ArticleChangeTracker.lockChanges(); // Overwritten articles take change numbers
+		try (Connection conn = pool.borrowConnection()) {
+			createTable(conn);
+			createStagingTable(conn);
+			conn.setAutoCommit(false);
+			try {
+				int staged = stage(conn, filename, progress);
+				try (Statement statement = conn.createStatement()) {
+					String staleTokens = staleTokensSql(policy);
+					if (staleTokens != null) {
+						statement.executeUpdate(staleTokens);
+					}
+					int written = statement.executeUpdate(mergeSql(policy));
+					progress.restored += written;
+					progress.skipped += staged - written;
+				}
+				conn.commit();
+			} catch (SQLException | IOException | RuntimeException e) {
+				conn.rollback();
+				throw e;
+			}
+		} finally {
+			changes.unlock();
+		}
+		return finish(List.of(filename), progress, start);
+	}
+
+	/**
+	 * Replaces the articles of a special group with the articles of a backup, overwriting articles with the same id
+	 *
+	 * @param filename path to the backup file
+	 * @param groupId the special group
+	 * @return what was restored
+	 * @throws SQLException if database access fails, after rolling back the current transaction
+	 * @throws IOException if the file can't be read
+	 */
+	public RestoreResult restoreSpecialGroup(String filename, int groupId) throws SQLException, IOException {
+		Plan plan = new Plan(new String[] { CLEAR_GROUP_SQL }, new Object[] { groupId }, groupId, MERGE_SQL, false);
+		return restore(List.of(filename), plan, null);
+	}
+
+	/**
+	 * Replaces every general article with a full backup, then replays the incremental backups made after it in
+	 * order. Articles in an incremental backup overwrite those with the same id, and its tombstones delete them.
+	 *
+	 * @param filenames the full backup followed by its incremental backups, oldest first
+	 * @return what was restored from all of them
+	 * @throws SQLException if database access fails, after rolling back the current transaction
+	 * @throws IOException if a file can't be read
+	 */
+	public RestoreResult restoreChain(List<String> filenames) throws SQLException, IOException {
+		if (filenames.isEmpty()) {
+			throw new IllegalArgumentException("A backup chain starts with a full backup");
+		}
+		return restore(filenames, GENERAL, INCREMENTAL);
+	}
+
+	/**
+	 * Restores backup files on one connection, committing at the end or after every batch
+	 *
+	 * @param filenames the files, restored in order
+	 * @param first how to restore the first file
+	 * @param rest how to restore the other files
+	 */
+	private RestoreResult restore(List<String> filenames, Plan first, Plan rest) throws SQLException, IOException {
+		long start = System.nanoTime();
+		Progress progress = new Progress();
+		Lock changes = ArticleChangeTracker.lockChanges(); // Restored articles and tombstones take change numbers
+		try (Connection conn = pool.borrowConnection()) {
+			createTable(conn);
+			conn.setAutoCommit(false);
+			try {
+				for (int i = 0; i < filenames.size(); i++) {
+					restoreFile(conn, filenames.get(i), i == 0 ? first : rest, progress);
+				}
+				// The markers of a chain are kept until its last file is done
+				for (String filename : filenames) {
+					deleteMarker(conn, new File(filename).getAbsolutePath());
+				}
+				conn.commit();
+			} catch (SQLException | IOException | RuntimeException e) {
+				conn.rollback();
+				throw e;
+			}
+		} finally {
+			changes.unlock();
+		}
+		return finish(filenames, progress, start);
+	}
+
+	/**
+	 * Logs and returns the counts of a finished restore
+	 */
+	private static RestoreResult finish(List<String> filenames, Progress progress, long start) {
+		RestoreResult result = new RestoreResult(progress.restored, progress.deleted, progress.skipped,
+				progress.resumedAfter, System.nanoTime() - start);
+		System.out.println("[ArticleRestoreEngine] Restored " + progress.restored + " articles from " + String.join(", ", filenames)
+				+ (progress.deleted > 0 ? ", deleted " + progress.deleted : "")
+				+ (progress.skipped > 0 ? ", skipped " + progress.skipped : "")
+				+ (progress.resumedAfter > 0 ? ", resumed after " + progress.resumedAfter + " records" : "")
+				+ " in " + result.getMillis() + " ms (" + Math.round(result.getRowsPerSecond()) + " rows/s)");
+		return result;
+	}
+
+	/**
+	 * Restores one backup file. In chunked mode every full batch is committed with the file's resume marker,
+	 * and a file whose marker says it is finished is skipped.
+	 *
+	 * @param conn the connection, not in auto-commit mode
+	 * @param filename path to the backup file
+	 * @param plan how to restore it
+	 * @param progress counts of what was restored so far
+	 */
+	private void restoreFile(Connection conn, String filename, Plan plan, Progress progress) throws SQLException, IOException {
+		File file = new File(filename);
+		String markerKey = file.getAbsolutePath();
+		int resumedAfter = 0;
+		Marker marker = mode == CommitMode.CHUNKED ? loadMarker(conn, markerKey, file.length()) : null;
+		if (marker != null && marker.finished) {
+			// Clearing again would drop what the later files of the chain committed
+			progress.resumedAfter += marker.recordsDone;
+			return;
+		}
+		if (marker == null) {
+			// A marker means the articles were already cleared in a committed chunk
+			for (String clearSql : plan.clearSql) {
+				try (PreparedStatement clear = conn.prepareStatement(clearSql)) {
+					for (int i = 0; i < plan.clearParameters.length; i++) {
+						clear.setObject(i + 1, plan.clearParameters[i]);
+					}
+					clear.executeUpdate();
+				}
+			}
+		} else {
+			resumedAfter = marker.recordsDone;
+			progress.resumedAfter += marker.recordsDone;
+		}
+
+		try (ArticleBackupReader reader = ArticleBackupFormat.openReader(filename, readerThreads, chunkSize);
+			 PreparedStatement deletes = conn.prepareStatement("DELETE FROM articles WHERE id = ?");
+			 PreparedStatement keys = conn.prepareStatement(ArticleKeyStore.MERGE_SQL);
+			 PreparedStatement articles = conn.prepareStatement(plan.articleSql);
+			 PreparedStatement tokens = plan.articleSql.equals(MERGE_SQL) ? conn.prepareStatement(DELETE_TOKENS_SQL) : null;
+			 PreparedStatement links = plan.groupId != null ? conn.prepareStatement(LINK_SQL) : null) {
+			int read = 0;
+			int pending = 0;
+			ArticleBackupRecord record;
+			while ((record = reader.read()) != null) {
+				read++;
+				if (read <= resumedAfter) {
+					continue;
+				}
+				if (record.isTombstone()) {
+					if (plan.applyTombstones) {
+						deletes.setInt(1, record.getId());
+						deletes.addBatch();
+						progress.deleted++;
+					} else {
+						progress.skipped++;
+					}
+				} else {
+					if (record.getDataKey() != null) {
+						ArticleKeyStore.bind(keys, record.getDataKey());
+						keys.addBatch();
+					}
+					record.bind(articles);
+					articles.addBatch();
+					if (tokens != null) {
+						tokens.setInt(1, record.getId());
+						tokens.addBatch();
+					}
+					if (links != null) {
+						links.setInt(1, plan.groupId);
+						links.setInt(2, record.getId());
+						links.addBatch();
+					}
+					progress.restored++;
+				}
+				if (++pending == batchSize) {
+					executeBatches(deletes, keys, articles, tokens, links);
+					if (mode == CommitMode.CHUNKED) {
+						saveMarker(conn, markerKey, file.length(), read, false);
+						conn.commit();
+					}
+					pending = 0;
+				}
+			}
+			executeBatches(deletes, keys, articles, tokens, links);
+			if (mode == CommitMode.CHUNKED) {
+				saveMarker(conn, markerKey, file.length(), read, true);
+				conn.commit();
+			}
+		}
+	}
+
+	/**
+	 * Sends the pending batches. Incremental backups write their tombstones before their articles, so deletes go
+	 * first and an article deleted and then restored again stays. Data keys go before the articles sealed with them.
+	 */
+	private static void executeBatches(PreparedStatement deletes, PreparedStatement keys, PreparedStatement articles,
+			PreparedStatement tokens, PreparedStatement links) throws SQLException {
+		deletes.executeBatch();
+		keys.executeBatch();
+		articles.executeBatch();
+		if (tokens != null) {
+			tokens.executeBatch();
+		}
+		if (links != null) {
+			links.executeBatch();
+		}
+	}
+
+	/**
+	 * Creates the connection's staging table, with the columns a backup record is bound to, if it doesn't exist.
+	 * Its rows are removed when the transaction commits.
+	 */
+	private static void createStagingTable(Connection conn) throws SQLException {
+		try (Statement statement = conn.createStatement()) {
+			statement.execute("CREATE LOCAL TEMPORARY TABLE IF NOT EXISTS article_staging ON COMMIT DELETE ROWS AS "
+					+ "SELECT " + ArticleBackupRecord.COLUMNS + " FROM articles WITH NO DATA");
+			// Left behind by a restore that was rolled back
+			statement.executeUpdate("DELETE FROM article_staging");
+		}
+	}
+
+	/**
+	 * Loads the articles of a backup file into the staging table in batches. Their data keys go straight to the
+	 * key store, where a key the merge doesn't use is left like the keys of deleted articles.
+	 *
+	 * @return number of articles staged
+	 */
+	private int stage(Connection conn, String filename, Progress progress) throws SQLException, IOException {
+		int staged = 0;
+		try (ArticleBackupReader reader = ArticleBackupFormat.openReader(filename, readerThreads, chunkSize);
+			 PreparedStatement keys = conn.prepareStatement(ArticleKeyStore.MERGE_SQL);
+			 PreparedStatement articles = conn.prepareStatement(STAGING_INSERT_SQL)) {
+			int pending = 0;
+			ArticleBackupRecord record;
+			while ((record = reader.read()) != null) {
+				if (record.isTombstone()) {
+					progress.skipped++;
+					continue;
+				}
+				if (record.getDataKey() != null) {
+					ArticleKeyStore.bind(keys, record.getDataKey());
+					keys.addBatch();
+				}
+				record.bind(articles);
+				articles.addBatch();
+				staged++;
+				if (++pending == batchSize) {
+					keys.executeBatch();
+					articles.executeBatch();
+					pending = 0;
+				}
+			}
+			keys.executeBatch();
+			articles.executeBatch();
+		}
+		return staged;
+	}
+
+	/**
+	 * Builds the statement that writes the staging table to the articles table
+	 *
+	 * @param policy what to do with articles already in the table
+	 * @return an INSERT of the new articles for {@link ConflictPolicy#SKIP}, otherwise a MERGE
+	 */
+	static String mergeSql(ConflictPolicy policy) {
+		String[] columns = ArticleBackupRecord.COLUMNS.split(", ");
+		StringBuilder values = new StringBuilder();
+		StringBuilder updates = new StringBuilder();
+		for (String column : columns) {
+			values.append(values.length() > 0 ? ", " : "").append("s.").append(column);
+			if (!column.equals("id")) {
+				updates.append(column).append(" = s.").append(column).append(", ");
+			}
+		}
+		if (policy == ConflictPolicy.SKIP) {
+			return "INSERT INTO articles (" + ArticleBackupRecord.COLUMNS + ") SELECT " + values
+					+ " FROM article_staging s WHERE NOT EXISTS (SELECT 1 FROM articles a WHERE a.id = s.id)";
+		}
+		// Replaced articles take a new change number, so the next incremental backup holds them
+		return "MERGE INTO articles a USING article_staging s ON a.id = s.id "
+				+ "WHEN MATCHED" + (policy == ConflictPolicy.KEEP_NEWER ? " AND COMPARE_VERSIONS(s.version, a.version) > 0" : "")
+				+ " THEN UPDATE SET " + updates + "change_seq = " + ArticleChangeTracker.NEXT_CHANGE
+				+ " WHEN NOT MATCHED THEN INSERT (" + ArticleBackupRecord.COLUMNS + ") VALUES (" + values + ")";
+	}
+
+	/**
+	 * Builds the statement that removes the search tokens of the articles a merge is about to replace.
+	 * It runs before the merge, while the versions of the replaced articles can still be compared.
+	 *
+	 * @param policy what to do with articles already in the table
+	 * @return the statement, or null for {@link ConflictPolicy#SKIP}, which replaces nothing
+	 */
+	static String staleTokensSql(ConflictPolicy policy) {
+		if (policy == ConflictPolicy.SKIP) {
+			return null;
+		}
+		return "DELETE FROM article_search_tokens WHERE article_id IN (SELECT s.id FROM article_staging s"
+				+ (policy == ConflictPolicy.KEEP_NEWER
+						? " JOIN articles a ON a.id = s.id WHERE COMPARE_VERSIONS(s.version, a.version) > 0" : "")
+				+ ")";
+	}
+
+	/**
+	 * Compares two article versions part by part, such as 1.10 after 1.9. Numeric parts are compared as numbers
+	 * and other parts as text, a missing part counts as 0, and a missing version is lower than any other.
+	 * Public so the database can call it as {@code COMPARE_VERSIONS}.
+	 *
+	 * @param first a version
+	 * @param second another version
+	 * @return a negative number, zero, or a positive number as the first version is lower, equal, or higher
+	 */
+	public static int compareVersions(String first, String second) {
+		if (first == null || second == null) {
+			return first == null ? (second == null ? 0 : -1) : 1;
+		}
+		String[] firstParts = first.trim().split("\\.");
+		String[] secondParts = second.trim().split("\\.");
+		for (int i = 0; i < Math.max(firstParts.length, secondParts.length); i++) {
+			String a = i < firstParts.length ? firstParts[i] : "0";
+			String b = i < secondParts.length ? secondParts[i] : "0";
+			int result = a.matches("\\d{1,18}") && b.matches("\\d{1,18}")
+					? Long.compare(Long.parseLong(a), Long.parseLong(b)) : a.compareTo(b);
+			if (result != 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Reads the resume marker of a backup file
+	 *
+	 * @return the marker, or null if there is no marker for this file
+	 */
+	private static Marker loadMarker(Connection conn, String markerKey, long fileLength) throws SQLException {
+		try (PreparedStatement select = conn.prepareStatement(
+				"SELECT file_length, records_done, finished FROM article_restores WHERE file = ?")) {
+			select.setString(1, markerKey);
+			try (ResultSet rs = select.executeQuery()) {
+				if (!rs.next() || rs.getLong("file_length") != fileLength) {
+					return null;
+				}
+				return new Marker(rs.getInt("records_done"), rs.getBoolean("finished"));
+			}
+		}
+	}
+
+	private static void saveMarker(Connection conn, String markerKey, long fileLength, int recordsDone, boolean finished)
+			throws SQLException {
+		try (PreparedStatement merge = conn.prepareStatement(
+				"MERGE INTO article_restores (file, file_length, records_done, finished, updated_at) KEY (file) "
+				+ "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)")) {
+			merge.setString(1, markerKey);
+			merge.setLong(2, fileLength);
+			merge.setInt(3, recordsDone);
+			merge.setBoolean(4, finished);
+			merge.executeUpdate();
+		}
+	}
+
+	private static void deleteMarker(Connection conn, String markerKey) throws SQLException {
+		try (PreparedStatement delete = conn.prepareStatement("DELETE FROM article_restores WHERE file = ?")) {
+			delete.setString(1, markerKey);
+			delete.executeUpdate();
+		}
+	}
+
+	/**
+	 * How far a chunked restore got through a backup file
+	 */
+	private static final class Marker {
+		private final int recordsDone;
+		private final boolean finished;
+
+		private Marker(int recordsDone, boolean finished) {
+			this.recordsDone = recordsDone;
+			this.finished = finished;
+		}
+	}
+
+	/**
+	 * How one backup file is restored
+	 */
+	private static final class Plan {
+		private final String[] clearSql;
+		private final Object[] clearParameters;
+		private final Integer groupId;
+		private final String articleSql;
+		private final boolean applyTombstones;
+
+		/**
+		 * @param clearSql statements run before the first article
+		 * @param clearParameters values bound, in order, to the parameters of each clear statement
+		 * @param groupId special group each article is added to, or null
+		 * @param articleSql insert or merge into the articles table
+		 * @param applyTombstones true to delete the articles of tombstones, false to skip tombstones
+		 */
+		private Plan(String[] clearSql, Object[] clearParameters, Integer groupId, String articleSql, boolean applyTombstones) {
+			this.clearSql = clearSql;
+			this.clearParameters = clearParameters;
+			this.groupId = groupId;
+			this.articleSql = articleSql;
+			this.applyTombstones = applyTombstones;
+		}
+	}
+
+	/**
+	 * Counts of one restore while it runs
+	 */
+	private static final class Progress {
+		private int restored;
+		private int deleted;
+		private int skipped;
+		private int resumedAfter;
+	}
+
+	/**
+	 * The {@code RestoreResult} counts what one restore wrote and how fast
+	 */
+	public static class RestoreResult {
+		private final int restored;
+		private final int deleted;
+		private final int skipped;
+		private final int resumedAfter;
+		private final long nanos;
+
+		RestoreResult(int restored, int deleted, int skipped, int resumedAfter, long nanos) {
+			this.restored = restored;
+			this.deleted = deleted;
+			this.skipped = skipped;
+			this.resumedAfter = resumedAfter;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * @return number of articles written
+		 */
+		public int getRestored() {
+			return restored;
+		}
+
+		/**
+		 * @return number of articles deleted by tombstones of incremental backups
+		 */
+		public int getDeleted() {
+			return deleted;
+		}
+
+		/**
+		 * @return number of articles left out because a merge kept the article already in the table, and of
+		 *         tombstones in backups that aren't restored as incremental backups
+		 */
+		public int getSkipped() {
+			return skipped;
+		}
+
+		/**
+		 * @return number of records committed by an earlier, interrupted run and not read again
+		 */
+		public int getResumedAfter() {
+			return resumedAfter;
+		}
+
+		/**
+		 * @return how long the restore took
+		 */
+		public long getMillis() {
+			return nanos / 1_000_000;
+		}
+
+		/**
+		 * @return articles written per second
+		 */
+		public double getRowsPerSecond() {
+			return nanos > 0 ? restored * 1_000_000_000.0 / nanos : 0;
+		}
+	}
+}
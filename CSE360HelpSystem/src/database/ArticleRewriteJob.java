@@ -0,0 +1,30 @@
+package database;
+
+import java.sql.ResultSet;
+
+import Encryption.ArticleEnvelope;
+
+/**
+ * The {@code ArticleRewriteJob} is a change to how articles are stored, applied to every article by an
+ * {@link ArticleJobRunner}. A job looks at one row at a time and returns the summary and content parts the row
+ * should have from now on, or null if the row is already stored the way the job wants.
+ *
+ * A job must leave rows it has rewritten alone when it sees them again, because a job resumed after a
+ * restart or a restore may scan rows it already rewrote.
+ */
+public interface ArticleRewriteJob {
+
+	/**
+	 * @return a name for the job, unique among jobs, under which its progress is saved
+	 */
+	String getName();
+
+	/**
+	 * Rewrites one article
+	 *
+	 * @param row ResultSet positioned on an articles row with every column
+	 * @return the new parts, sealed by a cipher suite, or null if the row doesn't need rewriting
+	 * @throws Exception if the row can't be decrypted or encrypted
+	 */
+	ArticleEnvelope.Parts rewrite(ResultSet row) throws Exception;
+}
@@ -0,0 +1,442 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import Encryption.BlindIndexHelper;
+
+/**
+ * The {@code ArticleSearchIndex} is a blind index over the title, authors, keywords, and abstract of
+ * every article. The encrypted columns can't be searched by the database, so for each article it stores
+ * keyed hash tokens of its lower-case words and word prefixes in the article_search_tokens table.
+ * A search hashes the query the same way and finds the matching articles with an indexed SQL lookup,
+ * so only the matching articles are decrypted.
+ *
+ * A query matches an article when every word of the query is the start of some word in the article,
+ * so "encrypt data" finds an article titled "Encrypting Database Fields". Query words shorter than
+ * {@link #MIN_PREFIX_LENGTH} only match whole words. Prefix tokens are kept up to {@link #MAX_PREFIX_LENGTH}
+ * characters; longer query words are looked up by their first {@link #MAX_PREFIX_LENGTH} characters and the
+ * results are checked against the decrypted article with {@link #matches(String, String...)}.
+ *
+ * {@link HelpArticleDatabase} writes the tokens when articles are created or updated, in the same transaction
+ * as the article. Tokens are deleted with their article by the foreign key. Articles inserted without tokens,
+ * such as restored articles, are indexed on the next search after {@link #invalidate()}.
+ *
+ * The first search loads the committed tokens into in-memory postings, token to article ids, and later
+ * searches are answered from memory without a query. The postings hold only the keyed hashes, never the words.
+ * Callers report committed changes with {@link #tokensCommitted(int, Set)} and {@link #articleRemoved(int)},
+ * and {@link #invalidate()} drops the postings after bulk changes, so they are loaded again on the next search.
+ */
+public class ArticleSearchIndex {
+
+	/**
+	 * Shortest query word looked up as a prefix
+	 */
+	public static final int MIN_PREFIX_LENGTH = 3;
+
+	/**
+	 * Longest prefix stored for a word
+	 */
+	public static final int MAX_PREFIX_LENGTH = 8;
+
+	/**
+	 * Ids of the articles that have every one of the tokens bound to the first parameter (an array),
+	 * where the second parameter is the number of tokens
+	 */
+	public static final String MATCHING_IDS_SQL = "SELECT article_id FROM article_search_tokens "
+			+ "WHERE token = ANY(?) GROUP BY article_id HAVING COUNT(*) = ?";
+
+	private static ArticleSearchIndex instance;
+
+	private final BlindIndexHelper blindIndexHelper;
+
+	/**
+	 * False when some articles may not have their tokens written yet
+	 */
+	private volatile boolean complete;
+
+	/**
+	 * Committed tokens in memory, token to the ids of the articles that have it, or null until loaded
+	 */
+	private Map<String, Set<Integer>> postings;
+
+	/**
+	 * The same tokens by article id, so an article's old tokens can be removed from the postings
+	 */
+	private Map<Integer, Set<String>> tokensById;
+
+	/**
+	 * Changes whenever committed tokens change, so postings loaded while a change was committed are dropped
+	 */
+	private long generation;
+
+	/**
+	 * Creates an index that hashes terms with the given helper
+	 *
+	 * @param blindIndexHelper computes the token of a term
+	 */
+	public ArticleSearchIndex(BlindIndexHelper blindIndexHelper) {
+		this.blindIndexHelper = blindIndexHelper;
+	}
+
+	/**
+	 * Gets the index shared by all HelpArticleDatabase instances or creates a new one
+	 *
+	 * @return the shared index
+	 * @throws Exception if the blind index key can't be set up
+	 */
+	public static synchronized ArticleSearchIndex getInstance() throws Exception {
+		if (instance == null) {
+			instance = new ArticleSearchIndex(new BlindIndexHelper());
+		}
+		return instance;
+	}
+
+	/**
+	 * Splits text into lower-case words made of letters and digits
+	 *
+	 * @param text the text to split, may be null
+	 * @return the words in the order they appear, without duplicates
+	 */
+	public static Set<String> tokenize(String text) {
+		Set<String> tokens = new LinkedHashSet<>();
+		if (text == null) {
+			return tokens;
+		}
+		StringBuilder token = new StringBuilder();
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				token.append(Character.toLowerCase(c));
+			} else if (token.length() > 0) {
+				tokens.add(token.toString());
+				token.setLength(0);
+			}
+		}
+		if (token.length() > 0) {
+			tokens.add(token.toString());
+		}
+		return tokens;
+	}
+
+	/**
+	 * Creates the token table if it doesn't exist. The articles table must already exist.
+	 *
+	 * @param conn connection to create the table with
+	 * @throws SQLException if a database access error occurs
+	 */
+	public void createTable(Connection conn) throws SQLException {
+		String tokenTable = "CREATE TABLE IF NOT EXISTS article_search_tokens ("
+				+ "article_id INT NOT NULL, "
+				+ "token VARCHAR(32) NOT NULL, "
+				+ "PRIMARY KEY (article_id, token), "
+				+ "FOREIGN KEY (article_id) REFERENCES articles(id) ON DELETE CASCADE)";
+		try (Statement statement = conn.createStatement()) {
+			statement.execute(tokenTable);
+			statement.execute("CREATE INDEX IF NOT EXISTS idx_article_search_tokens_token ON article_search_tokens(token)");
+		}
+	}
+
+	/**
+	 * Computes the tokens stored for an article: one for each whole word and one for each of its prefixes
+	 *
+	 * @param fields decrypted searchable fields of the article
+	 * @return the distinct tokens
+	 */
+	public Set<String> articleTokens(String... fields) {
+		Set<String> terms = new HashSet<>();
+		for (String field : fields) {
+			for (String word : tokenize(field)) {
+				terms.add("w:" + word);
+				for (int length = MIN_PREFIX_LENGTH; length <= Math.min(word.length(), MAX_PREFIX_LENGTH); length++) {
+					terms.add("p:" + word.substring(0, length));
+				}
+			}
+		}
+		Set<String> tokens = new HashSet<>();
+		for (String term : terms) {
+			tokens.add(blindIndexHelper.token(term));
+		}
+		return tokens;
+	}
+
+	/**
+	 * Computes the tokens to look up for a search query, one per query word
+	 *
+	 * @param query the search text
+	 * @return the distinct tokens, empty if the query has no words
+	 */
+	public List<String> queryTokens(String query) {
+		Set<String> tokens = new LinkedHashSet<>();
+		for (String word : tokenize(query)) {
+			if (word.length() < MIN_PREFIX_LENGTH) {
+				tokens.add(blindIndexHelper.token("w:" + word));
+			} else {
+				tokens.add(blindIndexHelper.token("p:" + word.substring(0, Math.min(word.length(), MAX_PREFIX_LENGTH))));
+			}
+		}
+		return new ArrayList<>(tokens);
+	}
+
+	/**
+	 * @param query the search text
+	 * @return true if the query has text but no words, such as only punctuation, so it matches no article
+	 */
+	public static boolean isWordless(String query) {
+		return query != null && !query.isBlank() && tokenize(query).isEmpty();
+	}
+
+	/**
+	 * @param query the search text
+	 * @return true if the token lookup can return articles that don't match, so the results must be checked
+	 */
+	public static boolean needsRecheck(String query) {
+		for (String word : tokenize(query)) {
+			if (word.length() > MAX_PREFIX_LENGTH) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks decrypted text against a query the same way the index does
+	 *
+	 * @param query the search text
+	 * @param fields decrypted searchable fields of the article
+	 * @return true if every query word is the start of some word in the fields
+	 */
+	public static boolean matches(String query, String... fields) {
+		Set<String> words = new HashSet<>();
+		for (String field : fields) {
+			words.addAll(tokenize(field));
+		}
+		for (String queryWord : tokenize(query)) {
+			boolean found = false;
+			for (String word : words) {
+				if (queryWord.length() < MIN_PREFIX_LENGTH ? word.equals(queryWord) : word.startsWith(queryWord)) {
+					found = true;
+					break;
+				}
+			}
+			if (!found) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces the tokens of one article. Pass the result to {@link #tokensCommitted(int, Set)} once the
+	 * transaction commits.
+	 *
+	 * @param conn connection to write with
+	 * @param id the article id
+	 * @param fields decrypted title, authors, keywords, and abstract
+	 * @return the tokens written
+	 * @throws SQLException if a database access error occurs
+	 */
+	public Set<String> writeTokens(Connection conn, int id, String... fields) throws SQLException {
+		try (PreparedStatement delete = conn.prepareStatement("DELETE FROM article_search_tokens WHERE article_id = ?")) {
+			delete.setInt(1, id);
+			delete.executeUpdate();
+		}
+		return addTokens(conn, id, fields);
+	}
+
+	/**
+	 * Adds the tokens of an article that had none. Tokens already written for it by someone else are kept,
+	 * so indexing an article at the same time as it is updated doesn't fail.
+	 *
+	 * @param conn connection to write with
+	 * @param id the article id
+	 * @param fields decrypted title, authors, keywords, and abstract
+	 * @return the tokens written
+	 * @throws SQLException if a database access error occurs
+	 */
+	public Set<String> addTokens(Connection conn, int id, String... fields) throws SQLException {
+		Set<String> tokens = articleTokens(fields);
+		try (PreparedStatement merge = conn.prepareStatement(
+				"MERGE INTO article_search_tokens (article_id, token) KEY (article_id, token) VALUES (?, ?)")) {
+			for (String token : tokens) {
+				merge.setInt(1, id);
+				merge.setString(2, token);
+				merge.addBatch();
+			}
+			merge.executeBatch();
+		}
+		return tokens;
+	}
+
+	/**
+	 * Finds the ids of the articles whose tokens match a query
+	 *
+	 * @param conn connection to query with
+	 * @param query the search text
+	 * @return ids of the matching articles in ascending order, or null if the query has no words
+	 * @throws SQLException if a database access error occurs
+	 */
+	public Set<Integer> findArticleIds(Connection conn, String query) throws SQLException {
+		List<String> tokens = queryTokens(query);
+		return tokens.isEmpty() ? null : findArticleIds(conn, tokens);
+	}
+
+	/**
+	 * Finds the ids of the articles that have every one of the given tokens, from the in-memory postings.
+	 * The postings are loaded on the first call.
+	 *
+	 * @param conn connection to load the postings with
+	 * @param tokens tokens from {@link #queryTokens(String)}, at least one
+	 * @return ids of the matching articles in ascending order
+	 * @throws SQLException if a database access error occurs
+	 */
+	public Set<Integer> findArticleIds(Connection conn, List<String> tokens) throws SQLException {
+		Set<Integer> ids = cachedIds(tokens);
+		if (ids == null) {
+			loadPostings(conn);
+			ids = cachedIds(tokens);
+		}
+		// Null if the tokens changed while the postings were loaded
+		return ids != null ? ids : queryIds(conn, tokens);
+	}
+
+	private synchronized Set<Integer> cachedIds(List<String> tokens) {
+		if (postings == null) {
+			return null;
+		}
+		List<Set<Integer>> lists = new ArrayList<>();
+		for (String token : tokens) {
+			Set<Integer> ids = postings.get(token);
+			if (ids == null) {
+				return new TreeSet<>();
+			}
+			lists.add(ids);
+		}
+		// Start from the rarest token, so the intersection checks as few ids as possible
+		lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+		Set<Integer> result = new TreeSet<>(lists.get(0));
+		for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+			result.retainAll(lists.get(i));
+		}
+		return result;
+	}
+
+	private void loadPostings(Connection conn) throws SQLException {
+		long loadGeneration;
+		synchronized (this) {
+			loadGeneration = generation;
+		}
+		Map<String, Set<Integer>> loaded = new HashMap<>();
+		Map<Integer, Set<String>> loadedById = new HashMap<>();
+		try (Statement statement = conn.createStatement();
+			 ResultSet rs = statement.executeQuery("SELECT article_id, token FROM article_search_tokens")) {
+			while (rs.next()) {
+				int id = rs.getInt(1);
+				String token = rs.getString(2);
+				loaded.computeIfAbsent(token, t -> new HashSet<>()).add(id);
+				loadedById.computeIfAbsent(id, i -> new HashSet<>()).add(token);
+			}
+		}
+		synchronized (this) {
+			if (generation == loadGeneration && postings == null) {
+				postings = loaded;
+				tokensById = loadedById;
+				System.out.println("[ArticleSearchIndex] Loaded " + loaded.size() + " tokens of " + loadedById.size() + " articles");
+			}
+		}
+	}
+
+	/**
+	 * Records committed tokens of an article in the in-memory postings
+	 *
+	 * @param id the article id
+	 * @param tokens every token the article now has
+	 */
+	public synchronized void tokensCommitted(int id, Set<String> tokens) {
+		generation++;
+		if (postings == null) {
+			return;
+		}
+		removeFromPostings(id);
+		tokensById.put(id, new HashSet<>(tokens));
+		for (String token : tokens) {
+			postings.computeIfAbsent(token, t -> new HashSet<>()).add(id);
+		}
+	}
+
+	/**
+	 * Removes a deleted article from the in-memory postings
+	 *
+	 * @param id the article id
+	 */
+	public synchronized void articleRemoved(int id) {
+		generation++;
+		if (postings != null) {
+			removeFromPostings(id);
+		}
+	}
+
+	private void removeFromPostings(int id) {
+		for (String token : tokensById.getOrDefault(id, Collections.emptySet())) {
+			Set<Integer> ids = postings.get(token);
+			if (ids != null) {
+				ids.remove(id);
+				if (ids.isEmpty()) {
+					postings.remove(token);
+				}
+			}
+		}
+		tokensById.remove(id);
+	}
+
+	private Set<Integer> queryIds(Connection conn, List<String> tokens) throws SQLException {
+		Set<Integer> ids = new TreeSet<>();
+		try (PreparedStatement pstmt = conn.prepareStatement(MATCHING_IDS_SQL)) {
+			pstmt.setArray(1, conn.createArrayOf("VARCHAR", tokens.toArray()));
+			pstmt.setInt(2, tokens.size());
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					ids.add(rs.getInt(1));
+				}
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * @return true if every article is known to have its tokens written
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Records that every article has its tokens written
+	 */
+	public void markComplete() {
+		complete = true;
+	}
+
+	/**
+	 * Records that articles may have been inserted without tokens, so the next search indexes them first,
+	 * and drops the in-memory postings. Called after bulk changes to the articles table such as a restore.
+	 */
+	public synchronized void invalidate() {
+		complete = false;
+		generation++;
+		postings = null;
+		tokensById = null;
+	}
+}
@@ -0,0 +1,19 @@
+package database;
+
+import models.Article;
+
+/**
+ * The {@code ArticleVisitor} interface is called once for each article read by the streaming methods of
+ * {@code HelpArticleDatabase}, such as {@code forEachArticle}. The articles are read from a forward-only
+ * cursor while the visitor runs, so only the current article has to be kept in memory.
+ */
+public interface ArticleVisitor {
+
+	/**
+	 * Handles one article
+	 *
+	 * @param article the article read from the database
+	 * @throws Exception to stop reading, the exception is passed on to the caller
+	 */
+	void visit(Article article) throws Exception;
+}
@@ -0,0 +1,428 @@
+package database;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The {@code BinaryBackupFile} reads and writes backups in the binary format, version {@value #VERSION}. Version 3
+ * added records with a content part, so files of version 2 are still read.
+ *
+ * The file starts with the magic bytes {@code CSE360BK}, a short holding the version, and a flags byte where
+ * {@link #FLAG_DEFLATE} means blocks may be compressed. Blocks follow, each a header of a byte that is 1 if the
+ * block is compressed, the number of records, the length of the records, the length stored in the file, and the
+ * CRC32C of the stored bytes, followed by the stored bytes. The records of a block are each an int length
+ * followed by a record written by {@link ArticleBackupRecord#writeBinary(java.io.DataOutput)}. The file ends with
+ * a block of no records, so a file cut short is reported instead of restoring part of it.
+ *
+ * Files are written and read through a {@link FileChannel} with a direct buffer. A block is only stored
+ * compressed when Deflate makes it smaller, so blocks of encrypted envelopes are usually stored as they are.
+ */
+final class BinaryBackupFile {
+
+	static final short VERSION = 3;
+
+	private static final short OLDEST_VERSION = 2;
+
+	static final byte FLAG_DEFLATE = 1;
+
+	private static final byte[] MAGIC = "CSE360BK".getBytes(StandardCharsets.US_ASCII);
+
+	static final int FILE_HEADER_LENGTH = MAGIC.length + Short.BYTES + 1;
+
+	static final int BLOCK_HEADER_LENGTH = 1 + 4 * Integer.BYTES;
+
+	/**
+	 * Length of records collected before they are written as a block
+	 */
+	private static final int BLOCK_SIZE = 256 * 1024;
+
+	/**
+	 * Largest block a reader accepts, so a corrupt length can't make it allocate without bound
+	 */
+	private static final int MAX_BLOCK_LENGTH = 256 * 1024 * 1024;
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private BinaryBackupFile() {
+	}
+
+	/**
+	 * Checks whether a file starts with the binary backup magic bytes
+	 *
+	 * @param filename path to the file
+	 * @return true if it does
+	 * @throws IOException if the file can't be read
+	 */
+	static boolean isBinary(String filename) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			ByteBuffer start = ByteBuffer.allocate(MAGIC.length);
+			while (start.hasRemaining() && channel.read(start) != -1) {
+				// Keep reading, a channel may return fewer bytes than asked for
+			}
+			return !start.hasRemaining() && Arrays.equals(start.array(), MAGIC);
+		}
+	}
+
+	/**
+	 * Checks whether a buffer starts with the binary backup magic bytes
+	 *
+	 * @param in the start of a file, its position is left unchanged
+	 * @return true if it does
+	 */
+	static boolean isBinary(ByteBuffer in) {
+		if (in.remaining() < MAGIC.length) {
+			return false;
+		}
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (in.get(in.position() + i) != MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads and checks the file header
+	 *
+	 * @param in buffer holding at least {@link #FILE_HEADER_LENGTH} bytes from the start of the file
+	 * @throws IOException if it isn't a binary backup this version can read
+	 */
+	static void readFileHeader(ByteBuffer in) throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		in.get(magic);
+		short version = in.getShort();
+		in.get(); // Flags, blocks say themselves whether they are compressed
+		if (!Arrays.equals(magic, MAGIC) || version < OLDEST_VERSION || version > VERSION) {
+			throw new IOException("Unsupported binary backup version " + version);
+		}
+	}
+
+	/**
+	 * Checks the stored bytes of a block against its checksum and inflates them if they are compressed
+	 *
+	 * @param header the block header
+	 * @param stored the stored bytes, exactly {@link BlockHeader#storedLength} of them
+	 * @param inflater inflater of the calling thread
+	 * @return the records of the block
+	 * @throws IOException if the block is corrupt
+	 */
+	static ByteBuffer decodeBlock(BlockHeader header, ByteBuffer stored, Inflater inflater) throws IOException {
+		CRC32C crc = new CRC32C();
+		crc.update(stored.duplicate());
+		if ((int) crc.getValue() != header.checksum) {
+			throw new IOException("Binary backup block fails its checksum");
+		}
+		if (!header.compressed) {
+			if (stored.remaining() != header.rawLength) {
+				throw new IOException("Binary backup block has the wrong length");
+			}
+			return stored;
+		}
+		byte[] raw = new byte[header.rawLength];
+		inflater.setInput(stored);
+		try {
+			int length = inflater.inflate(raw);
+			if (length != header.rawLength || !inflater.finished()) {
+				throw new IOException("Binary backup block doesn't inflate to its length");
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Binary backup block can't be inflated", e);
+		} finally {
+			inflater.reset();
+		}
+		return ByteBuffer.wrap(raw);
+	}
+
+	/**
+	 * Reads the next record of a decoded block
+	 *
+	 * @param block the records of a block, positioned on a record
+	 * @return the record
+	 * @throws IOException if the block ends early or the record is corrupt
+	 */
+	static ArticleBackupRecord nextRecord(ByteBuffer block) throws IOException {
+		if (block.remaining() < Integer.BYTES) {
+			throw new IOException("Binary backup block has fewer records than its header says");
+		}
+		int length = block.getInt();
+		if (length < 0 || length > block.remaining()) {
+			throw new IOException("Binary backup record length " + length + " is out of range");
+		}
+		ByteBuffer recordBuffer = block.slice();
+		recordBuffer.limit(length);
+		block.position(block.position() + length);
+		return ArticleBackupRecord.readBinary(recordBuffer);
+	}
+
+	/**
+	 * The {@code BlockHeader} is the header in front of each block
+	 */
+	static final class BlockHeader {
+		final boolean compressed;
+		final int records;
+		final int rawLength;
+		final int storedLength;
+		final int checksum;
+
+		private BlockHeader(boolean compressed, int records, int rawLength, int storedLength, int checksum) {
+			this.compressed = compressed;
+			this.records = records;
+			this.rawLength = rawLength;
+			this.storedLength = storedLength;
+			this.checksum = checksum;
+		}
+
+		/**
+		 * Reads and checks a block header
+		 *
+		 * @param in buffer holding at least {@link #BLOCK_HEADER_LENGTH} bytes
+		 * @return the header
+		 * @throws IOException if a length is out of range
+		 */
+		static BlockHeader read(ByteBuffer in) throws IOException {
+			BlockHeader header = new BlockHeader(in.get() != 0, in.getInt(), in.getInt(), in.getInt(), in.getInt());
+			if (header.records < 0 || header.rawLength < 0 || header.rawLength > MAX_BLOCK_LENGTH
+					|| header.storedLength < 0 || header.storedLength > MAX_BLOCK_LENGTH) {
+				throw new IOException("Binary backup block header is corrupt");
+			}
+			return header;
+		}
+	}
+
+	/**
+	 * The {@code Writer} collects records into blocks and writes each block once it is full
+	 */
+	static final class Writer implements ArticleBackupWriter {
+		private final Path path;
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		private final boolean compress;
+		private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		private final ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE + BLOCK_SIZE / 4);
+		private final DataOutputStream blockOut = new DataOutputStream(block);
+		private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+		private final DataOutputStream recordOut = new DataOutputStream(record);
+		private int records;
+		private boolean finished;
+
+		/**
+		 * Creates or replaces a binary backup file and writes its header
+		 *
+		 * @param filename path to the file
+		 * @param compress true to compress blocks that get smaller with Deflate
+		 * @throws IOException if the file can't be created
+		 */
+		Writer(String filename, boolean compress) throws IOException {
+			path = Paths.get(filename);
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			this.compress = compress;
+			buffer.put(MAGIC).putShort(VERSION).put(compress ? FLAG_DEFLATE : 0);
+		}
+
+		@Override
+		public void write(ArticleBackupRecord articleRecord) throws IOException {
+			record.reset();
+			articleRecord.writeBinary(recordOut);
+			blockOut.writeInt(record.size());
+			record.writeTo(blockOut);
+			records++;
+			if (block.size() >= BLOCK_SIZE) {
+				writeBlock();
+			}
+		}
+
+		/**
+		 * Writes the collected records as one block
+		 */
+		private void writeBlock() throws IOException {
+			byte[] raw = block.toByteArray();
+			byte[] stored = raw;
+			int storedLength = raw.length;
+			boolean compressed = false;
+			if (compress && raw.length > 0) {
+				byte[] deflated = new byte[raw.length];
+				deflater.setInput(raw);
+				deflater.finish();
+				int length = deflater.deflate(deflated);
+				// Deflate only finishes within the buffer when the block got smaller
+				if (deflater.finished() && length < raw.length) {
+					stored = deflated;
+					storedLength = length;
+					compressed = true;
+				}
+				deflater.reset();
+			}
+			CRC32C crc = new CRC32C();
+			crc.update(stored, 0, storedLength);
+
+			ensureSpace(BLOCK_HEADER_LENGTH);
+			buffer.put((byte) (compressed ? 1 : 0)).putInt(records).putInt(raw.length).putInt(storedLength)
+					.putInt((int) crc.getValue());
+			int offset = 0;
+			while (offset < storedLength) {
+				ensureSpace(1);
+				int length = Math.min(buffer.remaining(), storedLength - offset);
+				buffer.put(stored, offset, length);
+				offset += length;
+			}
+			block.reset();
+			records = 0;
+		}
+
+		private void ensureSpace(int length) throws IOException {
+			if (buffer.remaining() < length) {
+				drain();
+			}
+		}
+
+		private void drain() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		@Override
+		public void finish() throws IOException {
+			if (records > 0) {
+				writeBlock();
+			}
+			// The end block, with no records
+			writeBlock();
+			drain();
+			finished = true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				deflater.end();
+				channel.close();
+			} finally {
+				if (!finished) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The {@code Reader} reads a block at a time, checks it, and hands out its records
+	 */
+	static final class Reader implements ArticleBackupReader {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		private final Inflater inflater = new Inflater();
+		private ByteBuffer block;
+		private int blockRecords;
+		private boolean ended;
+
+		/**
+		 * Opens a binary backup file and checks its header
+		 *
+		 * @param filename path to the file
+		 * @throws IOException if the file can't be read, or isn't a binary backup this version can read
+		 */
+		Reader(String filename) throws IOException {
+			channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+			buffer.flip();
+			try {
+				if (!fill(FILE_HEADER_LENGTH)) {
+					throw new IOException("Binary backup header is cut short");
+				}
+				readFileHeader(buffer);
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+		}
+
+		@Override
+		public ArticleBackupRecord read() throws IOException {
+			while (blockRecords == 0) {
+				if (ended || !readBlock()) {
+					return null;
+				}
+			}
+			blockRecords--;
+			return nextRecord(block);
+		}
+
+		/**
+		 * Reads and checks the next block
+		 *
+		 * @return false at the end block
+		 */
+		private boolean readBlock() throws IOException {
+			if (!fill(BLOCK_HEADER_LENGTH)) {
+				throw new IOException("Binary backup ends without its end block");
+			}
+			BlockHeader header = BlockHeader.read(buffer);
+			byte[] stored = new byte[header.storedLength];
+			readFully(stored);
+			ByteBuffer raw = decodeBlock(header, ByteBuffer.wrap(stored), inflater);
+			if (header.records == 0) {
+				ended = true;
+				return false;
+			}
+			block = raw;
+			blockRecords = header.records;
+			return true;
+		}
+
+		private void readFully(byte[] bytes) throws IOException {
+			int offset = 0;
+			while (offset < bytes.length) {
+				if (!buffer.hasRemaining() && !fill(1)) {
+					throw new IOException("Binary backup block is cut short");
+				}
+				int length = Math.min(buffer.remaining(), bytes.length - offset);
+				buffer.get(bytes, offset, length);
+				offset += length;
+			}
+		}
+
+		/**
+		 * Reads from the file until the buffer holds at least the given number of bytes
+		 *
+		 * @return false if the file ends first
+		 */
+		private boolean fill(int length) throws IOException {
+			if (buffer.remaining() >= length) {
+				return true;
+			}
+			buffer.compact();
+			try {
+				while (buffer.position() < length) {
+					if (channel.read(buffer) == -1) {
+						return false;
+					}
+				}
+			} finally {
+				buffer.flip();
+			}
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			inflater.end();
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,510 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code ConnectionPool} class hands out JDBC connections to the H2 database so that the
+ * database classes no longer open a new physical connection with {@code DriverManager} on every call.
+ *
+ * The pool is bounded, validates idle connections before lending them out, and reports connections
+ * that are held longer than the leak threshold together with the stack trace of the code that borrowed them.
+ * Connections handed out by the pool are returned to it when {@code close()} is called on them,
+ * so callers use the usual try-with-resources pattern.
+ *
+ * Each pooled connection also keeps a {@link StatementCache}, so statements prepared through a borrowed
+ * connection are reused across borrows instead of being parsed again.
+ */
+public class ConnectionPool {
+	/**
+	 * Default maximum number of physical connections
+	 */
+	public static final int DEFAULT_MAX_SIZE = 10;
+
+	/**
+	 * Default time a caller waits for a free connection before giving up
+	 */
+	public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 10_000;
+
+	/**
+	 * Default time a connection may be held before it is reported as a possible leak
+	 */
+	public static final long DEFAULT_LEAK_THRESHOLD_MILLIS = 30_000;
+
+	/**
+	 * Default number of prepared statements cached per connection
+	 */
+	public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+	/**
+	 * Timeout in seconds passed to {@link Connection#isValid(int)} when validating on borrow
+	 */
+	private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+	private static ConnectionPool instance;
+
+	private final String url;
+	private final String user;
+	private final String password;
+	private final int maxSize;
+	private final long borrowTimeoutMillis;
+	private final long leakThresholdMillis;
+	private final int statementCacheSize;
+
+	/**
+	 * Limits the number of connections that may be lent out at the same time
+	 */
+	private final Semaphore permits;
+
+	/**
+	 * Physical connections that are currently not lent out, most recently used first
+	 */
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+	/**
+	 * Leases that are currently lent out
+	 */
+	private final Set<Lease> active = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong validationFailures = new AtomicLong();
+	private final AtomicLong leaksDetected = new AtomicLong();
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementCacheMisses = new AtomicLong();
+
+	private final ScheduledExecutorService leakDetector;
+	private volatile boolean shutdown;
+
+	/**
+	 * Creates a pool for the given database
+	 *
+	 * @param url JDBC url of the database
+	 * @param user database user
+	 * @param password database password
+	 * @param maxSize maximum number of physical connections
+	 * @param borrowTimeoutMillis how long a caller waits for a free connection
+	 * @param leakThresholdMillis how long a connection may be held before it is reported
+	 * @param statementCacheSize number of prepared statements cached per connection, 0 to disable caching
+	 */
+	public ConnectionPool(String url, String user, String password, int maxSize, long borrowTimeoutMillis,
+			long leakThresholdMillis, int statementCacheSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Pool size must be at least 1");
+		}
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.maxSize = maxSize;
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+		this.leakThresholdMillis = leakThresholdMillis;
+		this.statementCacheSize = statementCacheSize;
+		this.permits = new Semaphore(maxSize, true);
+
+		leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "ConnectionPool-leak-detector");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(1, leakThresholdMillis / 2);
+		leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+		System.out.println("[ConnectionPool] Pool created with max size " + maxSize);
+	}
+
+	/**
+	 * Gets the pool for the application database or creates a new one
+	 *
+	 * @return the shared pool instance
+	 */
+	public static synchronized ConnectionPool getInstance() {
+		if (instance == null || instance.shutdown) {
+			try {
+				Class.forName(Database.JDBC_DRIVER); // Load the JDBC driver
+			} catch (ClassNotFoundException e) {
+				System.err.println("[ConnectionPool] JDBC Driver not found: " + e.getMessage());
+			}
+			instance = new ConnectionPool(Database.DB_URL, Database.USER, Database.PASS, DEFAULT_MAX_SIZE,
+					DEFAULT_BORROW_TIMEOUT_MILLIS, DEFAULT_LEAK_THRESHOLD_MILLIS, DEFAULT_STATEMENT_CACHE_SIZE);
+		}
+		return instance;
+	}
+
+	/**
+	 * Borrows a connection from the pool. Closing the returned connection hands it back to the pool.
+	 *
+	 * @return a validated connection
+	 * @throws SQLException if no connection becomes available within the borrow timeout
+	 */
+	public Connection borrowConnection() throws SQLException {
+		return borrow(false);
+	}
+
+	/**
+	 * Borrows a connection that the caller keeps for its own lifetime, such as the shared
+	 * connection of {@link Database}. Pinned connections count as active but are not reported as leaks.
+	 *
+	 * @return a validated connection
+	 * @throws SQLException if no connection becomes available within the borrow timeout
+	 */
+	public Connection borrowPinnedConnection() throws SQLException {
+		return borrow(true);
+	}
+
+	private Connection borrow(boolean pinned) throws SQLException {
+		if (shutdown) {
+			throw new SQLException("Connection pool has been shut down");
+		}
+		long start = System.nanoTime();
+		try {
+			if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new SQLException("Timed out after " + borrowTimeoutMillis
+						+ " ms waiting for a database connection (active: " + active.size() + ")");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		}
+		recordWait(System.nanoTime() - start);
+
+		try {
+			PooledConnection pooled = takeValidConnection();
+			Lease lease = new Lease(pooled, pinned);
+			active.add(lease);
+			borrowCount.incrementAndGet();
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, lease);
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Takes an idle connection that passes validation, or opens a new one
+	 */
+	private PooledConnection takeValidConnection() throws SQLException {
+		PooledConnection pooled;
+		while ((pooled = idle.pollFirst()) != null) {
+			if (pooled.isUsable()) {
+				return pooled;
+			}
+			validationFailures.incrementAndGet();
+			System.out.println("[ConnectionPool] Discarding connection that failed validation");
+			pooled.closePhysical();
+		}
+		Connection physical = DriverManager.getConnection(url, user, password);
+		StatementCache cache = statementCacheSize > 0
+				? new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses)
+				: null;
+		try {
+			pooled = new PooledConnection(physical, cache);
+		} catch (SQLException e) {
+			physical.close();
+			throw e;
+		}
+		// Only counted once the connection exists, so failed attempts don't inflate the count
+		createdCount.incrementAndGet();
+		return pooled;
+	}
+
+	private void recordWait(long nanos) {
+		totalWaitNanos.addAndGet(nanos);
+		maxWaitNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	/**
+	 * Returns a leased connection to the idle list, or closes it if it can't be reused
+	 */
+	private void release(Lease lease) {
+		if (!active.remove(lease)) {
+			return;
+		}
+		PooledConnection pooled = lease.pooled;
+		try {
+			if (shutdown || !pooled.reset()) {
+				pooled.closePhysical();
+			} else {
+				idle.offerFirst(pooled);
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Reports connections that have been borrowed for longer than the leak threshold
+	 */
+	private void detectLeaks() {
+		long now = System.currentTimeMillis();
+		for (Lease lease : active) {
+			if (!lease.pinned && !lease.leakReported && now - lease.borrowedAt > leakThresholdMillis) {
+				lease.leakReported = true;
+				leaksDetected.incrementAndGet();
+				System.err.println("[ConnectionPool] Possible connection leak: connection held for "
+						+ (now - lease.borrowedAt) + " ms by thread " + lease.borrowerThread);
+				lease.borrowStack.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Closes all idle connections and stops the leak detector.
+	 * Connections that are still lent out are closed when they are returned.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		leakDetector.shutdownNow();
+		PooledConnection pooled;
+		while ((pooled = idle.pollFirst()) != null) {
+			pooled.closePhysical();
+		}
+		System.out.println("[ConnectionPool] Pool shut down");
+	}
+
+	/**
+	 * @return number of connections currently lent out
+	 */
+	public int getActiveCount() {
+		return active.size();
+	}
+
+	/**
+	 * @return number of open connections waiting in the pool
+	 */
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * @return maximum number of connections the pool will lend out at once
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return total number of successful borrows
+	 */
+	public long getBorrowCount() {
+		return borrowCount.get();
+	}
+
+	/**
+	 * @return number of physical connections opened by the pool
+	 */
+	public long getCreatedCount() {
+		return createdCount.get();
+	}
+
+	/**
+	 * @return number of idle connections discarded because they failed validation
+	 */
+	public long getValidationFailures() {
+		return validationFailures.get();
+	}
+
+	/**
+	 * @return number of connections reported as possible leaks
+	 */
+	public long getLeaksDetected() {
+		return leaksDetected.get();
+	}
+
+	/**
+	 * @return total time callers spent waiting for a connection, in milliseconds
+	 */
+	public double getTotalWaitMillis() {
+		return totalWaitNanos.get() / 1_000_000.0;
+	}
+
+	/**
+	 * @return average time a borrow waited for a connection, in milliseconds
+	 */
+	public double getAverageWaitMillis() {
+		long borrows = borrowCount.get();
+		return borrows == 0 ? 0 : getTotalWaitMillis() / borrows;
+	}
+
+	/**
+	 * @return longest time a single borrow waited for a connection, in milliseconds
+	 */
+	public double getMaxWaitMillis() {
+		return maxWaitNanos.get() / 1_000_000.0;
+	}
+
+	/**
+	 * @return number of prepared statements served from a statement cache
+	 */
+	public long getStatementCacheHits() {
+		return statementCacheHits.get();
+	}
+
+	/**
+	 * @return number of prepared statements that had to be prepared by the database
+	 */
+	public long getStatementCacheMisses() {
+		return statementCacheMisses.get();
+	}
+
+	/**
+	 * @return fraction of prepares served from a statement cache, between 0 and 1
+	 */
+	public double getStatementCacheHitRate() {
+		long hits = statementCacheHits.get();
+		long total = hits + statementCacheMisses.get();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * Prints the pool metrics to the console
+	 */
+	public void printMetrics() {
+		System.out.println("[ConnectionPool] active=" + getActiveCount() + ", idle=" + getIdleCount()
+				+ ", max=" + maxSize + ", borrows=" + getBorrowCount() + ", created=" + getCreatedCount()
+				+ String.format(", avgWait=%.3f ms, maxWait=%.3f ms", getAverageWaitMillis(), getMaxWaitMillis())
+				+ ", validationFailures=" + getValidationFailures() + ", leaks=" + getLeaksDetected()
+				+ ", statementCacheHits=" + getStatementCacheHits() + ", statementCacheMisses=" + getStatementCacheMisses());
+	}
+
+	/**
+	 * A physical connection owned by the pool
+	 */
+	private static class PooledConnection {
+		private final Connection physical;
+		private final StatementCache statementCache;
+		private final boolean defaultReadOnly;
+		private final int defaultIsolation;
+
+		PooledConnection(Connection physical, StatementCache statementCache) throws SQLException {
+			this.physical = physical;
+			this.statementCache = statementCache;
+			this.defaultReadOnly = physical.isReadOnly();
+			this.defaultIsolation = physical.getTransactionIsolation();
+		}
+
+		/**
+		 * Validation on borrow
+		 */
+		boolean isUsable() {
+			try {
+				return !physical.isClosed() && physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+			} catch (SQLException e) {
+				return false;
+			}
+		}
+
+		/**
+		 * Puts the connection back into its default state before it is reused
+		 *
+		 * @return false if the connection is broken and should be discarded
+		 */
+		boolean reset() {
+			try {
+				if (physical.isClosed()) {
+					return false;
+				}
+				if (!physical.getAutoCommit()) {
+					physical.rollback();
+					physical.setAutoCommit(true);
+				}
+				if (physical.isReadOnly() != defaultReadOnly) {
+					physical.setReadOnly(defaultReadOnly);
+				}
+				if (physical.getTransactionIsolation() != defaultIsolation) {
+					physical.setTransactionIsolation(defaultIsolation);
+				}
+				physical.clearWarnings();
+				return true;
+			} catch (SQLException e) {
+				return false;
+			}
+		}
+
+		void closePhysical() {
+			if (statementCache != null) {
+				statementCache.closeAll();
+			}
+			try {
+				physical.close();
+			} catch (SQLException e) {
+				System.err.println("[ConnectionPool] Error closing connection: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * One borrow of a pooled connection. Acts as the handler behind the connection proxy given to callers,
+	 * so a connection that has been closed by its borrower can't be used again through the old reference.
+	 */
+	private class Lease implements InvocationHandler {
+		private final PooledConnection pooled;
+		private final boolean pinned;
+		private final long borrowedAt = System.currentTimeMillis();
+		private final String borrowerThread = Thread.currentThread().getName();
+		private final Throwable borrowStack = new Throwable("Connection borrowed here");
+		private volatile boolean closed;
+		private volatile boolean leakReported;
+
+		Lease(PooledConnection pooled, boolean pinned) {
+			this.pooled = pooled;
+			this.pinned = pinned;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					closed = true;
+					release(this);
+				}
+				return null;
+			case "isClosed":
+				return closed || pooled.physical.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "PooledConnection[" + pooled.physical + (closed ? ", returned" : "") + "]";
+			default:
+				break;
+			}
+			if (closed) {
+				throw new SQLException("Connection has already been returned to the pool");
+			}
+			if (pooled.statementCache != null && method.getName().equals("prepareStatement")) {
+				Class<?>[] types = method.getParameterTypes();
+				if (types.length == 1) {
+					return pooled.statementCache.prepare(pooled.physical, (Connection) proxy, (String) args[0],
+							Statement.NO_GENERATED_KEYS);
+				}
+				if (types.length == 2 && types[1] == int.class) {
+					return pooled.statementCache.prepare(pooled.physical, (Connection) proxy, (String) args[0],
+							(Integer) args[1]);
+				}
+			}
+			try {
+				return method.invoke(pooled.physical, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
@@ -42,7 +42,6 @@ public class Database {
 	private static Database instance;
 
 	private Connection connection;
-	protected Statement statement;
 
 	/**
 	 * Function added by Alyssa DiTroia 
@@ -54,16 +53,26 @@ public class Database {
 		try {
 			Class.forName(JDBC_DRIVER); // Load the JDBC driver
 			System.out.println("[Database] Connecting to database...");
-			connection = DriverManager.getConnection(DB_URL, USER, PASS);
+			closeConnection(); // Hand back any connection from a previous connect
+			connection = ConnectionPool.getInstance().borrowPinnedConnection();
 			System.out.println("[Database] Connection established");
-			statement = connection.createStatement();
-			System.out.println("[Database] Statement created");
 			createTables(); // Create the necessary tables if they don't exist
 		} catch (ClassNotFoundException e) {
 			System.err.println("[Database] JDBC Driver not found: " + e.getMessage());
 		}
 	}
 
+	/**
+	 * Borrows a connection from the connection pool. Closing the connection returns it to the pool,
+	 * so callers should use it in a try-with-resources block.
+	 * 
+	 * @return a pooled connection
+	 * @throws SQLException if no connection is available
+	 */
+	protected Connection borrowConnection() throws SQLException {
+		return ConnectionPool.getInstance().borrowConnection();
+	}
+
 	public Database() {
 		// Private constructor to prevent instantiation
 	}
@@ -104,7 +113,9 @@ public class Database {
 		+ "otp VARCHAR(255), "
 		+ "otpFlag BOOLEAN DEFAULT FALSE, " 
 		+ "otpExpiration TIMESTAMP)";
-		statement.execute(userTable);
+		try (Connection conn = borrowConnection(); Statement statement = conn.createStatement()) {
+			statement.execute(userTable);
+		}
 		System.out.println("[Database] Creating Tables");
 	}
 
@@ -116,14 +127,15 @@ public class Database {
 	 * @throws SQLException
 	 */
 	public boolean isDatabaseEmpty() throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement();
 		String query = "SELECT COUNT(*) AS count FROM cse360users";
-		ResultSet resultSet = statement.executeQuery(query);
-		if (resultSet.next()) {
-			boolean dbStatus = resultSet.getInt("count") == 0;
-			System.out.println("[Database] Database is empty " + dbStatus);
-			return resultSet.getInt("count") == 0;
+		try (Connection conn = borrowConnection();
+				Statement statement = conn.createStatement();
+				ResultSet resultSet = statement.executeQuery(query)) {
+			if (resultSet.next()) {
+				boolean dbStatus = resultSet.getInt("count") == 0;
+				System.out.println("[Database] Database is empty " + dbStatus);
+				return resultSet.getInt("count") == 0;
+			}
 		}
 		return false;
 	}
@@ -131,11 +143,16 @@ public class Database {
 	/**
 	 * Function added by Alyssa DiTroia 
 	 * Connection() This method returns the active connection object
+	 * The shared connection is borrowed from the connection pool the first time it is needed
+	 * and again if a caller has closed it
 	 * 
 	 * @return
 	 * @throws SQLException
 	 */
 	public Connection getConnection() throws SQLException {
+		if (connection == null || connection.isClosed()) {
+			connection = ConnectionPool.getInstance().borrowPinnedConnection();
+		}
 		return connection;
 	}
 
@@ -151,8 +168,6 @@ public class Database {
 	 */
 	// TODO add encryption
 	public void setupAdministrator(String username, char[] password) throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement();
 		// Validate input parameters
 		if (username == null || username.isEmpty()) {
 			System.out.println("[Database] Failed to add administrator: username cannot be null or empty.");
@@ -166,7 +181,7 @@ public class Database {
 
 		String insertUser = "INSERT INTO cse360users (username, password, isAdmin) VALUES (?, ?, TRUE)";
 
-		try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(insertUser)) {
 			// Set parameters for the prepared statement
 			pstmt.setString(1, username);
 			pstmt.setString(2, String.valueOf(password));
@@ -199,8 +214,6 @@ public class Database {
 	 */
 	public void updateUser(String username, String firstName, String lastName, String preferredName, String email)
 			throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement();
 
 		List<String> fields = new ArrayList<>();
 		List<String> values = new ArrayList<>();
@@ -229,7 +242,7 @@ public class Database {
 		}
 
 		String query = "UPDATE cse360users SET " + String.join(", ", fields) + " WHERE username = ?";
-		try (PreparedStatement stmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement stmt = conn.prepareStatement(query)) {
 			for (int i = 0; i < values.size(); i++) {
 				stmt.setString(i + 1, values.get(i));
 			}
@@ -255,11 +268,9 @@ public class Database {
 	 */
 	// TODO add encryption
 	public boolean updatePassword(String username, char[] password) throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement();
 		// Queries database based on invite code
 		String query = "SELECT * FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 			ResultSet rs = pstmt.executeQuery();
 
@@ -267,7 +278,7 @@ public class Database {
 			// is set to NULL
 			if (rs.next()) {
 				String updateUser = "UPDATE cse360users SET password = ? WHERE username = ?";
-				try (PreparedStatement updateStmt = connection.prepareStatement(updateUser)) {
+				try (PreparedStatement updateStmt = conn.prepareStatement(updateUser)) {
 					updateStmt.setString(1, String.valueOf(password));
 					updateStmt.setString(2, username);
 					updateStmt.executeUpdate();
@@ -294,13 +305,11 @@ public class Database {
 	 */
 	public String inviteUser(String inviteCode, String email, boolean isAdmin, boolean isStudent, boolean isInstructor)
 			throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement();
 		if (doesUserExist(inviteCode)) {
 			throw new SQLException("User already exists with the provided invite code.");
 		}
 		String insertInvite = "INSERT INTO cse360users (isAdmin, isStudent, isInstructor, email, inviteToken) VALUES (?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertInvite)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(insertInvite)) {
 			pstmt.setBoolean(1, isAdmin);
 			pstmt.setBoolean(2, isStudent);
 			pstmt.setBoolean(3, isInstructor);
@@ -325,11 +334,9 @@ public class Database {
 	 */
 	// TODO add encryption
 	public boolean completeInvite(String inviteToken, String username, char[] password) throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement();
 		// Queries database based on invite code
 		String query = "SELECT * FROM cse360users WHERE inviteToken = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, inviteToken);
 			ResultSet rs = pstmt.executeQuery();
 
@@ -337,7 +344,7 @@ public class Database {
 			// token is set to NULL
 			if (rs.next()) {
 				String updateUser = "UPDATE cse360users SET username = ?, password = ?, inviteToken = NULL WHERE inviteToken = ?";
-				try (PreparedStatement updateStmt = connection.prepareStatement(updateUser)) {
+				try (PreparedStatement updateStmt = conn.prepareStatement(updateUser)) {
 					updateStmt.setString(1, username);
 					updateStmt.setString(2, String.valueOf(password));
 					updateStmt.setString(3, inviteToken);
@@ -356,11 +363,9 @@ public class Database {
 	 * @throws SQLException
 	 */
 	public boolean validateInvite(String inviteToken) throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement();
 		// Queries database based on invite code
 		String query = "SELECT * FROM cse360users WHERE inviteToken = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, inviteToken);
 			ResultSet rs = pstmt.executeQuery();
 
@@ -385,10 +390,9 @@ public class Database {
 	 * @throws SQLException
 	 */
 	public boolean validateCredentials(String username, char[] password) throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
 		String query = "SELECT password FROM cse360users WHERE username = ?";
 
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 			ResultSet rs = pstmt.executeQuery();
 
@@ -430,37 +434,39 @@ public class Database {
 	 * @throws SQLException
 	 */
 	public void deleteUser(String email) throws SQLException {
-	    // Get user ID first
-	    int userId;
-	    String getIdSql = "SELECT id FROM cse360users WHERE email = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(getIdSql)) {
-	        pstmt.setString(1, email);
-	        ResultSet rs = pstmt.executeQuery();
-	        if (!rs.next()) {
-	            return; // User not found
-	        }
-	        userId = rs.getInt("id");
-	    }
-
-	    // Delete from conversation_messages where user is creator
-	    String deleteConvMessages = "DELETE FROM conversation_messages WHERE creator_id = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(deleteConvMessages)) {
-	        pstmt.setInt(1, userId);
-	        pstmt.executeUpdate();
-	    }
-
-	    // Delete all help messages from this user
-	    String deleteMessages = "DELETE FROM help_messages WHERE user_id = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(deleteMessages)) {
-	        pstmt.setInt(1, userId);
-	        pstmt.executeUpdate();
-	    }
-	    
-	    // Finally delete the user
-	    String deleteUser = "DELETE FROM cse360users WHERE email = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(deleteUser)) {
-	        pstmt.setString(1, email);
-	        pstmt.executeUpdate();
+	    try (Connection conn = borrowConnection()) {
+		    // Get user ID first
+		    int userId;
+		    String getIdSql = "SELECT id FROM cse360users WHERE email = ?";
+		    try (PreparedStatement pstmt = conn.prepareStatement(getIdSql)) {
+		        pstmt.setString(1, email);
+		        ResultSet rs = pstmt.executeQuery();
+		        if (!rs.next()) {
+		            return; // User not found
+		        }
+		        userId = rs.getInt("id");
+		    }
+	
+		    // Delete from conversation_messages where user is creator
+		    String deleteConvMessages = "DELETE FROM conversation_messages WHERE creator_id = ?";
+		    try (PreparedStatement pstmt = conn.prepareStatement(deleteConvMessages)) {
+		        pstmt.setInt(1, userId);
+		        pstmt.executeUpdate();
+		    }
+	
+		    // Delete all help messages from this user
+		    String deleteMessages = "DELETE FROM help_messages WHERE user_id = ?";
+		    try (PreparedStatement pstmt = conn.prepareStatement(deleteMessages)) {
+		        pstmt.setInt(1, userId);
+		        pstmt.executeUpdate();
+		    }
+		    
+		    // Finally delete the user
+		    String deleteUser = "DELETE FROM cse360users WHERE email = ?";
+		    try (PreparedStatement pstmt = conn.prepareStatement(deleteUser)) {
+		        pstmt.setString(1, email);
+		        pstmt.executeUpdate();
+		    }
 	    }
 	}
 
@@ -472,19 +478,8 @@ public class Database {
 	 * @return
 	 */
 	public String getFirstName(String username) {
-		try {
-			connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		} catch (SQLException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-		try {
-			statement = connection.createStatement();
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
 		String query = "SELECT firstName FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 			ResultSet rs = pstmt.executeQuery();
 			if (rs.next()) {
@@ -505,19 +500,8 @@ public class Database {
 	 * @return
 	 */
 	public String getEmail(String email) {
-		try {
-			connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		} catch (SQLException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-		try {
-			statement = connection.createStatement();
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
 		String query = "SELECT firstName FROM cse360users WHERE email = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, email);
 			ResultSet rs = pstmt.executeQuery();
 			if (rs.next()) {
@@ -539,10 +523,8 @@ public class Database {
 	 * @throws SQLException
 	 */
 	public boolean doesUserExist(String email) throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement();
 		String query = "SELECT COUNT(*) FROM cse360users WHERE email = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, email);
 			ResultSet rs = pstmt.executeQuery();
 			return rs.next() && rs.getInt(1) > 0;
@@ -556,7 +538,8 @@ public class Database {
 	public void closeConnection() {
 		if (connection != null) {
 			try {
-				connection.close();
+				connection.close(); // Returns the shared connection to the pool
+				connection = null;
 				System.out.println("[Database] Database connection closed.");
 			} catch (SQLException e) {
 				System.err.println("[Database] Failed to close the database connection.");
@@ -579,10 +562,8 @@ public class Database {
 	 * @throws SQLException If there's an error executing the SQL query.
 	 */
 	public Boolean isUserAdmin(String username) throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement();
 		String query = "SELECT isAdmin FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 			try (ResultSet rs = pstmt.executeQuery()) {
 				if (rs.next()) {
@@ -607,10 +588,8 @@ public class Database {
 	 * @throws SQLException If there's an error executing the SQL query.
 	 */
 	public Boolean isUserStudent(String username) throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement();
 		String query = "SELECT isStudent FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 			try (ResultSet rs = pstmt.executeQuery()) {
 				if (rs.next()) {
@@ -635,10 +614,8 @@ public class Database {
 	 * @throws SQLException If there's an error executing the SQL query.
 	 */
 	public Boolean isUserInstructor(String username) throws SQLException {
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement();
 		String query = "SELECT isInstructor FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 			try (ResultSet rs = pstmt.executeQuery()) {
 				if (rs.next()) {
@@ -663,7 +640,7 @@ public class Database {
 			throws SQLException {
 		String query = "UPDATE cse360users SET isAdmin = ?, isStudent = ?, isInstructor = ? WHERE email = ?";
 
-		try (PreparedStatement stmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement stmt = conn.prepareStatement(query)) {
 			stmt.setBoolean(1, isAdmin);
 			stmt.setBoolean(2, isStudent);
 			stmt.setBoolean(3, isInstructor);
@@ -683,7 +660,8 @@ public class Database {
 		List<Map<String, Object>> usersList = new ArrayList<>();
 		String query = "SELECT * FROM cse360users";
 
-		try (PreparedStatement preparedStatement = connection.prepareStatement(query);
+		try (Connection conn = borrowConnection();
+				PreparedStatement preparedStatement = conn.prepareStatement(query);
 				ResultSet resultSet = preparedStatement.executeQuery()) {
 
 			while (resultSet.next()) {
@@ -716,12 +694,9 @@ public class Database {
 	 * @throws SQLException
 	 */
 	public Boolean getOTPFlag(String username) throws SQLException {
-		// Initialize the connection
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-
 		// Define the SQL query to select the otpFlag
 		String query = "SELECT otpFlag FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 			ResultSet rs = pstmt.executeQuery();
 
@@ -745,10 +720,9 @@ public class Database {
 	 * @throws SQLException if database operation fails
 	 */
 	public int getUserId(String username) throws SQLException {
-	    connection = DriverManager.getConnection(DB_URL, USER, PASS);
 	    String query = "SELECT id FROM cse360users WHERE username = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        
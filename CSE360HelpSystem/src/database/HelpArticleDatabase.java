@@ -1,23 +1,31 @@
 package database;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Base64;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 
 import org.bouncycastle.util.Arrays;
 
+import Encryption.ArticleEnvelope;
+import Encryption.CipherSuite;
+import Encryption.CipherSuites;
+import Encryption.DataKeyRecord;
 import Encryption.EncryptionHelper;
 import Encryption.EncryptionUtils;
+import Encryption.KeyHierarchy;
+import Encryption.MasterKeyFile;
 import models.Article;
+import models.ArticleFilter;
+import models.ArticlePage;
+import models.ArticleSummary;
+import models.LazyArticle;
 /**
  * The {@code HelpArticleDatabase} handles interactions with the database for the HelpArticle table and Grouping Identifiers table
  * 
@@ -32,14 +40,98 @@ public class HelpArticleDatabase extends Database{
     private Database db; // NOTE: Uses the existing Database class
     
     /**
-     * Database connection instance
+     * Cache of decrypted articles shared by all HelpArticleDatabase instances
      */
-    private Connection connection;
+    private final ArticleCache articleCache = ArticleCache.getInstance();
     
     /**
-     * Encryption helper instance for encrypting/decrypting article data
+     * Blind index of keyed hash tokens over the searchable fields, shared by all HelpArticleDatabase instances
      */
-    private EncryptionHelper encryptionHelper;
+    private final ArticleSearchIndex searchIndex = ArticleSearchIndex.getInstance();
+    
+    /**
+     * Columns read for an ArticleSummary, everything except the body and references. Sealed articles keep those
+     * in their content part, content_bytes, so only the summary part in envelope_bytes is read and decrypted.
+     */
+    private static final String SUMMARY_COLUMNS = "a.id, a.iv, a.iv_bytes, a.title, a.authors, a.abstract, a.keywords, "
+            + "a.envelope, a.envelope_bytes, a.level, a.grouping_identifiers, a.version";
+    
+    /**
+     * Columns that hold the text fields of articles written before envelopes, in envelope field order
+     */
+    private static final String[] TEXT_COLUMNS = { "title", "authors", "abstract", "keywords", "body", "references" };
+    
+    /**
+     * Number of articles moved to binary envelopes per transaction by {@link #migrateArticleStorage()}
+     */
+    private static final int MIGRATION_BATCH_SIZE = 100;
+    
+    /**
+     * Page size used to count articles when search results have to be checked on the decrypted text
+     */
+    private static final int COUNT_PAGE_SIZE = 500;
+    
+    /**
+     * Default number of rows fetched from the database at a time by the streaming methods
+     */
+    public static final int DEFAULT_FETCH_SIZE = 100;
+    
+    /**
+     * Number of rows fetched from the database at a time by the streaming methods
+     */
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    
+    /**
+     * Cipher suite articles are encrypted with when they are written
+     */
+    private CipherSuite cipherSuite = CipherSuites.DEFAULT;
+    
+    /**
+     * Length in UTF-8 bytes from which article bodies and references are compressed before encryption
+     */
+    private int compressionThreshold = ArticleEnvelope.DEFAULT_COMPRESSION_THRESHOLD;
+    
+    /**
+     * Number of articles a restore sends to the database in one batch
+     */
+    private int restoreBatchSize = ArticleRestoreEngine.DEFAULT_BATCH_SIZE;
+    
+    /**
+     * Whether a restore is one transaction, or commits every batch and can be resumed
+     */
+    private ArticleRestoreEngine.CommitMode restoreCommitMode = ArticleRestoreEngine.CommitMode.SINGLE_TRANSACTION;
+    
+    /**
+     * Number of threads a restore parses a large backup file with
+     */
+    private int restoreReaderThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    
+    /**
+     * Length of backup file parsed by one task of a restore
+     */
+    private int restoreChunkSize = ParallelBackupReader.DEFAULT_CHUNK_SIZE;
+    
+    /**
+     * Format new backup files are written in
+     */
+    private ArticleBackupFormat backupFormat = ArticleBackupFormat.TEXT;
+    
+    /**
+     * Table of the wrapped data keys articles are encrypted with
+     */
+    private static final ArticleKeyStore KEY_STORE = new ArticleKeyStore();
+    
+    /**
+     * Set once the master keys of the environment's keystore file have been registered
+     */
+    private static boolean masterKeysLoaded;
+    
+    /**
+     * Reads one row of an article query into an Article or ArticleSummary
+     */
+    private interface ArticleRowReader<T> {
+        T read(ResultSet rs, long cacheGeneration) throws Exception;
+    }
 
     /**
      * Constructor for HelpArticleDatabase
@@ -50,16 +142,33 @@ public class HelpArticleDatabase extends Database{
     public HelpArticleDatabase() throws Exception {
     	System.out.println("[HelpArticleDB] Help Article Table Initializing");
         // Initialize the Database instance and connection
-        db = Database.getInstance(); 
-        connection = db.getConnection(); // Get the shared connection
-        if (connection != null) {
-            System.out.println("[HelpArticleDB] Connection established successfully in HelpArticleDatabase.");
-        } else {
-            System.out.println("[HelpArticleDB] Connection is null in HelpArticleDatabase.");
-        }
-        encryptionHelper = new EncryptionHelper();
+        db = Database.getInstance(); // Connections are borrowed from the shared connection pool per call
+        KeyHierarchy.getInstance().setStore(KEY_STORE);
+        loadMasterKeys();
         createArticleTables(); // Create tables for articles if they don't exist
         createGroupingIdentifiersTable();
+        // Articles in older formats are still read, and are rewritten in the background by ArticleJobRunner
+    }
+
+    /**
+     * Registers the master keys of the keystore file named by the environment, once per application run,
+     * so articles whose data keys were wrapped with a rotated master key can still be read after a restart
+     * 
+     * @throws Exception if the keystore file can't be read
+     * @see MasterKeyFile#fromEnvironment()
+     */
+    private static synchronized void loadMasterKeys() throws Exception {
+        if (masterKeysLoaded) {
+            return;
+        }
+        MasterKeyFile provider = MasterKeyFile.fromEnvironment();
+        if (provider != null) {
+            KeyHierarchy.getInstance().setMasterKeyProvider(provider);
+            System.out.println("[HelpArticleDB] Master keys loaded, current version " + KeyHierarchy.getInstance().getCurrentMasterKeyVersion());
+        } else {
+            System.out.println("[HelpArticleDB] No master key file configured, master key rotation is disabled");
+        }
+        masterKeysLoaded = true;
     }
 
     /**
@@ -70,20 +179,34 @@ public class HelpArticleDatabase extends Database{
     public void createArticleTables() throws SQLException {
     	String articleTable = "CREATE TABLE IF NOT EXISTS articles ("
     	        + "id INT AUTO_INCREMENT PRIMARY KEY, "
-    	        + "iv VARCHAR(255), "  // Store Base64 encoded IV
+    	        + "iv VARCHAR(255), "  // Store Base64 encoded IV, replaced by iv_bytes
     	        + "title CLOB, "        // Store encrypted title
     	        + "authors CLOB, "      // Store encrypted authors
     	        + "abstract CLOB, "     // Store encrypted abstract
     	        + "keywords CLOB, "     // Store encrypted keywords
     	        + "body CLOB, "         // Store encrypted body
     	        + "references CLOB, "   // Store encrypted references
+    	        + "envelope CLOB, "     // Store all encrypted text fields together, replaces the six columns above
+    	        + "iv_bytes VARBINARY(255), " // Store the IV as raw bytes
+    	        + "envelope_bytes BLOB, "     // Store the encrypted envelope as raw bytes, replaces envelope
+    	        + "content_bytes BLOB, "      // Store the encrypted body and references, apart from the envelope
     	        + "level VARCHAR(50), "  // New field for article level
     	        + "grouping_identifiers CLOB, " // New field for grouping/tags
     	        + "permissions VARCHAR(50), "   // New field for permissions
     	        + "date_added DATE, "   // New field for date added
     	        + "version VARCHAR(20))"; // New field for article version
-        try (Statement statement = connection.createStatement()) {
+        try (Connection conn = borrowConnection(); Statement statement = conn.createStatement()) {
             statement.execute(articleTable);
+            // Tables created before envelopes and binary storage existed still need the columns
+            statement.execute("ALTER TABLE articles ADD COLUMN IF NOT EXISTS envelope CLOB");
+            statement.execute("ALTER TABLE articles ADD COLUMN IF NOT EXISTS iv_bytes VARBINARY(255)");
+            statement.execute("ALTER TABLE articles ADD COLUMN IF NOT EXISTS envelope_bytes BLOB");
+            statement.execute("ALTER TABLE articles ADD COLUMN IF NOT EXISTS content_bytes BLOB");
+            searchIndex.createTable(conn);
+            ArticleKeyStore.createTable(conn);
+            ArticleChangeTracker.createTables(conn);
+            ArticleJobRunner.createTable(conn);
+            ArticleRestoreEngine.createTable(conn);
             System.out.println("[HelpArticleDB] Article table created or already exists");
         }catch (SQLException e) {
             System.out.println("[HelpArticleDB] Error creating article table: " + e.getMessage());
@@ -92,6 +215,80 @@ public class HelpArticleDatabase extends Database{
     }
     
     
+    /**
+     * Moves articles written before binary storage existed to raw IV and envelope bytes. An article with a
+     * Base64 envelope only has its envelope and IV decoded. An article with six encrypted columns is decrypted
+     * and sealed into a summary part and a content part first. The old columns are cleared. Articles are moved in batches, each in
+     * its own transaction, so a large table is migrated without holding it in memory or locking it for long,
+     * and articles that haven't been moved yet are still read from the old columns.
+     * An article updated while the migration runs already has binary storage and is left alone. Moved articles take
+     * a new change number, so the next incremental backup holds them as they are stored now.
+     * The application runs a {@link ReencryptArticlesJob} in the background instead, which this method is
+     * the synchronous counterpart of.
+     * 
+     * @return number of articles moved
+     * @throws Exception if database access or encryption fails
+     */
+    public int migrateArticleStorage() throws Exception {
+        String selectSql = "SELECT id, iv, iv_bytes, title, authors, abstract, keywords, body, references, envelope, "
+                + "envelope_bytes FROM articles WHERE envelope_bytes IS NULL AND (envelope IS NOT NULL OR title IS NOT NULL) "
+                + "AND id > ? ORDER BY id LIMIT ?";
+        String updateSql = "UPDATE articles SET iv_bytes = ?, envelope_bytes = ?, content_bytes = ?, iv = NULL, envelope = NULL, title = NULL, "
+                + "authors = NULL, abstract = NULL, keywords = NULL, body = NULL, references = NULL, "
+                + "change_seq = " + ArticleChangeTracker.NEXT_CHANGE + " WHERE id = ? AND envelope_bytes IS NULL";
+        int migrated = 0;
+        try (Connection conn = borrowConnection();
+             PreparedStatement select = conn.prepareStatement(selectSql);
+             PreparedStatement update = conn.prepareStatement(updateSql)) {
+            conn.setAutoCommit(false);
+            int lastId = 0;
+            int batch;
+            do {
+                // Each batch takes change numbers, and leaves incremental backups free to start between batches
+                Lock changes = ArticleChangeTracker.lockChanges();
+                try {
+                    batch = 0;
+                    select.setInt(1, lastId);
+                    select.setInt(2, MIGRATION_BATCH_SIZE);
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            lastId = rs.getInt("id");
+                            byte[] iv = readIv(rs);
+                            byte[] envelope = readEnvelope(rs);
+                            byte[] content = null;
+                            if (envelope == null) {
+                                // Decrypted anyway, so sealed with the current suite and a data key of its own
+                                char[][] text = decryptTextFields(rs, ArticleEnvelope.FIELD_COUNT);
+                                ArticleEnvelope.Parts sealed = sealWithDataKey(conn, cipherSuite, 0, compressionThreshold, text);
+                                envelope = sealed.getSummary();
+                                content = sealed.getContent();
+                                iv = null;
+                            }
+                            update.setBytes(1, iv);
+                            update.setBytes(2, envelope);
+                            update.setBytes(3, content);
+                            update.setInt(4, lastId);
+                            update.addBatch();
+                            batch++;
+                        }
+                    }
+                    if (batch > 0) {
+                        for (int updated : update.executeBatch()) {
+                            migrated += Math.max(updated, 0);
+                        }
+                        conn.commit();
+                    }
+                } finally {
+                    changes.unlock();
+                }
+            } while (batch == MIGRATION_BATCH_SIZE);
+        }
+        if (migrated > 0) {
+            System.out.println("[HelpArticleDB] Moved " + migrated + " articles to binary envelopes");
+        }
+        return migrated;
+    }
+    
     /**
      * Creates the grouping identifiers table if it doesn't exist.
      *
@@ -101,7 +298,7 @@ public class HelpArticleDatabase extends Database{
         String groupingTable = "CREATE TABLE IF NOT EXISTS GroupingIdentifiers ("
                 + "id INT AUTO_INCREMENT PRIMARY KEY, "
                 + "identifier VARCHAR(255) UNIQUE NOT NULL)";
-        try (Statement statement = connection.createStatement()) {
+        try (Connection conn = borrowConnection(); Statement statement = conn.createStatement()) {
             statement.execute(groupingTable);
             System.out.println("[HelpArticleDB] Grouping Identifiers table created or already exists.");
         } catch (SQLException e) {
@@ -118,7 +315,7 @@ public class HelpArticleDatabase extends Database{
      */
     public void insertGroupingIdentifier(String identifier) throws SQLException {
         String sql = "INSERT INTO GroupingIdentifiers (identifier) VALUES (?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, identifier);
             pstmt.executeUpdate();
             System.out.println("[HelpArticleDB] Inserted grouping identifier into database: " + identifier);
@@ -135,13 +332,15 @@ public class HelpArticleDatabase extends Database{
 	 * @throws SQLException
 	 */
 	public boolean areArticlesEmpty() throws SQLException {
-		statement = connection.createStatement();
 		String query = "SELECT COUNT(*) AS count FROM articles";
-		ResultSet resultSet = statement.executeQuery(query);
-		if (resultSet.next()) {
-			boolean dbStatus = resultSet.getInt("count") == 0;
-			System.out.println("[HelpArticleDB] Database is empty " + dbStatus);
-			return resultSet.getInt("count") == 0;
+		try (Connection conn = borrowConnection();
+				Statement statement = conn.createStatement();
+				ResultSet resultSet = statement.executeQuery(query)) {
+			if (resultSet.next()) {
+				boolean dbStatus = resultSet.getInt("count") == 0;
+				System.out.println("[HelpArticleDB] Database is empty " + dbStatus);
+				return resultSet.getInt("count") == 0;
+			}
 		}
 		return false;
 	}
@@ -160,51 +359,49 @@ public class HelpArticleDatabase extends Database{
 	 * @param permissions access permissions for the article
 	 * @param dateAdded date the article was created
 	 * @param version article version number
+	 * @return the id of the new article
 	 * 
 	 * @throws Exception if encryption or database operation fails
 	 */
-	public void createArticle(char[] title, char[] authors, char[] abstractText, char[] keywords, char[] body,
+	public int createArticle(char[] title, char[] authors, char[] abstractText, char[] keywords, char[] body,
 			char[] references, String level, List<String> groupingIdentifiers, String permissions, Date dateAdded,
 			String version) throws Exception {
 		System.out.println("[HelpArticleDB] Creating article with groups: " + groupingIdentifiers);
 	    String groupingIdentifiersString = String.join(",", groupingIdentifiers);
 	    System.out.println("[HelpArticleDB] Storing groups as: '" + groupingIdentifiersString + "'");
 		
-		byte[] iv = EncryptionUtils.getInitializationVector(title);
-
-		byte[] encryptedTitle = encryptionHelper.encrypt(EncryptionUtils.toByteArray(title), iv);
-		byte[] encryptedAuthors = encryptionHelper.encrypt(EncryptionUtils.toByteArray(authors), iv);
-		byte[] encryptedAbstract = encryptionHelper.encrypt(EncryptionUtils.toByteArray(abstractText), iv);
-		byte[] encryptedKeywords = encryptionHelper.encrypt(EncryptionUtils.toByteArray(keywords), iv);
-		byte[] encryptedBody = encryptionHelper.encrypt(EncryptionUtils.toByteArray(body), iv);
-		byte[] encryptedReferences = encryptionHelper.encrypt(EncryptionUtils.toByteArray(references), iv);
-		
-	    System.out.println("[HelpArticleDB] Encrypted Article Fields Before Storage:");
-	    System.out.println(" - Encrypted Title: " + Base64.getEncoder().encodeToString(encryptedTitle));
-	    System.out.println(" - Encrypted Authors: " + Base64.getEncoder().encodeToString(encryptedAuthors));
-	    System.out.println(" - Encrypted Abstract: " + Base64.getEncoder().encodeToString(encryptedAbstract));
-	    System.out.println(" - Encrypted Keywords: " + Base64.getEncoder().encodeToString(encryptedKeywords));
-	    System.out.println(" - Encrypted Body: " + Base64.getEncoder().encodeToString(encryptedBody));
-	    System.out.println(" - Encrypted References: " + Base64.getEncoder().encodeToString(encryptedReferences));
-	    System.out.println();
-
-		String sql = "INSERT INTO articles (iv, title, authors, abstract, keywords, body, references, level, grouping_identifiers, permissions, date_added, version) "
-				+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-			pstmt.setString(1, Base64.getEncoder().encodeToString(iv));
-			pstmt.setString(2, Base64.getEncoder().encodeToString(encryptedTitle));
-			pstmt.setString(3, Base64.getEncoder().encodeToString(encryptedAuthors));
-			pstmt.setString(4, Base64.getEncoder().encodeToString(encryptedAbstract));
-			pstmt.setString(5, Base64.getEncoder().encodeToString(encryptedKeywords));
-			pstmt.setString(6, Base64.getEncoder().encodeToString(encryptedBody));
-			pstmt.setString(7, Base64.getEncoder().encodeToString(encryptedReferences));
-			pstmt.setString(8, level); // Store the level
-			pstmt.setString(9, groupingIdentifiersString); // Join grouping identifiers as a comma-separated
+		String sql = "INSERT INTO articles (envelope_bytes, content_bytes, level, grouping_identifiers, permissions, date_added, version) "
+				+ "VALUES (?, ?, ?, ?, ?, ?, ?)";
+		Lock changes = ArticleChangeTracker.lockChanges(); // The insert takes a change number
+		try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+			conn.setAutoCommit(false); // The article, its data key, and its search tokens commit together
+			// Encrypt the summary fields and the content fields with one cipher operation each and a new data key for the article
+			ArticleEnvelope.Parts sealed = sealWithDataKey(conn, cipherSuite, 0, compressionThreshold, title, authors, abstractText, keywords, body, references);
+			
+		    System.out.println("[HelpArticleDB] Encrypted Article Envelope Before Storage: " + Base64.getEncoder().encodeToString(sealed.getSummary()));
+		    System.out.println();
+
+			pstmt.setBytes(1, sealed.getSummary());
+			pstmt.setBytes(2, sealed.getContent());
+			pstmt.setString(3, level); // Store the level
+			pstmt.setString(4, groupingIdentifiersString); // Join grouping identifiers as a comma-separated
 																		// string
-			pstmt.setString(10, permissions); // Store the permissions
-			pstmt.setDate(11, new java.sql.Date(dateAdded.getTime())); // Store the date added
-			pstmt.setString(12, version); // Store the article version
+			pstmt.setString(5, permissions); // Store the permissions
+			pstmt.setDate(6, new java.sql.Date(dateAdded.getTime())); // Store the date added
+			pstmt.setString(7, version); // Store the article version
 			pstmt.executeUpdate();
+			int id;
+			try (ResultSet keys = pstmt.getGeneratedKeys()) {
+				keys.next();
+				id = keys.getInt(1);
+			}
+			Set<String> tokens = searchIndex.writeTokens(conn, id, new String(title), new String(authors),
+					new String(keywords), new String(abstractText));
+			conn.commit();
+			searchIndex.tokensCommitted(id, tokens);
+			return id;
+		} finally {
+			changes.unlock();
 		}
 	}
 	
@@ -212,52 +409,48 @@ public class HelpArticleDatabase extends Database{
      * Creates a new article from an Article object.
      * Encrypts all sensitive data before storing in the database.
      * 
-     * @param article Article object containing all article information
+     * @param article Article object containing all article information, its id is set to the new id
+     * @return the id of the new article
      * @throws Exception if encryption or database operation fails
      */
-	public void createArticle(Article article) throws Exception {
-	    // Generate IV based on article title
-	    byte[] iv = EncryptionUtils.getInitializationVector(article.getTitle().toCharArray());
-
-	    // Encrypt article fields using the IV
-	    byte[] encryptedTitle = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getTitle().toCharArray()), iv);
-	    byte[] encryptedAuthors = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getAuthors().toCharArray()), iv);
-	    byte[] encryptedAbstract = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getAbstractText().toCharArray()), iv);
-	    byte[] encryptedKeywords = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getKeywords().toCharArray()), iv);
-	    byte[] encryptedBody = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getBody().toCharArray()), iv);
-	    byte[] encryptedReferences = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getReferences().toCharArray()), iv);
-
-	    System.out.println("[HelpArticleDB] Encrypted Article Fields Before Storage:");
-	    System.out.println(" - Encrypted Title: " + Base64.getEncoder().encodeToString(encryptedTitle));
-	    System.out.println(" - Encrypted Authors: " + Base64.getEncoder().encodeToString(encryptedAuthors));
-	    System.out.println(" - Encrypted Abstract: " + Base64.getEncoder().encodeToString(encryptedAbstract));
-	    System.out.println(" - Encrypted Keywords: " + Base64.getEncoder().encodeToString(encryptedKeywords));
-	    System.out.println(" - Encrypted Body: " + Base64.getEncoder().encodeToString(encryptedBody));
-	    System.out.println(" - Encrypted References: " + Base64.getEncoder().encodeToString(encryptedReferences));
-	    
+	public int createArticle(Article article) throws Exception {
 	    // SQL query to insert the article into the database
-	    String sql = "INSERT INTO articles (iv, title, authors, abstract, keywords, body, references, level, grouping_identifiers, permissions, date_added, version) "
-	               + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	    String sql = "INSERT INTO articles (envelope_bytes, content_bytes, level, grouping_identifiers, permissions, date_added, version) "
+	               + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+	    // Prepare the SQL statement, the insert takes a change number
+	    Lock changes = ArticleChangeTracker.lockChanges();
+	    try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+	        conn.setAutoCommit(false); // The article, its data key, and its search tokens commit together
+	        // Encrypt the summary and content fields with a new data key for the article
+	        ArticleEnvelope.Parts sealed = sealArticle(conn, article, 0);
+
+	        System.out.println("[HelpArticleDB] Encrypted Article Envelope Before Storage: " + Base64.getEncoder().encodeToString(sealed.getSummary()));
 
-	    // Prepare the SQL statement
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
 	        // Set the encrypted values and other fields in the statement
-	        pstmt.setString(1, Base64.getEncoder().encodeToString(iv));  // IV
-	        pstmt.setString(2, Base64.getEncoder().encodeToString(encryptedTitle));  // Title
-	        pstmt.setString(3, Base64.getEncoder().encodeToString(encryptedAuthors));  // Authors
-	        pstmt.setString(4, Base64.getEncoder().encodeToString(encryptedAbstract));  // Abstract
-	        pstmt.setString(5, Base64.getEncoder().encodeToString(encryptedKeywords));  // Keywords
-	        pstmt.setString(6, Base64.getEncoder().encodeToString(encryptedBody));  // Body
-	        pstmt.setString(7, Base64.getEncoder().encodeToString(encryptedReferences));  // References
-	        pstmt.setString(8, article.getLevel());  // Level
-	        pstmt.setString(9, String.join(",", article.getGroupingIdentifiers()));  // Grouping Identifiers
-	        pstmt.setString(10, article.getPermissions());  // Permissions
-	        pstmt.setDate(11, new java.sql.Date(article.getDateAdded().getTime()));  // Date added
-	        pstmt.setString(12, article.getVersion());  // Version
+	        pstmt.setBytes(1, sealed.getSummary());  // Title, authors, abstract, and keywords
+	        pstmt.setBytes(2, sealed.getContent());  // Body and references
+	        pstmt.setString(3, article.getLevel());  // Level
+	        pstmt.setString(4, String.join(",", article.getGroupingIdentifiers()));  // Grouping Identifiers
+	        pstmt.setString(5, article.getPermissions());  // Permissions
+	        pstmt.setDate(6, new java.sql.Date(article.getDateAdded().getTime()));  // Date added
+	        pstmt.setString(7, article.getVersion());  // Version
 
 	        // Execute the update
 	        pstmt.executeUpdate();
-	        
+	        int id;
+	        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+	            keys.next();
+	            id = keys.getInt(1);
+	        }
+	        Set<String> tokens = searchIndex.writeTokens(conn, id, article.getTitle(), article.getAuthors(),
+	                article.getKeywords(), article.getAbstractText());
+	        conn.commit();
+	        searchIndex.tokensCommitted(id, tokens);
+	        article.setId(id);
+	        return id;
+	    } finally {
+	        changes.unlock();
 	    }
 	}
 
@@ -272,19 +465,12 @@ public class HelpArticleDatabase extends Database{
 	 */
 	public String[] getDecryptedArticle(int id) throws Exception {
 	    String sql = "SELECT * FROM articles WHERE id = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setInt(1, id);
 	        try (ResultSet rs = pstmt.executeQuery()) {
 	            if (rs.next()) {
-	                String ivBase64 = rs.getString("iv");
-	                byte[] iv = Base64.getDecoder().decode(ivBase64);
-
-	                byte[] encryptedTitle = Base64.getDecoder().decode(rs.getString("title"));
-	                byte[] encryptedAuthors = Base64.getDecoder().decode(rs.getString("authors"));
-	                byte[] encryptedAbstract = Base64.getDecoder().decode(rs.getString("abstract"));
-	                byte[] encryptedKeywords = Base64.getDecoder().decode(rs.getString("keywords"));
-	                byte[] encryptedBody = Base64.getDecoder().decode(rs.getString("body"));
-	                byte[] encryptedReferences = Base64.getDecoder().decode(rs.getString("references"));
+	                // Decrypt the text fields
+	                char[][] text = decryptTextFields(rs, ArticleEnvelope.FIELD_COUNT);
 
 	                String level = rs.getString("level");
 	                String groupingIdentifiers = rs.getString("grouping_identifiers");
@@ -292,21 +478,13 @@ public class HelpArticleDatabase extends Database{
 	                Date dateAdded = rs.getDate("date_added");
 	                String version = rs.getString("version");
 
-	                // Decrypt the data
-	                char[] title = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedTitle, iv));
-	                char[] authors = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedAuthors, iv));
-	                char[] abstractText = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedAbstract, iv));
-	                char[] keywords = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedKeywords, iv));
-	                char[] body = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedBody, iv));
-	                char[] references = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedReferences, iv));
-
 	                return new String[]{
-	                    new String(title),
-	                    new String(authors),
-	                    new String(abstractText),
-	                    new String(keywords),
-	                    new String(body),
-	                    new String(references),
+	                    new String(text[ArticleEnvelope.TITLE]),
+	                    new String(text[ArticleEnvelope.AUTHORS]),
+	                    new String(text[ArticleEnvelope.ABSTRACT]),
+	                    new String(text[ArticleEnvelope.KEYWORDS]),
+	                    new String(text[ArticleEnvelope.BODY]),
+	                    new String(text[ArticleEnvelope.REFERENCES]),
 	                    level,
 	                    groupingIdentifiers,
 	                    permissions,
@@ -329,59 +507,215 @@ public class HelpArticleDatabase extends Database{
      */
 	public List<Article> getAllDecryptedArticles() throws Exception {
 	    List<Article> articles = new ArrayList<>();
-	    String sql = "SELECT id, iv, title, authors, abstract, keywords, body, references, level, grouping_identifiers, permissions, date_added, version FROM articles";
-	    
-	    try (Statement stmt = connection.createStatement();
-	         ResultSet rs = stmt.executeQuery(sql)) {
-	        
-	        while (rs.next()) {
-	            int id = rs.getInt("id");
-	            String ivBase64 = rs.getString("iv");
-	            byte[] iv = Base64.getDecoder().decode(ivBase64);
-
-	            byte[] encryptedTitle = Base64.getDecoder().decode(rs.getString("title"));
-	            byte[] encryptedAuthors = Base64.getDecoder().decode(rs.getString("authors"));
-	            byte[] encryptedAbstract = Base64.getDecoder().decode(rs.getString("abstract"));
-	            byte[] encryptedKeywords = Base64.getDecoder().decode(rs.getString("keywords"));
-	            byte[] encryptedBody = Base64.getDecoder().decode(rs.getString("body"));
-	            byte[] encryptedReferences = Base64.getDecoder().decode(rs.getString("references"));
-
-	            String level = rs.getString("level");
-	            String groupingIdentifiers = rs.getString("grouping_identifiers");
-	            String permissions = rs.getString("permissions");
-	            Date dateAdded = rs.getDate("date_added");
-	            String version = rs.getString("version");
-
-	            // Decrypt data
-	            String title = new String(encryptionHelper.decrypt(encryptedTitle, iv));
-	            String authors = new String(encryptionHelper.decrypt(encryptedAuthors, iv));
-	            String abstractText = new String(encryptionHelper.decrypt(encryptedAbstract, iv));
-	            String keywords = new String(encryptionHelper.decrypt(encryptedKeywords, iv));
-	            String body = new String(encryptionHelper.decrypt(encryptedBody, iv));
-	            String references = new String(encryptionHelper.decrypt(encryptedReferences, iv));
-
-	            String groupingIdentifiersStr = rs.getString("grouping_identifiers");
-	            System.out.println("Raw grouping identifiers from DB: '" + groupingIdentifiersStr + "'");
-	            
-	            List<String> groupList;
-	            if (groupingIdentifiersStr != null && !groupingIdentifiersStr.trim().isEmpty()) {
-	                groupList = new ArrayList<>(List.of(groupingIdentifiersStr.split(",")));
-	                System.out.println("Parsed groups: " + groupList);
-	            } else {
-	                groupList = new ArrayList<>();
-	                System.out.println("No groups found, using empty list");
-	            }
+	    decryptArticles("SELECT * FROM articles ORDER BY id", null, true, articles::add);
+	    System.out.println("[HelpArticleDB]  All articles retrieved from database");
+	    return articles;
+	}
+	
+	/**
+	 * Sets how many rows the streaming methods fetch from the database at a time
+	 * 
+	 * @param fetchSize number of rows per fetch, must be positive
+	 */
+	public void setFetchSize(int fetchSize) {
+	    if (fetchSize <= 0) {
+	        throw new IllegalArgumentException("Fetch size must be positive but was " + fetchSize);
+	    }
+	    this.fetchSize = fetchSize;
+	}
 
-	            // Create article with the groupList
-	            Article article = new Article(id, title.toCharArray(), authors.toCharArray(), 
-	                abstractText.toCharArray(), keywords.toCharArray(), body.toCharArray(), 
-	                references.toCharArray(), level, groupList, permissions, dateAdded, version);
-	            
-	            articles.add(article);
+	/**
+	 * Sets how long an article body or references must be before they are compressed when the article is
+	 * created, updated, or backed up. Compressed and uncompressed articles are both read.
+	 * 
+	 * @param compressionThreshold length in UTF-8 bytes, or {@link ArticleEnvelope#NO_COMPRESSION} to turn compression off
+	 */
+	public void setCompressionThreshold(int compressionThreshold) {
+	    if (compressionThreshold <= 0) {
+	        throw new IllegalArgumentException("Compression threshold must be positive but was " + compressionThreshold);
+	    }
+	    this.compressionThreshold = compressionThreshold;
+	}
+
+	/**
+	 * Sets the format new backup files are written in. Restores read every format.
+	 * 
+	 * @param backupFormat the format
+	 */
+	public void setBackupFormat(ArticleBackupFormat backupFormat) {
+	    this.backupFormat = backupFormat;
+	}
+
+	/**
+	 * Sets how restores write to the database
+	 * 
+	 * @param batchSize number of articles sent to the database in one batch
+	 * @param commitMode {@link ArticleRestoreEngine.CommitMode#SINGLE_TRANSACTION} to restore all or nothing, or
+	 *        {@link ArticleRestoreEngine.CommitMode#CHUNKED} to commit every batch and resume a failed restore
+	 */
+	public void setRestoreOptions(int batchSize, ArticleRestoreEngine.CommitMode commitMode) {
+	    if (batchSize <= 0) {
+	        throw new IllegalArgumentException("Restore batch size must be positive but was " + batchSize);
+	    }
+	    this.restoreBatchSize = batchSize;
+	    this.restoreCommitMode = commitMode;
+	}
+
+	/**
+	 * Sets how restores read backup files. Files of at least two chunks are mapped into memory and parsed on
+	 * worker threads while the restore writes to the database.
+	 * 
+	 * @param threads number of threads parsing a backup file, 1 to parse it on the restoring thread
+	 * @param chunkSize length of file parsed by one task, in bytes
+	 */
+	public void setRestoreReader(int threads, int chunkSize) {
+	    if (threads <= 0 || chunkSize <= 0) {
+	        throw new IllegalArgumentException("Restore reader threads and chunk size must be positive but were "
+	                + threads + " and " + chunkSize);
+	    }
+	    this.restoreReaderThreads = threads;
+	    this.restoreChunkSize = chunkSize;
+	}
+
+	/**
+	 * Sets the cipher suite articles are encrypted with when they are created, updated, or backed up.
+	 * Articles already stored keep the suite they were written with and are still read.
+	 *
+	 * @param cipherSuite the suite, such as {@link CipherSuites#AES_GCM}
+	 */
+	public void setCipherSuite(CipherSuite cipherSuite) {
+	    if (cipherSuite == null) {
+	        throw new IllegalArgumentException("Cipher suite must not be null");
+	    }
+	    this.cipherSuite = cipherSuite;
+	}
+
+	/**
+	 * Streams every article to a visitor. The articles are read from a forward-only cursor a fetch at a time
+	 * and are not added to the article cache, so any number of articles can be processed in constant memory.
+	 * 
+	 * @param visitor called once for each article, in id order
+	 * @throws Exception if database access fails or the visitor throws
+	 */
+	public void forEachArticle(ArticleVisitor visitor) throws Exception {
+	    streamArticles("SELECT * FROM articles ORDER BY id", null, visitor);
+	}
+	
+	/**
+	 * Streams every article that is not part of a special group to a visitor
+	 * 
+	 * @param visitor called once for each general article, in id order
+	 * @throws Exception if database access fails or the visitor throws
+	 * @see #forEachArticle(ArticleVisitor)
+	 */
+	public void forEachGeneralArticle(ArticleVisitor visitor) throws Exception {
+	    streamArticles(generalArticlesSql(), null, visitor);
+	}
+	
+	/**
+	 * Decrypts every article in parallel and passes them to a visitor. Unlike {@link #forEachArticle(ArticleVisitor)},
+	 * every field is decrypted before the visitor is called, so this is faster when the whole article is needed.
+	 * 
+	 * @param ordered true to visit the articles in id order, false to visit them as they are decrypted
+	 * @param visitor called once for each article on the calling thread
+	 * @throws Exception if database access or decryption fails or the visitor throws
+	 * @see ArticleDecryptionPipeline
+	 */
+	public void forEachDecryptedArticle(boolean ordered, ArticleVisitor visitor) throws Exception {
+	    decryptArticles("SELECT * FROM articles ORDER BY id", null, ordered, visitor);
+	}
+	
+	/**
+	 * Decrypts every article that is not part of a special group in parallel and passes them to a visitor
+	 * 
+	 * @param ordered true to visit the articles in id order, false to visit them as they are decrypted
+	 * @param visitor called once for each general article on the calling thread
+	 * @throws Exception if database access or decryption fails or the visitor throws
+	 * @see #forEachDecryptedArticle(boolean, ArticleVisitor)
+	 */
+	public void forEachDecryptedGeneralArticle(boolean ordered, ArticleVisitor visitor) throws Exception {
+	    decryptArticles(generalArticlesSql(), null, ordered, visitor);
+	}
+	
+	/**
+	 * Builds the query for every article that is not part of a special group, in id order
+	 * 
+	 * @return the query
+	 * @throws SQLException if database access fails
+	 */
+	private String generalArticlesSql() throws SQLException {
+	    boolean specialTableExists;
+	    try (Connection conn = borrowConnection()) {
+	        specialTableExists = specialGroupTableExists(conn);
+	    }
+	    return specialTableExists
+	            ? "SELECT * FROM articles WHERE id NOT IN (SELECT article_id FROM special_group_articles) ORDER BY id"
+	            : "SELECT * FROM articles ORDER BY id";
+	}
+	
+	/**
+	 * Streams every article with a difficulty level to a visitor
+	 * 
+	 * @param level the difficulty level to filter by
+	 * @param visitor called once for each matching article, in id order
+	 * @throws Exception if database access fails or the visitor throws
+	 * @see #forEachArticle(ArticleVisitor)
+	 */
+	public void forEachArticleWithLevel(String level, ArticleVisitor visitor) throws Exception {
+	    streamArticles("SELECT * FROM articles WHERE level = ? ORDER BY id", level, visitor);
+	}
+	
+	/**
+	 * Runs an article query on a forward-only, read-only cursor and passes each row to a visitor
+	 * 
+	 * @param sql the query, selecting every column of the articles table
+	 * @param parameter value of the single query parameter, or null if the query has none
+	 * @param visitor called once for each row
+	 * @throws Exception if database access fails or the visitor throws
+	 */
+	private void streamArticles(String sql, String parameter, ArticleVisitor visitor) throws Exception {
+	    int visited = 0;
+	    try (Connection conn = borrowConnection();
+	         PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+	        if (parameter != null) {
+	            pstmt.setString(1, parameter);
+	        }
+	        pstmt.setFetchSize(fetchSize);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            rs.setFetchSize(fetchSize);
+	            while (rs.next()) {
+	                // Streamed articles are only used once, so don't let them push hot articles out of the cache
+	                Article cached = articleCache.get(rs.getInt("id"));
+	                visitor.visit(cached != null ? cached : readArticleFromResultSet(rs));
+	                visited++;
+	            }
+	        }
+	    }
+	    System.out.println("[HelpArticleDB] Streamed " + visited + " articles");
+	}
+	
+	/**
+	 * Runs an article query on a forward-only cursor and decrypts the rows with an {@link ArticleDecryptionPipeline}.
+	 * Articles in the article cache are not decrypted again, and the decrypted articles are cached.
+	 * 
+	 * @param sql the query, selecting every column of the articles table
+	 * @param parameter value of the single query parameter, or null if the query has none
+	 * @param ordered true to visit the articles in query order
+	 * @param visitor called once for each article on the calling thread
+	 * @throws Exception if database access or decryption fails or the visitor throws
+	 */
+	private void decryptArticles(String sql, String parameter, boolean ordered, ArticleVisitor visitor) throws Exception {
+	    long cacheGeneration = articleCache.getGeneration();
+	    try (Connection conn = borrowConnection();
+	         PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+	        if (parameter != null) {
+	            pstmt.setString(1, parameter);
+	        }
+	        pstmt.setFetchSize(fetchSize);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            new ArticleDecryptionPipeline().run(rs, ordered, articleCache, cacheGeneration, visitor);
 	        }
 	    }
-	    System.out.println("[HelpArticleDB]  All articles retrieved from database");
-	    return articles;
 	}
 
 
@@ -401,21 +735,17 @@ public class HelpArticleDatabase extends Database{
 	 */
 	public void listArticles() throws Exception {
 		System.out.println("[HelpArticleDB] Listing Articles: ");
-        String sql = "SELECT id, iv, title, authors FROM articles";
-        try (Statement stmt = connection.createStatement();
+        String sql = "SELECT id, iv, iv_bytes, title, authors, envelope, envelope_bytes FROM articles";
+        try (Connection conn = borrowConnection(); Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             int sequenceNumber = 1;
             while (rs.next()) {
                 int id = rs.getInt("id");
-                String ivBase64 = rs.getString("iv");
-                byte[] iv = Base64.getDecoder().decode(ivBase64);
-
-                byte[] encryptedTitle = Base64.getDecoder().decode(rs.getString("title"));
-                byte[] encryptedAuthors = Base64.getDecoder().decode(rs.getString("authors"));
 
                 // Decrypt title and authors
-                String title = new String(encryptionHelper.decrypt(encryptedTitle, iv));
-                String authors = new String(encryptionHelper.decrypt(encryptedAuthors, iv));
+                char[][] text = decryptTextFields(rs, 2);
+                String title = new String(text[ArticleEnvelope.TITLE]);
+                String authors = new String(text[ArticleEnvelope.AUTHORS]);
 
                 // Display the article's ID, title, and authors
                 System.out.println("ID: " + id + " | Article " + sequenceNumber++ + ": " + title + " by " + authors);
@@ -434,68 +764,383 @@ public class HelpArticleDatabase extends Database{
 	 */
 	public List<Article> filterArticlesByLevel(String level) throws Exception {
 	    List<Article> articles = new ArrayList<>();
-	    String sql = "SELECT * FROM articles WHERE level = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-	        pstmt.setString(1, level); // Set the difficulty level to filter by
-	        try (ResultSet rs = pstmt.executeQuery()) {
-	            while (rs.next()) {
-	                // Decrypt and create an Article object
-	                articles.add(decryptArticleFromResultSet(rs));
-	            }
-	        }
-	    }
+	    decryptArticles("SELECT * FROM articles WHERE level = ? ORDER BY id", level, true, articles::add);
 	    return articles;
 	}
 		
 	/**
      * Searches for articles based on a search query.
-     * Searches through decrypted titles, authors, and keywords.
+     * Looks up keyed hash tokens of the query words in the article search index, which covers the titles,
+     * authors, keywords, and abstracts, so only the matching articles are read and decrypted.
      * 
      * @param searchQuery the text to search for in articles
      * @return List<Article> list of articles matching the search query
      * @throws Exception if database access or decryption fails
      */
 	public List<Article> searchArticles(String searchQuery) throws Exception {
-	    List<Article> articles = new ArrayList<>();
-	    String sql = "SELECT * FROM articles";  // Fetch all articles
-
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql);
-	         ResultSet rs = pstmt.executeQuery()) {
-	        
-	        // Iterate through all articles
-	        while (rs.next()) {
-	            // Decrypt each article
-	            Article article = decryptArticleFromResultSet(rs);
-
-	            // Check if the decrypted fields contain the search query
-	            if (matchesSearchQuery(article, searchQuery.toLowerCase())) {
-	                articles.add(article);  // Add matching article to the list
+	    return searchArticles(searchQuery, false, "a.*", this::decryptArticleFromResultSet,
+	            article -> new String[] { article.getTitle(), article.getAuthors(), article.getKeywords(), article.getAbstractText() });
+	}
+	
+	/**
+     * Searches for general articles, those that don't belong to a special group, based on a search query.
+     * 
+     * @param searchQuery the text to search for in articles
+     * @return List<Article> list of general articles matching the search query
+     * @throws Exception if database access or decryption fails
+     */
+	public List<Article> searchGeneralArticles(String searchQuery) throws Exception {
+	    return searchArticles(searchQuery, true, "a.*", this::decryptArticleFromResultSet,
+	            article -> new String[] { article.getTitle(), article.getAuthors(), article.getKeywords(), article.getAbstractText() });
+	}
+	
+	/**
+     * Searches for articles based on a search query, reading only the columns shown in article lists.
+     * 
+     * @param searchQuery the text to search for in articles
+     * @return List<ArticleSummary> summaries of the articles matching the search query
+     * @throws Exception if database access or decryption fails
+     */
+	public List<ArticleSummary> searchArticleSummaries(String searchQuery) throws Exception {
+	    return searchArticles(searchQuery, false, SUMMARY_COLUMNS, this::readSummaryFromResultSet,
+	            summary -> new String[] { summary.getTitle(), summary.getAuthors(), summary.getKeywords(), summary.getAbstractText() });
+	}
+	
+	/**
+     * Searches for general articles based on a search query, reading only the columns shown in article lists.
+     * 
+     * @param searchQuery the text to search for in articles
+     * @return List<ArticleSummary> summaries of the general articles matching the search query
+     * @throws Exception if database access or decryption fails
+     */
+	public List<ArticleSummary> searchGeneralArticleSummaries(String searchQuery) throws Exception {
+	    return searchArticles(searchQuery, true, SUMMARY_COLUMNS, this::readSummaryFromResultSet,
+	            summary -> new String[] { summary.getTitle(), summary.getAuthors(), summary.getKeywords(), summary.getAbstractText() });
+	}
+	
+	/**
+     * Gets the summaries of all articles
+     * 
+     * @return List<ArticleSummary> summaries of every article
+     * @throws Exception if database access or decryption fails
+     */
+	public List<ArticleSummary> getAllArticleSummaries() throws Exception {
+	    return searchArticleSummaries("");
+	}
+	
+	/**
+     * Gets the summaries of all articles that are not part of any special group
+     * 
+     * @return List<ArticleSummary> summaries of the general articles
+     * @throws Exception if database access or decryption fails
+     */
+	public List<ArticleSummary> getAllGeneralArticleSummaries() throws Exception {
+	    return searchGeneralArticleSummaries("");
+	}
+	
+	/**
+     * Gets the summaries of the articles with the given level
+     * 
+     * @param level the difficulty level to filter by
+     * @return List<ArticleSummary> summaries of the articles with that level
+     * @throws Exception if database access or decryption fails
+     */
+	public List<ArticleSummary> filterArticleSummariesByLevel(String level) throws Exception {
+	    List<ArticleSummary> summaries = new ArrayList<>();
+	    String sql = "SELECT " + SUMMARY_COLUMNS + " FROM articles a WHERE a.level = ? ORDER BY a.id";
+	    long cacheGeneration = articleCache.getGeneration();
+	    try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        pstmt.setString(1, level);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            while (rs.next()) {
+	                summaries.add(readSummaryFromResultSet(rs, cacheGeneration));
+	            }
+	        }
+	    }
+	    return summaries;
+	}
+	
+	/**
+     * Reads one page of article summaries in id order using keyset pagination: the page starts after the
+     * last id of the previous page, so reading a page costs the same however far down the list it is.
+     * 
+     * @param filter the search text and filters to apply
+     * @param afterId id of the last article on the previous page, 0 for the first page
+     * @param limit maximum number of articles to read
+     * @return the page of summaries
+     * @throws Exception if database access or decryption fails
+     */
+	public ArticlePage getArticleSummaryPage(ArticleFilter filter, int afterId, int limit) throws Exception {
+	    List<String> tokens = searchIndex.queryTokens(filter.getSearchQuery());
+	    boolean recheck = !tokens.isEmpty() && ArticleSearchIndex.needsRecheck(filter.getSearchQuery());
+	    List<ArticleSummary> summaries = new ArrayList<>();
+	    int lastId = afterId;
+	    int rows = 0;
+	    long cacheGeneration = articleCache.getGeneration();
+
+	    try (Connection conn = borrowConnection()) {
+	        List<Object> params = new ArrayList<>();
+	        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM articles a"
+	                + filterClause(conn, filter, tokens, params) + " AND a.id > ? ORDER BY a.id LIMIT ?";
+	        params.add(afterId);
+	        params.add(limit);
+	        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	            setParameters(conn, pstmt, params);
+	            try (ResultSet rs = pstmt.executeQuery()) {
+	                while (rs.next()) {
+	                    ArticleSummary summary = readSummaryFromResultSet(rs, cacheGeneration);
+	                    lastId = summary.getId();
+	                    rows++;
+	                    // Long query words are matched by their prefix only, so confirm them on the decrypted text
+	                    if (!recheck || ArticleSearchIndex.matches(filter.getSearchQuery(), summary.getTitle(),
+	                            summary.getAuthors(), summary.getKeywords(), summary.getAbstractText())) {
+	                        summaries.add(summary);
+	                    }
+	                }
+	            }
+	        }
+	    } catch (SQLException e) {
+	        throw new SQLException("Error reading article page: " + e.getMessage());
+	    }
+	    return new ArticlePage(summaries, lastId, rows == limit);
+	}
+	
+	/**
+     * Counts the articles matching a filter for each level, without reading them
+     * 
+     * @param filter the search text and filters to apply
+     * @return number of matching articles for each level, with null levels counted as "unspecified"
+     * @throws Exception if database access fails
+     */
+	public Map<String, Long> countArticlesByLevel(ArticleFilter filter) throws Exception {
+	    List<String> tokens = searchIndex.queryTokens(filter.getSearchQuery());
+	    Map<String, Long> counts = new LinkedHashMap<>();
+	    if (!tokens.isEmpty() && ArticleSearchIndex.needsRecheck(filter.getSearchQuery())) {
+	        // The index only matches long words by prefix, so count the pages that have been checked
+	        ArticlePage page = null;
+	        do {
+	            page = getArticleSummaryPage(filter, page == null ? 0 : page.getLastId(), COUNT_PAGE_SIZE);
+	            for (ArticleSummary summary : page.getSummaries()) {
+	                counts.merge(summary.getLevel() != null ? summary.getLevel() : "unspecified", 1L, Long::sum);
+	            }
+	        } while (page.hasMore());
+	        return counts;
+	    }
+	    try (Connection conn = borrowConnection()) {
+	        List<Object> params = new ArrayList<>();
+	        String sql = "SELECT a.level, COUNT(*) FROM articles a" + filterClause(conn, filter, tokens, params)
+	                + " GROUP BY a.level";
+	        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	            setParameters(conn, pstmt, params);
+	            try (ResultSet rs = pstmt.executeQuery()) {
+	                while (rs.next()) {
+	                    String level = rs.getString(1);
+	                    counts.merge(level != null ? level : "unspecified", rs.getLong(2), Long::sum);
+	                }
+	            }
+	        }
+	    }
+	    return counts;
+	}
+	
+	/**
+	 * Builds the join and where clause that applies a filter to the articles table, aliased as a.
+	 * The clause always ends in a WHERE condition, so callers can append more conditions with AND.
+	 * 
+	 * @param conn connection the query will run on
+	 * @param filter the search text and filters to apply
+	 * @param tokens search index tokens of the search text
+	 * @param params receives the parameters of the clause in order
+	 * @return the clause
+	 * @throws Exception if the search index can't be brought up to date
+	 */
+	private String filterClause(Connection conn, ArticleFilter filter, List<String> tokens, List<Object> params) throws Exception {
+	    StringBuilder clause = new StringBuilder(" WHERE 1 = 1");
+	    if (!tokens.isEmpty()) {
+	        indexMissingArticles(conn);
+	        clause.append(" AND a.id = ANY(?)");
+	        params.add(searchIndex.findArticleIds(conn, tokens).toArray(new Integer[0]));
+	    } else if (ArticleSearchIndex.isWordless(filter.getSearchQuery())) {
+	        clause.append(" AND 1 = 0"); // Only punctuation, which no article matches
+	    }
+	    if (filter.isGeneralOnly() && specialGroupTableExists(conn)) {
+	        clause.append(" AND a.id NOT IN (SELECT article_id FROM special_group_articles)");
+	    }
+	    if (!filter.getLevels().isEmpty()) {
+	        clause.append(" AND a.level = ANY(?)");
+	        params.add(filter.getLevels().toArray(new String[0]));
+	    }
+	    if (!filter.getGroups().isEmpty()) {
+	        clause.append(" AND ").append(groupCondition(filter.getGroups(), params));
+	    }
+	    return clause.toString();
+	}
+	
+	/**
+	 * Builds a condition matching articles, aliased as a, in any of the given groups
+	 * 
+	 * @param groups the groups, at least one
+	 * @param params receives the parameters of the condition in order
+	 * @return the condition
+	 */
+	private static String groupCondition(List<String> groups, List<Object> params) {
+	    // Groups are stored comma-separated, so match a whole group between commas
+	    List<String> conditions = new ArrayList<>();
+	    for (String group : groups) {
+	        conditions.add("',' || a.grouping_identifiers || ',' LIKE ? ESCAPE '\\'");
+	        params.add("%," + group.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + ",%");
+	    }
+	    return "(" + String.join(" OR ", conditions) + ")";
+	}
+	
+	/**
+	 * Binds query parameters in order, turning String and Integer arrays into SQL arrays
+	 * 
+	 * @param conn connection the statement belongs to
+	 * @param pstmt the statement
+	 * @param params the parameters
+	 * @throws SQLException if a parameter can't be set
+	 */
+	private void setParameters(Connection conn, PreparedStatement pstmt, List<Object> params) throws SQLException {
+	    for (int i = 0; i < params.size(); i++) {
+	        Object param = params.get(i);
+	        if (param instanceof String[]) {
+	            pstmt.setArray(i + 1, conn.createArrayOf("VARCHAR", (String[]) param));
+	        } else if (param instanceof Integer[]) {
+	            pstmt.setArray(i + 1, conn.createArrayOf("INTEGER", (Integer[]) param));
+	        } else {
+	            pstmt.setObject(i + 1, param);
+	        }
+	    }
+	}
+	
+	/**
+     * Reads a single full article, used when an article picked from a list of summaries is opened
+     * 
+     * @param id the article id
+     * @return the article, or null if there is no article with that id
+     * @throws Exception if database access or decryption fails
+     */
+	public Article getArticleById(int id) throws Exception {
+	    String sql = "SELECT * FROM articles WHERE id = ?";
+	    long cacheGeneration = articleCache.getGeneration();
+	    try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        pstmt.setInt(1, id);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            return rs.next() ? decryptArticleFromResultSet(rs, cacheGeneration) : null;
+	        }
+	    }
+	}
+	
+	/**
+	 * Searches for articles by looking up the tokens of the query words in the search index.
+	 * An empty query matches every article, and a query of only punctuation matches none.
+	 * 
+	 * @param searchQuery the text to search for in articles
+	 * @param generalOnly true to leave out articles that belong to a special group
+	 * @param columns the columns of the articles table, aliased as a, to read
+	 * @param reader reads one row into the result type
+	 * @param searchableFields the title, authors, keywords, and abstract of a result, to recheck long query words
+	 * @return the matching articles ordered by id
+	 * @throws Exception if database access or decryption fails
+	 */
+	private <T> List<T> searchArticles(String searchQuery, boolean generalOnly, String columns,
+	        ArticleRowReader<T> reader, Function<T, String[]> searchableFields) throws Exception {
+	    List<String> tokens = searchIndex.queryTokens(searchQuery);
+	    boolean recheck = !tokens.isEmpty() && ArticleSearchIndex.needsRecheck(searchQuery);
+	    List<T> results = new ArrayList<>();
+	    if (ArticleSearchIndex.isWordless(searchQuery)) {
+	        return results;
+	    }
+	    long cacheGeneration = articleCache.getGeneration();
+
+	    try (Connection conn = borrowConnection()) {
+	        String sql = "SELECT " + columns + " FROM articles a WHERE 1 = 1";
+	        Set<Integer> ids = null;
+	        if (!tokens.isEmpty()) {
+	            indexMissingArticles(conn);
+	            ids = searchIndex.findArticleIds(conn, tokens);
+	            if (ids.isEmpty()) {
+	                return results;
+	            }
+	            sql += " AND a.id = ANY(?)";
+	        }
+	        if (generalOnly && specialGroupTableExists(conn)) {
+	            sql += " AND a.id NOT IN (SELECT article_id FROM special_group_articles)";
+	        }
+	        sql += " ORDER BY a.id";
+	        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	            if (ids != null) {
+	                pstmt.setArray(1, conn.createArrayOf("INTEGER", ids.toArray()));
+	            }
+	            try (ResultSet rs = pstmt.executeQuery()) {
+	                while (rs.next()) {
+	                    T result = reader.read(rs, cacheGeneration);
+	                    // Long query words are matched by their prefix only, so confirm them on the decrypted text
+	                    if (!recheck || ArticleSearchIndex.matches(searchQuery, searchableFields.apply(result))) {
+	                        results.add(result);
+	                    }
+	                }
 	            }
 	        }
 	    } catch (SQLException e) {
 	        throw new SQLException("Error searching for articles: " + e.getMessage());
 	    }
-	    
-	    return articles;  // Return the list of matching decrypted articles
+	    return results;
+	}
+	
+	/**
+	 * Writes search tokens for any articles that don't have them yet, such as restored articles
+	 * 
+	 * @param conn connection to use
+	 * @throws Exception if database access or decryption fails
+	 */
+	private void indexMissingArticles(Connection conn) throws Exception {
+	    if (searchIndex.isComplete()) {
+	        return;
+	    }
+	    String sql = "SELECT * FROM articles a WHERE NOT EXISTS "
+	            + "(SELECT 1 FROM article_search_tokens t WHERE t.article_id = a.id)";
+	    Map<Integer, Set<String>> indexed = new LinkedHashMap<>();
+	    conn.setAutoCommit(false);
+	    try (PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+	        pstmt.setFetchSize(fetchSize);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            while (rs.next()) {
+	                // Read without caching, a full index build would otherwise fill the cache with every article
+	                Article article = readArticleFromResultSet(rs);
+	                // Merged, since another search may index the same article at the same time
+	                indexed.put(article.getId(), searchIndex.addTokens(conn, article.getId(), article.getTitle(),
+	                        article.getAuthors(), article.getKeywords(), article.getAbstractText()));
+	            }
+	        }
+	        conn.commit();
+	    } catch (Exception e) {
+	        conn.rollback();
+	        throw e;
+	    } finally {
+	        conn.setAutoCommit(true);
+	    }
+	    for (Map.Entry<Integer, Set<String>> entry : indexed.entrySet()) {
+	        searchIndex.tokensCommitted(entry.getKey(), entry.getValue());
+	    }
+	    searchIndex.markComplete();
+	    System.out.println("[HelpArticleDB] Wrote search tokens for " + indexed.size() + " articles");
 	}
 		
 		
 	/**
-	 * Checks if an article matches the given search query in its title, authors, or keywords
+	 * Checks if the special_group_articles table has been created yet
 	 * 
-	 * @param article the Article to check
-	 * @param searchQuery the search term to look for
-	 * @return true if the article matches the search query, false otherwise
+	 * @param conn the connection to check with
+	 * @return true if the table exists
+	 * @throws SQLException if database access fails
 	 */
-	private boolean matchesSearchQuery(Article article, String searchQuery) {
-	    // Check if title, authors, or keywords contain the search query
-	    return new String(article.getTitle()).toLowerCase().contains(searchQuery) ||
-	           new String(article.getAuthors()).toLowerCase().contains(searchQuery) ||
-	           new String(article.getKeywords()).toLowerCase().contains(searchQuery);
+	private boolean specialGroupTableExists(Connection conn) throws SQLException {
+	    try (ResultSet rs = conn.getMetaData().getTables(null, null, "SPECIAL_GROUP_ARTICLES", null)) {
+	        return rs.next();
+	    }
 	}
-
-		
-
 	/**
 	 * Retrieves a single article from the database and decrypts it
 	 * 
@@ -504,28 +1149,43 @@ public class HelpArticleDatabase extends Database{
 	 * @throws Exception if decryption or database operation fails
 	 */
 	public Article decryptArticleFromResultSet(ResultSet rs) throws Exception {
+	    return decryptArticleFromResultSet(rs, articleCache.getGeneration());
+	}
+
+	/**
+	 * Retrieves a single article from the article cache, or reads it from the ResultSet and caches it.
+	 * The encrypted fields are only decrypted when they are first read, so list views that never show
+	 * the body or references never decrypt them.
+	 * 
+	 * @param rs ResultSet containing the encrypted article data
+	 * @param cacheGeneration article cache generation taken before the query was executed
+	 * @return decrypted Article object
+	 * @throws Exception if decryption or database operation fails
+	 */
+	private Article decryptArticleFromResultSet(ResultSet rs, long cacheGeneration) throws Exception {
 	    // Get the ID first
 	    int id = rs.getInt("id");
+	    Article cached = articleCache.get(id);
+	    if (cached != null) {
+	        return cached;
+	    }
+	    Article article = readArticleFromResultSet(rs);
+	    articleCache.put(article, cacheGeneration);
+	    return article;
+	}
+	
+	/**
+	 * Reads an article from the current row of a ResultSet without using the article cache
+	 * 
+	 * @param rs ResultSet positioned on an articles row with every column
+	 * @return the article, with its text fields decrypted when first read
+	 * @throws Exception if database access fails
+	 */
+	private Article readArticleFromResultSet(ResultSet rs) throws Exception {
+	    int id = rs.getInt("id");
 
-	    // Retrieve the IV (Initialization Vector)
-	    String ivBase64 = rs.getString("iv");
-	    byte[] iv = Base64.getDecoder().decode(ivBase64);
-
-	    // Retrieve and decrypt fields
-	    byte[] encryptedTitle = Base64.getDecoder().decode(rs.getString("title"));
-	    byte[] encryptedAuthors = Base64.getDecoder().decode(rs.getString("authors"));
-	    byte[] encryptedAbstract = Base64.getDecoder().decode(rs.getString("abstract"));
-	    byte[] encryptedKeywords = Base64.getDecoder().decode(rs.getString("keywords"));
-	    byte[] encryptedBody = Base64.getDecoder().decode(rs.getString("body"));
-	    byte[] encryptedReferences = Base64.getDecoder().decode(rs.getString("references"));
-
-	    // Decrypt fields using the IV and the encryption helper
-	    char[] title = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedTitle, iv));
-	    char[] authors = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedAuthors, iv));
-	    char[] abstractText = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedAbstract, iv));
-	    char[] keywords = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedKeywords, iv));
-	    char[] body = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedBody, iv));
-	    char[] references = EncryptionUtils.toCharArray(encryptionHelper.decrypt(encryptedReferences, iv));
+	    // Keep the encrypted fields, they are decrypted the first time one is read
+	    byte[] envelope = readEnvelope(rs);
 
 	    // Get non-encrypted fields
 	    String level = rs.getString("level");
@@ -534,111 +1194,395 @@ public class HelpArticleDatabase extends Database{
 	    java.sql.Date dateAdded = rs.getDate("date_added");
 	    String version = rs.getString("version");
 	    
-	    // Use the constructor that includes ID
-	    return new Article(
-	        id, title, authors, abstractText, keywords, body, references, level,
-	        List.of(groupingIdentifiers.split(",")), permissions, dateAdded, version
+	    if (envelope != null) {
+	        return new LazyArticle(
+	            id, readIv(rs), envelope, readContent(rs), HelpArticleDatabase::openStoredEnvelope, level,
+	            parseGroupingIdentifiers(groupingIdentifiers), permissions, dateAdded, version
+	        );
+	    }
+	    // Articles not moved to an envelope yet keep each field in its own column
+	    String[] encryptedFields = new String[TEXT_COLUMNS.length];
+	    for (int i = 0; i < encryptedFields.length; i++) {
+	        encryptedFields[i] = rs.getString(TEXT_COLUMNS[i]);
+	    }
+	    return new LazyArticle(
+	        id, rs.getString("iv"), encryptedFields, HelpArticleDatabase::decryptField, level,
+	        parseGroupingIdentifiers(groupingIdentifiers), permissions, dateAdded, version
 	    );
 	}
+	
+	/**
+	 * Reads the summary of an article from a ResultSet holding the summary columns.
+	 * Uses the cached article if there is one, otherwise decrypts only the summary fields.
+	 * 
+	 * @param rs ResultSet positioned on an articles row
+	 * @param cacheGeneration article cache generation taken before the query was executed
+	 * @return the article summary
+	 * @throws Exception if decryption or database operation fails
+	 */
+	private ArticleSummary readSummaryFromResultSet(ResultSet rs, long cacheGeneration) throws Exception {
+	    int id = rs.getInt("id");
+	    Article cached = articleCache.get(id);
+	    if (cached != null) {
+	        return ArticleSummary.of(cached);
+	    }
+	    // The summary fields are the first four text fields
+	    char[][] text = decryptTextFields(rs, ArticleEnvelope.KEYWORDS + 1);
+	    return new ArticleSummary(id, new String(text[ArticleEnvelope.TITLE]), new String(text[ArticleEnvelope.AUTHORS]),
+	            new String(text[ArticleEnvelope.ABSTRACT]), new String(text[ArticleEnvelope.KEYWORDS]), rs.getString("level"),
+	            parseGroupingIdentifiers(rs.getString("grouping_identifiers")), rs.getString("version"));
+	}
+	
+	/**
+	 * Decrypts the first text fields of the current row. The envelope is decrypted once if the row has one, and
+	 * its content part only if a field past the summary fields is needed. Otherwise each field is decrypted from
+	 * its own column.
+	 * 
+	 * @param rs ResultSet positioned on an articles row with the IV, envelope, and needed text columns, and
+	 *           content_bytes if more than the summary fields are needed
+	 * @param fieldCount number of text fields to decrypt, in envelope field order
+	 * @return the decrypted fields
+	 * @throws Exception if decryption fails
+	 */
+	static char[][] decryptTextFields(ResultSet rs, int fieldCount) throws Exception {
+	    byte[] iv = readIv(rs);
+	    byte[] envelope = readEnvelope(rs);
+	    char[][] text = new char[fieldCount][];
+	    if (envelope != null) {
+	        ArticleEnvelope opened = openStoredEnvelope(envelope, iv);
+	        for (int i = 0; i < fieldCount; i++) {
+	            if (!opened.holds(i)) {
+	                // Past the summary part, the rest is in the content part
+	                opened = openStoredEnvelope(readContent(rs), iv);
+	            }
+	            text[i] = opened.field(i);
+	        }
+	    } else {
+	        for (int i = 0; i < fieldCount; i++) {
+	            text[i] = decryptField(Base64.getDecoder().decode(rs.getString(TEXT_COLUMNS[i])), iv);
+	        }
+	    }
+	    return text;
+	}
+	
+	/**
+	 * Reads the IV of the current row, as raw bytes or, for articles not migrated yet, from the Base64 column
+	 * 
+	 * @param rs ResultSet positioned on an articles row with the iv and iv_bytes columns
+	 * @return the IV, or null if the row has none
+	 * @throws SQLException if the columns can't be read
+	 */
+	static byte[] readIv(ResultSet rs) throws SQLException {
+	    byte[] iv = rs.getBytes("iv_bytes");
+	    if (iv == null) {
+	        String ivBase64 = rs.getString("iv");
+	        iv = ivBase64 != null ? Base64.getDecoder().decode(ivBase64) : null;
+	    }
+	    return iv;
+	}
+	
+	/**
+	 * Reads the encrypted envelope of the current row, as raw bytes or, for articles not migrated yet,
+	 * from the Base64 column
+	 * 
+	 * @param rs ResultSet positioned on an articles row with the envelope and envelope_bytes columns
+	 * @return the envelope, or null if the article keeps each field in its own column
+	 * @throws SQLException if the columns can't be read
+	 */
+	static byte[] readEnvelope(ResultSet rs) throws SQLException {
+	    byte[] envelope = rs.getBytes("envelope_bytes");
+	    if (envelope == null) {
+	        String envelopeBase64 = rs.getString("envelope");
+	        envelope = envelopeBase64 != null ? Base64.getDecoder().decode(envelopeBase64) : null;
+	    }
+	    return envelope;
+	}
+	
+	/**
+	 * Reads the encrypted content part of the current row
+	 * 
+	 * @param rs ResultSet positioned on an articles row with the content_bytes column
+	 * @return the content part, or null if the envelope holds every field
+	 * @throws SQLException if the column can't be read
+	 */
+	static byte[] readContent(ResultSet rs) throws SQLException {
+	    return rs.getBytes("content_bytes");
+	}
+	
+	/**
+	 * Decrypts a stored envelope. Envelopes sealed by a cipher suite carry their IV and suite version, envelopes
+	 * written before cipher suites were sealed with AES-CBC and the IV stored next to them. A LazyArticle calls
+	 * this the first time one of the fields of an envelope is read, and decodes its fields one at a time.
+	 * 
+	 * @param cipherText the encrypted envelope
+	 * @param iv the IV stored with the article, or null if the envelope was sealed by a cipher suite
+	 * @return the opened envelope
+	 * @throws Exception if decryption fails
+	 */
+	static ArticleEnvelope openStoredEnvelope(byte[] cipherText, byte[] iv) throws Exception {
+	    if (iv == null) {
+	        return ArticleEnvelope.open(cipherText);
+	    }
+	    return ArticleEnvelope.open(EncryptionHelper.getInstance(), cipherText, iv);
+	}
+	
+	/**
+	 * Encrypts the text fields of an article into a summary part and a content part with the current cipher suite and a data key
+	 * 
+	 * @param conn the connection the article is written with, a new data key is saved with it
+	 * @param article the article
+	 * @param keyId the id of the data key, or 0 to create a new one
+	 * @return the encrypted parts
+	 * @throws Exception if encryption fails
+	 */
+	private ArticleEnvelope.Parts sealArticle(Connection conn, Article article, long keyId) throws Exception {
+	    return sealWithDataKey(conn, cipherSuite, keyId, compressionThreshold, article.getTitle().toCharArray(), article.getAuthors().toCharArray(),
+	            article.getAbstractText().toCharArray(), article.getKeywords().toCharArray(),
+	            article.getBody().toCharArray(), article.getReferences().toCharArray());
+	}
+	
+	/**
+	 * Compresses long bodies and references, and encrypts text fields into a summary part and a content part with a
+	 * cipher suite and a data key. A new data key is saved with the caller's connection, so it commits or rolls back
+	 * with the article sealed with it.
+	 * 
+	 * @param conn the connection the article is written with
+	 * @param suite the suite to encrypt with
+	 * @param keyId the id of the data key, or 0 to create a new one
+	 * @param compressionThreshold UTF-8 length from which the body and references are compressed
+	 * @param fields title, authors, abstract, keywords, body, and references, in that order
+	 * @return the encrypted parts, both sealed with the same data key
+	 * @throws Exception if the key can't be created or encryption fails
+	 */
+	static ArticleEnvelope.Parts sealWithDataKey(Connection conn, CipherSuite suite, long keyId, int compressionThreshold, char[]... fields) throws Exception {
+	    KeyHierarchy keys = KeyHierarchy.getInstance();
+	    if (keyId == 0) {
+	        DataKeyRecord dataKey = keys.generateDataKey();
+	        ArticleKeyStore.save(conn, dataKey);
+	        keyId = dataKey.getKeyId();
+	    }
+	    return ArticleEnvelope.sealParts(keys.sealer(keyId, suite), compressionThreshold, fields);
+	}
+	
+	/**
+	 * Gets the id of the data key a stored envelope is sealed with
+	 * 
+	 * @param envelope the stored envelope, may be null
+	 * @param iv the IV stored with the article, or null if the envelope carries its own
+	 * @return the key id, or 0 if the envelope isn't sealed with a data key
+	 */
+	static long storedDataKey(byte[] envelope, byte[] iv) {
+	    // Envelopes with a stored IV are unversioned, so their first byte says nothing
+	    return iv == null ? KeyHierarchy.keyId(envelope) : 0;
+	}
+	
+	/**
+	 * Gets the id of the data key an article is sealed with
+	 * 
+	 * @param conn the connection to read with
+	 * @param id the article id
+	 * @return the key id, or 0 if the article doesn't exist or isn't sealed with a data key
+	 * @throws SQLException if a database access error occurs
+	 */
+	private static long storedDataKey(Connection conn, int id) throws SQLException {
+	    try (PreparedStatement pstmt = conn.prepareStatement("SELECT iv, iv_bytes, envelope, envelope_bytes FROM articles WHERE id = ?")) {
+	        pstmt.setInt(1, id);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            return rs.next() ? storedDataKey(readEnvelope(rs), readIv(rs)) : 0;
+	        }
+	    }
+	}
+	
+	/**
+	 * Saves a new master key with the master key provider, wraps every data key with it, and uses it for new
+	 * data keys from then on. Articles are not decrypted or written, only the data key records. The master key
+	 * that wrapped the keys before is still needed to unwrap them, so it must be known to {@link KeyHierarchy} too.
+	 * 
+	 * @param version version of the new master key, saved with the keys it wraps
+	 * @param keyBytes a 16, 24, or 32 byte AES key
+	 * @return number of data keys wrapped again
+	 * @throws IllegalStateException if no master key provider is configured, see {@link MasterKeyFile}
+	 * @throws Exception if a key can't be unwrapped or a database access error occurs
+	 */
+	public int rotateMasterKey(int version, byte[] keyBytes) throws Exception {
+	    KeyHierarchy keys = KeyHierarchy.getInstance();
+	    keys.rotateMasterKey(version, keyBytes);
+	    return KEY_STORE.rewrapAll(keys);
+	}
+	
+	/**
+	 * Splits the stored comma-separated grouping identifiers of an article
+	 * 
+	 * @param groupingIdentifiers the stored value, may be null or empty
+	 * @return the list of groups, empty if there are none
+	 */
+	static List<String> parseGroupingIdentifiers(String groupingIdentifiers) {
+	    if (groupingIdentifiers == null || groupingIdentifiers.trim().isEmpty()) {
+	        return new ArrayList<>();
+	    }
+	    return new ArrayList<>(List.of(groupingIdentifiers.split(",")));
+	}
+	
+	/**
+	 * Decrypts one field of an article, called by a LazyArticle the first time the field is read
+	 * 
+	 * @param cipherText the encrypted field
+	 * @param iv the initialization vector of the article
+	 * @return the decrypted field
+	 * @throws Exception if decryption fails
+	 */
+	private static char[] decryptField(byte[] cipherText, byte[] iv) throws Exception {
+	    return EncryptionUtils.toCharArray(EncryptionHelper.getInstance().decrypt(cipherText, iv));
+	}
 
 
 	/**
-	 * Adds specified groups to the backup operation
+	 * Backs up every article that is not part of a special group to a file
+	 * 
+	 * @param filename path to backup file
+	 * @throws SQLException if database access fails
+	 * @throws IOException if file writing fails
+	 */
+	public void backupArticles(String filename) throws SQLException, IOException {
+	    int written = writeBackup(filename, null, List.of(), true, null);
+	    System.out.println("[HelpArticleDB] " + written + " general articles backed up to " + filename);
+	}
+
+	/**
+	 * Backs up only the general articles that changed since an earlier backup, and tombstones for the articles
+	 * deleted since. Restore the full backup and its incremental backups in order with
+	 * {@link #restoreArticleChain(List)}.
+	 * 
+	 * @param filename path to backup file
+	 * @param baseFilename the full or incremental backup this one follows, made from this database
+	 * @return number of articles and tombstones written
+	 * @throws SQLException if database access fails
+	 * @throws IOException if file writing fails
+	 */
+	public int backupChangedArticles(String filename, String baseFilename) throws SQLException, IOException {
+	    int written = writeBackup(filename, null, List.of(), true, new java.io.File(baseFilename).getAbsolutePath());
+	    System.out.println("[HelpArticleDB] " + written + " changed articles and tombstones backed up to " + filename);
+	    return written;
+	}
+
+	/**
+	 * Copies the stored ciphertext of general articles to a backup file, without decrypting them.
+	 * Each article is written with its wrapped data key, so the backup restores into a database without the keys.
 	 * 
 	 * @param filename path to backup file
-	 * @param groups list of groups to include in backup
-	 * @throws Exception if backup operation fails
-	 */
-	public void backupArticles(String filename) throws Exception {
-	    try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-	        // Get all general articles using the existing method
-	        List<Article> articles = getAllGeneralArticles();
-	        
-	        for (Article article : articles) {
-	            // Generate IV for encryption
-	            byte[] iv = EncryptionUtils.getInitializationVector(article.getTitle().toCharArray());
-	            
-	            // Encrypt the article fields
-	            byte[] encryptedTitle = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getTitle().toCharArray()), iv);
-	            byte[] encryptedAuthors = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getAuthors().toCharArray()), iv);
-	            byte[] encryptedAbstract = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getAbstractText().toCharArray()), iv);
-	            byte[] encryptedKeywords = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getKeywords().toCharArray()), iv);
-	            byte[] encryptedBody = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getBody().toCharArray()), iv);
-	            byte[] encryptedReferences = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getReferences().toCharArray()), iv);
-	            
-	            // Write each field to the backup file
-	            writer.write(article.getId() + "\n");
-	            writer.write(Base64.getEncoder().encodeToString(iv) + "\n");
-	            writer.write(Base64.getEncoder().encodeToString(encryptedTitle) + "\n");
-	            writer.write(Base64.getEncoder().encodeToString(encryptedAuthors) + "\n");
-	            writer.write(Base64.getEncoder().encodeToString(encryptedAbstract) + "\n");
-	            writer.write(Base64.getEncoder().encodeToString(encryptedKeywords) + "\n");
-	            writer.write(Base64.getEncoder().encodeToString(encryptedBody) + "\n");
-	            writer.write(Base64.getEncoder().encodeToString(encryptedReferences) + "\n");
-	            writer.write(article.getLevel() + "\n");
-	            writer.write(String.join(",", article.getGroupingIdentifiers()) + "\n");
-	            writer.write(article.getPermissions() + "\n");
-	            writer.write(article.getDateAdded().toString() + "\n");
-	            writer.write(article.getVersion() + "\n");
-	            writer.write("END_OF_ARTICLE\n");
+	 * @param condition a condition on the articles, aliased as a, or null to back up every general article
+	 * @param params the parameters of the condition in order
+	 * @param tracked true to remember the last change the backup holds, so incremental backups can follow it
+	 * @param baseFile absolute path of the backup an incremental backup follows, or null for a full backup
+	 * @return number of articles and tombstones written
+	 * @throws SQLException if database access fails
+	 * @throws IOException if file writing fails
+	 */
+	private int writeBackup(String filename, String condition, List<Object> params, boolean tracked, String baseFile)
+	        throws SQLException, IOException {
+	    int written = 0;
+	    try (Connection conn = borrowConnection()) {
+	        // Read before the articles, a change made while they are written is then also in the next backup
+	        long lastChange = ArticleChangeTracker.lastChange(conn);
+	        long since = -1;
+	        if (baseFile != null) {
+	            since = ArticleChangeTracker.backupChange(conn, baseFile);
+	            if (since < 0) {
+	                throw new IllegalArgumentException("Backup " + baseFile + " wasn't made from this database");
+	            }
+	        }
+	        String sql = "SELECT a.* FROM articles a WHERE 1 = 1";
+	        if (specialGroupTableExists(conn)) {
+	            sql += " AND a.id NOT IN (SELECT article_id FROM special_group_articles)";
+	        }
+	        if (condition != null) {
+	            sql += " AND " + condition;
+	        }
+	        List<Object> queryParams = new ArrayList<>(params);
+	        if (since >= 0) {
+	            sql += " AND a.change_seq > ?";
+	            queryParams.add(since);
+	        }
+	        sql += " ORDER BY a.id";
+	        try (ArticleBackupWriter writer = backupFormat.openWriter(filename)) {
+	            if (since >= 0) {
+	                // Tombstones go first, so an article deleted and restored since the base backup is replayed as restored
+	                try (PreparedStatement pstmt = conn.prepareStatement(
+	                        "SELECT article_id FROM article_tombstones WHERE change_seq > ? ORDER BY article_id")) {
+	                    pstmt.setLong(1, since);
+	                    try (ResultSet rs = pstmt.executeQuery()) {
+	                        while (rs.next()) {
+	                            writer.write(ArticleBackupRecord.tombstone(rs.getInt(1)));
+	                            written++;
+	                        }
+	                    }
+	                }
+	            }
+	            try (PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+	                setParameters(conn, pstmt, queryParams);
+	                pstmt.setFetchSize(fetchSize);
+	                try (ResultSet rs = pstmt.executeQuery()) {
+	                    while (rs.next()) {
+	                        writer.write(ArticleBackupRecord.fromRow(rs));
+	                        written++;
+	                    }
+	                }
+	            }
+	            writer.finish();
+	        }
+	        if (tracked) {
+	            ArticleChangeTracker.saveBackup(conn, new java.io.File(filename).getAbsolutePath(), baseFile, lastChange);
 	        }
 	    }
-	    System.out.println("[HelpArticleDB] General articles backed up to " + filename);
+	    return written;
 	}
 
 	/**
 	 * Restores articles from a backup file
 	 * 
 	 * @param filename path to the backup file to restore from
+	 * @return number of articles restored and the time it took
 	 * @throws SQLException if database operations fail
 	 * @throws IOException if file reading fails
 	 */
-	public void restoreArticles(String filename) throws SQLException, IOException {
-		// Delete all general articles from the database to replace them with backup
-		String deleteSql = "DELETE FROM articles WHERE id NOT IN (SELECT article_id FROM special_group_articles)";
-	    try (Statement stmt = connection.createStatement()) {
-	        stmt.executeUpdate(deleteSql);
-	    }
-
-	    try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-	        String line;
-	        while ((line = reader.readLine()) != null) {
-	            int id = Integer.parseInt(line);
-	            String iv = reader.readLine();
-	            String title = reader.readLine();
-	            String authors = reader.readLine();
-	            String abstractText = reader.readLine();
-	            String keywords = reader.readLine();
-	            String body = reader.readLine();
-	            String references = reader.readLine();
-	            String level = reader.readLine();
-	            String groupingIdentifiers = reader.readLine();
-	            String permissions = reader.readLine();
-	            Date dateAdded = Date.valueOf(reader.readLine());  // Parsing the date from string
-	            String version = reader.readLine();
-	            reader.readLine(); // Skip "END_OF_ARTICLE"
-
-	            String insertSql = "INSERT INTO articles (id, iv, title, authors, abstract, keywords, body, references, level, grouping_identifiers, permissions, date_added, version) "
-	                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-	            try (PreparedStatement pstmt = connection.prepareStatement(insertSql)) {
-	                pstmt.setInt(1, id);
-	                pstmt.setString(2, iv);
-	                pstmt.setString(3, title);
-	                pstmt.setString(4, authors);
-	                pstmt.setString(5, abstractText);
-	                pstmt.setString(6, keywords);
-	                pstmt.setString(7, body);
-	                pstmt.setString(8, references);
-	                pstmt.setString(9, level);
-	                pstmt.setString(10, groupingIdentifiers);
-	                pstmt.setString(11, permissions);
-	                pstmt.setDate(12, new java.sql.Date(dateAdded.getTime()));
-	                pstmt.setString(13, version);
-	                pstmt.executeUpdate();
-	            }
-	        }
+	public ArticleRestoreEngine.RestoreResult restoreArticles(String filename) throws SQLException, IOException {
+	    try {
+	        // Deleting the general articles and inserting the backup happen in the engine's transactions
+	        return restoreEngine().restoreGeneral(filename);
+	    } finally {
+	        articleCache.invalidateAll();
+	        searchIndex.invalidate();
+	        resetArticleJobs(); // Older backups restore articles in older formats
+	    }
+	}
+
+	/**
+	 * Replaces the general articles with a full backup and then replays its incremental backups, made with
+	 * {@link #backupChangedArticles(String, String)}, in order
+	 * 
+	 * @param filenames the full backup followed by its incremental backups, oldest first
+	 * @return number of articles restored and deleted, and the time it took
+	 * @throws SQLException if database operations fail
+	 * @throws IOException if file reading fails
+	 */
+	public ArticleRestoreEngine.RestoreResult restoreArticleChain(List<String> filenames) throws SQLException, IOException {
+	    try {
+	        return restoreEngine().restoreChain(filenames);
+	    } finally {
+	        articleCache.invalidateAll();
+	        searchIndex.invalidate();
+	        resetArticleJobs(); // Older backups restore articles in older formats
 	    }
-	    System.out.println("[HelpArticleDB] Articles restored from " + filename);
+	}
+
+	/**
+	 * Creates a restore engine with the current restore options
+	 * 
+	 * @return the engine
+	 */
+	private ArticleRestoreEngine restoreEngine() {
+	    return new ArticleRestoreEngine(ConnectionPool.getInstance(), restoreBatchSize, restoreCommitMode,
+	            restoreReaderThreads, restoreChunkSize);
 	}
 		
 
@@ -650,41 +1594,38 @@ public class HelpArticleDatabase extends Database{
      * @throws Exception if encryption or database update operation fails
      */
 	public void updateArticle(Article article) throws Exception {
-		char[] title = article.getTitle().toCharArray();
-	    // Generate the IV (Initialization Vector) from the article title, just like in createArticle()
-	    byte[] iv = EncryptionUtils.getInitializationVector(title);
-
-	    // Encrypt all fields before updating
-	    byte[] encryptedTitle = encryptionHelper.encrypt(EncryptionUtils.toByteArray(title), iv);
-	    byte[] encryptedAuthors = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getAuthors().toCharArray()), iv);
-	    byte[] encryptedAbstract = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getAbstractText().toCharArray()), iv);
-	    byte[] encryptedKeywords = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getKeywords().toCharArray()), iv);
-	    byte[] encryptedBody = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getBody().toCharArray()), iv);
-	    byte[] encryptedReferences = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getReferences().toCharArray()), iv);
-
-	    String sql = "UPDATE articles SET iv = ?, title = ?, authors = ?, abstract = ?, keywords = ?, body = ?, " +
-	                 "references = ?, level = ?, grouping_identifiers = ?, permissions = ?, date_added = ?, version = ? " +
-	                 "WHERE id = ?";
-
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    // The older columns are cleared in case the article was written before cipher suites
+	    String sql = "UPDATE articles SET envelope_bytes = ?, content_bytes = ?, iv_bytes = NULL, iv = NULL, envelope = NULL, title = NULL, authors = NULL, " +
+	                 "abstract = NULL, keywords = NULL, body = NULL, references = NULL, level = ?, grouping_identifiers = ?, permissions = ?, date_added = ?, version = ?, " +
+	                 "change_seq = " + ArticleChangeTracker.NEXT_CHANGE + " WHERE id = ?";
+
+	    Lock changes = ArticleChangeTracker.lockChanges(); // The update takes a change number
+	    try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        conn.setAutoCommit(false); // The article and its search tokens commit together
+	        // Encrypt the summary and content fields before updating, keeping the article's data key if it has one
+	        ArticleEnvelope.Parts sealed = sealArticle(conn, article, storedDataKey(conn, article.getId()));
+
 	        // Set the encrypted values in the update statement
-	        pstmt.setString(1, Base64.getEncoder().encodeToString(iv)); // IV
-	        pstmt.setString(2, Base64.getEncoder().encodeToString(encryptedTitle)); // Title
-	        pstmt.setString(3, Base64.getEncoder().encodeToString(encryptedAuthors)); // Authors
-	        pstmt.setString(4, Base64.getEncoder().encodeToString(encryptedAbstract)); // Abstract
-	        pstmt.setString(5, Base64.getEncoder().encodeToString(encryptedKeywords)); // Keywords
-	        pstmt.setString(6, Base64.getEncoder().encodeToString(encryptedBody)); // Body
-	        pstmt.setString(7, Base64.getEncoder().encodeToString(encryptedReferences)); // References
-	        pstmt.setString(8, article.getLevel()); // Level
-	        pstmt.setString(9, String.join(",", article.getGroupingIdentifiers())); // Grouping Identifiers as a comma-separated string
-	        pstmt.setString(10, article.getPermissions()); // Permissions
-	        pstmt.setDate(11, new java.sql.Date(article.getDateAdded().getTime())); // Convert java.util.Date to java.sql.Date
-	        pstmt.setString(12, article.getVersion()); // Version
-	        pstmt.setInt(13, article.getId()); // Article ID in the WHERE clause to identify which article to update
-
-	        pstmt.executeUpdate(); // Execute the update
+	        pstmt.setBytes(1, sealed.getSummary()); // Title, authors, abstract, and keywords
+	        pstmt.setBytes(2, sealed.getContent()); // Body and references
+	        pstmt.setString(3, article.getLevel()); // Level
+	        pstmt.setString(4, String.join(",", article.getGroupingIdentifiers())); // Grouping Identifiers as a comma-separated string
+	        pstmt.setString(5, article.getPermissions()); // Permissions
+	        pstmt.setDate(6, new java.sql.Date(article.getDateAdded().getTime())); // Convert java.util.Date to java.sql.Date
+	        pstmt.setString(7, article.getVersion()); // Version
+	        pstmt.setInt(8, article.getId()); // Article ID in the WHERE clause to identify which article to update
+
+	        if (pstmt.executeUpdate() > 0) { // Execute the update
+	            Set<String> tokens = searchIndex.writeTokens(conn, article.getId(), article.getTitle(), article.getAuthors(),
+	                    article.getKeywords(), article.getAbstractText());
+	            conn.commit();
+	            searchIndex.tokensCommitted(article.getId(), tokens);
+	        }
 	    } catch (SQLException e) {
 	        throw new SQLException("Error updating article: " + e.getMessage());
+	    } finally {
+	        changes.unlock();
+	        articleCache.invalidate(article.getId());
 	    }
 	}
 
@@ -697,9 +1638,16 @@ public class HelpArticleDatabase extends Database{
      */
     public void deleteArticle(int id) throws SQLException {
         String sql = "DELETE FROM articles WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        Lock changes = ArticleChangeTracker.lockChanges(); // The tombstone takes a change number
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            // The tombstone and the delete commit together, so incremental backups see every delete
+            conn.setAutoCommit(false);
+            ArticleChangeTracker.recordDeletions(conn, "id = ?", id);
             pstmt.setInt(1, id);
             int rowsAffected = pstmt.executeUpdate();
+            conn.commit();
+            articleCache.invalidate(id);
+            searchIndex.articleRemoved(id);
             if (rowsAffected > 0) {
                 System.out.println("[HelpArticleDB] Article with ID " + id + " deleted successfully.");
             } else {
@@ -708,6 +1656,8 @@ public class HelpArticleDatabase extends Database{
         } catch (SQLException e) {
             System.err.println("[HelpArticleDB] Error deleting article: " + e.getMessage());
             throw e;  // Re-throw the exception to handle it further up the call chain
+        } finally {
+            changes.unlock();
         }
     }
 	    
@@ -721,7 +1671,7 @@ public class HelpArticleDatabase extends Database{
     public List<String> fetchGroupingIdentifiers() throws SQLException {
         List<String> identifiers = new ArrayList<>();
         String sql = "SELECT identifier FROM GroupingIdentifiers";
-        try (Statement stmt = connection.createStatement();
+        try (Connection conn = borrowConnection(); Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
@@ -741,45 +1691,13 @@ public class HelpArticleDatabase extends Database{
      * @param groups list of group identifiers to include in backup
      * @throws SQLException if database access fails
      * @throws IOException if file writing fails
-     * @throws Exception if encryption fails or other errors occur
      */
-    public void backupGroupArticles(String filename, List<String> groups) throws Exception {
-        List<Article> articlesToBackup = getAllGeneralArticles().stream()
-            .filter(article -> article.getGroupingIdentifiers().stream()
-                .anyMatch(groups::contains))
-            .collect(Collectors.toList());
-        
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            for (Article article : articlesToBackup) {
-                // Generate IV for encryption
-                byte[] iv = EncryptionUtils.getInitializationVector(article.getTitle().toCharArray());
-                
-                // Encrypt the article fields
-                byte[] encryptedTitle = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getTitle().toCharArray()), iv);
-                byte[] encryptedAuthors = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getAuthors().toCharArray()), iv);
-                byte[] encryptedAbstract = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getAbstractText().toCharArray()), iv);
-                byte[] encryptedKeywords = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getKeywords().toCharArray()), iv);
-                byte[] encryptedBody = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getBody().toCharArray()), iv);
-                byte[] encryptedReferences = encryptionHelper.encrypt(EncryptionUtils.toByteArray(article.getReferences().toCharArray()), iv);
-                
-                // Write each field to the backup file
-                writer.write(article.getId() + "\n");
-                writer.write(Base64.getEncoder().encodeToString(iv) + "\n");
-                writer.write(Base64.getEncoder().encodeToString(encryptedTitle) + "\n");
-                writer.write(Base64.getEncoder().encodeToString(encryptedAuthors) + "\n");
-                writer.write(Base64.getEncoder().encodeToString(encryptedAbstract) + "\n");
-                writer.write(Base64.getEncoder().encodeToString(encryptedKeywords) + "\n");
-                writer.write(Base64.getEncoder().encodeToString(encryptedBody) + "\n");
-                writer.write(Base64.getEncoder().encodeToString(encryptedReferences) + "\n");
-                writer.write(article.getLevel() + "\n");
-                writer.write(String.join(",", article.getGroupingIdentifiers()) + "\n");
-                writer.write(article.getPermissions() + "\n");
-                writer.write(article.getDateAdded().toString() + "\n");
-                writer.write(article.getVersion() + "\n");
-                writer.write("END_OF_ARTICLE\n");
-            }
-        }
-        System.out.println("[HelpArticleDB] Group-specific articles backed up to " + filename);
+    public void backupGroupArticles(String filename, List<String> groups) throws SQLException, IOException {
+        List<Object> params = new ArrayList<>();
+        // With no groups selected nothing matches, and the backup file is left empty
+        String condition = groups.isEmpty() ? "1 = 0" : groupCondition(groups, params);
+        int written = writeBackup(filename, condition, params, false, null);
+        System.out.println("[HelpArticleDB] " + written + " group-specific articles backed up to " + filename);
     }
 
     /**
@@ -787,74 +1705,40 @@ public class HelpArticleDatabase extends Database{
      * 
      * @param filename path to the backup file to restore from
      * @param merge if true, preserves existing articles and only adds new ones; if false, replaces all content
+     * @return number of articles restored and skipped, and the time it took
      * @throws SQLException if database operations fail
      * @throws IOException if file reading fails
      */
-    public void restoreArticlesWithMerge(String filename, boolean merge) throws SQLException, IOException {
+    public ArticleRestoreEngine.RestoreResult restoreArticlesWithMerge(String filename, boolean merge) throws SQLException, IOException {
         if (!merge) {
             // If not merging, use existing restore method which replaces all content
-            restoreArticles(filename);
-            return;
-        }
-
-        // Read existing article IDs
-        Set<Integer> existingIds = new HashSet<>();
-        String selectSql = "SELECT id FROM articles";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(selectSql)) {
-            while (rs.next()) {
-                existingIds.add(rs.getInt("id"));
-            }
+            return restoreArticles(filename);
         }
 
-        // Read and process backup file
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                int id = Integer.parseInt(line);
-                
-                // Read article data
-                String iv = reader.readLine();
-                String title = reader.readLine();
-                String authors = reader.readLine();
-                String abstractText = reader.readLine();
-                String keywords = reader.readLine();
-                String body = reader.readLine();
-                String references = reader.readLine();
-                String level = reader.readLine();
-                String groupingIdentifiers = reader.readLine();
-                String permissions = reader.readLine();
-                Date dateAdded = Date.valueOf(reader.readLine());
-                String version = reader.readLine();
-                reader.readLine(); // Skip "END_OF_ARTICLE"
-
-                // If ID exists and we're merging, skip this article
-                if (existingIds.contains(id)) {
-                    continue;
-                }
+        // Articles whose id already exists are skipped
+        return restoreArticlesWithMerge(filename, ArticleRestoreEngine.ConflictPolicy.SKIP);
+    }
 
-                // Insert new article
-                String insertSql = "INSERT INTO articles (id, iv, title, authors, abstract, keywords, body, references, level, grouping_identifiers, permissions, date_added, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-                try (PreparedStatement pstmt = connection.prepareStatement(insertSql)) {
-                    pstmt.setInt(1, id);
-                    pstmt.setString(2, iv);
-                    pstmt.setString(3, title);
-                    pstmt.setString(4, authors);
-                    pstmt.setString(5, abstractText);
-                    pstmt.setString(6, keywords);
-                    pstmt.setString(7, body);
-                    pstmt.setString(8, references);
-                    pstmt.setString(9, level);
-                    pstmt.setString(10, groupingIdentifiers);
-                    pstmt.setString(11, permissions);
-                    pstmt.setDate(12, new java.sql.Date(dateAdded.getTime()));
-                    pstmt.setString(13, version);
-                    pstmt.executeUpdate();
-                }
-            }
+    /**
+     * Merges the articles of a backup with the existing articles. New articles are added, and articles whose
+     * id already exists are skipped, replaced, or replaced only by a higher version.
+     * 
+     * @param filename path to the backup file to restore from
+     * @param policy what to do with articles whose id already exists
+     * @return number of articles restored and skipped, and the time it took
+     * @throws SQLException if database operations fail
+     * @throws IOException if file reading fails
+     */
+    public ArticleRestoreEngine.RestoreResult restoreArticlesWithMerge(String filename, ArticleRestoreEngine.ConflictPolicy policy)
+            throws SQLException, IOException {
+        try {
+            return restoreEngine().restoreMerge(filename, policy);
+        } finally {
+            articleCache.invalidateAll();
+            searchIndex.invalidate();
+            resetArticleJobs(); // Older backups restore articles in older formats
         }
-    }
-    
+    }    
     
     /**
      * Gets all articles that are not part of any special group
@@ -864,34 +1748,7 @@ public class HelpArticleDatabase extends Database{
      */
     public List<Article> getAllGeneralArticles() throws Exception {
         List<Article> articles = new ArrayList<>();
-        
-        // First check if special_group_articles table exists
-        boolean specialTableExists = false;
-        try (ResultSet rs = connection.getMetaData().getTables(null, null, "SPECIAL_GROUP_ARTICLES", null)) {
-            specialTableExists = rs.next();
-        }
-        
-        // Build appropriate SQL query based on table existence
-        String sql;
-        if (specialTableExists) {
-            sql = "SELECT id, iv, title, authors, abstract, keywords, body, references, level, " +
-                  "grouping_identifiers, permissions, date_added, version FROM articles " +
-                  "WHERE id NOT IN (SELECT article_id FROM special_group_articles)";
-        } else {
-            // If table doesn't exist, just get all articles
-            sql = "SELECT id, iv, title, authors, abstract, keywords, body, references, level, " +
-                  "grouping_identifiers, permissions, date_added, version FROM articles";
-        }
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                // Use existing decryption logic
-                Article article = decryptArticleFromResultSet(rs);
-                articles.add(article);
-            }
-        }
+        forEachDecryptedGeneralArticle(true, articles::add);
         System.out.println("[HelpArticleDB] All general articles retrieved from database");
         return articles;
     }
@@ -905,108 +1762,53 @@ public class HelpArticleDatabase extends Database{
                      "INNER JOIN special_group_articles sga ON a.id = sga.article_id " +
                      "WHERE sga.group_id = ?";
                      
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
             pstmt.setInt(1, groupId);
+            pstmt.setFetchSize(fetchSize);
             ResultSet rs = pstmt.executeQuery();
             
-            // Debug print
-            System.out.println("[HelpArticleDB] Found articles in group: " + rs.getFetchSize());
-            
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+            try (ArticleBackupWriter writer = backupFormat.openWriter(filename)) {
                 while (rs.next()) {
-                    int id = rs.getInt("id");
                     // Debug print
-                    System.out.println("[HelpArticleDB] Writing article ID: " + id);
+                    System.out.println("[HelpArticleDB] Writing article ID: " + rs.getInt("id"));
                     
-                    String ivBase64 = rs.getString("iv");
-                    String title = rs.getString("title");
-                    String authors = rs.getString("authors");
-                    String abstractText = rs.getString("abstract");
-                    String keywords = rs.getString("keywords");
-                    String body = rs.getString("body");
-                    String references = rs.getString("references");
-                    String level = rs.getString("level");
-                    String groupingIdentifiers = rs.getString("grouping_identifiers");
-                    String permissions = rs.getString("permissions");
-                    String dateAdded = rs.getString("date_added");
-                    String version = rs.getString("version");
-
-                    // Write each field to the backup file
-                    writer.write(id + "\n");
-                    writer.write(ivBase64 + "\n");
-                    writer.write(title + "\n");
-                    writer.write(authors + "\n");
-                    writer.write(abstractText + "\n");
-                    writer.write(keywords + "\n");
-                    writer.write(body + "\n");
-                    writer.write(references + "\n");
-                    writer.write(level + "\n");
-                    writer.write(groupingIdentifiers + "\n");
-                    writer.write(permissions + "\n");
-                    writer.write(dateAdded + "\n");
-                    writer.write(version + "\n");
-                    writer.write("END_OF_ARTICLE\n");
+                    // Write the stored ciphertext, envelope or per-field, to the backup file
+                    writer.write(ArticleBackupRecord.fromRow(rs));
                 }
+                writer.finish();
             }
         }
     }
     
     
-    public void restoreSpecialGroupArticles(String filename, int groupId) throws SQLException, IOException {
-        // First clear existing articles for this group
-        String deleteSql = "DELETE FROM special_group_articles WHERE group_id = ?";
-        try (PreparedStatement deleteStmt = connection.prepareStatement(deleteSql)) {
-            deleteStmt.setInt(1, groupId);
-            deleteStmt.executeUpdate();
+    /**
+     * Replaces the articles of a special group with those of a backup file
+     * 
+     * @param filename path to the backup file to restore from
+     * @param groupId the special group
+     * @return number of articles restored and the time it took
+     * @throws SQLException if database operations fail
+     * @throws IOException if file reading fails
+     */
+    public ArticleRestoreEngine.RestoreResult restoreSpecialGroupArticles(String filename, int groupId) throws SQLException, IOException {
+        try {
+            return restoreEngine().restoreSpecialGroup(filename, groupId);
+        } finally {
+            articleCache.invalidateAll();
+            searchIndex.invalidate();
+            resetArticleJobs(); // Older backups restore articles in older formats
         }
-
-        // Now restore from backup and associate with group
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                int id = Integer.parseInt(line);
-                String iv = reader.readLine();
-                String title = reader.readLine();
-                String authors = reader.readLine();
-                String abstractText = reader.readLine();
-                String keywords = reader.readLine();
-                String body = reader.readLine();
-                String references = reader.readLine();
-                String level = reader.readLine();
-                String groupingIdentifiers = reader.readLine();
-                String permissions = reader.readLine();
-                Date dateAdded = Date.valueOf(reader.readLine());
-                String version = reader.readLine();
-                reader.readLine(); // Skip "END_OF_ARTICLE"
-
-                // Insert/Update the article
-                String insertSql = "MERGE INTO articles (id, iv, title, authors, abstract, keywords, body, references, level, grouping_identifiers, permissions, date_added, version) "
-                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-                try (PreparedStatement pstmt = connection.prepareStatement(insertSql)) {
-                    pstmt.setInt(1, id);
-                    pstmt.setString(2, iv);
-                    pstmt.setString(3, title);
-                    pstmt.setString(4, authors);
-                    pstmt.setString(5, abstractText);
-                    pstmt.setString(6, keywords);
-                    pstmt.setString(7, body);
-                    pstmt.setString(8, references);
-                    pstmt.setString(9, level);
-                    pstmt.setString(10, groupingIdentifiers);
-                    pstmt.setString(11, permissions);
-                    pstmt.setDate(12, dateAdded);
-                    pstmt.setString(13, version);
-                    pstmt.executeUpdate();
-                    
-                    // Associate with special group
-                    String groupSql = "INSERT INTO special_group_articles (group_id, article_id) VALUES (?, ?)";
-                    try (PreparedStatement groupStmt = connection.prepareStatement(groupSql)) {
-                        groupStmt.setInt(1, groupId);
-                        groupStmt.setInt(2, id);
-                        groupStmt.executeUpdate();
-                    }
-                }
-            }
+    }    
+    /**
+     * Makes the background article jobs scan every article again, after a restore that may have brought back
+     * articles in older formats below where the jobs had got to
+     */
+    private void resetArticleJobs() {
+        try (Connection conn = borrowConnection()) {
+            ArticleJobRunner.resetCheckpoints(conn);
+        } catch (SQLException e) {
+            System.out.println("[HelpArticleDB] Unable to reset article jobs: " + e.getMessage());
         }
     }
 }
@@ -19,11 +19,6 @@ public class HelpMessageDatabase extends Database {
      * Database instance for interacting with core database functionality
      */
     private Database db;
-    
-    /**
-     * Database connection instance
-     */
-    private Connection connection;
 
     /**
      * Constructor for HelpMessageDatabase
@@ -34,13 +29,7 @@ public class HelpMessageDatabase extends Database {
     public HelpMessageDatabase() throws Exception {
         System.out.println("[HelpMessageDB] Help Message Database Initializing");
         // Initialize the Database instance and connection
-        db = Database.getInstance(); 
-        connection = db.getConnection(); // Get the shared connection
-        if (connection != null) {
-            System.out.println("[HelpMessageDB] Connection established successfully in HelpMessageDatabase.");
-        } else {
-            System.out.println("[HelpMessageDB] Error connection is null in HelpMessageDatabase.");
-        }
+        db = Database.getInstance(); // Connections are borrowed from the shared connection pool per call
         createHelpTables();
     }
 
@@ -67,7 +56,7 @@ public class HelpMessageDatabase extends Database {
             + "PRIMARY KEY (conversation_id, message_id), "
             + "FOREIGN KEY (message_id) REFERENCES help_messages(message_id))";
 
-        try (Statement statement = connection.createStatement()) {
+        try (Connection conn = borrowConnection(); Statement statement = conn.createStatement()) {
             statement.execute(messageTable);
             statement.execute(conversationMessagesTable);
             System.out.println("[HelpMessageDB] Help system tables created successfully");
@@ -86,7 +75,7 @@ public class HelpMessageDatabase extends Database {
      */
     public int saveHelpMessage(HelpMessage message) throws SQLException {
         String sql = "INSERT INTO help_messages (message_body, is_specific, user_id, search_requests) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, message.getMessageBody());
             pstmt.setBoolean(2, message.getIsSpecificMessage());
             pstmt.setInt(3, message.getUserId());
@@ -114,7 +103,7 @@ public class HelpMessageDatabase extends Database {
      */
     public void addMessageToConversation(int conversationId, int messageId) throws SQLException {
         String sql = "INSERT INTO conversation_messages (conversation_id, message_id) VALUES (?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, conversationId);
             pstmt.setInt(2, messageId);
             pstmt.executeUpdate();
@@ -130,7 +119,7 @@ public class HelpMessageDatabase extends Database {
      */
     public void addMessagesToConversation(int conversationId, List<Integer> messageIds) throws SQLException {
         String sql = "INSERT INTO conversation_messages (conversation_id, message_id) VALUES (?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             for (int messageId : messageIds) {
                 pstmt.setInt(1, conversationId);
                 pstmt.setInt(2, messageId);
@@ -150,7 +139,7 @@ public class HelpMessageDatabase extends Database {
         List<Integer> messageIds = new ArrayList<>();
         String sql = "SELECT message_id FROM conversation_messages WHERE conversation_id = ? ORDER BY message_id";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, conversationId);
             ResultSet rs = pstmt.executeQuery();
             
@@ -170,7 +159,7 @@ public class HelpMessageDatabase extends Database {
      */
     public HelpMessage getHelpMessage(int messageId) throws SQLException {
         String sql = "SELECT * FROM help_messages WHERE message_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, messageId);
             ResultSet rs = pstmt.executeQuery();
             
@@ -208,7 +197,7 @@ public class HelpMessageDatabase extends Database {
                     "WHERE cm.conversation_id = ? " +
                     "ORDER BY m.message_id";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, conversationId);
             ResultSet rs = pstmt.executeQuery();
             
@@ -260,7 +249,7 @@ public class HelpMessageDatabase extends Database {
         
         // Delete from conversation_messages
         String deleteConvMessages = "DELETE FROM conversation_messages WHERE conversation_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(deleteConvMessages)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(deleteConvMessages)) {
             pstmt.setInt(1, conversationId);
             pstmt.executeUpdate();
         }
@@ -270,23 +259,20 @@ public class HelpMessageDatabase extends Database {
             String deleteMessages = "DELETE FROM help_messages WHERE message_id IN ("
                 + String.join(",", messageIds.stream().map(String::valueOf).toArray(String[]::new))
                 + ")";
-            try (Statement stmt = connection.createStatement()) {
+            try (Connection conn = borrowConnection(); Statement stmt = conn.createStatement()) {
                 stmt.executeUpdate(deleteMessages);
             }
         }
     }
     
+    /**
+     * Returns the shared connection of the parent database
+     * 
+     * @return the shared database connection
+     * @throws SQLException if a connection can't be borrowed from the pool
+     */
     @Override
     public Connection getConnection() throws SQLException {
-        try {
-            if (connection == null || connection.isClosed()) {
-                // Get a new connection from the parent database
-                connection = db.getConnection();
-            }
-        } catch (SQLException e) {
-            System.out.println("[HelpMessageDB] Error checking database connection: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return connection;
+        return db.getConnection();
     }
 }
\ No newline at end of file
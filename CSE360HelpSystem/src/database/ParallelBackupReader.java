@@ -0,0 +1,298 @@
+package database;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Inflater;
+
+/**
+ * The {@code ParallelBackupReader} reads a backup file by mapping it into memory, cutting it into chunks of
+ * whole records, and parsing and validating the chunks on worker threads.
+ *
+ * Records are still handed out in file order on the calling thread, so the restore engine stays the only writer
+ * and its batches and resume markers work as with {@link ArticleBackupFormat#openReader(String)}. Only a few
+ * chunks are parsed ahead of the writer, which bounds the memory a large file takes.
+ *
+ * Binary backups are cut between blocks by following the block lengths. Text backups are cut after an
+ * END_OF_ARTICLE line that is followed by an article id.
+ *
+ * The JDK has no public way to unmap a file, so the mapping stays until the garbage collector frees it, even after
+ * the reader is closed. Closing drops every reference to it so that can happen sooner. On Windows a mapped file
+ * can't be replaced or deleted, so a backup file that is written over in the same run, such as one restored and
+ * then backed up again, should be read with one thread, see {@link ArticleBackupFormat#openReader(String, int, int)}.
+ */
+final class ParallelBackupReader implements ArticleBackupReader {
+
+	/**
+	 * Default length of file parsed by one task
+	 */
+	static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+	private static final byte[] RECORD_END = ("\n" + ArticleBackupRecord.END_OF_ARTICLE + "\n").getBytes(StandardCharsets.US_ASCII);
+
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	private final FileChannel channel;
+	private MappedByteBuffer map;
+	private final boolean binary;
+	private final int chunkSize;
+	private final int maxChunksAhead;
+	private final ExecutorService workers;
+	private final Deque<Future<List<ArticleBackupRecord>>> chunks = new ArrayDeque<>();
+	private Iterator<ArticleBackupRecord> current = Collections.emptyIterator();
+	private int nextChunkStart;
+	private boolean split;
+
+	/**
+	 * Maps a backup file and starts parsing its first chunks
+	 *
+	 * @param filename path to the file, no longer than {@link Integer#MAX_VALUE} bytes
+	 * @param threads number of worker threads
+	 * @param chunkSize length of file parsed by one task
+	 * @throws IOException if the file can't be mapped, or has a binary header this version can't read
+	 */
+	ParallelBackupReader(String filename, int threads, int chunkSize) throws IOException {
+		channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+		try {
+			map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			binary = BinaryBackupFile.isBinary(map);
+			if (binary) {
+				if (map.remaining() < BinaryBackupFile.FILE_HEADER_LENGTH) {
+					throw new IOException("Binary backup header is cut short");
+				}
+				BinaryBackupFile.readFileHeader(map.duplicate());
+				nextChunkStart = BinaryBackupFile.FILE_HEADER_LENGTH;
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		this.chunkSize = chunkSize;
+		maxChunksAhead = threads * 2;
+		workers = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "backup-reader-" + THREAD_COUNT.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		submitChunks();
+	}
+
+	@Override
+	public ArticleBackupRecord read() throws IOException {
+		while (!current.hasNext()) {
+			Future<List<ArticleBackupRecord>> chunk = chunks.poll();
+			if (chunk == null) {
+				return null;
+			}
+			current = await(chunk).iterator();
+			submitChunks();
+		}
+		return current.next();
+	}
+
+	/**
+	 * Cuts and submits chunks until enough are being parsed ahead of the writer
+	 */
+	private void submitChunks() throws IOException {
+		while (!split && chunks.size() < maxChunksAhead) {
+			int start = nextChunkStart;
+			int end = binary ? binaryChunkEnd(start) : textChunkEnd(start);
+			nextChunkStart = end;
+			if (end == start) {
+				continue;
+			}
+			ByteBuffer chunk = map.duplicate();
+			chunk.position(start).limit(end);
+			ByteBuffer slice = chunk.slice();
+			chunks.add(workers.submit(() -> binary ? parseBinary(slice) : parseText(slice)));
+		}
+	}
+
+	/**
+	 * Follows block headers from a block boundary until a chunk is long enough or the end block is reached
+	 *
+	 * @return where the chunk ends, at a block boundary
+	 */
+	private int binaryChunkEnd(int start) throws IOException {
+		int position = start;
+		while (position - start < chunkSize) {
+			if (map.limit() - position < BinaryBackupFile.BLOCK_HEADER_LENGTH) {
+				throw new IOException("Binary backup ends without its end block");
+			}
+			ByteBuffer headerBuffer = map.duplicate();
+			headerBuffer.position(position);
+			BinaryBackupFile.BlockHeader header = BinaryBackupFile.BlockHeader.read(headerBuffer);
+			if (header.records == 0) {
+				split = true;
+				break;
+			}
+			if (map.limit() - headerBuffer.position() < header.storedLength) {
+				throw new IOException("Binary backup block is cut short");
+			}
+			position = headerBuffer.position() + header.storedLength;
+		}
+		return position;
+	}
+
+	/**
+	 * Finds the first record boundary at least a chunk after the start
+	 *
+	 * @return where the chunk ends, just after an END_OF_ARTICLE line or at the end of the file
+	 */
+	private int textChunkEnd(int start) {
+		int position = Math.max(start + chunkSize - 1, 0);
+		while (position + RECORD_END.length <= map.limit()) {
+			if (matchesAt(position, RECORD_END)) {
+				int end = position + RECORD_END.length;
+				if (startsWithId(end)) {
+					return end;
+				}
+			}
+			position++;
+		}
+		split = true;
+		return map.limit();
+	}
+
+	private boolean matchesAt(int position, byte[] bytes) {
+		for (int i = 0; i < bytes.length; i++) {
+			if (map.get(position + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks that a line of digits, an article id, starts at a position
+	 */
+	private boolean startsWithId(int position) {
+		int digits = 0;
+		while (position < map.limit()) {
+			byte b = map.get(position++);
+			if (b == '\n') {
+				return digits > 0;
+			}
+			if (b < '0' || b > '9') {
+				return false;
+			}
+			digits++;
+		}
+		return false;
+	}
+
+	private static List<ArticleBackupRecord> parseText(ByteBuffer chunk) throws IOException {
+		List<ArticleBackupRecord> records = new ArrayList<>();
+		// Text backups are written with the default charset by FileWriter
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new BufferInputStream(chunk), Charset.defaultCharset()))) {
+			ArticleBackupRecord record;
+			while ((record = ArticleBackupRecord.read(reader)) != null) {
+				record.validate();
+				records.add(record);
+			}
+		}
+		return records;
+	}
+
+	private static List<ArticleBackupRecord> parseBinary(ByteBuffer chunk) throws IOException {
+		List<ArticleBackupRecord> records = new ArrayList<>();
+		Inflater inflater = new Inflater();
+		try {
+			while (chunk.hasRemaining()) {
+				BinaryBackupFile.BlockHeader header = BinaryBackupFile.BlockHeader.read(chunk);
+				ByteBuffer stored = chunk.slice();
+				stored.limit(header.storedLength);
+				chunk.position(chunk.position() + header.storedLength);
+				ByteBuffer block = BinaryBackupFile.decodeBlock(header, stored, inflater);
+				for (int i = 0; i < header.records; i++) {
+					ArticleBackupRecord record = BinaryBackupFile.nextRecord(block);
+					record.validate();
+					records.add(record);
+				}
+			}
+		} finally {
+			inflater.end();
+		}
+		return records;
+	}
+
+	/**
+	 * Waits for a chunk, and throws what its worker threw as if it had been thrown here
+	 */
+	private static List<ArticleBackupRecord> await(Future<List<ArticleBackupRecord>> chunk) throws IOException {
+		try {
+			return chunk.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading the backup", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException("Backup chunk could not be read", cause);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (Future<List<ArticleBackupRecord>> chunk : chunks) {
+			chunk.cancel(false);
+		}
+		// Parsed records and slices of the mapping would otherwise stay reachable as long as the reader is
+		chunks.clear();
+		current = Collections.emptyIterator();
+		map = null;
+		split = true;
+		workers.shutdown();
+		channel.close();
+	}
+
+	/**
+	 * Reads a chunk of the mapped file as a stream
+	 */
+	private static final class BufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		private BufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+			return count;
+		}
+	}
+}
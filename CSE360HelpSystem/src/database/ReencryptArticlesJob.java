@@ -0,0 +1,55 @@
+package database;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+import Encryption.ArticleEnvelope;
+import Encryption.CipherSuite;
+import Encryption.KeyHierarchy;
+
+/**
+ * The {@code ReencryptArticlesJob} rewrites every article that is not already a summary part and a content part
+ * sealed by a given cipher suite and a data key. Articles with six encrypted columns, Base64 envelopes, title IV
+ * envelopes, envelopes of other suites, and envelopes that hold every field are all decrypted and sealed again
+ * with the target suite. An article that already
+ * has a data key keeps it, the others get a new one.
+ */
+public class ReencryptArticlesJob implements ArticleRewriteJob {
+
+	private final CipherSuite target;
+
+	/**
+	 * Creates a job
+	 *
+	 * @param target the suite every article should be sealed with
+	 */
+	public ReencryptArticlesJob(CipherSuite target) {
+		this.target = target;
+	}
+
+	@Override
+	public String getName() {
+		// Named apart from the job that sealed whole envelopes, so databases it finished have them split
+		return "reencrypt-parts-" + target.getName();
+	}
+
+	@Override
+	public ArticleEnvelope.Parts rewrite(ResultSet row) throws Exception {
+		byte[] iv = HelpArticleDatabase.readIv(row);
+		byte[] envelope = HelpArticleDatabase.readEnvelope(row);
+		// Envelopes sealed by a suite carry their own IV, so a row with no stored IV names its suite in its header
+		if (iv == null && KeyHierarchy.isSealedWith(envelope, target) && HelpArticleDatabase.readContent(row) != null) {
+			return null;
+		}
+		char[][] text = HelpArticleDatabase.decryptTextFields(row, ArticleEnvelope.FIELD_COUNT);
+		try {
+			// A new data key is saved on the job's connection, so it commits with the rewritten article
+			return HelpArticleDatabase.sealWithDataKey(row.getStatement().getConnection(), target, HelpArticleDatabase.storedDataKey(envelope, iv),
+					ArticleEnvelope.DEFAULT_COMPRESSION_THRESHOLD, text);
+		} finally {
+			for (char[] field : text) {
+				Arrays.fill(field, '\0');
+			}
+		}
+	}
+}
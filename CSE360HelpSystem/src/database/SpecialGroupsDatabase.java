@@ -10,15 +10,13 @@ import models.User;
  */
 public class SpecialGroupsDatabase extends Database {
     private Database db;
-    private Connection connection;
 
     /**
      * Constructor
      * @throws Exception
      */
     public SpecialGroupsDatabase() throws Exception {
-        db = Database.getInstance();
-        connection = db.getConnection();
+        db = Database.getInstance(); // Connections are borrowed from the shared connection pool per call
         createSpecialGroupTables();
     }
     /**
@@ -45,7 +43,7 @@ public class SpecialGroupsDatabase extends Database {
         	    + "article_id INT, "  
         	    + "PRIMARY KEY (group_id, article_id))";
 
-        try (Statement stmt = connection.createStatement()) {
+        try (Connection conn = borrowConnection(); Statement stmt = conn.createStatement()) {
             stmt.execute(groupsTable);
             stmt.execute(membersTable);
             stmt.execute(articlesTable);
@@ -71,7 +69,7 @@ public class SpecialGroupsDatabase extends Database {
         System.out.println("SQL Query: " + sql);
         System.out.println("Searching for User ID: " + userId);
                   
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, userId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -105,7 +103,7 @@ public class SpecialGroupsDatabase extends Database {
         String sql = "SELECT access_level FROM special_group_members "
                   + "WHERE user_id = ? AND group_id = ?";
                   
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, userId);
             pstmt.setInt(2, groupId);
             
@@ -128,7 +126,7 @@ public class SpecialGroupsDatabase extends Database {
     public int createSpecialGroup(String groupName) throws SQLException {
         String sql = "INSERT INTO special_groups (group_name) VALUES (?)";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, groupName);
             pstmt.executeUpdate();
             
@@ -160,11 +158,15 @@ public class SpecialGroupsDatabase extends Database {
             "DELETE FROM special_groups WHERE group_id = ?"               // Deletes the group itself
         };
         
-        for (String sql : deleteQueries) {
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setInt(1, groupId);	
-                pstmt.executeUpdate();
+        try (Connection conn = borrowConnection()) {
+            for (String sql : deleteQueries) {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, groupId);	
+                    pstmt.executeUpdate();
+                }
             }
+        } finally {
+            ArticleCache.getInstance().invalidateAll(); // The group's articles were deleted
         }
     }
     
@@ -180,7 +182,7 @@ public class SpecialGroupsDatabase extends Database {
     public void addUserToGroup(int groupId, String userId, int accessLevel) throws SQLException {
         String sql = "INSERT INTO special_group_members (group_id, user_id, access_level) VALUES (?, ?, ?)";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, groupId);
             pstmt.setString(2, userId);
             pstmt.setInt(3, accessLevel);
@@ -198,7 +200,7 @@ public class SpecialGroupsDatabase extends Database {
     public void removeUserFromGroup(int groupId, String userId) throws SQLException {
         String sql = "DELETE FROM special_group_members WHERE group_id = ? AND user_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, groupId);
             pstmt.setString(2, userId);
             pstmt.executeUpdate();
@@ -215,7 +217,7 @@ public class SpecialGroupsDatabase extends Database {
     public void addArticleToGroup(int groupId, String articleId) throws SQLException {
         String sql = "INSERT INTO special_group_articles (group_id, article_id) VALUES (?, ?)";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, groupId);
             pstmt.setString(2, articleId);
             pstmt.executeUpdate();
@@ -231,7 +233,7 @@ public class SpecialGroupsDatabase extends Database {
     public void removeArticleFromGroup(int groupId, String articleId) throws SQLException {
         String sql = "DELETE FROM special_group_articles WHERE group_id = ? AND article_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, groupId);
             pstmt.setString(2, articleId);
             pstmt.executeUpdate();
@@ -248,7 +250,7 @@ public class SpecialGroupsDatabase extends Database {
         List<String> articles = new ArrayList<>();
         String sql = "SELECT article_id FROM special_group_articles WHERE group_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, groupId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -268,7 +270,7 @@ public class SpecialGroupsDatabase extends Database {
                      "INNER JOIN special_group_members sgm ON u.id = sgm.user_id " +
                      "WHERE sgm.group_id = ? AND sgm.access_level = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, groupId);
             pstmt.setInt(2, accessLevel);
             
@@ -308,7 +310,7 @@ public class SpecialGroupsDatabase extends Database {
         String sql = "SELECT * FROM cse360users u WHERE u.id NOT IN " +
                      "(SELECT user_id FROM special_group_members WHERE group_id = ?)";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, groupId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -343,7 +345,7 @@ public class SpecialGroupsDatabase extends Database {
         String sql = "UPDATE special_group_members SET access_level = ? " +
                      "WHERE group_id = ? AND user_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, newAccessLevel);
             pstmt.setInt(2, groupId);
             pstmt.setInt(3, userId);
@@ -360,7 +362,7 @@ public class SpecialGroupsDatabase extends Database {
     	System.out.println("[SpecialGroupsDB] Printing Group Members...");
         String sql = "SELECT user_id, access_level FROM special_group_members WHERE group_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, groupId);
             ResultSet rs = pstmt.executeQuery();
             
@@ -0,0 +1,257 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code StatementCache} keeps the prepared statements of one pooled connection, keyed by their SQL text,
+ * so that the database classes can prepare the same query on every call without H2 parsing and planning it again.
+ *
+ * Statements handed out by the cache are returned to it when {@code close()} is called on them.
+ * When the cache is full the least recently used statement is closed.
+ */
+public class StatementCache {
+	private final int maxSize;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+
+	/**
+	 * Cached statements in least recently used order
+	 */
+	private final LinkedHashMap<String, CachedStatement> statements;
+
+	/**
+	 * Creates a cache for one connection
+	 *
+	 * @param maxSize maximum number of statements kept open
+	 * @param hits counter incremented when a prepare is served from the cache
+	 * @param misses counter incremented when a prepare has to go to the database
+	 */
+	StatementCache(int maxSize, AtomicLong hits, AtomicLong misses) {
+		this.maxSize = maxSize;
+		this.hits = hits;
+		this.misses = misses;
+		this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+				if (size() > StatementCache.this.maxSize) {
+					eldest.getValue().evict();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Prepares a statement on the given connection, reusing a cached one when it is not already in use
+	 *
+	 * @param physical the connection owned by the pool
+	 * @param owner the connection handed to the caller, returned by {@code getConnection()}
+	 * @param sql the SQL text
+	 * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or {@link Statement#NO_GENERATED_KEYS}
+	 * @return a prepared statement that goes back to the cache when closed
+	 * @throws SQLException if the statement can't be prepared
+	 */
+	synchronized PreparedStatement prepare(Connection physical, Connection owner, String sql, int autoGeneratedKeys)
+			throws SQLException {
+		String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "KEYS:" + sql : sql;
+		CachedStatement cached = statements.get(key);
+		if (cached != null && !cached.inUse && !cached.statement.isClosed()) {
+			hits.incrementAndGet();
+			return cached.checkOut(owner);
+		}
+		misses.incrementAndGet();
+		PreparedStatement statement = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+				? physical.prepareStatement(sql, autoGeneratedKeys)
+				: physical.prepareStatement(sql);
+		if (cached != null && cached.inUse) {
+			// Same SQL is already open on this connection, so this one isn't cached
+			return statement;
+		}
+		if (cached != null) {
+			cached.evict();
+		}
+		try {
+			cached = new CachedStatement(statement);
+		} catch (SQLException e) {
+			statement.close();
+			throw e;
+		}
+		statements.put(key, cached);
+		return cached.checkOut(owner);
+	}
+
+	/**
+	 * @return number of statements currently cached
+	 */
+	public synchronized int size() {
+		return statements.size();
+	}
+
+	/**
+	 * Closes every cached statement. Called when the physical connection is closed.
+	 */
+	synchronized void closeAll() {
+		for (Iterator<CachedStatement> it = statements.values().iterator(); it.hasNext();) {
+			it.next().evict();
+			it.remove();
+		}
+	}
+
+	/**
+	 * A prepared statement kept open by the cache
+	 */
+	private class CachedStatement {
+		private final PreparedStatement statement;
+		private final List<ResultSet> openResults = new ArrayList<>();
+		private boolean inUse;
+		private boolean evicted;
+
+		/**
+		 * Settings the statement was prepared with, given back to it on check-in so one caller's
+		 * fetch size or row limit doesn't carry over to the next
+		 */
+		private final int fetchSize;
+		private final int maxRows;
+		private final int queryTimeout;
+		private final int fetchDirection;
+
+		CachedStatement(PreparedStatement statement) throws SQLException {
+			this.statement = statement;
+			this.fetchSize = statement.getFetchSize();
+			this.maxRows = statement.getMaxRows();
+			this.queryTimeout = statement.getQueryTimeout();
+			this.fetchDirection = statement.getFetchDirection();
+		}
+
+		PreparedStatement checkOut(Connection owner) {
+			inUse = true;
+			return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, new Checkout(this, owner));
+		}
+
+		/**
+		 * Puts the statement back into a clean state for the next caller
+		 */
+		void checkIn() {
+			synchronized (StatementCache.this) {
+				inUse = false;
+				try {
+					for (ResultSet rs : openResults) {
+						rs.close();
+					}
+					openResults.clear();
+					if (!evicted) {
+						statement.clearParameters();
+						statement.clearBatch();
+						statement.clearWarnings();
+						restoreSettings();
+						return;
+					}
+				} catch (SQLException e) {
+					statements.values().remove(this);
+				}
+				closeQuietly();
+			}
+		}
+
+		private void restoreSettings() throws SQLException {
+			// The row limit goes first, H2 refuses a fetch size above the current limit
+			if (statement.getMaxRows() != maxRows) {
+				statement.setMaxRows(maxRows);
+			}
+			if (statement.getFetchSize() != fetchSize) {
+				statement.setFetchSize(fetchSize);
+			}
+			if (statement.getQueryTimeout() != queryTimeout) {
+				statement.setQueryTimeout(queryTimeout);
+			}
+			if (statement.getFetchDirection() != fetchDirection) {
+				statement.setFetchDirection(fetchDirection);
+			}
+		}
+
+		/**
+		 * Removes the statement from the cache, closing it now or when its current user is done with it
+		 */
+		void evict() {
+			evicted = true;
+			if (!inUse) {
+				closeQuietly();
+			}
+		}
+
+		void closeQuietly() {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				System.err.println("[StatementCache] Error closing statement: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * One use of a cached statement. Acts as the handler behind the statement proxy given to callers.
+	 */
+	private class Checkout implements InvocationHandler {
+		private final CachedStatement cached;
+		private final Connection owner;
+		private boolean closed;
+
+		Checkout(CachedStatement cached, Connection owner) {
+			this.cached = cached;
+			this.owner = owner;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					closed = true;
+					cached.checkIn();
+				}
+				return null;
+			case "isClosed":
+				return closed || cached.statement.isClosed();
+			case "getConnection":
+				return owner;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "CachedStatement[" + cached.statement + (closed ? ", returned" : "") + "]";
+			default:
+				break;
+			}
+			if (closed) {
+				throw new SQLException("Statement has already been closed");
+			}
+			Object result;
+			try {
+				result = method.invoke(cached.statement, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+			if (result instanceof ResultSet) {
+				cached.openResults.add((ResultSet) result);
+			}
+			return result;
+		}
+	}
+}
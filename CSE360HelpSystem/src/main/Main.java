@@ -4,8 +4,12 @@ import java.sql.SQLException;
 
 import controllers.LoginPageController;
 import controllers.PageController;
+import Encryption.CipherSuites;
+import database.ArticleJobRunner;
+import database.ConnectionPool;
 import database.Database;
 import database.HelpArticleDatabase;
+import database.ReencryptArticlesJob;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
@@ -65,6 +69,8 @@ public class Main extends Application {
 				pageController.navigateTo("/views/LoginPageView.fxml");
 			}
 
+			startArticleJobs();
+
 			// Set the title for the primary stage
 			primaryStage.setTitle("CSE360 Help System");
 			primaryStage.show();
@@ -75,6 +81,19 @@ public class Main extends Application {
 		}
 	}
 
+	/**
+     * Opens the help article database and starts rewriting articles stored in older formats in the background,
+     * so that a large database doesn't hold up the login page.
+     */
+	private void startArticleJobs() {
+		try {
+			had = new HelpArticleDatabase(); // Creates the article tables the jobs work on
+			ArticleJobRunner.getInstance().start(new ReencryptArticlesJob(CipherSuites.DEFAULT));
+		} catch (Exception e) {
+			System.err.println("[Main] Unable to start article jobs: " + e.getMessage());
+		}
+	}
+
 	/**
      * Performs cleanup operations when the application is shutting down.
      * Closes all database connections and performs necessary cleanup.
@@ -86,6 +105,7 @@ public class Main extends Application {
 	public void stop() throws Exception {
 		super.stop();
 		System.err.println("[Main] Closing database connection.");
+		ArticleJobRunner.getInstance().shutdown(); // Lets a running batch commit first
 		// Close database connection when the application stops
 		if (db != null) {
 			db.closeConnection();
@@ -95,6 +115,8 @@ public class Main extends Application {
 			had.closeConnection();
 			System.err.println("[Main] Help Article Database connection closed.");
 		}
+		ConnectionPool.getInstance().printMetrics();
+		ConnectionPool.getInstance().shutdown();
 	}
 
 	/**
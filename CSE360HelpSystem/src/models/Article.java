@@ -61,11 +61,87 @@ public class Article {
         System.out.println("[Article] New article created without ID.");
     }
 
+    // Copy constructor, used by the article cache so callers never share a cached instance
+    public Article(Article other) {
+        this(other, true);
+    }
+
+    // Copies the text fields as stored when readTextFields is false, so a subclass that supplies
+    // them on first use can be copied without reading them
+    protected Article(Article other, boolean readTextFields) {
+        this.id = other.id;
+        this.title = copyOf(readTextFields ? other.titleChars() : other.title);
+        this.authors = copyOf(readTextFields ? other.authorsChars() : other.authors);
+        this.abstractText = copyOf(readTextFields ? other.abstractChars() : other.abstractText);
+        this.keywords = copyOf(readTextFields ? other.keywordsChars() : other.keywords);
+        this.body = copyOf(readTextFields ? other.bodyChars() : other.body);
+        this.references = copyOf(readTextFields ? other.referencesChars() : other.references);
+        this.level = other.level;
+        this.groupingIdentifiers = new ArrayList<>(other.groupingIdentifiers);
+        this.permissions = other.permissions;
+        this.dateAdded = other.dateAdded;
+        this.version = other.version;
+        this.isSpecialGroupArticle = other.isSpecialGroupArticle;
+    }
+
+    // Copies the article the same way the copy constructor does; subclasses return their own type
+    public Article copy() {
+        return new Article(this);
+    }
+
+    protected static char[] copyOf(char[] chars) {
+        return chars != null ? chars.clone() : null;
+    }
+
+    // Estimated memory used by the text fields of the article, used to bound the article cache
+    public long estimateSizeInBytes() {
+        long chars = 0;
+        for (String group : groupingIdentifiers) {
+            chars += group.length();
+        }
+        return chars * Character.BYTES + textSizeInBytes();
+    }
+
+    // Estimated memory used by the six text fields
+    protected long textSizeInBytes() {
+        return (long) (length(title) + length(authors) + length(abstractText) + length(keywords)
+                + length(body) + length(references)) * Character.BYTES;
+    }
+
+    protected static int length(char[] chars) {
+        return chars != null ? chars.length : 0;
+    }
+
+    // The text fields are read through these so a subclass can supply them on first use
+    protected char[] titleChars() {
+        return title;
+    }
+
+    protected char[] authorsChars() {
+        return authors;
+    }
+
+    protected char[] abstractChars() {
+        return abstractText;
+    }
+
+    protected char[] keywordsChars() {
+        return keywords;
+    }
+
+    protected char[] bodyChars() {
+        return body;
+    }
+
+    protected char[] referencesChars() {
+        return references;
+    }
+
     // Method to search for a keyword in the article
     public boolean searchArticle(String keyword) {
-        boolean found = new String(this.keywords).contains(keyword) ||
-                        new String(this.title).contains(keyword) ||
-                        new String(this.body).contains(keyword);
+        boolean found = new String(keywordsChars()).contains(keyword) ||
+                        new String(titleChars()).contains(keyword) ||
+                        new String(bodyChars()).contains(keyword);
         System.out.println("[Article] Search for keyword \"" + keyword + "\": " + found);
         return found;
     }
@@ -132,6 +208,7 @@ public class Article {
     }
 
     public String getTitle() {
+        char[] title = titleChars();
         System.out.println("[Article] Getting title: " + new String(title));
         return title != null ? new String(title) : null;
     }
@@ -142,6 +219,7 @@ public class Article {
     }
 
     public String getAuthors() {
+        char[] authors = authorsChars();
         System.out.println("[Article] Getting authors: " + new String(authors));
         return authors != null ? new String(authors) : null;
     }
@@ -152,6 +230,7 @@ public class Article {
     }
 
     public String getAbstractText() {
+        char[] abstractText = abstractChars();
         System.out.println("[Article] Getting abstract: " + new String(abstractText));
         return abstractText != null ? new String(abstractText) : null;
     }
@@ -162,6 +241,7 @@ public class Article {
     }
 
     public String getKeywords() {
+        char[] keywords = keywordsChars();
         System.out.println("[Article] Getting keywords: " + new String(keywords));
         return keywords != null ? new String(keywords) : null;
     }
@@ -173,6 +253,7 @@ public class Article {
 
     public String getBody() {
         System.out.println("[Article] Getting body.");
+        char[] body = bodyChars();
         return body != null ? new String(body) : null;
     }
 
@@ -182,6 +263,7 @@ public class Article {
     }
 
     public String getReferences() {
+        char[] references = referencesChars();
         System.out.println("[Article] Getting references: " + new String(references));
         return references != null ? new String(references) : null;
     }
@@ -0,0 +1,51 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code ArticleFilter} class holds the search text and filters chosen on an article list page,
+ * so the database can apply them while reading a page of articles.
+ */
+public class ArticleFilter {
+    private final String searchQuery;
+    private final boolean generalOnly;
+    private final List<String> levels;
+    private final List<String> groups;
+
+    /**
+     * Creates a filter
+     *
+     * @param searchQuery text to search for, empty to match every article
+     * @param generalOnly true to leave out articles that belong to a special group
+     * @param levels levels to include, empty to include every level
+     * @param groups groups an article must have at least one of, empty to include every group
+     */
+    public ArticleFilter(String searchQuery, boolean generalOnly, List<String> levels, List<String> groups) {
+        this.searchQuery = searchQuery != null ? searchQuery : "";
+        this.generalOnly = generalOnly;
+        this.levels = new ArrayList<>(levels);
+        this.groups = new ArrayList<>(groups);
+    }
+
+    // Filter that matches every general article
+    public static ArticleFilter allGeneralArticles() {
+        return new ArticleFilter("", true, List.of(), List.of());
+    }
+
+    public String getSearchQuery() {
+        return searchQuery;
+    }
+
+    public boolean isGeneralOnly() {
+        return generalOnly;
+    }
+
+    public List<String> getLevels() {
+        return levels;
+    }
+
+    public List<String> getGroups() {
+        return groups;
+    }
+}
@@ -0,0 +1,39 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code ArticlePage} class holds one page of article summaries read in id order,
+ * and the id to continue from to read the next page.
+ */
+public class ArticlePage {
+    private final List<ArticleSummary> summaries;
+    private final int lastId;
+    private final boolean hasMore;
+
+    /**
+     * Creates a page
+     *
+     * @param summaries the summaries on this page
+     * @param lastId id of the last article read for this page, to pass as afterId for the next page
+     * @param hasMore true if there may be more articles after this page
+     */
+    public ArticlePage(List<ArticleSummary> summaries, int lastId, boolean hasMore) {
+        this.summaries = new ArrayList<>(summaries);
+        this.lastId = lastId;
+        this.hasMore = hasMore;
+    }
+
+    public List<ArticleSummary> getSummaries() {
+        return summaries;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
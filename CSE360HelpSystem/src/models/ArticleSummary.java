@@ -0,0 +1,71 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code ArticleSummary} class holds the fields of an article that are shown in article lists.
+ * It is read without the body and references, so list pages never load or decrypt them.
+ * The full article is read with {@code HelpArticleDatabase.getArticleById} when it is opened.
+ */
+public class ArticleSummary {
+    private final int id;
+    private final String title;
+    private final String authors;
+    private final String abstractText;
+    private final String keywords;
+    private final String level;
+    private final List<String> groupingIdentifiers;
+    private final String version;
+
+    // Constructor for a summary read from the articles table
+    public ArticleSummary(int id, String title, String authors, String abstractText, String keywords, String level,
+                          List<String> groupingIdentifiers, String version) {
+        this.id = id;
+        this.title = title;
+        this.authors = authors;
+        this.abstractText = abstractText;
+        this.keywords = keywords;
+        this.level = level;
+        this.groupingIdentifiers = new ArrayList<>(groupingIdentifiers);
+        this.version = version;
+    }
+
+    // Creates a summary of an article that is already in memory
+    public static ArticleSummary of(Article article) {
+        return new ArticleSummary(article.getId(), article.getTitle(), article.getAuthors(), article.getAbstractText(),
+                article.getKeywords(), article.getLevel(), article.getGroupingIdentifiers(), article.getVersion());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthors() {
+        return authors;
+    }
+
+    public String getAbstractText() {
+        return abstractText;
+    }
+
+    public String getKeywords() {
+        return keywords;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public List<String> getGroupingIdentifiers() {
+        return groupingIdentifiers;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,260 @@
+package models;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import Encryption.ArticleEnvelope;
+
+/**
+ * The {@code LazyArticle} class is an article read from the database that keeps its text fields encrypted
+ * until they are used. Each field is decrypted the first time its getter is called and the result is kept,
+ * so a table that only shows the title, authors, and abstract never decrypts the body or references.
+ * Articles stored as envelopes decrypt an envelope with one cipher operation the first time one of its fields is
+ * read, and keep it open to decode its other fields as they are read, so a compressed body is only inflated when
+ * the body is read. The body and references are kept in a content part that is only decrypted when one of them is read.
+ *
+ * Copies made with {@link #copy()} share the encrypted fields and the decrypted results, so a field decrypted
+ * through one copy of a cached article is not decrypted again through another. Setting a field replaces it
+ * for this copy only. Because of that sharing a copy grows when any other copy is decrypted, and a cache holding
+ * one registers a listener with {@link #setDecryptionListener(Runnable)} to weigh it again.
+ */
+public class LazyArticle extends Article {
+
+    /**
+     * Decrypts one field of an article
+     */
+    public interface FieldDecryptor {
+        char[] decrypt(byte[] cipherText, byte[] iv) throws Exception;
+    }
+
+    /**
+     * Decrypts an envelope holding text fields of an article, without decoding any of them
+     */
+    public interface EnvelopeDecryptor {
+        ArticleEnvelope decrypt(byte[] cipherText, byte[] iv) throws Exception;
+    }
+
+    private static final int TITLE = 0;
+    private static final int AUTHORS = 1;
+    private static final int ABSTRACT = 2;
+    private static final int KEYWORDS = 3;
+    private static final int BODY = 4;
+    private static final int REFERENCES = 5;
+
+    private final EncryptedFields fields;
+
+    /**
+     * Creates an article from the encrypted columns of an articles row
+     *
+     * @param id the article id
+     * @param ivBase64 the Base64 encoded initialization vector
+     * @param encodedFields Base64 encoded ciphertext of the title, authors, abstract, keywords, body, and references
+     * @param decryptor decrypts a field on first use
+     * @param level the article level
+     * @param groupingIdentifiers the article groups
+     * @param permissions the article permissions
+     * @param dateAdded date the article was created
+     * @param version article version number
+     */
+    public LazyArticle(int id, String ivBase64, String[] encodedFields, FieldDecryptor decryptor, String level,
+                       List<String> groupingIdentifiers, String permissions, Date dateAdded, String version) {
+        super(id, null, null, null, null, null, null, level, groupingIdentifiers, permissions, dateAdded, version);
+        if (encodedFields.length != 6) {
+            throw new IllegalArgumentException("Expected 6 encrypted fields but got " + encodedFields.length);
+        }
+        this.fields = new EncryptedFields(Base64.getDecoder().decode(ivBase64), encodedFields.clone(), decryptor, null, null, null);
+    }
+
+    /**
+     * Creates an article from an articles row that stores its text fields in encrypted envelopes.
+     * The fields of an envelope are decrypted together the first time any of them is read.
+     *
+     * @param id the article id
+     * @param iv the initialization vector, or null if the envelope carries its own
+     * @param envelope ciphertext of the envelope, or of the summary part if the article has a content part
+     * @param content ciphertext of the content part, or null if the envelope holds every field
+     * @param decryptor decrypts an envelope on first use
+     * @param level the article level
+     * @param groupingIdentifiers the article groups
+     * @param permissions the article permissions
+     * @param dateAdded date the article was created
+     * @param version article version number
+     */
+    public LazyArticle(int id, byte[] iv, byte[] envelope, byte[] content, EnvelopeDecryptor decryptor, String level,
+                       List<String> groupingIdentifiers, String permissions, Date dateAdded, String version) {
+        super(id, null, null, null, null, null, null, level, groupingIdentifiers, permissions, dateAdded, version);
+        this.fields = new EncryptedFields(iv, new String[6], null, envelope, content, decryptor);
+    }
+
+    // Copy constructor, shares the encrypted fields and copies any fields set on the other article
+    public LazyArticle(LazyArticle other) {
+        super(other, false);
+        this.fields = other.fields;
+    }
+
+    @Override
+    public Article copy() {
+        return new LazyArticle(this);
+    }
+
+    /**
+     * Sets what to run after fields of this article, or of any copy sharing its fields, are decrypted.
+     * The listener is run without holding any lock of the article.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    public void setDecryptionListener(Runnable listener) {
+        fields.listener = listener;
+    }
+
+    /**
+     * @return true if the body has been decrypted
+     */
+    public boolean isBodyDecrypted() {
+        return fields.isDecrypted(BODY);
+    }
+
+    /**
+     * @return true if the references have been decrypted
+     */
+    public boolean isReferencesDecrypted() {
+        return fields.isDecrypted(REFERENCES);
+    }
+
+    @Override
+    protected char[] titleChars() {
+        return fieldOrSet(super.titleChars(), TITLE);
+    }
+
+    @Override
+    protected char[] authorsChars() {
+        return fieldOrSet(super.authorsChars(), AUTHORS);
+    }
+
+    @Override
+    protected char[] abstractChars() {
+        return fieldOrSet(super.abstractChars(), ABSTRACT);
+    }
+
+    @Override
+    protected char[] keywordsChars() {
+        return fieldOrSet(super.keywordsChars(), KEYWORDS);
+    }
+
+    @Override
+    protected char[] bodyChars() {
+        return fieldOrSet(super.bodyChars(), BODY);
+    }
+
+    @Override
+    protected char[] referencesChars() {
+        return fieldOrSet(super.referencesChars(), REFERENCES);
+    }
+
+    @Override
+    protected long textSizeInBytes() {
+        return super.textSizeInBytes() + fields.sizeInBytes();
+    }
+
+    private char[] fieldOrSet(char[] set, int field) {
+        return set != null ? set : fields.decrypted(field);
+    }
+
+    /**
+     * The encrypted text fields of an article and the fields decrypted so far, shared by copies of the article.
+     * The fields are either encrypted one by one or together in an envelope and a content part.
+     */
+    private static class EncryptedFields {
+        private final byte[] iv;
+        private final String[] encoded;
+        private final char[][] decrypted = new char[6][];
+        private final FieldDecryptor decryptor;
+        private byte[] envelope;
+        private byte[] content;
+        private ArticleEnvelope openedEnvelope;
+        private ArticleEnvelope openedContent;
+        private final EnvelopeDecryptor envelopeDecryptor;
+        private volatile Runnable listener;
+
+        EncryptedFields(byte[] iv, String[] encoded, FieldDecryptor decryptor, byte[] envelope, byte[] content,
+                        EnvelopeDecryptor envelopeDecryptor) {
+            this.iv = iv;
+            this.encoded = encoded;
+            this.decryptor = decryptor;
+            this.envelope = envelope;
+            this.content = content;
+            this.envelopeDecryptor = envelopeDecryptor;
+        }
+
+        char[] decrypted(int field) {
+            char[] value;
+            boolean grew = false;
+            synchronized (this) {
+                if (decrypted[field] == null) {
+                    decrypt(field);
+                    grew = true;
+                }
+                value = decrypted[field];
+            }
+            Runnable toNotify = listener;
+            if (grew && toNotify != null) {
+                toNotify.run();
+            }
+            return value;
+        }
+
+        // Called holding the lock of the fields
+        private void decrypt(int field) {
+            try {
+                if (envelopeDecryptor != null) {
+                    // An envelope is decrypted once, and then only the field being read is decoded from it
+                    if (envelope != null) {
+                        openedEnvelope = envelopeDecryptor.decrypt(envelope, iv);
+                        envelope = null; // The ciphertext is no longer needed
+                    }
+                    if (openedEnvelope != null && openedEnvelope.holds(field)) {
+                        decrypted[field] = openedEnvelope.field(field);
+                        openedEnvelope = closeIfDecoded(openedEnvelope);
+                        return;
+                    }
+                    // The content part is only decrypted when one of its fields is read
+                    if (content != null) {
+                        openedContent = envelopeDecryptor.decrypt(content, iv);
+                        content = null;
+                    }
+                    decrypted[field] = openedContent.field(field);
+                    openedContent = closeIfDecoded(openedContent);
+                } else {
+                    decrypted[field] = decryptor.decrypt(Base64.getDecoder().decode(encoded[field]), iv);
+                    encoded[field] = null; // The ciphertext is no longer needed
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to decrypt article field: " + e.getMessage(), e);
+            }
+        }
+
+        // Called holding the lock of the fields, drops an envelope once every field it holds has been decoded
+        private ArticleEnvelope closeIfDecoded(ArticleEnvelope opened) {
+            for (int field = 0; field < decrypted.length; field++) {
+                if (opened.holds(field) && decrypted[field] == null) {
+                    return opened;
+                }
+            }
+            return null;
+        }
+
+        synchronized boolean isDecrypted(int field) {
+            return decrypted[field] != null;
+        }
+
+        synchronized long sizeInBytes() {
+            long chars = 0;
+            for (int field = 0; field < encoded.length; field++) {
+                chars += encoded[field] != null ? encoded[field].length() : length(decrypted[field]);
+            }
+            return chars * Character.BYTES + (envelope != null ? envelope.length : 0) + (content != null ? content.length : 0)
+                    + (openedEnvelope != null ? openedEnvelope.sizeInBytes() : 0) + (openedContent != null ? openedContent.sizeInBytes() : 0);
+        }
+    }
+}
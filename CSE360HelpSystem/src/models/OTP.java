@@ -58,11 +58,7 @@ public class OTP {
 	 */
 	public OTP() {
 		db = Database.getInstance();
-		try {
-			encryptionHelper = new EncryptionHelper();
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		encryptionHelper = EncryptionHelper.getInstance();
 	}
 
 	/**
@@ -42,6 +42,11 @@ public class UserSession {
      */
 	private Article selectedArticle;
 	
+	/**
+	 * Id of the article picked from a list of article summaries, read in full when it is opened
+	 */
+	private Integer selectedArticleId;
+	
 	// PHASE 3 ADDITIONS
 	// 1 is view - 'student'
 	// 2 is create and delete - 'admin'
@@ -198,6 +203,28 @@ public class UserSession {
 	    }
 	    
 	    this.selectedArticle = selectedArticle;
+	    this.selectedArticleId = null;
+	}
+
+	/**
+     * Selects an article by id. Used by list pages, which only hold article summaries;
+     * the page that opens the article reads it in full.
+     *
+     * @param selectedArticleId id of the article to select
+     */
+	public void setSelectedArticleId(int selectedArticleId) {
+	    System.out.println("[UserSession] setSelectedArticleId() Selected Article ID: " + selectedArticleId);
+	    this.selectedArticle = null;
+	    this.selectedArticleId = selectedArticleId;
+	}
+
+	/**
+     * Gets the id of the article selected from a list that has not been read in full yet.
+     *
+     * @return the selected article id, or null if no article was selected by id
+     */
+	public Integer getSelectedArticleId() {
+	    return selectedArticleId;
 	}
 
 	/**
@@ -206,7 +233,8 @@ public class UserSession {
      * @return The currently selected Article object
      */
 	public Article getSelectedArticle() {
-		System.out.println("[UserSession] getSelectedArticle() Selected Article: " + selectedArticle.getTitle());
+		System.out.println("[UserSession] getSelectedArticle() Selected Article: "
+				+ (selectedArticle != null ? selectedArticle.getTitle() : null));
 		return selectedArticle;
 	}
 
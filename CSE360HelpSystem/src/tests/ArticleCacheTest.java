@@ -0,0 +1,110 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import database.ArticleCache;
+import models.Article;
+import models.LazyArticle;
+/**
+ * The {@code ArticleCacheTest} class tests the lookups, invalidation, and size bound of the ArticleCache class
+ */
+class ArticleCacheTest {
+
+    private ArticleCache cache;
+    private static int testcount = 1;
+    private static int testPass = 0;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("\n =========== ARTICLE CACHE TEST ===========\n");
+        System.out.printf("Test Group # %d%n", testcount++);
+        cache = new ArticleCache(4096);
+    }
+
+    @AfterAll
+    static void afterAll() {
+        System.out.println("\n =========== ARTICLE CACHE TESTS COMPLETE ===========\n");
+        System.out.println("\nTOTAL TESTS: " + testPass + "\nTESTS PASSED: " + testPass + "\n");
+    }
+
+    private Article createArticle(int id, String body) {
+        return new Article(id, ("Title " + id).toCharArray(), "Author".toCharArray(), "Abstract".toCharArray(),
+                "keyword".toCharArray(), body.toCharArray(), "Reference".toCharArray(), "beginner",
+                List.of("general"), "public", new Date(System.currentTimeMillis()), "1.0");
+    }
+
+    @Test
+    void testCachedArticleIsCopy() {
+        System.out.println("Testing Cache Lookup");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        assertNull(cache.get(1));
+        cache.put(createArticle(1, "Body"), cache.getGeneration());
+
+        Article cached = cache.get(1);
+        assertEquals("Title 1", cached.getTitle());
+        cached.setTitle("Changed".toCharArray());
+        assertEquals("Title 1", cache.get(1).getTitle(), "Changes to a returned article must not reach the cache");
+        assertEquals(2.0 / 3, cache.getHitRate(), 0.001);
+        testPass += 4;
+    }
+
+    @Test
+    void testInvalidation() {
+        System.out.println("Testing Cache Invalidation");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 3\n");
+        long generation = cache.getGeneration();
+        cache.put(createArticle(1, "Body"), generation);
+        cache.invalidate(1);
+        assertNull(cache.get(1));
+        assertEquals(0, cache.getResidentBytes());
+
+        // An article read before the invalidation must not be cached afterwards
+        cache.put(createArticle(1, "Old body"), generation);
+        assertNull(cache.get(1));
+        testPass += 3;
+    }
+
+    @Test
+    void testSizeBound() {
+        System.out.println("Testing Cache Size Bound");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 3\n");
+        String body = "x".repeat(800);
+        for (int id = 1; id <= 5; id++) {
+            cache.put(createArticle(id, body), cache.getGeneration());
+        }
+        assertTrue(cache.getResidentBytes() <= 4096);
+        assertNull(cache.get(1), "Least recently used article should be evicted");
+        assertNotNull(cache.get(5));
+        testPass += 3;
+    }
+
+    @Test
+    void testDecryptedArticleIsWeighedAgain() {
+        System.out.println("Testing Cache Size Bound After Lazy Decryption");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 3\n");
+        String[] fields = { "AA==", "AA==", "AA==", "AA==", "AA==", "AA==" };
+        // Each field decrypts to far more text than its ciphertext
+        LazyArticle.FieldDecryptor expand = (cipherText, iv) -> "x".repeat(700).toCharArray();
+        for (int id = 1; id <= 3; id++) {
+            cache.put(new LazyArticle(id, "AAAAAAAAAAAAAAAAAAAAAA==", fields, expand, "beginner", List.of("general"), "public",
+                    new Date(System.currentTimeMillis()), "1.0"), cache.getGeneration());
+        }
+        long encryptedBytes = cache.getResidentBytes();
+        cache.get(1).getBody();
+        assertTrue(cache.getResidentBytes() >= encryptedBytes + 1000, "Decrypting a copy should grow the cached entry");
+
+        cache.get(2).getBody();
+        cache.get(3).getBody();
+        cache.get(3).getReferences();
+        assertTrue(cache.getResidentBytes() <= 4096, "The byte bound should hold after decryption");
+        assertTrue(cache.getEvictions() > 0);
+        testPass += 3;
+    }
+}
@@ -0,0 +1,187 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Encryption.ArticleEnvelope;
+import Encryption.EncryptionHelper;
+import Encryption.EncryptionUtils;
+import database.ArticleCache;
+import database.ArticleDecryptionPipeline;
+/**
+ * The {@code ArticleDecryptionPipelineTest} class tests decrypting articles in parallel with the ArticleDecryptionPipeline class
+ */
+class ArticleDecryptionPipelineTest {
+
+    private static final int ARTICLE_COUNT = 40;
+
+    private Connection conn;
+    private static int testcount = 1;
+    private static int testPass = 0;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        System.out.println("\n =========== ARTICLE DECRYPTION PIPELINE TEST ===========\n");
+        System.out.printf("Test Group # %d%n", testcount++);
+        // In-memory database so the tests don't touch the application database
+        conn = DriverManager.getConnection("jdbc:h2:mem:decryptionPipelineTest;DB_CLOSE_DELAY=-1", "user", "");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE articles (id INT PRIMARY KEY, iv VARCHAR(255), title CLOB, authors CLOB, "
+                    + "abstract CLOB, keywords CLOB, body CLOB, references CLOB, envelope CLOB, iv_bytes VARBINARY(255), "
+                    + "envelope_bytes BLOB, level VARCHAR(20), "
+                    + "grouping_identifiers CLOB, permissions VARCHAR(50), date_added DATE, version VARCHAR(20), content_bytes BLOB)");
+        }
+        EncryptionHelper helper = new EncryptionHelper();
+        String sql = "INSERT INTO articles VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'beginner', 'Java,H2', 'public', CURRENT_DATE, '1.0', NULL)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int id = 1; id <= ARTICLE_COUNT; id++) {
+                String title = "Article " + id;
+                byte[] iv = EncryptionUtils.getInitializationVector(title.toCharArray());
+                String[] fields = { title, "Author " + id, "Abstract", "keyword", "Body of article " + id, "Reference" };
+                for (int column = 2; column <= 11; column++) {
+                    pstmt.setNull(column, java.sql.Types.NULL);
+                }
+                pstmt.setInt(1, id);
+                // Articles use each storage layout in turn: binary envelope, Base64 envelope, and a Base64 column per field
+                if (id % 3 != 1) {
+                    char[][] text = new char[fields.length][];
+                    for (int i = 0; i < fields.length; i++) {
+                        text[i] = fields[i].toCharArray();
+                    }
+                    byte[] envelope = ArticleEnvelope.seal(helper, iv, text);
+                    if (id % 3 == 0) {
+                        pstmt.setBytes(10, iv);
+                        pstmt.setBytes(11, envelope);
+                    } else {
+                        pstmt.setString(2, Base64.getEncoder().encodeToString(iv));
+                        pstmt.setString(9, Base64.getEncoder().encodeToString(envelope));
+                    }
+                } else {
+                    pstmt.setString(2, Base64.getEncoder().encodeToString(iv));
+                    for (int i = 0; i < fields.length; i++) {
+                        byte[] cipherText = helper.encrypt(EncryptionUtils.toByteArray(fields[i].toCharArray()), iv);
+                        pstmt.setString(3 + i, Base64.getEncoder().encodeToString(cipherText));
+                    }
+                }
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        System.out.println("\n =========== ARTICLE DECRYPTION PIPELINE TESTS COMPLETE ===========\n");
+        System.out.println("\nTOTAL TESTS: " + testPass + "\nTESTS PASSED: " + testPass + "\n");
+    }
+
+    private ResultSet queryArticles(Statement stmt) throws SQLException {
+        return stmt.executeQuery("SELECT * FROM articles ORDER BY id");
+    }
+
+    @Test
+    void testOrderedDecryption() throws Exception {
+        System.out.println("Testing Ordered Decryption");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        List<Integer> ids = new ArrayList<>();
+        List<String> bodies = new ArrayList<>();
+        // A small read ahead makes the reader wait for the visitor
+        try (Statement stmt = conn.createStatement(); ResultSet rs = queryArticles(stmt)) {
+            new ArticleDecryptionPipeline(4, 3).run(rs, true, article -> {
+                ids.add(article.getId());
+                bodies.add(article.getBody());
+                assertEquals(List.of("Java", "H2"), article.getGroupingIdentifiers());
+            });
+        }
+        assertEquals(ARTICLE_COUNT, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i + 1, ids.get(i), "Articles should be visited in ResultSet order");
+        }
+        assertEquals("Body of article 1", bodies.get(0));
+        assertEquals("Body of article " + ARTICLE_COUNT, bodies.get(ARTICLE_COUNT - 1));
+        testPass += 4;
+    }
+
+    @Test
+    void testUnorderedDecryption() throws Exception {
+        System.out.println("Testing Unordered Decryption");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        Set<String> titles = new HashSet<>();
+        int[] visits = new int[1];
+        try (Statement stmt = conn.createStatement(); ResultSet rs = queryArticles(stmt)) {
+            new ArticleDecryptionPipeline(4, 5).run(rs, false, article -> {
+                titles.add(article.getTitle());
+                visits[0]++;
+            });
+        }
+        assertEquals(ARTICLE_COUNT, visits[0], "Every article should be visited once");
+        assertTrue(titles.contains("Article 17"));
+        assertTrue(titles.contains("Article 18"));
+        assertTrue(titles.contains("Article 20"));
+        testPass += 4;
+    }
+
+    @Test
+    void testVisitorErrorStopsPipeline() throws Exception {
+        System.out.println("Testing Visitor Errors");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 2\n");
+        int[] visits = new int[1];
+        try (Statement stmt = conn.createStatement(); ResultSet rs = queryArticles(stmt)) {
+            Exception e = assertThrows(IllegalStateException.class, () ->
+                new ArticleDecryptionPipeline(2, 2).run(rs, true, article -> {
+                    if (++visits[0] == 3) {
+                        throw new IllegalStateException("stop");
+                    }
+                }));
+            assertEquals("stop", e.getMessage(), "The visitor's exception should be passed on");
+        }
+        testPass += 2;
+    }
+
+    @Test
+    void testCachedArticlesAreNotDecryptedAgain() throws Exception {
+        System.out.println("Testing Decryption Through The Article Cache");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        ArticleCache cache = new ArticleCache(ArticleCache.DEFAULT_MAX_BYTES);
+        try (Statement stmt = conn.createStatement(); ResultSet rs = queryArticles(stmt)) {
+            new ArticleDecryptionPipeline(4, 5).run(rs, true, cache, cache.getGeneration(), article -> { });
+        }
+        assertEquals(ARTICLE_COUNT, cache.size(), "Decrypted articles should be cached");
+        assertEquals(0, cache.getHits());
+
+        // The second run takes every article from the cache, in ResultSet order
+        List<Integer> ids = new ArrayList<>();
+        try (Statement stmt = conn.createStatement(); ResultSet rs = queryArticles(stmt)) {
+            new ArticleDecryptionPipeline(4, 5).run(rs, true, cache, cache.getGeneration(), article -> {
+                ids.add(article.getId());
+                assertEquals("Body of article " + article.getId(), article.getBody());
+            });
+        }
+        assertEquals(ARTICLE_COUNT, cache.getHits(), "Cached articles should not be decrypted again");
+        assertEquals(1, ids.get(0));
+        testPass += 4;
+    }
+}
@@ -7,13 +7,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import Encryption.CipherSuites;
+import Encryption.KeyHierarchy;
 import database.Database;
 import database.HelpArticleDatabase;
 
@@ -145,50 +146,46 @@ public class ArticleEncryptionTest {
             pstmt.setInt(1, id);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    String ivBase64 = rs.getString("iv");
-                    String encryptedTitle = rs.getString("title");
+                    // The text fields are encrypted together into one envelope, stored as raw bytes with its own IV
+                    byte[] iv = rs.getBytes("iv_bytes");
+                    byte[] envelope = rs.getBytes("envelope_bytes");
                     String encryptedBody = rs.getString("body");
                     
                     System.out.printf("Test # %d%n", (testcount++) + 1);
                     System.out.println("\n ------- Testing Encryption Article IV -------\n");
-                    assertNotNull(ivBase64, "IV should not be null");
+                    assertNull(iv, "IV should be kept in the envelope");
                     System.out.println(++testsPassed + " / " + testcount + " Tests Passed\n");
                     
                     System.out.printf("Test # %d%n", (testcount++) + 1);
                     System.out.println("\n ------- Testing Encryption Article IV -------\n");
-                    assertFalse(ivBase64.isEmpty(), "IV should not be empty");
+                    assertNull(rs.getString("iv"), "Base64 IV should not be stored");
                     System.out.println(++testsPassed + " / " + testcount + " Tests Passed\n");
                     
                     System.out.printf("Test # %d%n", (testcount++) + 1);
-                    System.out.println("\n ------- Testing Encryption Article Title -------\n");
-                    assertNotNull(encryptedTitle, "Encrypted title should not be null");
+                    System.out.println("\n ------- Testing Encryption Article Envelope -------\n");
+                    assertNotNull(envelope, "Envelope should not be null");
                     System.out.println(++testsPassed + " / " + testcount + " Tests Passed\n");
                     
                     System.out.printf("Test # %d%n", (testcount++) + 1);
-                    System.out.println("\n ------- Testing Encryption Article Title -------\n");
-                    assertFalse(encryptedTitle.isEmpty(), "Encrypted title should not be empty");
+                    System.out.println("\n ------- Testing Encryption Article Envelope -------\n");
+                    assertTrue(KeyHierarchy.isSealedWith(envelope, CipherSuites.DEFAULT), "Envelope should be sealed with the default suite and a data key");
                     System.out.println(++testsPassed + " / " + testcount + " Tests Passed\n");
                     
                     System.out.printf("Test # %d%n", (testcount++) + 1);
                     System.out.println("\n ------- Testing Encryption Article IV -------\n");
-                    assertNotEquals(new String(expectedTitle), new String(Base64.getDecoder().decode(encryptedTitle)),
-                            "Encrypted title should be different from plaintext title");
+                    assertFalse(new String(envelope).contains(new String(expectedTitle)),
+                            "Envelope should not contain the plaintext title");
                     System.out.println(++testsPassed + " / " + testcount + " Tests Passed\n");
                     
                     System.out.printf("Test # %d%n", (testcount++) + 1);
                     System.out.println("\n ------- Testing Encryption Article Contents -------\n");
-                    assertNotNull(encryptedBody, "Encrypted body should not be null");
+                    assertNull(encryptedBody, "Body should only be stored in the envelope");
                     System.out.println(++testsPassed + " / " + testcount + " Tests Passed\n");
                     
                     System.out.printf("Test # %d%n", (testcount++) + 1);
                     System.out.println("\n ------- Testing Encryption Article Contents -------\n");
-                    assertFalse(encryptedBody.isEmpty(), "Encrypted body should not be empty");
-                    System.out.println(++testsPassed + " / " + testcount + " Tests Passed\n");
-                    
-                    System.out.printf("Test # %d%n", (testcount++) + 1);
-                    System.out.println("\n ------- Testing Encryption Article Contents -------\n");
-                    assertNotEquals(new String(expectedBody), new String(Base64.getDecoder().decode(encryptedBody)),
-                            "Encrypted body should be different from plaintext body");
+                    assertFalse(new String(envelope).contains(new String(expectedBody)),
+                            "Envelope should not contain the plaintext body");
                     System.out.println(++testsPassed + " / " + testcount + " Tests Passed\n");
                     
                 } else {
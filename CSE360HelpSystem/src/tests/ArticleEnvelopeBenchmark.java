@@ -0,0 +1,66 @@
+package tests;
+
+import Encryption.ArticleEnvelope;
+import Encryption.EncryptionHelper;
+import Encryption.EncryptionUtils;
+/**
+ * The {@code ArticleEnvelopeBenchmark} compares encrypting and decrypting an article one field at a time
+ * against sealing and opening it as one envelope. Run it with {@link #main(String[])}.
+ */
+public class ArticleEnvelopeBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20_000;
+    private static final int MEASURED_ROUNDS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        EncryptionHelper helper = EncryptionHelper.getInstance();
+        char[][] fields = {
+            "Getting Started With JavaFX".toCharArray(), "Lynn Robert Carter".toCharArray(),
+            "How to build a first window".toCharArray(), "javafx,gui,beginner".toCharArray(),
+            repeat("A short paragraph of article body text. ", 20), "Oracle JavaFX documentation".toCharArray()
+        };
+        byte[] iv = EncryptionUtils.getInitializationVector(fields[0]);
+
+        run(helper, fields, iv, WARMUP_ROUNDS);
+        long[] nanos = run(helper, fields, iv, MEASURED_ROUNDS);
+        System.out.println("[ArticleEnvelopeBenchmark] " + MEASURED_ROUNDS + " articles encrypted and decrypted");
+        System.out.printf("[ArticleEnvelopeBenchmark] Per field: %.2f us per article%n", nanos[0] / 1000.0 / MEASURED_ROUNDS);
+        System.out.printf("[ArticleEnvelopeBenchmark] Envelope:  %.2f us per article%n", nanos[1] / 1000.0 / MEASURED_ROUNDS);
+    }
+
+    /**
+     * Times both layouts over the same articles
+     *
+     * @return nanoseconds spent per field and with envelopes
+     */
+    private static long[] run(EncryptionHelper helper, char[][] fields, byte[] iv, int rounds) throws Exception {
+        int sink = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (char[] field : fields) {
+                byte[] cipherText = helper.encrypt(EncryptionUtils.toByteArray(field), iv);
+                sink += EncryptionUtils.toCharArray(helper.decrypt(cipherText, iv)).length;
+            }
+        }
+        long perField = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            byte[] sealed = ArticleEnvelope.seal(helper, iv, fields);
+            sink += ArticleEnvelope.open(helper, sealed, iv).fields().length;
+        }
+        long envelope = System.nanoTime() - start;
+        if (sink == 0) {
+            System.out.println("[ArticleEnvelopeBenchmark] Nothing was decrypted");
+        }
+        return new long[] { perField, envelope };
+    }
+
+    private static char[] repeat(String text, int times) {
+        char[] repeated = new char[text.length() * times];
+        for (int i = 0; i < times; i++) {
+            text.getChars(0, text.length(), repeated, i * text.length());
+        }
+        return repeated;
+    }
+}
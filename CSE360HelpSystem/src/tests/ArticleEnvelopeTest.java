@@ -0,0 +1,122 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Encryption.ArticleEnvelope;
+import Encryption.EncryptionHelper;
+/**
+ * The {@code ArticleEnvelopeTest} class tests packing and encrypting article fields with the ArticleEnvelope class
+ */
+class ArticleEnvelopeTest {
+
+    private char[][] fields;
+    private byte[] testIV;
+    private static int testcount = 1;
+    private static int testPass = 0;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("\n =========== ARTICLE ENVELOPE TEST ===========\n");
+        System.out.printf("Test Group # %d%n", testcount++);
+        fields = new char[][] {
+            "Title".toCharArray(), "Author One, Author Two".toCharArray(), "".toCharArray(),
+            "envelope,encryption".toCharArray(), "Body with ünïcödé and € signs".toCharArray(), "None".toCharArray()
+        };
+        testIV = new byte[16];
+        Arrays.fill(testIV, (byte) 0x02);
+    }
+
+    @AfterAll
+    static void afterAll() {
+        System.out.println("\n =========== ARTICLE ENVELOPE TESTS COMPLETE ===========\n");
+        System.out.println("\nTOTAL TESTS: " + testPass + "\nTESTS PASSED: " + testPass + "\n");
+    }
+
+    @Test
+    void testPackAndUnpack() {
+        System.out.println("Testing Pack and Unpack");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 3\n");
+        ArticleEnvelope envelope = ArticleEnvelope.unpack(ArticleEnvelope.pack(fields));
+        char[][] unpacked = envelope.fields();
+        assertEquals(ArticleEnvelope.FIELD_COUNT, unpacked.length);
+        for (int i = 0; i < fields.length; i++) {
+            assertArrayEquals(fields[i], unpacked[i], "Field " + i + " should survive packing");
+        }
+        assertEquals(0, envelope.field(ArticleEnvelope.ABSTRACT).length, "Empty fields should stay empty");
+        testPass += 3;
+    }
+
+    @Test
+    void testSealAndOpen() throws Exception {
+        System.out.println("Testing Seal and Open");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 3\n");
+        EncryptionHelper helper = EncryptionHelper.getInstance();
+        byte[] sealed = ArticleEnvelope.seal(helper, testIV, fields);
+        assertFalse(new String(sealed).contains("Title"), "Sealed envelope should not hold plaintext");
+        ArticleEnvelope opened = ArticleEnvelope.open(helper, sealed, testIV);
+        assertArrayEquals(fields[ArticleEnvelope.BODY], opened.field(ArticleEnvelope.BODY));
+        assertArrayEquals(fields[ArticleEnvelope.REFERENCES], opened.field(ArticleEnvelope.REFERENCES));
+        testPass += 3;
+    }
+
+    @Test
+    void testCompression() {
+        System.out.println("Testing Compressed Bodies and References");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 6\n");
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            body.append("Step ").append(i).append(": open the help system and search for ünïcödé articles. ");
+        }
+        fields[ArticleEnvelope.BODY] = body.toString().toCharArray();
+        byte[] packed = ArticleEnvelope.pack(ArticleEnvelope.DEFAULT_COMPRESSION_THRESHOLD, fields);
+        ArticleEnvelope envelope = ArticleEnvelope.unpack(packed);
+        assertTrue(envelope.isCompressed(ArticleEnvelope.BODY), "A long body should be compressed");
+        assertFalse(envelope.isCompressed(ArticleEnvelope.REFERENCES), "Short references should not be compressed");
+        assertTrue(packed.length < ArticleEnvelope.pack(fields).length / 4, "Repetitive text should shrink");
+        assertArrayEquals(fields[ArticleEnvelope.BODY], envelope.field(ArticleEnvelope.BODY), "The body should inflate unchanged");
+
+        // Text that doesn't get smaller is stored as it is
+        fields[ArticleEnvelope.REFERENCES] = "qwertyuiopasdfgh".toCharArray();
+        assertFalse(ArticleEnvelope.unpack(ArticleEnvelope.pack(8, fields)).isCompressed(ArticleEnvelope.REFERENCES),
+                "Text that doesn't shrink should not be compressed");
+
+        byte[] damaged = packed.clone();
+        damaged[damaged.length - 10] ^= 0x55;
+        assertThrows(IllegalArgumentException.class, () -> ArticleEnvelope.unpack(damaged).field(ArticleEnvelope.BODY));
+        testPass += 6;
+    }
+
+    @Test
+    void testParts() {
+        System.out.println("Testing Summary and Content Parts");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        ArticleEnvelope summary = ArticleEnvelope.unpack(ArticleEnvelope.pack(ArticleEnvelope.NO_COMPRESSION, 0,
+                ArticleEnvelope.SUMMARY_FIELD_COUNT, fields));
+        ArticleEnvelope content = ArticleEnvelope.unpack(ArticleEnvelope.pack(ArticleEnvelope.NO_COMPRESSION,
+                ArticleEnvelope.SUMMARY_FIELD_COUNT, ArticleEnvelope.FIELD_COUNT, fields));
+        assertArrayEquals(fields[ArticleEnvelope.KEYWORDS], summary.field(ArticleEnvelope.KEYWORDS), "The summary part should hold the keywords");
+        assertArrayEquals(fields[ArticleEnvelope.BODY], content.field(ArticleEnvelope.BODY), "The content part should hold the body");
+        assertThrows(IllegalArgumentException.class, () -> summary.field(ArticleEnvelope.BODY), "The summary part should not hold the body");
+        assertNull(content.fields()[ArticleEnvelope.TITLE], "Fields a part doesn't hold should be null");
+        testPass += 4;
+    }
+
+    @Test
+    void testRejectsBadEnvelopes() {
+        System.out.println("Testing Bad Envelopes");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 3\n");
+        byte[] packed = ArticleEnvelope.pack(fields);
+        byte[] badVersion = packed.clone();
+        badVersion[0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> ArticleEnvelope.unpack(badVersion));
+        assertThrows(IllegalArgumentException.class, () -> ArticleEnvelope.unpack(Arrays.copyOf(packed, packed.length - 3)));
+        assertThrows(IllegalArgumentException.class, () -> ArticleEnvelope.pack(fields[0], fields[1]));
+        testPass += 3;
+    }
+}
@@ -0,0 +1,137 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Encryption.BlindIndexHelper;
+import database.ArticleSearchIndex;
+/**
+ * The {@code ArticleSearchIndexTest} class tests tokenizing, searching, and updating the ArticleSearchIndex class
+ */
+class ArticleSearchIndexTest {
+
+    private ArticleSearchIndex index;
+    private Connection conn;
+    private static int testcount = 1;
+    private static int testPass = 0;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        System.out.println("\n =========== ARTICLE SEARCH INDEX TEST ===========\n");
+        System.out.printf("Test Group # %d%n", testcount++);
+        index = new ArticleSearchIndex(new BlindIndexHelper());
+        // In-memory database so the tests don't touch the application database
+        conn = DriverManager.getConnection("jdbc:h2:mem:searchIndexTest;DB_CLOSE_DELAY=-1", "user", "");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE articles (id INT PRIMARY KEY)");
+            stmt.execute("INSERT INTO articles (id) VALUES (1), (2), (3)");
+        }
+        index.createTable(conn);
+        index.writeTokens(conn, 1, "Encrypting Database Fields", "Alice Smith", "security, aes", "Abstract");
+        index.writeTokens(conn, 2, "Intro to Java", "Bob Jones", "java, beginner", "Abstract");
+        index.writeTokens(conn, 3, "Java Database Access", "Alice Smith", "jdbc, h2", "Abstract");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        System.out.println("\n =========== ARTICLE SEARCH INDEX TESTS COMPLETE ===========\n");
+        System.out.println("\nTOTAL TESTS: " + testPass + "\nTESTS PASSED: " + testPass + "\n");
+    }
+
+    @Test
+    void testTokenize() {
+        System.out.println("Testing Tokenize");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 2\n");
+        assertEquals(List.of("java", "h2", "jdbc"), List.copyOf(ArticleSearchIndex.tokenize("Java, H2 & JDBC java")));
+        assertTrue(ArticleSearchIndex.tokenize(" ,.; ").isEmpty());
+        testPass += 2;
+    }
+
+    @Test
+    void testSearch() throws SQLException {
+        System.out.println("Testing Search");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 6\n");
+        assertEquals(Set.of(1, 3), index.findArticleIds(conn, "database"));
+        assertEquals(Set.of(1), index.findArticleIds(conn, "ENCRYPT data"), "Every query word should match the start of a word");
+        assertEquals(Set.of(), index.findArticleIds(conn, "java security"));
+        assertEquals(Set.of(3), index.findArticleIds(conn, "h2"), "Short words should match whole words");
+        assertEquals(Set.of(), index.findArticleIds(conn, "ja"), "Short words should not match as prefixes");
+        assertNull(index.findArticleIds(conn, "  "), "A query without words should not be answered by the index");
+        testPass += 6;
+    }
+
+    @Test
+    void testTokensHidePlaintext() throws SQLException {
+        System.out.println("Testing Stored Tokens");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 2\n");
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM article_search_tokens WHERE LOWER(token) LIKE '%java%'")) {
+            rs.next();
+            assertEquals(0, rs.getInt(1), "Tokens must not contain the indexed words");
+        }
+        assertEquals(index.queryTokens("Java"), index.queryTokens("java"));
+        testPass += 2;
+    }
+
+    @Test
+    void testUpdateAndDelete() throws SQLException {
+        System.out.println("Testing Index Updates");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        index.writeTokens(conn, 2, "Intro to Python", "Bob Jones", "python", "Abstract");
+        assertEquals(Set.of(3), index.findArticleIds(conn, "java"));
+        assertEquals(Set.of(2), index.findArticleIds(conn, "python"));
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM articles WHERE id = 3");
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM article_search_tokens WHERE article_id = 3")) {
+                rs.next();
+                assertEquals(0, rs.getInt(1), "Tokens should be deleted with their article");
+            }
+        }
+        index.articleRemoved(3);
+        assertEquals(Set.of(), index.findArticleIds(conn, "java"), "A removed article should leave the postings");
+        assertTrue(ArticleSearchIndex.matches("encryptin", "Encrypting Database Fields"));
+        testPass += 5;
+    }
+
+    @Test
+    void testPostingsInMemory() throws SQLException {
+        System.out.println("Testing In-Memory Postings");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        assertEquals(Set.of(1, 3), index.findArticleIds(conn, "database"));
+
+        // Once loaded, searches don't read the token table, and committed changes are applied in memory
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM article_search_tokens");
+        }
+        assertEquals(Set.of(1, 3), index.findArticleIds(conn, "database"));
+        index.tokensCommitted(2, index.articleTokens("Database Basics", "Bob Jones", "sql", "Abstract"));
+        assertEquals(Set.of(1, 2, 3), index.findArticleIds(conn, "database"));
+
+        // Dropped postings are loaded again from the table
+        index.invalidate();
+        assertEquals(Set.of(), index.findArticleIds(conn, "database"));
+        assertTrue(ArticleSearchIndex.isWordless(" ?! ") && !ArticleSearchIndex.isWordless(""));
+        testPass += 5;
+    }
+}
@@ -0,0 +1,49 @@
+package tests;
+
+import java.util.Random;
+
+import Encryption.CipherSuite;
+import Encryption.CipherSuites;
+/**
+ * The {@code CipherSuiteBenchmark} compares the throughput of the article cipher suites on envelopes the size
+ * of short, typical, and long articles. Run it with {@link #main(String[])}.
+ */
+public class CipherSuiteBenchmark {
+
+    private static final int[] ENVELOPE_SIZES = { 1024, 8 * 1024, 64 * 1024 };
+    private static final long BYTES_PER_RUN = 256L * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        CipherSuite[] suites = { CipherSuites.AES_CBC, CipherSuites.AES_GCM };
+        Random random = new Random(360);
+        for (int size : ENVELOPE_SIZES) {
+            byte[] plainText = new byte[size];
+            random.nextBytes(plainText);
+            for (CipherSuite suite : suites) {
+                run(suite, plainText, BYTES_PER_RUN / 8); // Warm up
+                double seconds = run(suite, plainText, BYTES_PER_RUN);
+                System.out.printf("[CipherSuiteBenchmark] %-7s %6d byte envelopes: %7.1f MB/s encrypt and decrypt%n",
+                        suite.getName(), size, BYTES_PER_RUN / seconds / (1024 * 1024));
+            }
+        }
+    }
+
+    /**
+     * Encrypts and decrypts one plaintext until the given number of bytes has been through the suite
+     *
+     * @return seconds taken
+     */
+    private static double run(CipherSuite suite, byte[] plainText, long bytes) throws Exception {
+        long rounds = bytes / plainText.length;
+        int sink = 0;
+        long start = System.nanoTime();
+        for (long round = 0; round < rounds; round++) {
+            sink += suite.decrypt(suite.encrypt(plainText)).length;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (sink == 0) {
+            System.out.println("[CipherSuiteBenchmark] Nothing was decrypted");
+        }
+        return seconds;
+    }
+}
@@ -0,0 +1,88 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Encryption.CipherSuite;
+import Encryption.CipherSuites;
+/**
+ * The {@code CipherSuiteTest} class tests the article cipher suites in the CipherSuites class
+ */
+class CipherSuiteTest {
+
+    private byte[] testPlainText;
+    private static int testcount = 1;
+    private static int testPass = 0;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("\n =========== CIPHER SUITE TEST ===========\n");
+        System.out.printf("Test Group # %d%n", testcount++);
+        testPlainText = "An article body of some length, encrypted with each suite".getBytes();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        System.out.println("\n =========== CIPHER SUITE TESTS COMPLETE ===========\n");
+        System.out.println("\nTOTAL TESTS: " + testPass + "\nTESTS PASSED: " + testPass + "\n");
+    }
+
+    @Test
+    void testRoundTrips() throws Exception {
+        System.out.println("Testing Encryption and Decryption With Each Suite");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 6\n");
+        for (CipherSuite suite : new CipherSuite[] { CipherSuites.AES_CBC, CipherSuites.AES_GCM }) {
+            byte[] cipherText = suite.encrypt(testPlainText);
+            assertEquals(suite.getVersion(), cipherText[0], suite.getName() + " should write its version first");
+            assertArrayEquals(testPlainText, CipherSuites.decrypt(cipherText), suite.getName() + " should decrypt by version");
+            // A fresh IV or nonce each time means equal plaintexts don't give equal ciphertexts
+            assertFalse(Arrays.equals(cipherText, suite.encrypt(testPlainText)), suite.getName() + " should not repeat an IV");
+        }
+        testPass += 6;
+    }
+
+    @Test
+    void testGcmDetectsTampering() throws Exception {
+        System.out.println("Testing AES-GCM Authentication");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 1\n");
+        byte[] cipherText = CipherSuites.AES_GCM.encrypt(testPlainText);
+        cipherText[cipherText.length / 2] ^= 1;
+        assertThrows(AEADBadTagException.class, () -> CipherSuites.decrypt(cipherText));
+        testPass += 1;
+    }
+
+    @Test
+    void testGcmAuthenticatesHeader() throws Exception {
+        System.out.println("Testing AES-GCM Associated Data");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 2\n");
+        SecretKey key = new SecretKeySpec(new byte[32], "AES");
+        byte[] header = { 3, 0, 0, 0, 0, 0, 0, 0, 7 };
+        byte[] cipherText = CipherSuites.AES_GCM.encrypt(key, testPlainText, header);
+        assertArrayEquals(testPlainText, CipherSuites.AES_GCM.decrypt(key, cipherText, header));
+        byte[] movedHeader = header.clone();
+        movedHeader[8] = 8;
+        assertThrows(AEADBadTagException.class, () -> CipherSuites.AES_GCM.decrypt(key, cipherText, movedHeader),
+                "Ciphertext under another header should fail to open");
+        testPass += 2;
+    }
+
+    @Test
+    void testRejectsUnknownCipherText() throws Exception {
+        System.out.println("Testing Unknown Cipher Suites");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 3\n");
+        assertThrows(IllegalArgumentException.class, () -> CipherSuites.forVersion((byte) 99));
+        assertThrows(IllegalArgumentException.class, () -> CipherSuites.decrypt(new byte[0]));
+        byte[] gcm = CipherSuites.AES_GCM.encrypt(testPlainText);
+        assertThrows(IllegalArgumentException.class, () -> CipherSuites.AES_CBC.decrypt(gcm));
+        testPass += 3;
+    }
+}
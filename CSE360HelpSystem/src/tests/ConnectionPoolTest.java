@@ -0,0 +1,148 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import database.ConnectionPool;
+/**
+ * The {@code ConnectionPoolTest} class tests borrowing, returning, and the metrics of the ConnectionPool class
+ */
+class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+    private static int testcount = 1;
+    private static int testPass = 0;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("\n =========== CONNECTION POOL TEST ===========\n");
+        System.out.printf("Test Group # %d%n", testcount++);
+        // Small in-memory pool so the tests don't touch the application database
+        pool = new ConnectionPool("jdbc:h2:mem:poolTest;DB_CLOSE_DELAY=-1", "user", "", 2, 200, 60_000, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        System.out.println("\n =========== CONNECTION POOL TESTS COMPLETE ===========\n");
+        System.out.println("\nTOTAL TESTS: " + testPass + "\nTESTS PASSED: " + testPass + "\n");
+    }
+
+    @Test
+    void testConnectionIsReused() throws SQLException {
+        System.out.println("Testing Connection Reuse");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        Connection returned;
+        try (Connection conn = pool.borrowConnection()) {
+            assertEquals(1, pool.getActiveCount());
+            returned = conn.unwrap(Connection.class);
+        }
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+
+        try (Connection conn = pool.borrowConnection()) {
+            assertEquals(1, pool.getCreatedCount(), "Idle connection should be reused instead of opening a new one");
+            assertSame(returned, conn.unwrap(Connection.class));
+        }
+        testPass += 4;
+    }
+
+    @Test
+    void testReturnedConnectionCannotBeUsed() throws SQLException {
+        System.out.println("Testing Returned Connection");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 2\n");
+        Connection conn = pool.borrowConnection();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::createStatement);
+        testPass += 2;
+    }
+
+    @Test
+    void testPoolIsBounded() throws SQLException {
+        System.out.println("Testing Pool Size Limit");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 2\n");
+        try (Connection first = pool.borrowConnection(); Connection second = pool.borrowConnection()) {
+            assertEquals(2, pool.getActiveCount());
+            assertNotSame(first.unwrap(Connection.class), second.unwrap(Connection.class));
+            assertThrows(SQLException.class, pool::borrowConnection, "Borrow should time out when the pool is exhausted");
+        }
+        testPass += 2;
+    }
+
+    @Test
+    void testBrokenConnectionIsDiscarded() throws SQLException {
+        System.out.println("Testing Validation On Borrow");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 2\n");
+        try (Connection conn = pool.borrowConnection()) {
+            conn.unwrap(Connection.class).close(); // Close the physical connection behind the pool's back
+        }
+        try (Connection conn = pool.borrowConnection()) {
+            assertTrue(conn.isValid(1));
+            assertEquals(2, pool.getCreatedCount());
+        }
+        testPass += 2;
+    }
+
+    @Test
+    void testReturnedConnectionIsReset() throws SQLException {
+        System.out.println("Testing Connection State Reset On Return");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        int isolation;
+        try (Connection conn = pool.borrowConnection()) {
+            isolation = conn.getTransactionIsolation();
+            conn.setReadOnly(true);
+            conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        }
+        try (Connection conn = pool.borrowConnection()) {
+            assertFalse(conn.isReadOnly(), "Read-only mode should not leak to the next borrower");
+            assertEquals(isolation, conn.getTransactionIsolation());
+        }
+
+        ConnectionPool broken = new ConnectionPool("jdbc:nodriver:poolTest", "user", "", 1, 200, 60_000, 0);
+        try {
+            assertThrows(SQLException.class, broken::borrowConnection);
+            assertEquals(0, broken.getCreatedCount(), "A failed connection attempt should not be counted");
+        } finally {
+            broken.shutdown();
+        }
+        testPass += 4;
+    }
+
+    @Test
+    void testPreparedStatementIsCached() throws SQLException {
+        System.out.println("Testing Statement Cache");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        String sql = "SELECT 1";
+        try (Connection conn = pool.borrowConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql); ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next());
+            }
+        }
+        try (Connection conn = pool.borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            assertFalse(pstmt.isClosed());
+            assertEquals(1, pool.getStatementCacheHits(), "Second prepare should be served from the cache");
+            assertEquals(1, pool.getStatementCacheMisses());
+            pstmt.setFetchSize(50);
+            pstmt.setMaxRows(1);
+        }
+        try (Connection conn = pool.borrowConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            assertEquals(2, pool.getStatementCacheHits());
+            assertEquals(0, pstmt.getMaxRows(), "A cached statement should not keep the row limit of its previous user");
+        }
+        testPass += 5;
+    }
+}
@@ -0,0 +1,321 @@
+package tests;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import Encryption.EncryptionHelper;
+import Encryption.EncryptionUtils;
+/**
+ * The {@code EncryptionBenchmark} measures the throughput of the Encryption package on article fields of realistic
+ * sizes, from an 80 byte title to a 200 KB body, on one thread and on every processor.
+ *
+ * It covers {@link EncryptionHelper#encrypt(byte[], byte[])} and {@link EncryptionHelper#decrypt(byte[], byte[])},
+ * AES on each provider and mode, {@link EncryptionUtils#getInitializationVector(char[])}, and the char and byte
+ * conversions. Each benchmark runs warmup iterations and then measured iterations of a fixed time, like JMH does,
+ * and the results are written as JSON in the layout of JMH's JSON result format, so releases can be compared
+ * with the same tools.
+ *
+ * Run it with {@link #main(String[])}:
+ * {@code java tests.EncryptionBenchmark [results.json] [iteration millis] [thread counts, such as 1,8]}.
+ * By default it runs on one thread and on as many threads as there are processors.
+ */
+public class EncryptionBenchmark {
+
+    private static final int[] FIELD_SIZES = { 80, 2 * 1024, 20 * 1024, 200 * 1024 };
+    private static final String[] PROVIDERS = { "BC", "SunJCE" };
+    private static final String[] MODES = { "CBC", "GCM" };
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long DEFAULT_ITERATION_MILLIS = 500;
+
+    private static final byte[] KEY_BYTES = {
+            0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07,
+            0x08, 0x09, 0x0a, 0x0b, 0x0c, 0x0d, 0x0e, 0x0f,
+            0x10, 0x11, 0x12, 0x13, 0x14, 0x15, 0x16, 0x17 };
+    private static final SecretKey KEY = new SecretKeySpec(KEY_BYTES, "AES");
+
+    /**
+     * Written by every operation so the JIT can't drop the work
+     */
+    private static volatile int sink;
+
+    private final long iterationMillis;
+    private final List<Result> results = new ArrayList<>();
+
+    private EncryptionBenchmark(long iterationMillis) {
+        this.iterationMillis = iterationMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String output = args.length > 0 ? args[0] : "encryption-benchmark.json";
+        long iterationMillis = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_ITERATION_MILLIS;
+        EncryptionHelper.getInstance(); // Registers the Bouncy Castle provider
+
+        EncryptionBenchmark benchmark = new EncryptionBenchmark(iterationMillis);
+        int processors = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = args.length > 2 ? Arrays.stream(args[2].split(",")).mapToInt(Integer::parseInt).toArray()
+                : processors > 1 ? new int[] { 1, processors } : new int[] { 1 };
+        for (int threads : threadCounts) {
+            benchmark.runAll(threads);
+        }
+        benchmark.write(output);
+        System.out.println("[EncryptionBenchmark] Results written to " + output);
+    }
+
+    private void runAll(int threads) throws Exception {
+        Random random = new Random(360);
+        byte[] iv = new byte[16];
+        random.nextBytes(iv);
+        EncryptionHelper helper = EncryptionHelper.getInstance();
+
+        for (int size : FIELD_SIZES) {
+            byte[] plainText = new byte[size];
+            random.nextBytes(plainText);
+            char[] text = EncryptionUtils.toCharArray(asciiText(random, size));
+            byte[] cipherText = helper.encrypt(plainText, iv);
+            Map<String, String> params = params("size", size);
+
+            measure("EncryptionHelper.encrypt", params, threads, size, () -> () -> sink += helper.encrypt(plainText, iv).length);
+            measure("EncryptionHelper.decrypt", params, threads, size, () -> () -> sink += helper.decrypt(cipherText, iv).length);
+            for (String provider : PROVIDERS) {
+                for (String mode : MODES) {
+                    Map<String, String> cipherParams = params("size", size);
+                    cipherParams.put("provider", provider);
+                    cipherParams.put("mode", mode);
+                    measure("Cipher.encrypt", cipherParams, threads, size, () -> encryptor(provider, mode, plainText));
+                    measure("Cipher.decrypt", cipherParams, threads, size, () -> decryptor(provider, mode, plainText));
+                }
+            }
+            measure("EncryptionUtils.toByteArray", params, threads, size, () -> () -> sink += EncryptionUtils.toByteArray(text).length);
+            byte[] utf8 = EncryptionUtils.toByteArray(text);
+            measure("EncryptionUtils.toCharArray", params, threads, size, () -> () -> sink += EncryptionUtils.toCharArray(utf8).length);
+        }
+        // The IV only depends on the first 16 characters, so one title sized field covers it
+        char[] title = EncryptionUtils.toCharArray(asciiText(random, FIELD_SIZES[0]));
+        measure("EncryptionUtils.getInitializationVector", params("size", FIELD_SIZES[0]), threads, FIELD_SIZES[0],
+                () -> () -> sink += EncryptionUtils.getInitializationVector(title)[0]);
+    }
+
+    /**
+     * An operation measured in a loop
+     */
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    /**
+     * Encrypts with a Cipher of one thread. GCM may not reuse a nonce with the same key, so each call counts one up.
+     */
+    private static Operation encryptor(String provider, String mode, byte[] plainText) throws Exception {
+        Cipher cipher = Cipher.getInstance(transformation(mode), provider);
+        byte[] iv = new byte["GCM".equals(mode) ? 12 : 16];
+        new Random().nextBytes(iv);
+        return () -> {
+            if ("GCM".equals(mode)) {
+                for (int i = 0; i < iv.length && ++iv[i] == 0; i++) {
+                    // Carry into the next byte
+                }
+            }
+            cipher.init(Cipher.ENCRYPT_MODE, KEY, spec(mode, iv));
+            sink += cipher.doFinal(plainText).length;
+        };
+    }
+
+    /**
+     * Decrypts one ciphertext over and over with a Cipher of one thread
+     */
+    private static Operation decryptor(String provider, String mode, byte[] plainText) throws Exception {
+        Cipher cipher = Cipher.getInstance(transformation(mode), provider);
+        byte[] iv = new byte["GCM".equals(mode) ? 12 : 16];
+        new Random().nextBytes(iv);
+        cipher.init(Cipher.ENCRYPT_MODE, KEY, spec(mode, iv));
+        byte[] cipherText = cipher.doFinal(plainText);
+        return () -> {
+            cipher.init(Cipher.DECRYPT_MODE, KEY, spec(mode, iv));
+            sink += cipher.doFinal(cipherText).length;
+        };
+    }
+
+    private static String transformation(String mode) {
+        return "GCM".equals(mode) ? "AES/GCM/NoPadding" : "AES/CBC/PKCS5Padding";
+    }
+
+    private static AlgorithmParameterSpec spec(String mode, byte[] iv) {
+        return "GCM".equals(mode) ? new GCMParameterSpec(128, iv) : new IvParameterSpec(iv);
+    }
+
+    /**
+     * Runs warmup and measured iterations of an operation on a number of threads, each with its own operation
+     *
+     * @param setup creates the operation of one thread, outside the measured time
+     */
+    private void measure(String name, Map<String, String> params, int threads, int bytesPerOperation,
+            Callable<Operation> setup) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Operation> operations = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                operations.add(setup.call());
+            }
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                iterate(executor, operations);
+            }
+            double[] scores = new double[MEASUREMENT_ITERATIONS];
+            for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+                scores[i] = iterate(executor, operations);
+            }
+            Result result = new Result(name, params, threads, scores);
+            results.add(result);
+            System.out.printf(Locale.ROOT, "[EncryptionBenchmark] %-40s %-42s threads=%-2d %,14.1f ops/s +- %,10.1f  %9.1f MB/s%n",
+                    name, params, threads, result.mean(), result.error(), result.mean() * bytesPerOperation / (1024 * 1024));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs the operations on their threads for one iteration
+     *
+     * @return operations per second across all threads
+     */
+    private double iterate(ExecutorService executor, List<Operation> operations) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> counts = new ArrayList<>();
+        for (Operation operation : operations) {
+            counts.add(executor.submit(() -> {
+                start.await();
+                long deadline = System.nanoTime() + iterationMillis * 1_000_000;
+                long count = 0;
+                do {
+                    operation.run();
+                    count++;
+                } while (System.nanoTime() < deadline);
+                return count;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long total = 0;
+        for (Future<Long> count : counts) {
+            total += count.get();
+        }
+        return total / ((System.nanoTime() - begin) / 1e9);
+    }
+
+    private static Map<String, String> params(String name, int value) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put(name, String.valueOf(value));
+        return params;
+    }
+
+    private static byte[] asciiText(Random random, int size) {
+        byte[] text = new byte[size];
+        for (int i = 0; i < size; i++) {
+            text[i] = (byte) (' ' + random.nextInt(95));
+        }
+        return text;
+    }
+
+    /**
+     * Writes the results in the layout of JMH's JSON result format
+     */
+    private void write(String output) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(output))) {
+            writer.write("[\n");
+            for (int i = 0; i < results.size(); i++) {
+                writer.write(results.get(i).toJson());
+                writer.write(i + 1 < results.size() ? ",\n" : "\n");
+            }
+            writer.write("]\n");
+        }
+    }
+
+    /**
+     * The measured iterations of one benchmark with one set of parameters
+     */
+    private final class Result {
+        private final String name;
+        private final Map<String, String> params;
+        private final int threads;
+        private final double[] scores;
+
+        private Result(String name, Map<String, String> params, int threads, double[] scores) {
+            this.name = name;
+            this.params = params;
+            this.threads = threads;
+            this.scores = scores;
+        }
+
+        double mean() {
+            return Arrays.stream(scores).average().orElse(0);
+        }
+
+        /**
+         * Half width of the 99.9% confidence interval, with the t value for the fixed number of iterations
+         */
+        double error() {
+            double mean = mean();
+            double variance = Arrays.stream(scores).map(score -> (score - mean) * (score - mean)).sum() / (scores.length - 1);
+            return 8.610 * Math.sqrt(variance / scores.length); // t(0.9995, 4 degrees of freedom)
+        }
+
+        String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("  {\n");
+            json.append("    \"benchmark\" : \"tests.EncryptionBenchmark.").append(name).append("\",\n");
+            json.append("    \"mode\" : \"thrpt\",\n");
+            json.append("    \"threads\" : ").append(threads).append(",\n");
+            json.append("    \"forks\" : 1,\n");
+            json.append("    \"jvm\" : \"").append(escape(System.getProperty("java.home"))).append("\",\n");
+            json.append("    \"jdkVersion\" : \"").append(System.getProperty("java.version")).append("\",\n");
+            json.append("    \"warmupIterations\" : ").append(WARMUP_ITERATIONS).append(",\n");
+            json.append("    \"warmupTime\" : \"").append(iterationMillis).append(" ms\",\n");
+            json.append("    \"measurementIterations\" : ").append(MEASUREMENT_ITERATIONS).append(",\n");
+            json.append("    \"measurementTime\" : \"").append(iterationMillis).append(" ms\",\n");
+            json.append("    \"params\" : {");
+            String separator = "\n";
+            for (Map.Entry<String, String> param : params.entrySet()) {
+                json.append(separator).append("      \"").append(param.getKey()).append("\" : \"").append(param.getValue()).append("\"");
+                separator = ",\n";
+            }
+            json.append("\n    },\n");
+            json.append("    \"primaryMetric\" : {\n");
+            json.append(String.format(Locale.ROOT, "      \"score\" : %.3f,%n", mean()));
+            json.append(String.format(Locale.ROOT, "      \"scoreError\" : %.3f,%n", error()));
+            json.append(String.format(Locale.ROOT, "      \"scoreConfidence\" : [ %.3f, %.3f ],%n", mean() - error(), mean() + error()));
+            json.append("      \"scoreUnit\" : \"ops/s\",\n");
+            json.append("      \"rawData\" : [ [ ");
+            for (int i = 0; i < scores.length; i++) {
+                json.append(String.format(Locale.ROOT, "%s%.3f", i > 0 ? ", " : "", scores[i]));
+            }
+            json.append(" ] ]\n");
+            json.append("    }\n");
+            json.append("  }");
+            return json.toString();
+        }
+
+        private String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"");
+        }
+    }
+}
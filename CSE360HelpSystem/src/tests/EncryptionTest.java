@@ -2,7 +2,13 @@ package tests;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -58,6 +64,36 @@ class EncryptionTest {
         testPass+= 4;
     }
 
+    @Test
+    void testSharedHelperAcrossThreads() throws Exception {
+    	System.out.println("Testing Encryption From Many Threads");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 2\n");
+        EncryptionHelper shared = EncryptionHelper.getInstance();
+        assertSame(shared, EncryptionHelper.getInstance());
+
+        // Every thread encrypts and decrypts its own text with the shared helper at the same time
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int task = 0; task < 64; task++) {
+            byte[] plainText = ("Text from task " + task).getBytes();
+            results.add(threads.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    if (!Arrays.equals(plainText, shared.decrypt(shared.encrypt(plainText, testIV), testIV))) {
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        }
+        boolean allMatched = true;
+        for (Future<Boolean> result : results) {
+            allMatched &= result.get();
+        }
+        threads.shutdown();
+        assertTrue(allMatched, "Every round trip should return the original text");
+        testPass+= 2;
+    }
+
     
     // Tests for EncryptionUtils
     @Test
@@ -77,6 +113,29 @@ class EncryptionTest {
         testPass++;
     }
 
+    @Test
+    void testUtf8Conversions() {
+    	System.out.println("Testing UTF-8 Conversions");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        // One, two, three, and four byte characters
+        String testString = "Aé€😀 article";
+        byte[] utf8 = testString.getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(utf8, EncryptionUtils.toByteArray(testString.toCharArray()));
+        assertEquals(testString, new String(EncryptionUtils.toCharArray(utf8)));
+
+        // Encoding into a buffer supplied by the caller leaves the rest of the buffer alone
+        char[] chars = testString.toCharArray();
+        byte[] buffer = new byte[utf8.length + 4];
+        assertEquals(utf8.length, EncryptionUtils.utf8Length(chars, 0, chars.length));
+        assertEquals(utf8.length, EncryptionUtils.encodeUtf8(chars, 0, chars.length, buffer, 2));
+        assertArrayEquals(utf8, Arrays.copyOfRange(buffer, 2, 2 + utf8.length));
+
+        // Malformed bytes decode to replacement characters like the JDK decoder
+        byte[] malformed = { 'a', (byte) 0xC0, (byte) 0x80, (byte) 0xED, (byte) 0xA0, (byte) 0x80, (byte) 0xF0, (byte) 0x9F };
+        assertEquals(new String(malformed, StandardCharsets.UTF_8), new String(EncryptionUtils.toCharArray(malformed)));
+        testPass+= 5;
+    }
+
     @Test
     void testGetInitializationVector() {
     	System.out.println("Testing Initialization Vector Creation");
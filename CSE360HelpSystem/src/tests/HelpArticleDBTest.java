@@ -1,20 +1,40 @@
 package tests;
 
 
+import database.ArticleBackupFormat;
+import database.ArticleCache;
+import database.ArticleJobRunner;
+import database.ArticleRestoreEngine;
+import database.ConnectionPool;
 import database.Database;
 import database.HelpArticleDatabase;
+import database.ReencryptArticlesJob;
 import models.Article;
+import models.ArticleFilter;
+import models.ArticlePage;
+import models.ArticleSummary;
+import models.LazyArticle;
 import org.junit.jupiter.api.*;
+import Encryption.ArticleEnvelope;
+import Encryption.CipherSuites;
+import Encryption.EncryptionHelper;
 import Encryption.EncryptionUtils;
+import Encryption.KeyHierarchy;
+import Encryption.MasterKeyFile;
 
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -52,6 +72,8 @@ class HelpArticleDBTest {
         clearArticles();
         clearGroupingIdentifiers();
         helpArticleDatabase.createArticleTables();
+        clearArticleJobs();
+        clearArticleKeys();
         System.out.println("\n =========== HELP ARTICLE DATABASE TEST ===========\n");
         System.out.printf("Test Group # %d%n", testcount++);
     }
@@ -78,7 +100,7 @@ class HelpArticleDBTest {
     @Test
     void createArticle() throws Exception {
     	System.out.println("\nTesting Article Creation In Database");
-    	System.out.println("\nTESTS IN THIS TEST GROUP: 1\n");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 2\n");
     	
         char[] title = "Sample Title".toCharArray();
         char[] authors = "John Doe".toCharArray();
@@ -94,10 +116,11 @@ class HelpArticleDBTest {
 
         article = new Article(1, title, authors, abstractText, keywords, body, references, level,
                               groupingIdentifiers, permissions, dateAdded, version);
-        helpArticleDatabase.createArticle(article);
+        int id = helpArticleDatabase.createArticle(article);
         assertFalse(helpArticleDatabase.areArticlesEmpty());
+        assertEquals("Sample Title", helpArticleDatabase.getArticleById(id).getTitle());
         helpArticleDatabase.updateArticle(article);
-        testPass++;
+        testPass+= 2;
     }
     /**
      * Tests creating and retrieving an article.
@@ -191,8 +214,9 @@ class HelpArticleDBTest {
         helpArticleDatabase.createArticle(title, authors, none, none, body, none, level, groupingIdentifiers, permissions, dateAdded, version);
 
         // Backup articles to a file
-        String backupFile = "articles_backup.txt";
-        helpArticleDatabase.backupArticles(backupFile);
+        java.io.File backupFile = java.io.File.createTempFile("articles_backup", ".txt");
+        backupFile.deleteOnExit();
+        helpArticleDatabase.backupArticles(backupFile.getPath());
 
         // Clear the articles from the database
         clearArticles();
@@ -229,6 +253,738 @@ class HelpArticleDBTest {
         testPass+= 3;
     }
 
+    /**
+     * Tests reading article summaries and then the full article.
+     */
+    @Test
+    void testArticleSummaries() throws Exception {
+    	System.out.println("\nTesting Article Summaries From Database");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        char[] none = "none".toCharArray();
+        helpArticleDatabase.createArticle("Summary Article".toCharArray(), "Jane Roe".toCharArray(), "Short abstract".toCharArray(),
+        		none, "Long body".toCharArray(), none, "beginner", List.of("Java"), "public", new Date(System.currentTimeMillis()), "1.0");
+
+        List<ArticleSummary> summaries = helpArticleDatabase.getAllGeneralArticleSummaries();
+        assertEquals(1, summaries.size(), "There should be exactly one article summary");
+        ArticleSummary summary = summaries.get(0);
+        assertEquals("Summary Article", summary.getTitle(), "Summary title does not match");
+        assertEquals(List.of("Java"), summary.getGroupingIdentifiers(), "Summary groups do not match");
+        assertEquals(1, helpArticleDatabase.searchGeneralArticleSummaries("roe").size(), "Search did not find the summary");
+
+        // The full article is read when it is opened
+        assertEquals("Long body", helpArticleDatabase.getArticleById(summary.getId()).getBody(), "Body does not match");
+        testPass+= 5;
+    }
+
+    /**
+     * Tests that summaries only read and decrypt the summary part of an article.
+     */
+    @Test
+    void testSummariesSkipContentPart() throws Exception {
+    	System.out.println("\nTesting Summaries Without The Content Part");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 3\n");
+        char[] none = "none".toCharArray();
+        int id = helpArticleDatabase.createArticle("Summary Only".toCharArray(), "Jane Roe".toCharArray(), none, none,
+        		"Long body".toCharArray(), none, "beginner", List.of("Java"), "public", new Date(System.currentTimeMillis()), "1.0");
+        // A content part that can't be decrypted, so reading it would fail
+        try (Statement stmt = connection.createStatement()) {
+        	assertEquals(1, stmt.executeUpdate("UPDATE articles SET content_bytes = X'0102030405' WHERE id = " + id),
+        			"The body and references should be stored apart from the summary fields");
+        }
+        assertEquals(List.of("Summary Only"), helpArticleDatabase.getAllGeneralArticleSummaries().stream().map(ArticleSummary::getTitle).toList(),
+        		"Summaries should not read the content part");
+        assertThrows(IllegalStateException.class, () -> helpArticleDatabase.getArticleById(id).getBody(),
+        		"The body should come from the content part");
+        testPass+= 3;
+    }
+
+    /**
+     * Tests reading article summaries a page at a time with filters.
+     */
+    @Test
+    void testArticleSummaryPages() throws Exception {
+    	System.out.println("\nTesting Article Summary Pages From Database");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 9\n");
+        char[] none = "none".toCharArray();
+        Date now = new Date(System.currentTimeMillis());
+        helpArticleDatabase.createArticle("Paged One".toCharArray(), none, none, none, none, none, "beginner", List.of("Java"), "public", now, "1.0");
+        helpArticleDatabase.createArticle("Paged Two".toCharArray(), none, none, none, none, none, "expert", List.of("Java", "H2"), "public", now, "1.0");
+        helpArticleDatabase.createArticle("Paged Three".toCharArray(), none, none, none, none, none, "beginner", List.of("Python"), "public", now, "1.0");
+
+        ArticlePage first = helpArticleDatabase.getArticleSummaryPage(ArticleFilter.allGeneralArticles(), 0, 2);
+        assertEquals(2, first.getSummaries().size(), "The first page should be full");
+        assertTrue(first.hasMore(), "A full page may have more articles after it");
+        assertEquals(first.getSummaries().get(1).getId(), first.getLastId(), "The page should continue after its last id");
+
+        ArticlePage second = helpArticleDatabase.getArticleSummaryPage(ArticleFilter.allGeneralArticles(), first.getLastId(), 2);
+        assertEquals(List.of("Paged Three"), second.getSummaries().stream().map(ArticleSummary::getTitle).collect(Collectors.toList()));
+        assertFalse(second.hasMore(), "The last page should not have more articles");
+
+        ArticleFilter filter = new ArticleFilter("paged", true, List.of("beginner"), List.of("Java", "H2"));
+        assertEquals(List.of("Paged One"), helpArticleDatabase.getArticleSummaryPage(filter, 0, 10).getSummaries().stream()
+        		.map(ArticleSummary::getTitle).collect(Collectors.toList()), "Filters should be applied by the database");
+        assertEquals(Map.of("beginner", 2L, "expert", 1L),
+        		helpArticleDatabase.countArticlesByLevel(ArticleFilter.allGeneralArticles()), "Level counts do not match");
+
+        // A query of only punctuation has no words, so it matches nothing instead of everything
+        assertTrue(helpArticleDatabase.searchGeneralArticleSummaries("?!").isEmpty());
+        assertTrue(helpArticleDatabase.getArticleSummaryPage(new ArticleFilter("--", true, List.of(), List.of()), 0, 10)
+        		.getSummaries().isEmpty(), "A query without words should match no article");
+        testPass+= 9;
+    }
+
+    /**
+     * Tests streaming articles to a visitor with a small fetch size.
+     */
+    @Test
+    void testStreamArticles() throws Exception {
+    	System.out.println("\nTesting Streaming Articles From Database");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        char[] none = "none".toCharArray();
+        Date now = new Date(System.currentTimeMillis());
+        for (int i = 1; i <= 5; i++) {
+        	helpArticleDatabase.createArticle(("Streamed " + i).toCharArray(), none, none, none, none, none,
+        			i % 2 == 0 ? "expert" : "beginner", List.of("Java"), "public", now, "1.0");
+        }
+
+        // A fetch size smaller than the number of articles makes the cursor fetch more than once
+        helpArticleDatabase.setFetchSize(2);
+        List<String> titles = new ArrayList<>();
+        helpArticleDatabase.forEachArticle(article -> titles.add(article.getTitle()));
+        assertEquals(List.of("Streamed 1", "Streamed 2", "Streamed 3", "Streamed 4", "Streamed 5"), titles, "Articles should be streamed in id order");
+
+        List<String> experts = new ArrayList<>();
+        helpArticleDatabase.forEachArticleWithLevel("expert", article -> experts.add(article.getTitle()));
+        assertEquals(List.of("Streamed 2", "Streamed 4"), experts, "Only expert articles should be streamed");
+
+        int[] general = new int[1];
+        helpArticleDatabase.forEachGeneralArticle(article -> general[0]++);
+        assertEquals(5, general[0], "Every article should be general");
+        assertThrows(IllegalArgumentException.class, () -> helpArticleDatabase.setFetchSize(0));
+        testPass+= 4;
+    }
+
+    @Test
+    void testMigrateArticleStorage() throws Exception {
+    	System.out.println("\nTesting Moving Articles To Binary Envelopes");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 8\n");
+        // An article written before envelopes existed, with one Base64 encrypted column per field
+        String[] fields = { "Legacy Title", "Legacy Author", "Legacy Abstract", "legacy", "Legacy Body", "Legacy References" };
+        byte[] iv = EncryptionUtils.getInitializationVector(fields[0].toCharArray());
+        EncryptionHelper helper = EncryptionHelper.getInstance();
+        String sql = "INSERT INTO articles (iv, title, authors, abstract, keywords, body, references, level, "
+        		+ "grouping_identifiers, permissions, date_added, version) VALUES (?, ?, ?, ?, ?, ?, ?, 'beginner', 'Java', 'public', CURRENT_DATE, '1.0')";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        	pstmt.setString(1, Base64.getEncoder().encodeToString(iv));
+        	for (int i = 0; i < fields.length; i++) {
+        		byte[] cipherText = helper.encrypt(EncryptionUtils.toByteArray(fields[i].toCharArray()), iv);
+        		pstmt.setString(2 + i, Base64.getEncoder().encodeToString(cipherText));
+        	}
+        	pstmt.executeUpdate();
+        }
+        // An article written with a Base64 envelope
+        char[][] text = { "Envelope Title".toCharArray(), none(), none(), none(), "Envelope Body".toCharArray(), none() };
+        byte[] envelopeIv = EncryptionUtils.getInitializationVector(text[0]);
+        sql = "INSERT INTO articles (iv, envelope, level, grouping_identifiers, permissions, date_added, version) "
+        		+ "VALUES (?, ?, 'beginner', 'Java', 'public', CURRENT_DATE, '1.0')";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        	pstmt.setString(1, Base64.getEncoder().encodeToString(envelopeIv));
+        	pstmt.setString(2, Base64.getEncoder().encodeToString(ArticleEnvelope.seal(helper, envelopeIv, text)));
+        	pstmt.executeUpdate();
+        }
+
+        assertEquals(2, helpArticleDatabase.migrateArticleStorage(), "Both older articles should be moved");
+        assertEquals(0, helpArticleDatabase.migrateArticleStorage(), "A second run should have nothing to move");
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT iv, body, envelope, iv_bytes, envelope_bytes FROM articles ORDER BY id")) {
+        	assertTrue(rs.next());
+        	// The per-field article is decrypted, so it is sealed again with the current cipher suite and a data key
+        	assertTrue(KeyHierarchy.isSealedWith(rs.getBytes("envelope_bytes"), CipherSuites.DEFAULT), "The binary envelope should be written");
+        	assertNull(rs.getString("body"), "The old columns should be cleared");
+        	assertTrue(rs.next());
+        	assertArrayEquals(envelopeIv, rs.getBytes("iv_bytes"), "The IV should be stored as raw bytes");
+        }
+        List<Article> articles = helpArticleDatabase.getAllDecryptedArticles();
+        assertEquals("Legacy Body", articles.get(0).getBody(), "The moved article should decrypt the same");
+        assertEquals("Envelope Body", articles.get(1).getBody(), "The moved envelope should decrypt the same");
+        testPass+= 8;
+    }
+
+    @Test
+    void testMixedCipherSuites() throws Exception {
+    	System.out.println("\nTesting Articles Written With Different Cipher Suites");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        Date now = new Date(System.currentTimeMillis());
+        helpArticleDatabase.setCipherSuite(CipherSuites.AES_CBC);
+        helpArticleDatabase.createArticle("CBC Title".toCharArray(), none(), none(), none(), "CBC Body".toCharArray(), none(),
+        		"beginner", List.of("Java"), "public", now, "1.0");
+        helpArticleDatabase.setCipherSuite(CipherSuites.AES_GCM);
+        helpArticleDatabase.createArticle("GCM Title".toCharArray(), none(), none(), none(), "GCM Body".toCharArray(), none(),
+        		"beginner", List.of("Java"), "public", now, "1.0");
+
+        List<Boolean> sealedWithSuite = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT envelope_bytes FROM articles ORDER BY id")) {
+        	rs.next();
+        	sealedWithSuite.add(KeyHierarchy.isSealedWith(rs.getBytes("envelope_bytes"), CipherSuites.AES_CBC));
+        	rs.next();
+        	sealedWithSuite.add(KeyHierarchy.isSealedWith(rs.getBytes("envelope_bytes"), CipherSuites.AES_GCM));
+        }
+        assertEquals(List.of(true, true), sealedWithSuite, "Each envelope should name the suite it was sealed with");
+        List<Article> articles = helpArticleDatabase.getAllDecryptedArticles();
+        assertEquals("CBC Body", articles.get(0).getBody());
+        assertEquals("GCM Body", articles.get(1).getBody());
+        assertThrows(IllegalArgumentException.class, () -> helpArticleDatabase.setCipherSuite(null));
+        testPass+= 4;
+    }
+
+    @Test
+    void testBackgroundReencryption() throws Exception {
+    	System.out.println("\nTesting Re-encrypting Articles In The Background");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 8\n");
+        for (int i = 0; i < 3; i++) {
+        	insertLegacyArticle("Legacy Title " + i, "Legacy Body " + i);
+        }
+        Date now = new Date(System.currentTimeMillis());
+        helpArticleDatabase.setCipherSuite(CipherSuites.AES_CBC);
+        helpArticleDatabase.createArticle("CBC Title".toCharArray(), none(), none(), none(), "CBC Body".toCharArray(), none(),
+        		"beginner", List.of("Java"), "public", now, "1.0");
+        helpArticleDatabase.setCipherSuite(CipherSuites.AES_GCM);
+        helpArticleDatabase.createArticle("GCM Title".toCharArray(), none(), none(), none(), "GCM Body".toCharArray(), none(),
+        		"beginner", List.of("Java"), "public", now, "1.0");
+        List<String> bodies = List.of("Legacy Body 0", "Legacy Body 1", "Legacy Body 2", "CBC Body", "GCM Body");
+
+        ReencryptArticlesJob job = new ReencryptArticlesJob(CipherSuites.AES_GCM);
+        ArticleJobRunner runner = new ArticleJobRunner(ConnectionPool.getInstance(), 2, 0);
+        assertTrue(runner.runBatch(job), "The first batch should leave articles for later");
+        runner.shutdown();
+        assertEquals(bodies, bodiesOf(helpArticleDatabase.getAllDecryptedArticles()), "Articles should read the same part way through");
+
+        // A new runner continues from the saved checkpoint instead of starting over
+        ArticleJobRunner restarted = new ArticleJobRunner(ConnectionPool.getInstance(), 2, 0);
+        assertEquals(4, restarted.start(job).get(), "Only the legacy and CBC articles should be rewritten");
+        assertTrue(restarted.isCompleted(job));
+        int sealed = 0;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT envelope_bytes FROM articles WHERE iv IS NULL AND iv_bytes IS NULL AND title IS NULL")) {
+        	while (rs.next()) {
+        		sealed += KeyHierarchy.isSealedWith(rs.getBytes("envelope_bytes"), CipherSuites.AES_GCM) ? 1 : 0;
+        	}
+        }
+        assertEquals(5, sealed, "Every article should be a GCM envelope with a data key");
+        assertEquals(bodies, bodiesOf(helpArticleDatabase.getAllDecryptedArticles()), "Articles should read the same afterwards");
+        assertFalse(restarted.runBatch(job), "A finished job should not run again");
+
+        // Restores can bring back older articles, so they make the job look at every article again
+        insertLegacyArticle("Restored Title", "Restored Body");
+        try (Connection conn = ConnectionPool.getInstance().borrowConnection()) {
+        	ArticleJobRunner.resetCheckpoints(conn);
+        }
+        assertFalse(restarted.isCompleted(job), "Resetting should reopen the job");
+        assertEquals(5, restarted.start(job).get(), "Only the restored article should be rewritten");
+        restarted.shutdown();
+        testPass+= 8;
+    }
+
+    @Test
+    void testIncrementalBackupAfterRewrites() throws Exception {
+    	System.out.println("\nTesting Incremental Backups After Re-encrypting And Moving Articles");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        try (Statement stmt = connection.createStatement()) {
+        	stmt.execute("CREATE TABLE IF NOT EXISTS special_group_articles (group_id INT, article_id INT, PRIMARY KEY (group_id, article_id))");
+        }
+        Date now = new Date(System.currentTimeMillis());
+        helpArticleDatabase.setCipherSuite(CipherSuites.AES_CBC);
+        for (int i = 1; i <= 2; i++) {
+        	helpArticleDatabase.createArticle(("CBC Title " + i).toCharArray(), none(), none(), none(), ("CBC Body " + i).toCharArray(), none(),
+        			"beginner", List.of("Java"), "public", now, "1.0");
+        }
+        helpArticleDatabase.setCipherSuite(CipherSuites.AES_GCM);
+        java.io.File full = java.io.File.createTempFile("articles_full", ".bak");
+        java.io.File reencrypted = java.io.File.createTempFile("articles_changes", ".bak");
+        java.io.File migrated = java.io.File.createTempFile("articles_changes", ".bak");
+        full.deleteOnExit();
+        reencrypted.deleteOnExit();
+        migrated.deleteOnExit();
+        helpArticleDatabase.backupArticles(full.getPath());
+
+        // Rewriting an article is a change, so the next incremental backup holds the GCM envelopes
+        ArticleJobRunner runner = new ArticleJobRunner(ConnectionPool.getInstance(), 50, 0);
+        try (Connection conn = ConnectionPool.getInstance().borrowConnection()) {
+        	ArticleJobRunner.resetCheckpoints(conn);
+        }
+        runner.start(new ReencryptArticlesJob(CipherSuites.AES_GCM)).get();
+        runner.shutdown();
+        assertEquals(2, helpArticleDatabase.backupChangedArticles(reencrypted.getPath(), full.getPath()),
+        		"Both re-encrypted articles should be in the incremental backup");
+
+        // Moving an older article is a change too
+        insertLegacyArticle("Legacy Title", "Legacy Body");
+        assertEquals(1, helpArticleDatabase.migrateArticleStorage(), "The legacy article should be moved");
+        assertEquals(1, helpArticleDatabase.backupChangedArticles(migrated.getPath(), reencrypted.getPath()),
+        		"The moved article should be in the incremental backup");
+
+        clearArticles();
+        helpArticleDatabase.restoreArticleChain(List.of(full.getPath(), reencrypted.getPath(), migrated.getPath()));
+        int sealed = 0;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT envelope_bytes FROM articles WHERE iv IS NULL AND iv_bytes IS NULL AND title IS NULL")) {
+        	while (rs.next()) {
+        		sealed += KeyHierarchy.isSealedWith(rs.getBytes("envelope_bytes"), CipherSuites.AES_GCM) ? 1 : 0;
+        	}
+        }
+        assertEquals(3, sealed, "The chain should restore the articles as they are stored now");
+        assertEquals(List.of("CBC Body 1", "CBC Body 2", "Legacy Body"), bodiesOf(helpArticleDatabase.getAllDecryptedArticles()),
+        		"Restored articles should read the same");
+        testPass+= 5;
+    }
+
+    @Test
+    void testMasterKeyRotation() throws Exception {
+    	System.out.println("\nTesting Master Key Rotation And Backups With Data Keys");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 6\n");
+        Date now = new Date(System.currentTimeMillis());
+        helpArticleDatabase.createArticle("First Title".toCharArray(), none(), none(), none(), "First Body".toCharArray(), none(),
+        		"beginner", List.of("Java"), "public", now, "1.0");
+        helpArticleDatabase.createArticle("Second Title".toCharArray(), none(), none(), none(), "Second Body".toCharArray(), none(),
+        		"beginner", List.of("Java"), "public", now, "1.0");
+        List<String> bodies = List.of("First Body", "Second Body");
+
+        byte[] masterKey = new byte[32];
+        Arrays.fill(masterKey, (byte) 0x5a);
+        int version = KeyHierarchy.getInstance().getCurrentMasterKeyVersion() + 1;
+        assertThrows(IllegalStateException.class, () -> helpArticleDatabase.rotateMasterKey(version, masterKey),
+        		"A master key that can't be saved should not be used");
+        java.nio.file.Path keyDirectory = java.nio.file.Files.createTempDirectory("master_keys");
+        java.nio.file.Path keyFile = keyDirectory.resolve("master-keys.p12");
+        KeyHierarchy.getInstance().setMasterKeyProvider(new MasterKeyFile(keyFile, "test".toCharArray()));
+        try {
+        	assertEquals(2, helpArticleDatabase.rotateMasterKey(version, masterKey), "Each article's data key should be wrapped again");
+        } finally {
+        	KeyHierarchy.getInstance().setMasterKeyProvider(null);
+        	java.nio.file.Files.deleteIfExists(keyFile);
+        	java.nio.file.Files.deleteIfExists(keyDirectory);
+        }
+        assertEquals(0, countRows("SELECT COUNT(*) FROM article_keys WHERE master_version <> " + version));
+        KeyHierarchy.getInstance().clearCache();
+        assertEquals(bodies, bodiesOf(helpArticleDatabase.getAllDecryptedArticles()), "Articles should read the same after rotation");
+
+        // A backup carries the wrapped data keys, so it restores into a database without the keys
+        java.io.File backupFile = java.io.File.createTempFile("articles_backup", ".txt");
+        backupFile.deleteOnExit();
+        helpArticleDatabase.backupArticles(backupFile.getPath());
+        clearArticles();
+        clearArticleKeys();
+        KeyHierarchy.getInstance().clearCache();
+        helpArticleDatabase.restoreArticlesWithMerge(backupFile.getPath(), true);
+        assertEquals(2, countRows("SELECT COUNT(*) FROM article_keys"), "Each article's data key should be restored");
+        assertEquals(bodies, bodiesOf(helpArticleDatabase.getAllDecryptedArticles()), "Restored articles should read the same");
+        testPass+= 6;
+    }
+
+    @Test
+    void testCompressedArticles() throws Exception {
+    	System.out.println("\nTesting Compressed Article Bodies");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+        	body.append("Paragraph ").append(i).append(" explains how to submit an assignment through the help system. ");
+        }
+        Date now = new Date(System.currentTimeMillis());
+        int compressedId = helpArticleDatabase.createArticle("Compressed".toCharArray(), none(), none(), none(), body.toString().toCharArray(), none(),
+        		"beginner", List.of("Java"), "public", now, "1.0");
+        helpArticleDatabase.setCompressionThreshold(ArticleEnvelope.NO_COMPRESSION);
+        helpArticleDatabase.createArticle("Uncompressed".toCharArray(), none(), none(), none(), body.toString().toCharArray(), none(),
+        		"beginner", List.of("Java"), "public", now, "1.0");
+
+        List<Integer> sizes = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT OCTET_LENGTH(content_bytes) FROM articles ORDER BY id")) {
+        	while (rs.next()) {
+        		sizes.add(rs.getInt(1));
+        	}
+        }
+        System.out.println("Stored content part sizes, compressed and uncompressed: " + sizes);
+        assertTrue(sizes.get(0) * 4 < sizes.get(1), "The compressed body should take far less space");
+        assertEquals(List.of(body.toString(), body.toString()), bodiesOf(helpArticleDatabase.getAllDecryptedArticles()),
+        		"Both bodies should read the same");
+        assertThrows(IllegalArgumentException.class, () -> helpArticleDatabase.setCompressionThreshold(0));
+
+        // Read from the database again, the cached copy had its body read above
+        ArticleCache.getInstance().invalidateAll();
+        LazyArticle compressed = (LazyArticle) helpArticleDatabase.getArticleById(compressedId);
+        assertEquals("Compressed", compressed.getTitle());
+        assertFalse(compressed.isBodyDecrypted(), "Reading the title should leave the compressed body un-inflated");
+        testPass+= 5;
+    }
+
+    @Test
+    void testGroupBackupCopiesCiphertext() throws Exception {
+    	System.out.println("\nTesting Group Backups Without Decryption");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 3\n");
+        Date now = new Date(System.currentTimeMillis());
+        helpArticleDatabase.createArticle("Java".toCharArray(), none(), none(), none(), "Java Body".toCharArray(), none(),
+        		"beginner", List.of("Java", "Eclipse"), "public", now, "1.0");
+        helpArticleDatabase.createArticle("JavaFX".toCharArray(), none(), none(), none(), "JavaFX Body".toCharArray(), none(),
+        		"beginner", List.of("JavaFX"), "public", now, "1.0");
+        byte[] stored;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT envelope_bytes FROM articles ORDER BY id LIMIT 1")) {
+        	rs.next();
+        	stored = rs.getBytes(1);
+        }
+
+        java.io.File backupFile = java.io.File.createTempFile("group_backup", ".txt");
+        backupFile.deleteOnExit();
+        helpArticleDatabase.backupGroupArticles(backupFile.getPath(), List.of("Java"));
+        String backup = new String(java.nio.file.Files.readAllBytes(backupFile.toPath()));
+        assertTrue(backup.contains(java.util.Base64.getEncoder().encodeToString(stored)),
+        		"The stored ciphertext should be copied to the backup as it is");
+        clearArticles();
+        helpArticleDatabase.restoreArticlesWithMerge(backupFile.getPath(), true);
+        assertEquals(List.of("Java Body"), bodiesOf(helpArticleDatabase.getAllDecryptedArticles()),
+        		"Only the article in the Java group should be backed up");
+
+        helpArticleDatabase.backupGroupArticles(backupFile.getPath(), List.of());
+        assertEquals(0, backupFile.length(), "A backup of no groups should be empty");
+        testPass+= 3;
+    }
+
+    @Test
+    void testRestoreTransactions() throws Exception {
+    	System.out.println("\nTesting Batched Restores In One Transaction Or In Chunks");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        try (Statement stmt = connection.createStatement()) {
+        	stmt.execute("CREATE TABLE IF NOT EXISTS special_group_articles (group_id INT, article_id INT, PRIMARY KEY (group_id, article_id))");
+        }
+        Date now = new Date(System.currentTimeMillis());
+        List<String> bodies = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+        	bodies.add("Body " + i);
+        	helpArticleDatabase.createArticle(("Title " + i).toCharArray(), none(), none(), none(), ("Body " + i).toCharArray(), none(),
+        			"beginner", List.of("Java"), "public", now, "1.0");
+        }
+        java.io.File backupFile = java.io.File.createTempFile("restore_backup", ".txt");
+        backupFile.deleteOnExit();
+        helpArticleDatabase.backupArticles(backupFile.getPath());
+
+        // Add a copy of the last article with a broken id, then a fixed copy of the same length to resume with
+        String backup = new String(java.nio.file.Files.readAllBytes(backupFile.toPath()));
+        String lastRecord = backup.substring(backup.lastIndexOf("END_OF_ARTICLE\n", backup.length() - 16) + 15);
+        String copy = lastRecord.substring(lastRecord.indexOf('\n'));
+        java.nio.file.Files.write(backupFile.toPath(), (backup + "99x9" + copy).getBytes());
+        assertThrows(NumberFormatException.class, () -> helpArticleDatabase.restoreArticles(backupFile.getPath()));
+        assertEquals(bodies, bodiesOf(helpArticleDatabase.getAllDecryptedArticles()),
+        		"A failed restore in one transaction should leave the articles as they were");
+
+        helpArticleDatabase.setRestoreOptions(2, ArticleRestoreEngine.CommitMode.CHUNKED);
+        assertThrows(NumberFormatException.class, () -> helpArticleDatabase.restoreArticles(backupFile.getPath()));
+        assertEquals(4, countRows("SELECT COUNT(*) FROM articles"), "The chunks committed before the failure should stay");
+
+        java.nio.file.Files.write(backupFile.toPath(), (backup + "9999" + copy).getBytes());
+        ArticleRestoreEngine.RestoreResult result = helpArticleDatabase.restoreArticles(backupFile.getPath());
+        assertEquals(4, result.getResumedAfter(), "The restore should resume after the committed records");
+        assertEquals(6, countRows("SELECT COUNT(*) FROM articles"), "The remaining articles should be restored");
+        assertEquals(0, countRows("SELECT COUNT(*) FROM article_restores"), "The resume marker should be removed");
+        testPass+= 5;
+    }
+
+    @Test
+    void testSpecialGroupRestore() throws Exception {
+    	System.out.println("\nTesting Restoring The Articles Of One Special Group");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 3\n");
+        try (Statement stmt = connection.createStatement()) {
+        	stmt.execute("CREATE TABLE IF NOT EXISTS special_group_articles (group_id INT, article_id INT, PRIMARY KEY (group_id, article_id))");
+        	stmt.execute("DELETE FROM special_group_articles");
+        }
+        Date now = new Date(System.currentTimeMillis());
+        int first = helpArticleDatabase.createArticle("Group Title 1".toCharArray(), none(), none(), none(), "Group Body 1".toCharArray(), none(),
+        		"beginner", List.of("Java"), "public", now, "1.0");
+        int second = helpArticleDatabase.createArticle("Group Title 2".toCharArray(), none(), none(), none(), "Group Body 2".toCharArray(), none(),
+        		"beginner", List.of("Java"), "public", now, "1.0");
+        try (Statement stmt = connection.createStatement()) {
+        	stmt.execute("INSERT INTO special_group_articles VALUES (7, " + first + "), (7, " + second + "), (8, " + second + ")");
+        }
+        java.io.File backupFile = java.io.File.createTempFile("group_backup", ".txt");
+        backupFile.deleteOnExit();
+        helpArticleDatabase.backupSpecialGroupArticles(backupFile.getPath(), 7);
+
+        try (Statement stmt = connection.createStatement()) {
+        	stmt.execute("DELETE FROM special_group_articles WHERE group_id = 7 AND article_id = " + second);
+        	stmt.execute("INSERT INTO special_group_articles VALUES (7, 12345)");
+        }
+        assertEquals(2, helpArticleDatabase.restoreSpecialGroupArticles(backupFile.getPath(), 7).getRestored());
+        assertEquals(2, countRows("SELECT COUNT(*) FROM special_group_articles WHERE group_id = 7 AND article_id IN (" + first + ", " + second + ")"),
+        		"The group should link exactly the articles of its backup");
+        assertEquals(List.of(2, 1), List.of(countRows("SELECT COUNT(*) FROM special_group_articles WHERE group_id = 7"),
+        		countRows("SELECT COUNT(*) FROM special_group_articles WHERE group_id = 8")), "Only the restored group should be cleared");
+        try (Statement stmt = connection.createStatement()) {
+        	stmt.execute("DELETE FROM special_group_articles");
+        }
+        testPass+= 3;
+    }
+
+    @Test
+    void testBinaryBackups() throws Exception {
+    	System.out.println("\nTesting Binary Backup Files");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        Date now = new Date(System.currentTimeMillis());
+        List<String> bodies = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+        	bodies.add("Body " + i);
+        	helpArticleDatabase.createArticle(("Title " + i).toCharArray(), none(), none(), none(), ("Body " + i).toCharArray(), none(),
+        			"beginner", List.of("Java", "Eclipse"), "public", now, "1.0");
+        }
+        insertLegacyArticle("Legacy Title", "Legacy Body");
+        bodies.add("Legacy Body");
+        java.io.File textFile = java.io.File.createTempFile("articles_backup", ".txt");
+        java.io.File binaryFile = java.io.File.createTempFile("articles_backup", ".bak");
+        textFile.deleteOnExit();
+        binaryFile.deleteOnExit();
+        helpArticleDatabase.backupArticles(textFile.getPath());
+        helpArticleDatabase.setBackupFormat(ArticleBackupFormat.BINARY_COMPRESSED);
+        helpArticleDatabase.backupArticles(binaryFile.getPath());
+        System.out.println("Backup sizes, text and binary: " + textFile.length() + ", " + binaryFile.length());
+        assertTrue(binaryFile.length() < textFile.length(), "The binary backup should be smaller than the text backup");
+
+        // Restores tell the formats apart by themselves
+        clearArticles();
+        helpArticleDatabase.restoreArticlesWithMerge(binaryFile.getPath(), true);
+        assertEquals(bodies, bodiesOf(helpArticleDatabase.getAllDecryptedArticles()), "The binary backup should restore every article");
+        clearArticles();
+        helpArticleDatabase.restoreArticlesWithMerge(textFile.getPath(), true);
+        assertEquals(bodies, bodiesOf(helpArticleDatabase.getAllDecryptedArticles()), "The text backup should still restore");
+
+        // A flipped byte fails the block checksum, and a cut file is missing its end block
+        byte[] backup = java.nio.file.Files.readAllBytes(binaryFile.toPath());
+        backup[backup.length / 2] ^= 1;
+        java.nio.file.Files.write(binaryFile.toPath(), backup);
+        clearArticles();
+        assertThrows(java.io.IOException.class, () -> helpArticleDatabase.restoreArticlesWithMerge(binaryFile.getPath(), true));
+        backup[backup.length / 2] ^= 1;
+        java.nio.file.Files.write(binaryFile.toPath(), java.util.Arrays.copyOf(backup, backup.length - 10));
+        assertThrows(java.io.IOException.class, () -> helpArticleDatabase.restoreArticlesWithMerge(binaryFile.getPath(), true));
+        testPass+= 5;
+    }
+
+    @Test
+    void testIncrementalBackups() throws Exception {
+    	System.out.println("\nTesting Incremental Backups And Restoring A Backup Chain");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        try (Statement stmt = connection.createStatement()) {
+        	stmt.execute("CREATE TABLE IF NOT EXISTS special_group_articles (group_id INT, article_id INT, PRIMARY KEY (group_id, article_id))");
+        }
+        Date now = new Date(System.currentTimeMillis());
+        for (int i = 1; i <= 3; i++) {
+        	helpArticleDatabase.createArticle(("Title " + i).toCharArray(), none(), none(), none(), ("Body " + i).toCharArray(), none(),
+        			"beginner", List.of("Java"), "public", now, "1.0");
+        }
+        List<Article> articles = helpArticleDatabase.getAllDecryptedArticles();
+        java.io.File full = java.io.File.createTempFile("articles_full", ".bak");
+        java.io.File firstChanges = java.io.File.createTempFile("articles_changes", ".bak");
+        java.io.File secondChanges = java.io.File.createTempFile("articles_changes", ".bak");
+        full.deleteOnExit();
+        firstChanges.deleteOnExit();
+        secondChanges.deleteOnExit();
+        helpArticleDatabase.backupArticles(full.getPath());
+
+        // Update the first article, delete the second, and add a fourth
+        helpArticleDatabase.updateArticle(new Article(articles.get(0).getId(), "Title 1".toCharArray(), none(), none(), none(),
+        		"Updated Body 1".toCharArray(), none(), "beginner", List.of("Java"), "public", now, "1.1"));
+        helpArticleDatabase.deleteArticle(articles.get(1).getId());
+        helpArticleDatabase.createArticle("Title 4".toCharArray(), none(), none(), none(), "Body 4".toCharArray(), none(),
+        		"beginner", List.of("Java"), "public", now, "1.0");
+        assertEquals(3, helpArticleDatabase.backupChangedArticles(firstChanges.getPath(), full.getPath()),
+        		"Only the updated and added articles and one tombstone should be backed up");
+
+        // Delete the fourth article again, the next backup only holds its tombstone
+        int fourthId = helpArticleDatabase.getAllDecryptedArticles().get(2).getId();
+        helpArticleDatabase.deleteArticle(fourthId);
+        helpArticleDatabase.setBackupFormat(ArticleBackupFormat.BINARY);
+        assertEquals(1, helpArticleDatabase.backupChangedArticles(secondChanges.getPath(), firstChanges.getPath()));
+
+        clearArticles();
+        ArticleRestoreEngine.RestoreResult result = helpArticleDatabase.restoreArticleChain(
+        		List.of(full.getPath(), firstChanges.getPath(), secondChanges.getPath()));
+        assertEquals(List.of("Updated Body 1", "Body 3"), bodiesOf(helpArticleDatabase.getAllDecryptedArticles()),
+        		"The chain should restore the articles as they were at the last backup");
+        assertEquals(2, result.getDeleted(), "Both tombstones should delete their article");
+        assertThrows(IllegalArgumentException.class,
+        		() -> helpArticleDatabase.backupChangedArticles(secondChanges.getPath(), "unknown_backup.bak"));
+        testPass+= 5;
+    }
+
+    @Test
+    void testResumeChunkedChain() throws Exception {
+    	System.out.println("\nTesting Resuming A Backup Chain Restored In Chunks");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        try (Statement stmt = connection.createStatement()) {
+        	stmt.execute("CREATE TABLE IF NOT EXISTS special_group_articles (group_id INT, article_id INT, PRIMARY KEY (group_id, article_id))");
+        }
+        Date now = new Date(System.currentTimeMillis());
+        for (int i = 1; i <= 3; i++) {
+        	helpArticleDatabase.createArticle(("Title " + i).toCharArray(), none(), none(), none(), ("Body " + i).toCharArray(), none(),
+        			"beginner", List.of("Java"), "public", now, "1.0");
+        }
+        List<Article> articles = helpArticleDatabase.getAllDecryptedArticles();
+        java.io.File full = java.io.File.createTempFile("articles_full", ".txt");
+        java.io.File changes = java.io.File.createTempFile("articles_changes", ".txt");
+        full.deleteOnExit();
+        changes.deleteOnExit();
+        helpArticleDatabase.backupArticles(full.getPath());
+        for (int i = 0; i < 2; i++) {
+        	helpArticleDatabase.updateArticle(new Article(articles.get(i).getId(), ("Title " + (i + 1)).toCharArray(), none(), none(), none(),
+        			("Updated Body " + (i + 1)).toCharArray(), none(), "beginner", List.of("Java"), "public", now, "1.1"));
+        }
+        helpArticleDatabase.backupChangedArticles(changes.getPath(), full.getPath());
+
+        // The incremental backup fails after its first two records are committed
+        String backup = new String(java.nio.file.Files.readAllBytes(changes.toPath()));
+        String lastRecord = backup.substring(backup.lastIndexOf("END_OF_ARTICLE\n", backup.length() - 16) + 15);
+        String copy = lastRecord.substring(lastRecord.indexOf('\n'));
+        java.nio.file.Files.write(changes.toPath(), (backup + "99x9" + copy).getBytes());
+        clearArticles();
+        helpArticleDatabase.setRestoreOptions(1, ArticleRestoreEngine.CommitMode.CHUNKED);
+        List<String> chain = List.of(full.getPath(), changes.getPath());
+        assertThrows(NumberFormatException.class, () -> helpArticleDatabase.restoreArticleChain(chain));
+
+        // Resuming skips the finished full backup instead of clearing the articles the incremental backup committed
+        java.nio.file.Files.write(changes.toPath(), (backup + "9999" + copy).getBytes());
+        ArticleRestoreEngine.RestoreResult result = helpArticleDatabase.restoreArticleChain(chain);
+        assertEquals(5, result.getResumedAfter(), "The chain should resume after the full backup and two records");
+        List<String> bodies = bodiesOf(helpArticleDatabase.getAllDecryptedArticles());
+        assertEquals(List.of("Updated Body 1", "Updated Body 2", "Body 3"), bodies.subList(0, 3),
+        		"Records committed before the failure should not be lost");
+        assertEquals(4, bodies.size());
+        assertEquals(0, countRows("SELECT COUNT(*) FROM article_restores"), "The markers of the chain should be removed");
+        testPass+= 4;
+    }
+
+    @Test
+    void testMergePolicies() throws Exception {
+    	System.out.println("\nTesting Merge Restores Through The Staging Table");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 7\n");
+        Date now = new Date(System.currentTimeMillis());
+        for (int i = 1; i <= 3; i++) {
+        	helpArticleDatabase.createArticle(("Title " + i).toCharArray(), none(), none(), none(), ("Body " + i).toCharArray(), none(),
+        			"beginner", List.of("Java"), "public", now, "1.0");
+        }
+        List<Article> articles = helpArticleDatabase.getAllDecryptedArticles();
+        java.io.File backup = java.io.File.createTempFile("articles_backup", ".bak");
+        java.io.File afterMerge = java.io.File.createTempFile("articles_backup", ".bak");
+        java.io.File changes = java.io.File.createTempFile("articles_changes", ".bak");
+        backup.deleteOnExit();
+        afterMerge.deleteOnExit();
+        changes.deleteOnExit();
+        helpArticleDatabase.setBackupFormat(ArticleBackupFormat.BINARY);
+        helpArticleDatabase.backupArticles(backup.getPath());
+
+        // The first article gets a newer version than the backup, the second an older one, and the third is deleted
+        helpArticleDatabase.updateArticle(new Article(articles.get(0).getId(), "Local Title 1".toCharArray(), none(), none(), none(),
+        		"Local Body 1".toCharArray(), none(), "beginner", List.of("Java"), "public", now, "1.10"));
+        helpArticleDatabase.updateArticle(new Article(articles.get(1).getId(), "Older Title 2".toCharArray(), none(), none(), none(),
+        		"Local Body 2".toCharArray(), none(), "beginner", List.of("Java"), "public", now, "0.9"));
+        helpArticleDatabase.deleteArticle(articles.get(2).getId());
+
+        ArticleRestoreEngine.RestoreResult result = helpArticleDatabase.restoreArticlesWithMerge(backup.getPath(), true);
+        assertEquals(List.of(1, 2), List.of(result.getRestored(), result.getSkipped()), "A merge should only add the deleted article");
+        assertEquals(List.of("Local Body 1", "Local Body 2", "Body 3"), bodiesOf(helpArticleDatabase.getAllDecryptedArticles()));
+
+        result = helpArticleDatabase.restoreArticlesWithMerge(backup.getPath(), ArticleRestoreEngine.ConflictPolicy.KEEP_NEWER);
+        assertEquals(List.of("Local Body 1", "Body 2", "Body 3"), bodiesOf(helpArticleDatabase.getAllDecryptedArticles()),
+        		"Version 1.0 of the backup should only replace version 0.9");
+        assertEquals(1, result.getRestored());
+        assertEquals(List.of(0, 1), List.of(helpArticleDatabase.searchArticles("Older").size(), helpArticleDatabase.searchArticles("Local").size()),
+        		"A replaced article should not be found by its old title");
+
+        helpArticleDatabase.backupArticles(afterMerge.getPath());
+        helpArticleDatabase.restoreArticlesWithMerge(backup.getPath(), ArticleRestoreEngine.ConflictPolicy.OVERWRITE);
+        assertEquals(List.of("Body 1", "Body 2", "Body 3"), bodiesOf(helpArticleDatabase.getAllDecryptedArticles()),
+        		"Overwriting should replace every article");
+        assertEquals(List.of(0, 3), List.of(helpArticleDatabase.searchArticles("Local").size(), helpArticleDatabase.searchArticles("Title").size()),
+        		"Overwritten articles should only be found by their restored titles");
+        assertEquals(3, helpArticleDatabase.backupChangedArticles(changes.getPath(), afterMerge.getPath()),
+        		"Overwritten articles should be in the next incremental backup");
+
+        assertTrue(ArticleRestoreEngine.compareVersions("1.10", "1.9") > 0
+        		&& ArticleRestoreEngine.compareVersions("1.0", "1") == 0
+        		&& ArticleRestoreEngine.compareVersions(null, "0.1") < 0, "Versions should compare part by part");
+        testPass+= 7;
+    }
+
+    @Test
+    void testParallelRestore() throws Exception {
+    	System.out.println("\nTesting Restoring Large Backups On Several Reader Threads");
+    	System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        Date now = new Date(System.currentTimeMillis());
+        String filler = "x".repeat(6000);
+        List<String> bodies = new ArrayList<>();
+        for (int i = 1; i <= 60; i++) {
+        	bodies.add("Body " + i + filler);
+        	helpArticleDatabase.createArticle(("Title " + i).toCharArray(), none(), none(), none(), ("Body " + i + filler).toCharArray(), none(),
+        			"beginner", List.of("Java"), "public", now, "1.0");
+        }
+        java.io.File textFile = java.io.File.createTempFile("articles_backup", ".txt");
+        java.io.File binaryFile = java.io.File.createTempFile("articles_backup", ".bak");
+        textFile.deleteOnExit();
+        binaryFile.deleteOnExit();
+        helpArticleDatabase.backupArticles(textFile.getPath());
+        helpArticleDatabase.setBackupFormat(ArticleBackupFormat.BINARY);
+        helpArticleDatabase.backupArticles(binaryFile.getPath());
+
+        // Chunks much smaller than the files, so every file is cut into many chunks parsed on 3 threads
+        helpArticleDatabase.setRestoreReader(3, 16 * 1024);
+        helpArticleDatabase.setRestoreOptions(7, ArticleRestoreEngine.CommitMode.SINGLE_TRANSACTION);
+        clearArticles();
+        assertEquals(60, helpArticleDatabase.restoreArticlesWithMerge(textFile.getPath(), true).getRestored(),
+        		"Every article of the text backup should be restored once");
+        assertEquals(bodies, bodiesOf(helpArticleDatabase.getAllDecryptedArticles()), "The text backup should restore in order");
+        clearArticles();
+        helpArticleDatabase.restoreArticlesWithMerge(binaryFile.getPath(), true);
+        assertEquals(bodies, bodiesOf(helpArticleDatabase.getAllDecryptedArticles()), "The binary backup should restore in order");
+
+        // A bad block near the end fails the restore, and the transaction leaves the articles as they were
+        byte[] backup = java.nio.file.Files.readAllBytes(binaryFile.toPath());
+        backup[backup.length - 100] ^= 1;
+        java.nio.file.Files.write(binaryFile.toPath(), backup);
+        clearArticles();
+        assertThrows(java.io.IOException.class, () -> helpArticleDatabase.restoreArticlesWithMerge(binaryFile.getPath(), true));
+        assertEquals(0, helpArticleDatabase.getAllDecryptedArticles().size(), "A failed restore should write nothing");
+        testPass+= 5;
+    }
+
+    private int countRows(String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        	rs.next();
+        	return rs.getInt(1);
+        }
+    }
+
+    private void insertLegacyArticle(String title, String body) throws Exception {
+        // One Base64 encrypted column per field, as articles were written before envelopes existed
+        String[] fields = { title, "Legacy Author", "Legacy Abstract", "legacy", body, "Legacy References" };
+        byte[] iv = EncryptionUtils.getInitializationVector(fields[0].toCharArray());
+        EncryptionHelper helper = EncryptionHelper.getInstance();
+        String sql = "INSERT INTO articles (iv, title, authors, abstract, keywords, body, references, level, "
+        		+ "grouping_identifiers, permissions, date_added, version) VALUES (?, ?, ?, ?, ?, ?, ?, 'beginner', 'Java', 'public', CURRENT_DATE, '1.0')";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        	pstmt.setString(1, Base64.getEncoder().encodeToString(iv));
+        	for (int i = 0; i < fields.length; i++) {
+        		byte[] cipherText = helper.encrypt(EncryptionUtils.toByteArray(fields[i].toCharArray()), iv);
+        		pstmt.setString(2 + i, Base64.getEncoder().encodeToString(cipherText));
+        	}
+        	pstmt.executeUpdate();
+        }
+    }
+
+    private static List<String> bodiesOf(List<Article> articles) {
+    	return articles.stream().map(Article::getBody).collect(Collectors.toList());
+    }
+
+    private static char[] none() {
+    	return "none".toCharArray();
+    }
+
     /**
      * Clears all articles from the articles table.
      * 
@@ -242,6 +998,28 @@ class HelpArticleDBTest {
         }
     }
 
+    /**
+     * Clears the checkpoints of background article jobs.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public void clearArticleJobs() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("DELETE FROM article_jobs");
+        }
+    }
+
+    /**
+     * Clears the wrapped data keys of articles.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public void clearArticleKeys() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("DELETE FROM article_keys");
+        }
+    }
+
     /**
      * Clears all grouping identifiers from the GroupingIdentifiers table.
      * 
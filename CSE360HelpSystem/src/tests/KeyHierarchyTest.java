@@ -0,0 +1,156 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Encryption.CipherSuite;
+import Encryption.CipherSuites;
+import Encryption.DataKeyRecord;
+import Encryption.DataKeyStore;
+import Encryption.KeyHierarchy;
+import Encryption.MasterKeyFile;
+/**
+ * The {@code KeyHierarchyTest} class tests data keys wrapped by master keys in the KeyHierarchy class
+ */
+class KeyHierarchyTest {
+
+    private KeyHierarchy keys;
+    private Map<Long, DataKeyRecord> records;
+    private byte[] testPlainText;
+    private static int testcount = 1;
+    private static int testPass = 0;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("\n =========== KEY HIERARCHY TEST ===========\n");
+        System.out.printf("Test Group # %d%n", testcount++);
+        records = new HashMap<>();
+        keys = new KeyHierarchy(2);
+        keys.setStore(new DataKeyStore() {
+            @Override
+            public void save(DataKeyRecord record) {
+                records.put(record.getKeyId(), record);
+            }
+
+            @Override
+            public DataKeyRecord load(long keyId) {
+                return records.get(keyId);
+            }
+        });
+        testPlainText = "An article body encrypted with a data key".getBytes();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        System.out.println("\n =========== KEY HIERARCHY TESTS COMPLETE ===========\n");
+        System.out.println("\nTOTAL TESTS: " + testPass + "\nTESTS PASSED: " + testPass + "\n");
+    }
+
+    @Test
+    void testDataKeyRoundTrips() throws Exception {
+        System.out.println("Testing Encryption and Decryption With Data Keys");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        long first = keys.createDataKey();
+        long second = keys.createDataKey();
+        assertNotEquals(first, second, "Each data key should get its own id");
+        for (CipherSuite suite : new CipherSuite[] { CipherSuites.AES_CBC, CipherSuites.AES_GCM }) {
+            byte[] cipherText = keys.sealer(first, suite).encrypt(testPlainText);
+            assertTrue(KeyHierarchy.isSealedWith(cipherText, suite), suite.getName() + " should be named after the key header");
+            assertArrayEquals(testPlainText, keys.decrypt(cipherText), suite.getName() + " should decrypt with the data key");
+        }
+        testPass += 5;
+    }
+
+    @Test
+    void testUnwrappedKeysAreCached() throws Exception {
+        System.out.println("Testing The Data Key Cache");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 3\n");
+        long keyId = keys.createDataKey();
+        byte[] cipherText = keys.sealer(keyId, CipherSuites.AES_GCM).encrypt(testPlainText);
+        keys.clearCache();
+        long hits = keys.getCacheHits();
+        long misses = keys.getCacheMisses();
+        keys.decrypt(cipherText);
+        keys.decrypt(cipherText);
+        assertEquals(misses + 1, keys.getCacheMisses(), "Only the first read should unwrap the key");
+        assertEquals(hits + 1, keys.getCacheHits(), "The second read should use the cached key");
+
+        // The cache holds two keys here, so the least recently used one is unwrapped again
+        keys.createDataKey();
+        keys.createDataKey();
+        keys.decrypt(cipherText);
+        assertEquals(misses + 2, keys.getCacheMisses(), "An evicted key should be unwrapped again");
+        testPass += 3;
+    }
+
+    @Test
+    void testMasterKeyRotation() throws Exception {
+        System.out.println("Testing Master Key Rotation");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        long keyId = keys.createDataKey();
+        byte[] cipherText = keys.sealer(keyId, CipherSuites.AES_GCM).encrypt(testPlainText);
+        byte[] masterKey = new byte[32];
+        masterKey[0] = 7;
+        keys.addMasterKey(2, masterKey);
+        keys.useMasterKey(2);
+
+        DataKeyRecord rewrapped = keys.rewrap(records.get(keyId));
+        assertEquals(2, rewrapped.getMasterKeyVersion(), "The key should be wrapped with the new master key");
+        assertSame(rewrapped, keys.rewrap(rewrapped), "A key already wrapped with the current master key is left alone");
+        records.put(keyId, rewrapped);
+        keys.clearCache();
+        assertArrayEquals(testPlainText, keys.decrypt(cipherText), "The article should decrypt after rotation unchanged");
+        assertThrows(IllegalArgumentException.class, () -> keys.addMasterKey(2, masterKey));
+        testPass += 4;
+    }
+
+    @Test
+    void testMasterKeysSurviveRestart() throws Exception {
+        System.out.println("Testing Master Keys Saved In A Keystore File");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        byte[] masterKey = new byte[32];
+        masterKey[0] = 9;
+        assertThrows(IllegalStateException.class, () -> keys.rotateMasterKey(2, masterKey),
+                "Rotating without a provider should be refused");
+
+        Path directory = Files.createTempDirectory("master_keys");
+        Path keyFile = directory.resolve("master-keys.p12");
+        try {
+            keys.setMasterKeyProvider(new MasterKeyFile(keyFile, "secret".toCharArray()));
+            keys.rotateMasterKey(2, masterKey);
+            long keyId = keys.createDataKey();
+            byte[] cipherText = keys.sealer(keyId, CipherSuites.AES_GCM).encrypt(testPlainText);
+            assertEquals(2, records.get(keyId).getMasterKeyVersion());
+
+            // A new hierarchy stands in for the application after a restart
+            KeyHierarchy restarted = new KeyHierarchy(2);
+            restarted.setStore(new DataKeyStore() {
+                @Override
+                public void save(DataKeyRecord record) {
+                    records.put(record.getKeyId(), record);
+                }
+
+                @Override
+                public DataKeyRecord load(long id) {
+                    return records.get(id);
+                }
+            });
+            restarted.setMasterKeyProvider(new MasterKeyFile(keyFile, "secret".toCharArray()));
+            assertEquals(2, restarted.getCurrentMasterKeyVersion(), "The rotated key should be current again");
+            assertArrayEquals(testPlainText, restarted.decrypt(cipherText), "The data key should unwrap after a restart");
+            assertThrows(IllegalArgumentException.class, () -> restarted.rotateMasterKey(2, masterKey));
+        } finally {
+            Files.deleteIfExists(keyFile);
+            Files.deleteIfExists(directory);
+        }
+        testPass += 5;
+    }
+}
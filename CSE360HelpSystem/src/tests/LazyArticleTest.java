@@ -0,0 +1,99 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Encryption.ArticleEnvelope;
+import models.Article;
+import models.LazyArticle;
+/**
+ * The {@code LazyArticleTest} class tests that the LazyArticle class only decrypts fields when they are read
+ */
+class LazyArticleTest {
+
+    private AtomicInteger decryptions;
+    private LazyArticle article;
+    private static int testcount = 1;
+    private static int testPass = 0;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("\n =========== LAZY ARTICLE TEST ===========\n");
+        System.out.printf("Test Group # %d%n", testcount++);
+        decryptions = new AtomicInteger();
+        // The "ciphertext" is the plain text, the decryptor only counts how often it is called
+        String[] fields = { encode("Title"), encode("Author"), encode("Abstract"), encode("keyword"),
+                encode("Body"), encode("Reference") };
+        article = new LazyArticle(1, encode("0123456789abcdef"), fields, (cipherText, iv) -> {
+            decryptions.incrementAndGet();
+            return new String(cipherText, StandardCharsets.UTF_8).toCharArray();
+        }, "beginner", List.of("general"), "public", new Date(System.currentTimeMillis()), "1.0");
+    }
+
+    @AfterAll
+    static void afterAll() {
+        System.out.println("\n =========== LAZY ARTICLE TESTS COMPLETE ===========\n");
+        System.out.println("\nTOTAL TESTS: " + testPass + "\nTESTS PASSED: " + testPass + "\n");
+    }
+
+    private static String encode(String text) {
+        return Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFieldsDecryptedOnFirstRead() {
+        System.out.println("Testing Lazy Decryption");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 5\n");
+        assertEquals(0, decryptions.get());
+        assertEquals("Title", article.getTitle());
+        assertEquals("Title", article.getTitle());
+        assertEquals(1, decryptions.get(), "A field should only be decrypted once");
+        assertFalse(article.isBodyDecrypted());
+        assertEquals("Body", article.getBody());
+        testPass += 5;
+    }
+
+    @Test
+    void testCopySharesDecryptedFields() {
+        System.out.println("Testing Lazy Article Copy");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        Article copy = article.copy();
+        assertEquals("Abstract", copy.getAbstractText());
+        assertEquals("Abstract", article.getAbstractText());
+        assertEquals(1, decryptions.get(), "Copies should share decrypted fields");
+
+        copy.setTitle("Changed".toCharArray());
+        assertEquals("Title", article.getTitle(), "Setting a field on a copy must not change the original");
+        testPass += 4;
+    }
+
+    @Test
+    void testCompressedBodyInflatedOnlyWhenRead() {
+        System.out.println("Testing Lazy Inflation Of A Compressed Body");
+        System.out.println("\nTESTS IN THIS TEST GROUP: 4\n");
+        String body = "Open the help system and search for articles. ".repeat(100);
+        byte[] packed = ArticleEnvelope.pack(ArticleEnvelope.DEFAULT_COMPRESSION_THRESHOLD, "Title".toCharArray(), "Author".toCharArray(),
+                "Abstract".toCharArray(), "keyword".toCharArray(), body.toCharArray(), "Reference".toCharArray());
+        assertTrue(ArticleEnvelope.unpack(packed).isCompressed(ArticleEnvelope.BODY), "The body should be stored compressed");
+        // The "ciphertext" is the packed envelope, the decryptor only counts how often it is called
+        LazyArticle sealed = new LazyArticle(2, null, packed, null, (cipherText, iv) -> {
+            decryptions.incrementAndGet();
+            return ArticleEnvelope.unpack(cipherText);
+        }, "beginner", List.of("general"), "public", new Date(System.currentTimeMillis()), "1.0");
+
+        assertEquals("Title", sealed.getTitle());
+        assertFalse(sealed.isBodyDecrypted(), "Reading the title should not inflate the body");
+        assertEquals(body, sealed.getBody());
+        assertEquals(1, decryptions.get(), "The envelope should only be decrypted once");
+        testPass += 4;
+    }
+}